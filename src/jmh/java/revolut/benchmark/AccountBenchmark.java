@@ -0,0 +1,92 @@
+package revolut.benchmark;
+
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import revolut.model.Account;
+import revolut.model.Entry;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading balance and adding an entry depending on count of entries in account.
+ * Run with "-prof gc" to see allocations per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountBenchmark {
+    @Param({"10", "1000", "100000"})
+    private int entryCount;
+    private Account account;
+    private Entry credit;
+    private Entry debit;
+
+    @Setup
+    public void setUp() {
+        final List<Entry> entries = new ArrayList<>(entryCount);
+        for (int i = 0; i < entryCount; i++) {
+            entries.add(new Entry(Money.of(CurrencyUnit.USD, 1), ZonedDateTime.now()));
+        }
+        account = new Account(1L, CurrencyUnit.USD, null, entries);
+        credit = new Entry(Money.of(CurrencyUnit.USD, 10), ZonedDateTime.now());
+        debit = new Entry(Money.of(CurrencyUnit.USD, -10), ZonedDateTime.now());
+    }
+
+    @Benchmark
+    public Money getBalance() {
+        return account.getBalance();
+    }
+
+    @Benchmark
+    public long getBalanceMinor() {
+        return account.getBalanceMinor();
+    }
+
+    @Benchmark
+    public Money sumEntries() {
+        return account.sumEntries();
+    }
+
+    @Benchmark
+    public Account.FixerStatus checkEntry() {
+        account.getLock().lock();
+        try {
+            return account.checkEntry(debit).getStatus();
+        } finally {
+            account.getLock().unlock();
+        }
+    }
+
+    /**
+     * Pushes an entry and cancels it, so count of entries stays the same.
+     */
+    @Benchmark
+    public boolean pushAndCancel() {
+        account.getLock().lock();
+        try {
+            final Account.Fixer fixer = account.checkEntry(credit);
+            final boolean result = fixer.push();
+            fixer.cancel();
+            return result;
+        } finally {
+            account.getLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package revolut.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks index of account either uniformly or by Zipf distribution, where a few accounts get most of transactions.
+ */
+public class AccountSelector {
+    /* Cumulative probabilities, null for uniform selection. */
+    private final double[] distribution;
+    private final int count;
+
+    private AccountSelector(final int count, final double[] distribution) {
+        this.count = count;
+        this.distribution = distribution;
+    }
+
+    public static AccountSelector uniform(final int count) {
+        return new AccountSelector(count, null);
+    }
+
+    public static AccountSelector zipf(final int count, final double exponent) {
+        final double[] distribution = new double[count];
+        double sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += 1 / Math.pow(i + 1, exponent);
+            distribution[i] = sum;
+        }
+        for (int i = 0; i < count; i++) {
+            distribution[i] /= sum;
+        }
+        return new AccountSelector(count, distribution);
+    }
+
+    public static AccountSelector of(final String name, final int count) {
+        return "zipf".equals(name) ? zipf(count, 1.0) : uniform(count);
+    }
+
+    public int next() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (distribution == null) {
+            return random.nextInt(count);
+        }
+        final int index = Arrays.binarySearch(distribution, random.nextDouble());
+        return Math.min(index < 0 ? -index - 1 : index, count - 1);
+    }
+}
@@ -0,0 +1,118 @@
+package revolut.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import revolut.Application;
+import revolut.gateway.GatewayClient;
+import revolut.gateway.TcpGateway;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of transfers over loopback: PUT /transactions with JSON against binary gateway with a window of pipelined frames.
+ * Both go to the same server, so the difference is the cost of HTTP and JSON. Count of clients is set by "-t".
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GatewayBenchmark {
+    private static final int WINDOW = 64;
+    private static final int GATEWAY_PORT = 8081;
+    /* Accounts 1..6 have the same currency, transfers go around them, so balances stay. */
+    private static final int ACCOUNTS = 6;
+    private static final BigDecimal SUM = new BigDecimal("0.01");
+
+    @Setup
+    public void setUp() throws Exception {
+        System.setProperty(TcpGateway.PORT, String.valueOf(GATEWAY_PORT));
+        System.setProperty("revolut.transfer.queue", "100000");
+        Application.serverInitialization();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        Application.gateway.close();
+        Application.server.stop();
+    }
+
+    @Benchmark
+    public int rest(final Client client) throws IOException {
+        final long payer = client.nextPayer();
+        final HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:8080/api/v1/transactions").openConnection();
+        connection.setRequestMethod("PUT");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "application/json");
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(String.format("{\"sum\": %s, \"payerAccountId\": %d, \"payeeAccountId\": %d}", SUM, payer, payer % ACCOUNTS + 1)
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+        // The body is read to the end, so the connection is kept alive for the next request.
+        try (InputStream in = connection.getInputStream()) {
+            while (in.read(client.buffer) >= 0) {
+                // Nothing to do.
+            }
+        }
+        return connection.getResponseCode();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WINDOW)
+    public long gateway(final Client client) throws IOException {
+        for (int i = 0; i < WINDOW; i++) {
+            final long payer = client.nextPayer();
+            client.gateway.send(client.correlationId++, payer, payer % ACCOUNTS + 1, SUM);
+        }
+        client.gateway.flush();
+        long codes = 0;
+        for (int i = 0; i < WINDOW; i++) {
+            codes += client.gateway.receive().getCode();
+        }
+        return codes;
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+        private final byte[] buffer = new byte[4096];
+        private GatewayClient gateway;
+        private long correlationId;
+        private long payer;
+
+        /* The benchmark is a parameter, so the server is started before clients connect. */
+        @Setup(Level.Trial)
+        public void setUp(final GatewayBenchmark benchmark) throws IOException {
+            gateway = new GatewayClient(new InetSocketAddress("localhost", GATEWAY_PORT));
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            gateway.close();
+        }
+
+        private long nextPayer() {
+            payer = payer % ACCOUNTS + 1;
+            return payer;
+        }
+    }
+}
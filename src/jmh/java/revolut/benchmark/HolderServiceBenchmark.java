@@ -0,0 +1,63 @@
+package revolut.benchmark;
+
+import org.joda.money.CurrencyUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import revolut.model.Account;
+import revolut.model.Holder;
+import revolut.service.HolderService;
+import revolut.service.impl.HolderServiceImpl;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookup of account by id depending on count of holders, every holder has two accounts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HolderServiceBenchmark {
+    @Param({"10", "10000", "1000000"})
+    private int holderCount;
+    private HolderService holderService;
+
+    @Setup
+    public void setUp() {
+        final Map<Long, Holder> holders = new HashMap<>(holderCount * 2);
+        long accountId = 0;
+        for (long id = 1; id <= holderCount; id++) {
+            final Map<Long, Account> accounts = new HashMap<>();
+            for (int i = 0; i < 2; i++) {
+                accountId++;
+                accounts.put(accountId, new Account(accountId, CurrencyUnit.USD, null, null));
+            }
+            holders.put(id, new Holder(id, "Holder " + id, accounts));
+        }
+        holderService = new HolderServiceImpl(holders);
+    }
+
+    @Benchmark
+    public Account getAccountById() {
+        return holderService.getAccountById(ThreadLocalRandom.current().nextLong(1, holderCount * 2L + 1));
+    }
+
+    @Benchmark
+    public Holder getHolderById() {
+        return holderService.getHolderById(ThreadLocalRandom.current().nextLong(1, holderCount + 1L));
+    }
+}
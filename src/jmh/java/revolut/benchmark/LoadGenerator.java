@@ -0,0 +1,314 @@
+package revolut.benchmark;
+
+import com.google.gson.Gson;
+import revolut.Application;
+import revolut.config.Configuration;
+import revolut.jaxrs.GsonMessageBodyHandler;
+import revolut.metrics.LatencyHistogram;
+import revolut.metrics.MetricsRegistry;
+import revolut.model.AccountingTransaction;
+import revolut.provider.SyntheticDataGenerator;
+import revolut.server.ServerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * HTTP load generator: transfers by PUT /transactions and balance reads by GET /accounts/{id}/balance,
+ * where accounts are picked by Zipf distribution, so a few hot accounts get most of requests.
+ * <p>
+ * In closed loop every client sends the next request when the previous one is answered, so throughput is what the
+ * server gives. In open loop requests are due at the target rate regardless of answers and latency is measured from
+ * the moment a request was due, so a stalled server isn't hidden by clients waiting for it. The rate can't be higher
+ * than clients can keep in flight, a client which is late sends at once and the delay is counted in latency.
+ * </p>
+ * <p>
+ * A part of transfers goes in the opposite direction of the last transfer of any client, so the same pair of accounts
+ * is locked in both orders at the same time and PAYER_BUSY/PAYEE_BUSY rejections show contention.
+ * Without "url" the server is started in the same JVM on loopback with synthetic accounts of one currency.
+ * </p>
+ * Options are given as "name=value", see constants for names and defaults.
+ */
+public class LoadGenerator {
+    /* Base URL of API, the embedded server is started if it is empty. */
+    public static final String URL = "url";
+    /* "closed" or "open". */
+    public static final String MODE = "mode";
+    public static final String CLIENTS = "clients";
+    /* Target count of requests per second in open loop. */
+    public static final String RPS = "rps";
+    public static final String WARMUP = "warmup";
+    public static final String DURATION = "duration";
+    /* Accounts from 1 to the count are used, all of them must have the same currency. */
+    public static final String ACCOUNTS = "accounts";
+    /* Exponent of Zipf distribution, 0 for uniform selection. */
+    public static final String ZIPF = "zipf";
+    /* Part of reads among requests from 0 to 1. */
+    public static final String READS = "reads";
+    /* Part of transfers going in the opposite direction of the last one from 0 to 1. */
+    public static final String OPPOSITE = "opposite";
+    public static final String SUM = "sum";
+    private static final Gson GSON = GsonMessageBodyHandler.createGson();
+    private static final String HTTP = "HTTP ";
+    private static final String FAILED = "FAILED";
+    private final String url;
+    private final boolean open;
+    private final int clients;
+    private final int rps;
+    private final long warmupNanos;
+    private final long durationNanos;
+    private final AccountSelector selector;
+    private final double reads;
+    private final double opposite;
+    private final BigDecimal sum;
+    private final MetricsRegistry registry = new MetricsRegistry();
+    private final LatencyHistogram transferLatency = registry.histogram("transfer_latency", "Latency of transfers");
+    private final LatencyHistogram readLatency = registry.histogram("read_latency", "Latency of reads");
+    /* Count of answers by status of transfer, HTTP code or failure. */
+    private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+    /* The last transfer as {payer, payee}, it is shared by clients on purpose. */
+    private volatile long[] lastTransfer;
+    private long measureStart;
+    private long measureEnd;
+
+    public LoadGenerator(final Configuration configuration, final String url) {
+        this.url = url;
+        this.open = "open".equals(configuration.getString(MODE, "closed"));
+        this.clients = configuration.getInt(CLIENTS, 16);
+        this.rps = configuration.getInt(RPS, 1000);
+        this.warmupNanos = configuration.getDuration(WARMUP, Duration.ofSeconds(5)).toNanos();
+        this.durationNanos = configuration.getDuration(DURATION, Duration.ofSeconds(30)).toNanos();
+        final int accounts = configuration.getInt(ACCOUNTS, 10000);
+        final double exponent = Double.parseDouble(configuration.getString(ZIPF, "1.0"));
+        this.selector = exponent > 0 ? AccountSelector.zipf(accounts, exponent) : AccountSelector.uniform(accounts);
+        this.reads = Double.parseDouble(configuration.getString(READS, "0.2"));
+        this.opposite = Double.parseDouble(configuration.getString(OPPOSITE, "0.1"));
+        this.sum = new BigDecimal(configuration.getString(SUM, "0.01"));
+        if (clients < 1 || rps < 1 || accounts < 2 || durationNanos <= 0 || reads < 0 || reads > 1 || opposite < 0 || opposite > 1) {
+            throw new IllegalArgumentException("Clients and rate must be positive, at least two accounts, parts are from 0 to 1.");
+        }
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final Properties properties = new Properties();
+        for (final String arg : args) {
+            final int separator = arg.indexOf('=');
+            if (separator < 1) {
+                throw new IllegalArgumentException("Option must be name=value: " + arg);
+            }
+            properties.setProperty(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        final Configuration configuration = new Configuration(properties);
+        String url = configuration.getString(URL, "");
+        final boolean embedded = url.isEmpty();
+        if (embedded) {
+            url = startServer(configuration.getInt(ACCOUNTS, 10000));
+        }
+        // Connections above the limit aren't kept alive and every request would open a new one.
+        System.setProperty("http.maxConnections", String.valueOf(configuration.getInt(CLIENTS, 16)));
+        try {
+            new LoadGenerator(configuration, url).run();
+        } finally {
+            if (embedded) {
+                Application.server.stop();
+            }
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Starts the server on loopback with accounts from 1 to the count of the same currency, system properties
+     * given by "-D" take precedence.
+     *
+     * @return base URL of API.
+     */
+    private static String startServer(final int accounts) throws Exception {
+        System.setProperty(ServerFactory.HOST, System.getProperty(ServerFactory.HOST, "127.0.0.1"));
+        System.setProperty(SyntheticDataGenerator.GENERATOR, System.getProperty(SyntheticDataGenerator.GENERATOR, SyntheticDataGenerator.SYNTHETIC));
+        System.setProperty(SyntheticDataGenerator.HOLDERS, System.getProperty(SyntheticDataGenerator.HOLDERS, String.valueOf(accounts)));
+        System.setProperty(SyntheticDataGenerator.MIN_ACCOUNTS, System.getProperty(SyntheticDataGenerator.MIN_ACCOUNTS, "1"));
+        System.setProperty(SyntheticDataGenerator.MAX_ACCOUNTS, System.getProperty(SyntheticDataGenerator.MAX_ACCOUNTS, "1"));
+        System.setProperty(SyntheticDataGenerator.CURRENCIES, System.getProperty(SyntheticDataGenerator.CURRENCIES, "USD"));
+        // Hot accounts pay many times, so they start rich enough to never get BAD status.
+        System.setProperty(SyntheticDataGenerator.BALANCE_DISTRIBUTION, System.getProperty(SyntheticDataGenerator.BALANCE_DISTRIBUTION, "fixed"));
+        System.setProperty(SyntheticDataGenerator.BALANCE_MEAN, System.getProperty(SyntheticDataGenerator.BALANCE_MEAN, "1000000"));
+        Application.serverInitialization();
+        return String.format("http://%s:%s%s", System.getProperty(ServerFactory.HOST),
+                System.getProperty(ServerFactory.PORT, "8080"), Application.CONTEXT_PATH);
+    }
+
+    public void run() throws InterruptedException {
+        final long start = System.nanoTime();
+        measureStart = start + warmupNanos;
+        measureEnd = measureStart + durationNanos;
+        final List<Thread> threads = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            final int client = i;
+            final Thread thread = new Thread(() -> {
+                if (open) {
+                    openLoop(start, client);
+                } else {
+                    closedLoop();
+                }
+            }, "load-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        report();
+    }
+
+    private void closedLoop() {
+        long begin = System.nanoTime();
+        while (begin < measureEnd) {
+            send(begin);
+            begin = System.nanoTime();
+        }
+    }
+
+    /**
+     * Every client sends its share of the target rate, requests of clients are spread evenly in time.
+     */
+    private void openLoop(final long start, final int client) {
+        final long interval = TimeUnit.SECONDS.toNanos(clients) / rps;
+        long due = start + interval * client / clients;
+        while (due < measureEnd) {
+            final long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            send(due);
+            due += interval;
+        }
+    }
+
+    /**
+     * @param due the moment the request was due, latency is measured from it.
+     */
+    private void send(final long due) {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final boolean read = random.nextDouble() < reads;
+        String outcome;
+        try {
+            outcome = read ? read() : transfer(random);
+        } catch (IOException e) {
+            outcome = FAILED;
+        }
+        if (due >= measureStart) {
+            (read ? readLatency : transferLatency).record(System.nanoTime() - due);
+            outcomes.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+        }
+    }
+
+    private String read() throws IOException {
+        final Answer answer = exchange("GET", String.format("/accounts/%d/balance?asOf=%s", account(), Instant.now()), null);
+        return answer.code == HttpURLConnection.HTTP_OK ? "READ" : HTTP + answer.code;
+    }
+
+    private String transfer(final ThreadLocalRandom random) throws IOException {
+        final long[] last = lastTransfer;
+        long payer;
+        long payee;
+        if (last != null && random.nextDouble() < opposite) {
+            payer = last[1];
+            payee = last[0];
+        } else {
+            payer = account();
+            do {
+                payee = account();
+            } while (payee == payer);
+            lastTransfer = new long[]{payer, payee};
+        }
+        final Answer answer = exchange("PUT", "/transactions",
+                String.format("{\"sum\": %s, \"payerAccountId\": %d, \"payeeAccountId\": %d}", sum, payer, payee));
+        if (answer.code != HttpURLConnection.HTTP_OK) {
+            return HTTP + answer.code;
+        }
+        final AccountingTransaction.OverallStatus status = GSON.fromJson(answer.body, AccountingTransaction.OverallStatus.class);
+        return String.valueOf(status.getStatus());
+    }
+
+    private long account() {
+        return selector.next() + 1;
+    }
+
+    private Answer exchange(final String method, final String path, final String body) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) new URL(url + path).openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        final int code = connection.getResponseCode();
+        // The body is read to the end also for errors, so the connection is kept alive for the next request.
+        final InputStream stream = code < HttpURLConnection.HTTP_BAD_REQUEST ? connection.getInputStream() : connection.getErrorStream();
+        final ByteArrayOutputStream result = new ByteArrayOutputStream();
+        if (stream != null) {
+            try (InputStream in = stream) {
+                final byte[] buffer = new byte[4096];
+                int read;
+                while ((read = in.read(buffer)) >= 0) {
+                    result.write(buffer, 0, read);
+                }
+            }
+        }
+        return new Answer(code, result.toString(StandardCharsets.UTF_8.name()));
+    }
+
+    private void report() {
+        final double seconds = durationNanos / 1e9;
+        final long transfers = transferLatency.getCount();
+        final long total = transfers + readLatency.getCount();
+        final Map<String, Long> counts = new TreeMap<>();
+        outcomes.forEach((key, value) -> counts.put(key, value.sum()));
+        System.out.printf("Mode %s, %d clients%s, %s for %.0f s after warm-up%n", open ? "open" : "closed", clients,
+                open ? ", target " + rps + " req/s" : "", url, seconds);
+        System.out.printf("Throughput: %.1f req/s, %d requests, %d transfers%n", total / seconds, total, transfers);
+        print("Transfers", transferLatency);
+        print("Reads", readLatency);
+        final long payerBusy = counts.getOrDefault(AccountingTransaction.TransactionStatus.PAYER_BUSY.name(), 0L);
+        final long payeeBusy = counts.getOrDefault(AccountingTransaction.TransactionStatus.PAYEE_BUSY.name(), 0L);
+        System.out.printf("Busy rejections: %.3f%% of transfers (PAYER_BUSY %d, PAYEE_BUSY %d)%n",
+                transfers == 0 ? 0.0 : 100.0 * (payerBusy + payeeBusy) / transfers, payerBusy, payeeBusy);
+        System.out.printf("Outcomes: %s%n", counts);
+    }
+
+    private static void print(final String name, final LatencyHistogram histogram) {
+        System.out.printf("%s latency, ms: p50 %.3f, p99 %.3f, p999 %.3f, max %.3f%n", name,
+                histogram.valueAt(0.5) / 1e6, histogram.valueAt(0.99) / 1e6, histogram.valueAt(0.999) / 1e6, histogram.getMax() / 1e6);
+    }
+
+    private static final class Answer {
+        private final int code;
+        private final String body;
+
+        private Answer(final int code, final String body) {
+            this.code = code;
+            this.body = body;
+        }
+    }
+}
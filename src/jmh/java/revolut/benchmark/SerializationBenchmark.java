@@ -0,0 +1,116 @@
+package revolut.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializer;
+import com.google.gson.reflect.TypeToken;
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+import org.joda.money.format.MoneyFormatter;
+import org.joda.money.format.MoneyFormatterBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import revolut.jaxrs.GsonMessageBodyHandler;
+import revolut.model.Account;
+import revolut.model.AccountingTransaction;
+import revolut.model.Entry;
+import revolut.model.EntryStore;
+import revolut.model.Holder;
+import revolut.provider.DataProvider;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing of responses by {@link GsonMessageBodyHandler}.
+ * "tree" serializers are the former ones, which create formatters on every value, build JSON tree
+ * and write domain types by reflection; they are kept here as a baseline.
+ * Allocation per response is shown by GC profiler: -Djmh.args="SerializationBenchmark -prof gc".
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+    @Param({"adapters", "tree"})
+    private String serializers;
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+    private Gson gson;
+    private Map<Long, Holder> holders;
+    private AccountingTransaction.OverallStatus status;
+
+    @Setup
+    public void setUp() {
+        gson = "tree".equals(serializers) ? treeGson() : GsonMessageBodyHandler.createGson();
+        holders = DataProvider.generateHolders(100);
+        final Account payer = new Account(1L, CurrencyUnit.USD, Money.of(CurrencyUnit.USD, 100), null);
+        final Account payee = new Account(2L, CurrencyUnit.USD, Money.of(CurrencyUnit.USD, 100), null);
+        status = new AccountingTransaction(Money.of(CurrencyUnit.USD, 10), payer, payee, ZonedDateTime.now()).perform();
+    }
+
+    @Benchmark
+    public int writeHolders() throws IOException {
+        return write(holders, new TypeToken<Map<Long, Holder>>() {
+        }.getType());
+    }
+
+    @Benchmark
+    public int writeOverallStatus() throws IOException {
+        return write(status, AccountingTransaction.OverallStatus.class);
+    }
+
+    /**
+     * The same as {@link GsonMessageBodyHandler#writeTo} does.
+     */
+    private int write(final Object value, final Type type) throws IOException {
+        out.reset();
+        try (OutputStreamWriter writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+            gson.toJson(value, type, writer);
+        }
+        return out.size();
+    }
+
+    private static Gson treeGson() {
+        final GsonBuilder gsonBuilder = new GsonBuilder();
+        gsonBuilder.registerTypeAdapter(ZonedDateTime.class, (JsonSerializer<ZonedDateTime>) (date, type, context) ->
+                new JsonPrimitive(DateTimeFormatter.ofPattern("dd/MM/yyyy - HH:mm:ss Z").format(date)));
+        gsonBuilder.registerTypeAdapter(Money.class, (JsonSerializer<Money>) (money, type, context) -> {
+            final MoneyFormatter formatter = new MoneyFormatterBuilder()
+                    .appendCurrencySymbolLocalized()
+                    .appendLiteral(" ")
+                    .appendAmountLocalized()
+                    .toFormatter();
+            return new JsonPrimitive(formatter.print(money));
+        });
+        gsonBuilder.registerTypeAdapter(CurrencyUnit.class, (JsonSerializer<CurrencyUnit>) (currency, type, context) ->
+                new JsonPrimitive(currency.getCode()));
+        gsonBuilder.registerTypeHierarchyAdapter(EntryStore.class, (JsonSerializer<EntryStore>) (store, type, context) -> {
+            final JsonArray entries = new JsonArray();
+            for (final Entry entry : store.view()) {
+                entries.add(context.serialize(entry));
+            }
+            return entries;
+        });
+        return gsonBuilder.create();
+    }
+}
@@ -0,0 +1,60 @@
+package revolut.benchmark;
+
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import revolut.model.Account;
+import revolut.model.AccountingTransaction;
+
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of transfers between accounts. Count of threads is set by JMH option "-t",
+ * e.g. "-t 1", "-t 4", "-t max"; skewed selection shows contention on hot accounts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionBenchmark {
+    @Param({"1000"})
+    private int accountCount;
+    @Param({"uniform", "zipf"})
+    private String selection;
+    private Account[] accounts;
+    private AccountSelector selector;
+    private Money amount;
+
+    @Setup
+    public void setUp() {
+        accounts = new Account[accountCount];
+        for (int i = 0; i < accountCount; i++) {
+            accounts[i] = new Account((long) i + 1, CurrencyUnit.USD, Money.of(CurrencyUnit.USD, 1_000_000_000L), null);
+        }
+        selector = AccountSelector.of(selection, accountCount);
+        amount = Money.of(CurrencyUnit.USD, 1);
+    }
+
+    @Benchmark
+    public AccountingTransaction.OverallStatus perform() {
+        final int payer = selector.next();
+        int payee = selector.next();
+        if (payee == payer) {
+            payee = (payer + 1) % accountCount;
+        }
+        return new AccountingTransaction(amount, accounts[payer], accounts[payee], ZonedDateTime.now()).perform();
+    }
+}
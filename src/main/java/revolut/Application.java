@@ -9,33 +9,64 @@ import org.eclipse.jetty.servlet.ServletContextHandler;
 import org.eclipse.jetty.servlet.ServletHolder;
 import org.jboss.resteasy.plugins.guice.GuiceResteasyBootstrapServletContextListener;
 import org.jboss.resteasy.plugins.guice.ext.RequestScopeModule;
-import org.jboss.resteasy.plugins.server.servlet.HttpServletDispatcher;
+import org.jboss.resteasy.plugins.server.servlet.HttpServlet30Dispatcher;
+import revolut.config.Configuration;
+import revolut.engine.TransferExecutor;
+import revolut.gateway.TcpGateway;
 import revolut.jaxrs.GsonMessageBodyHandler;
+import revolut.jaxrs.MetricsFeature;
+import revolut.journal.FileJournal;
+import revolut.journal.Journal;
+import revolut.ledger.MappedLedger;
+import revolut.metrics.JettyMetrics;
+import revolut.metrics.JvmMetrics;
+import revolut.metrics.MetricsRegistry;
+import revolut.model.EntryStore;
+import revolut.model.HotAccounts;
+import revolut.recovery.Recovery;
 import revolut.jaxrs.mapper.WebApplicationExceptionMapper;
+import revolut.resource.AccountResource;
+import revolut.resource.AdminResource;
 import revolut.resource.HolderResource;
+import revolut.resource.MetricsResource;
 import revolut.resource.TransactionResource;
+import revolut.server.ServerFactory;
+import revolut.service.CheckpointService;
 import revolut.service.HolderService;
+import revolut.service.SnapshotService;
+import revolut.service.impl.CheckpointServiceImpl;
 import revolut.service.impl.HolderServiceImpl;
+import revolut.service.impl.SnapshotServiceImpl;
+import revolut.service.impl.TransactionServiceImpl;
 
 import javax.inject.Singleton;
 
 public class Application {
     public final static String CONTEXT_PATH = "/api/v1";
     public static Server server;
+    /* Binary transfer gateway, it is null if it isn't configured. */
+    public static TcpGateway gateway;
+    private static Injector injector;
 
     public static void serverInitialization() throws Exception {
-        Injector injector = Guice.createInjector(new InitModule());
+        injector = Guice.createInjector(new InitModule());
 
-        server = new Server(8080);
         ServletContextHandler servletHandler = new ServletContextHandler();
         servletHandler.addEventListener(injector.getInstance(GuiceResteasyBootstrapServletContextListener.class));
-        ServletHolder sh = new ServletHolder(HttpServletDispatcher.class);
+        // Asynchronous requests release Jetty threads only with Servlet 3.0 dispatcher.
+        ServletHolder sh = new ServletHolder(HttpServlet30Dispatcher.class);
+        sh.setAsyncSupported(true);
 
         //servletHandler.addServlet(DefaultServlet.class, "/*");
         servletHandler.addServlet(sh, "/*");
         servletHandler.setContextPath(CONTEXT_PATH);
-        server.setHandler(servletHandler);
+        server = ServerFactory.create(injector.getInstance(Configuration.class), servletHandler);
+        JvmMetrics.register(MetricsRegistry.DEFAULT);
+        JettyMetrics.register(MetricsRegistry.DEFAULT, server.getThreadPool());
         server.start();
+        injector.getInstance(CheckpointService.class).start();
+        injector.getInstance(SnapshotService.class).start();
+        gateway = TcpGateway.start(injector.getInstance(Configuration.class), injector.getInstance(TransactionServiceImpl.class));
     }
 
     public static void main(String[] args) throws Exception {
@@ -43,15 +74,75 @@ public class Application {
             serverInitialization();
             server.join();
         } finally {
+            if (gateway != null) {
+                gateway.close();
+            }
             server.destroy();
+            shutdown();
         }
     }
 
+    /**
+     * Stops everything that performs transactions, then closes journal, so every accepted transaction is written,
+     * and files of entries.
+     */
+    public static void shutdown() {
+        if (injector == null) {
+            return;
+        }
+        injector.getInstance(TransferExecutor.class).close();
+        injector.getInstance(CheckpointService.class).stop();
+        injector.getInstance(TransactionServiceImpl.class).close();
+        injector.getInstance(Journal.class).close();
+        injector.getInstance(EntryStore.Factory.class).close();
+        injector = null;
+    }
+
     private static class InitModule extends RequestScopeModule {
         @Provides
         @Singleton
-        public HolderService holderService() {
-            return new HolderServiceImpl();
+        public HolderService holderService(Configuration configuration, EntryStore.Factory storeFactory, HotAccounts hotAccounts) {
+            return new HolderServiceImpl(Recovery.recover(configuration, storeFactory), hotAccounts);
+        }
+
+        @Provides
+        @Singleton
+        public EntryStore.Factory storeFactory(Configuration configuration) {
+            return MappedLedger.of(configuration);
+        }
+
+        @Provides
+        @Singleton
+        public Configuration configuration() {
+            return Configuration.load();
+        }
+
+        @Provides
+        @Singleton
+        public SnapshotService snapshotService(HolderService holderService, Configuration configuration, Journal journal) {
+            return new SnapshotServiceImpl(holderService, configuration, journal);
+        }
+
+        @Provides
+        @Singleton
+        public Journal journal(Configuration configuration) {
+            return FileJournal.open(configuration);
+        }
+
+        @Provides
+        @Singleton
+        public TransferExecutor transferExecutor(Configuration configuration) {
+            final TransferExecutor executor = TransferExecutor.of(configuration);
+            MetricsRegistry.DEFAULT.gauge("revolut_transfers_running", "Transfers performed by transfer executor now.", executor::getRunning);
+            MetricsRegistry.DEFAULT.gauge("revolut_transfers_queued", "Transfers waiting for a thread of transfer executor.", executor::getQueued);
+            return executor;
+        }
+
+        @Provides
+        @Singleton
+        public CheckpointService checkpointService(HolderService holderService, Configuration configuration,
+                                                   EntryStore.Factory storeFactory, TransactionServiceImpl transactionService) {
+            return new CheckpointServiceImpl(holderService, configuration, storeFactory.archive(), transactionService.getAccountOwners());
         }
 
         @SuppressWarnings("PointlessBinding")
@@ -61,6 +152,10 @@ public class Application {
             bind(GsonMessageBodyHandler.class);
             bind(HolderResource.class);
             bind(TransactionResource.class);
+            bind(MetricsResource.class);
+            bind(AdminResource.class);
+            bind(AccountResource.class);
+            bind(MetricsFeature.class);
             bind(WebApplicationExceptionMapper.class);
             swagger();
         }
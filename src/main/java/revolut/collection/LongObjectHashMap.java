@@ -0,0 +1,201 @@
+package revolut.collection;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * Hash map with primitive long keys based on open addressing with linear probing,
+ * so lookups don't box keys and don't allocate.
+ * <p>
+ * Reading is lock free and can be done concurrently with writing.
+ * Writing methods are synchronized. Removed keys stay in the table as tombstones
+ * until the next resize, so readers never observe a key moving between slots.
+ * </p>
+ * Null values are not allowed.
+ */
+public class LongObjectHashMap<V> {
+    private static final VarHandle KEYS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(Object[].class);
+    private static final long EMPTY = 0L;
+    private static final int MIN_CAPACITY = 16;
+
+    private volatile Table table;
+    /* Key 0 marks an empty slot, so its value is kept separately. */
+    private volatile Object zeroValue;
+    private int size;
+    private int used;
+
+    public LongObjectHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public LongObjectHashMap(final int expectedSize) {
+        table = new Table(capacityFor(expectedSize));
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(final long key) {
+        if (key == EMPTY) {
+            return (V) zeroValue;
+        }
+        final Table t = table;
+        final int mask = t.keys.length - 1;
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            final long k = (long) KEYS.getAcquire(t.keys, i);
+            if (k == key) {
+                return (V) VALUES.getAcquire(t.values, i);
+            }
+            if (k == EMPTY) {
+                return null;
+            }
+        }
+    }
+
+    public boolean containsKey(final long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * @return previous value or null.
+     */
+    public synchronized V put(final long key, final V value) {
+        Objects.requireNonNull(value, "Value can't be null");
+        if (key == EMPTY) {
+            final V previous = get(EMPTY);
+            zeroValue = value;
+            if (previous == null) {
+                size++;
+            }
+            return previous;
+        }
+        if ((used + 1) * 2 > table.keys.length) {
+            resize();
+        }
+        final Table t = table;
+        final int mask = t.keys.length - 1;
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            final long k = t.keys[i];
+            if (k == key) {
+                @SuppressWarnings("unchecked") final V previous = (V) t.values[i];
+                VALUES.setRelease(t.values, i, value);
+                if (previous == null) {
+                    size++;
+                }
+                return previous;
+            }
+            if (k == EMPTY) {
+                // The value must be visible before the key for lock free readers.
+                VALUES.setRelease(t.values, i, value);
+                KEYS.setRelease(t.keys, i, key);
+                used++;
+                size++;
+                return null;
+            }
+        }
+    }
+
+    /**
+     * @return removed value or null.
+     */
+    public synchronized V remove(final long key) {
+        if (key == EMPTY) {
+            final V previous = get(EMPTY);
+            zeroValue = null;
+            if (previous != null) {
+                size--;
+            }
+            return previous;
+        }
+        final Table t = table;
+        final int mask = t.keys.length - 1;
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            final long k = t.keys[i];
+            if (k == key) {
+                @SuppressWarnings("unchecked") final V previous = (V) t.values[i];
+                VALUES.setRelease(t.values, i, null);
+                if (previous != null) {
+                    size--;
+                }
+                return previous;
+            }
+            if (k == EMPTY) {
+                return null;
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(final BiConsumer<Long, ? super V> consumer) {
+        final Object zero = zeroValue;
+        if (zero != null) {
+            consumer.accept(EMPTY, (V) zero);
+        }
+        final Table t = table;
+        for (int i = 0; i < t.keys.length; i++) {
+            final long k = (long) KEYS.getAcquire(t.keys, i);
+            if (k != EMPTY) {
+                final Object value = VALUES.getAcquire(t.values, i);
+                if (value != null) {
+                    consumer.accept(k, (V) value);
+                }
+            }
+        }
+    }
+
+    private void resize() {
+        final Table old = table;
+        final Table resized = new Table(capacityFor(Math.max(size, MIN_CAPACITY / 2) + 1));
+        final int mask = resized.keys.length - 1;
+        int count = 0;
+        for (int j = 0; j < old.keys.length; j++) {
+            final long k = old.keys[j];
+            if (k != EMPTY && old.values[j] != null) {
+                int i = hash(k) & mask;
+                while (resized.keys[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                resized.keys[i] = k;
+                resized.values[i] = old.values[j];
+                count++;
+            }
+        }
+        used = count;
+        table = resized;
+    }
+
+    /* Capacity is a power of two and keeps load factor below 0.5 with space for growth. */
+    private static int capacityFor(final int expectedSize) {
+        final int required = Math.max(MIN_CAPACITY, expectedSize * 4);
+        return Integer.highestOneBit(required - 1) << 1;
+    }
+
+    private static int hash(final long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    private static final class Table {
+        private final long[] keys;
+        private final Object[] values;
+
+        private Table(final int capacity) {
+            keys = new long[capacity];
+            values = new Object[capacity];
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package revolut.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Properties;
+
+/**
+ * Settings of the application.
+ * Values are read from "revolut.properties" in classpath and can be overridden by system properties
+ * with the same name, e.g. -Drevolut.checkpoint.enabled=true.
+ */
+public class Configuration {
+    public static final String RESOURCE_NAME = "/revolut.properties";
+    private static final Logger logger = LoggerFactory.getLogger(Configuration.class);
+    private final Properties properties;
+
+    public Configuration(final Properties properties) {
+        this.properties = new Properties();
+        this.properties.putAll(properties);
+    }
+
+    /**
+     * Loads properties from classpath resource and merges them with system properties.
+     *
+     * @return actual configuration.
+     */
+    public static Configuration load() {
+        final Properties properties = new Properties();
+        try (InputStream in = Configuration.class.getResourceAsStream(RESOURCE_NAME)) {
+            if (in != null) {
+                properties.load(in);
+            }
+        } catch (IOException e) {
+            logger.error("Could not read {}: {}", RESOURCE_NAME, e.getMessage());
+        }
+        properties.putAll(System.getProperties());
+        return new Configuration(properties);
+    }
+
+    public String getString(final String key, final String defaultValue) {
+        final String value = properties.getProperty(key);
+        return value == null || value.trim().isEmpty() ? defaultValue : value.trim();
+    }
+
+    public boolean getBoolean(final String key, final boolean defaultValue) {
+        final String value = getString(key, null);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+
+    public int getInt(final String key, final int defaultValue) {
+        final String value = getString(key, null);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    public long getLong(final String key, final long defaultValue) {
+        final String value = getString(key, null);
+        return value == null ? defaultValue : Long.parseLong(value);
+    }
+
+    /**
+     * Duration is written in ISO-8601 format, e.g. "PT10M" or "P30D".
+     */
+    public Duration getDuration(final String key, final Duration defaultValue) {
+        final String value = getString(key, null);
+        return value == null ? defaultValue : Duration.parse(value);
+    }
+}
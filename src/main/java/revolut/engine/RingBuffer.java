@@ -0,0 +1,120 @@
+package revolut.engine;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Bounded queue for many producers and a single consumer.
+ * All slots are created once, producers copy their data into a free slot and the consumer handles it in place,
+ * so passing a message doesn't allocate.
+ * <p>
+ * Every slot has a sequence number: it equals the position of the slot when the slot is free for a producer
+ * and the position plus one when the slot is published for the consumer.
+ * </p>
+ */
+public final class RingBuffer<E> {
+    private final Object[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    /* It is changed by the consumer thread only. */
+    private long head;
+
+    public RingBuffer(final int capacity, final Supplier<E> factory) {
+        Objects.requireNonNull(factory, "Factory can't be null");
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two.");
+        }
+        this.slots = new Object[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = factory.get();
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Fills a free slot by writer and publishes it.
+     *
+     * @return false if buffer is full.
+     */
+    public boolean offer(final Consumer<E> writer) {
+        return offer(RingBuffer::accept, writer, null);
+    }
+
+    /**
+     * Fills a free slot by translator with the given arguments and publishes it.
+     * A translator which doesn't capture anything is created once, so offering doesn't allocate.
+     *
+     * @return false if buffer is full.
+     */
+    @SuppressWarnings("unchecked")
+    public <A, B> boolean offer(final Translator<E, A, B> translator, final A first, final B second) {
+        while (true) {
+            final long position = tail.get();
+            final int index = (int) position & mask;
+            final long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    translator.translate((E) slots[index], first, second);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Handles published slots in order of publication. Must be called by the consumer thread only.
+     * A slot is given back to producers after handler returns, so handler must not keep the reference.
+     *
+     * @return count of handled slots.
+     */
+    @SuppressWarnings("unchecked")
+    public int drain(final Consumer<E> handler, final int limit) {
+        int count = 0;
+        while (count < limit) {
+            final int index = (int) head & mask;
+            if (sequences.get(index) != head + 1) {
+                break;
+            }
+            try {
+                handler.accept((E) slots[index]);
+            } finally {
+                sequences.set(index, head + slots.length);
+                head++;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Must be called by the consumer thread only.
+     */
+    public boolean isEmpty() {
+        return sequences.get((int) head & mask) != head + 1;
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    private static <E> void accept(final E slot, final Consumer<E> writer, final Object unused) {
+        writer.accept(slot);
+    }
+
+    /**
+     * Copies arguments into a slot.
+     */
+    @FunctionalInterface
+    public interface Translator<E, A, B> {
+        void translate(E slot, A first, B second);
+    }
+}
@@ -0,0 +1,486 @@
+package revolut.engine;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import revolut.model.Account;
+import revolut.model.AccountOwners;
+import revolut.model.AccountingTransaction;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Executes transactions by single writer threads instead of letting request threads compete for account locks.
+ * <p>
+ * Accounts are partitioned into shards by id. Every shard is owned by one thread fed through a {@link RingBuffer}.
+ * Only the owner changes accounts of its shard, so it changes them without locks, see {@link AccountOwners}.
+ * If payer and payee belong to the same shard, the owner performs the whole transaction.
+ * </p>
+ * <p>
+ * Otherwise the transaction is performed in two steps: the payer's owner takes money from payer
+ * ({@link AccountingTransaction#debit()}), then the payee's owner gives them to payee and commits transaction
+ * ({@link AccountingTransaction#credit()}), and if it fails the payer's owner returns money back
+ * ({@link AccountingTransaction#refund()}). Shards pass steps to each other through unbounded mailboxes,
+ * so owners never wait for each other. Between the steps money are in transit, they are still in the committed
+ * balance of payer, see {@link revolut.model.LedgerVersions}.
+ * </p>
+ * <p>
+ * Other changes of accounts, e.g. batches and checkpoints, are passed to owners too, see {@link #execute(Collection, Supplier)}.
+ * </p>
+ * On {@link #close()} transactions which aren't handled yet fail, and money in transit are returned to payers.
+ * If an owner gets an {@link Error}, the engine rejects new transactions and tasks, as accounts may be broken,
+ * but owners keep handling steps which are already passed to them.
+ */
+public class ShardedTransferEngine implements AccountOwners, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ShardedTransferEngine.class);
+    private static final int BATCH = 256;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final RingBuffer.Translator<TransferEvent, AccountingTransaction, CompletableFuture<AccountingTransaction.OverallStatus>> PUBLISH =
+            TransferEvent::set;
+    private final Shard[] shards;
+    /* Tasks of accounts of several shards pause their owners one by one, otherwise owners could wait for each other. */
+    private final Object pauses = new Object();
+    private volatile boolean running = true;
+    /* The first error thrown to an owner. */
+    private volatile Throwable failure;
+
+    public ShardedTransferEngine(final int shardCount, final int ringSize) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Count of shards must be positive.");
+        }
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i, ringSize);
+        }
+        for (final Shard shard : shards) {
+            shard.thread.start();
+        }
+        logger.info("Transfer engine started with {} shards.", shardCount);
+    }
+
+    /**
+     * Passes transaction to the owner of payer's account.
+     *
+     * @return future completed with the result of transaction.
+     */
+    public CompletableFuture<AccountingTransaction.OverallStatus> submit(final AccountingTransaction transaction) {
+        Objects.requireNonNull(transaction, "Transaction can't be null.");
+        final CompletableFuture<AccountingTransaction.OverallStatus> result = new CompletableFuture<>();
+        final Shard shard = shardOf(transaction.getPayer());
+        // close() waits for producers, so nothing is published after the ring is drained.
+        shard.producers.incrementAndGet();
+        try {
+            if (!running || failure != null) {
+                result.completeExceptionally(rejected());
+                return result;
+            }
+            final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Account.WAITING_INTERVAL);
+            while (!shard.ring.offer(PUBLISH, transaction, result)) {
+                if (System.nanoTime() > deadline) {
+                    // The shard is overloaded, it is reported in the same way as a busy account.
+                    final AccountingTransaction.OverallStatus status = new AccountingTransaction.OverallStatus();
+                    status.setStatus(AccountingTransaction.TransactionStatus.PAYER_BUSY);
+                    result.complete(status);
+                    return result;
+                }
+                Thread.yield();
+            }
+        } finally {
+            shard.producers.decrementAndGet();
+        }
+        shard.wakeUp();
+        return result;
+    }
+
+    /**
+     * Submits transaction and waits for result.
+     */
+    public AccountingTransaction.OverallStatus perform(final AccountingTransaction transaction) {
+        return submit(transaction).join();
+    }
+
+    /**
+     * Runs the task by the owner of accounts, see {@link AccountOwners}. Owners of several shards are paused together,
+     * so such tasks are run one by one. The task must not pass anything to owners and wait for it.
+     *
+     * @throws IllegalStateException if the engine is stopped.
+     */
+    @Override
+    public <T> T execute(final Collection<Account> accounts, final Supplier<T> task) {
+        Objects.requireNonNull(accounts, "Accounts can't be null.");
+        Objects.requireNonNull(task, "Task can't be null.");
+        final TreeSet<Integer> owners = new TreeSet<>();
+        accounts.forEach(account -> owners.add(shardIndexOf(account)));
+        if (owners.isEmpty()) {
+            return task.get();
+        }
+        if (owners.size() == 1) {
+            final Shard shard = shards[owners.first()];
+            if (Thread.currentThread() == shard.thread) {
+                return task.get();
+            }
+            final Task<T> message = new Task<>(task);
+            if (!post(shard, message)) {
+                throw rejected();
+            }
+            try {
+                return message.result.join();
+            } catch (CompletionException e) {
+                Throwables.throwIfUnchecked(e.getCause());
+                throw e;
+            }
+        }
+        synchronized (pauses) {
+            final Pause pause = new Pause(owners.size());
+            try {
+                for (final int index : owners) {
+                    if (!post(shards[index], pause)) {
+                        throw rejected();
+                    }
+                }
+                // Owners which are still running may be stopped by close() before they get the pause.
+                while (!Uninterruptibles.awaitUninterruptibly(pause.paused, IDLE_PARK_NANOS, TimeUnit.NANOSECONDS)) {
+                    if (!running) {
+                        throw stopped();
+                    }
+                }
+                return task.get();
+            } finally {
+                pause.resumed.countDown();
+            }
+        }
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+
+    int shardIndexOf(final Account account) {
+        return (int) Math.floorMod(account.getId(), (long) shards.length);
+    }
+
+    private Shard shardOf(final Account account) {
+        return shards[shardIndexOf(account)];
+    }
+
+    /**
+     * Passes message from outside of the engine to the owner of shard.
+     *
+     * @return false if the engine is stopped or failed.
+     */
+    private boolean post(final Shard shard, final Message message) {
+        // close() waits for producers, so nothing is posted after the mailbox is drained.
+        shard.producers.incrementAndGet();
+        try {
+            if (!running || failure != null) {
+                return false;
+            }
+            shard.post(message);
+            return true;
+        } finally {
+            shard.producers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Remembers the first error thrown to an owner, exceptions fail only their own transactions.
+     */
+    private void failed(final Throwable e) {
+        if (e instanceof Error && failure == null) {
+            failure = e;
+            logger.error("Transfer engine rejects new transactions after error.", e);
+        }
+    }
+
+    private IllegalStateException rejected() {
+        final Throwable error = failure;
+        return error != null && running ? new IllegalStateException("Transfer engine failed.", error) : stopped();
+    }
+
+    private static IllegalStateException stopped() {
+        return new IllegalStateException("Transfer engine is stopped.");
+    }
+
+    /**
+     * Fails transaction which wasn't handled before the engine stopped.
+     */
+    private static void reject(final TransferEvent event) {
+        final CompletableFuture<AccountingTransaction.OverallStatus> result = event.result;
+        event.set(null, null);
+        result.completeExceptionally(stopped());
+    }
+
+    /**
+     * Stops owners of shards, then fails transactions left in rings and returns money of transactions left in mailboxes
+     * to payers. The caller becomes the owner of all shards, so steps are handled in the same way as by owners.
+     * Tasks left in mailboxes fail.
+     */
+    @Override
+    public void close() {
+        running = false;
+        for (final Shard shard : shards) {
+            LockSupport.unpark(shard.thread);
+        }
+        try {
+            for (final Shard shard : shards) {
+                shard.thread.join();
+                while (shard.producers.get() != 0) {
+                    Thread.yield();
+                }
+            }
+        } catch (InterruptedException e) {
+            logger.error("Transfer engine is interrupted while stopping, pending transactions aren't drained.", e);
+            Thread.currentThread().interrupt();
+            return;
+        }
+        int pending = 0;
+        for (final Shard shard : shards) {
+            pending += shard.ring.drain(ShardedTransferEngine::reject, Integer.MAX_VALUE);
+        }
+        // Mailboxes are drained after rings, and the rest of steps are only refunds, so they don't post anything new.
+        for (final Shard shard : shards) {
+            Message message;
+            while ((message = shard.mailbox.poll()) != null) {
+                message.drain(shard);
+                pending++;
+            }
+        }
+        if (pending > 0) {
+            logger.warn("Transfer engine stopped with {} pending transactions.", pending);
+        }
+    }
+
+    /**
+     * Slot of ring buffer. It is reused, so the owner copies fields before handling.
+     */
+    private static final class TransferEvent {
+        private AccountingTransaction transaction;
+        private CompletableFuture<AccountingTransaction.OverallStatus> result;
+
+        private void set(final AccountingTransaction transaction, final CompletableFuture<AccountingTransaction.OverallStatus> result) {
+            this.transaction = transaction;
+            this.result = result;
+        }
+    }
+
+    /**
+     * Message passed to the owner of shard through its mailbox.
+     */
+    private interface Message {
+        void handle(Shard owner);
+
+        /**
+         * Is called by {@link #close()} if the owner is stopped before the message is handled.
+         */
+        void drain(Shard owner);
+    }
+
+    /**
+     * Step of transaction performed in two steps: credit of payee or refund of payer.
+     * A refund has the failure of credit, if credit failed with exception.
+     */
+    private static final class Step implements Message {
+        private final AccountingTransaction transaction;
+        private final CompletableFuture<AccountingTransaction.OverallStatus> result;
+        private final boolean credit;
+        private final Throwable failure;
+
+        private Step(final AccountingTransaction transaction, final CompletableFuture<AccountingTransaction.OverallStatus> result,
+                     final boolean credit, final Throwable failure) {
+            this.transaction = transaction;
+            this.result = result;
+            this.credit = credit;
+            this.failure = failure;
+        }
+
+        @Override
+        public void handle(final Shard owner) {
+            if (credit) {
+                owner.credit(this);
+            } else {
+                owner.refund(this);
+            }
+        }
+
+        @Override
+        public void drain(final Shard owner) {
+            owner.refund(new Step(transaction, result, false, failure != null ? failure : stopped()));
+        }
+    }
+
+    /**
+     * Task run by the owner of accounts, see {@link #execute(Collection, Supplier)}.
+     */
+    private static final class Task<T> implements Message {
+        private final Supplier<T> task;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private Task(final Supplier<T> task) {
+            this.task = task;
+        }
+
+        @Override
+        public void handle(final Shard owner) {
+            try {
+                result.complete(task.get());
+            } catch (Throwable e) {
+                owner.failed(e);
+                result.completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public void drain(final Shard owner) {
+            result.completeExceptionally(stopped());
+        }
+    }
+
+    /**
+     * Owners of several shards wait while the caller of {@link #execute(Collection, Supplier)} runs the task.
+     */
+    private static final class Pause implements Message {
+        private final CountDownLatch paused;
+        private final CountDownLatch resumed = new CountDownLatch(1);
+
+        private Pause(final int owners) {
+            this.paused = new CountDownLatch(owners);
+        }
+
+        @Override
+        public void handle(final Shard owner) {
+            paused.countDown();
+            Uninterruptibles.awaitUninterruptibly(resumed);
+        }
+
+        @Override
+        public void drain(final Shard owner) {
+            // The caller has already given up.
+        }
+    }
+
+    private final class Shard implements Runnable {
+        private final RingBuffer<TransferEvent> ring;
+        /* Steps of two-step transactions passed by other shards and tasks of accounts. */
+        private final Queue<Message> mailbox = new ConcurrentLinkedQueue<>();
+        /* Count of producers which are publishing into the ring now. */
+        private final AtomicInteger producers = new AtomicInteger();
+        private final Thread thread;
+        private final int index;
+        private volatile boolean sleeping;
+
+        private Shard(final int index, final int ringSize) {
+            this.index = index;
+            this.ring = new RingBuffer<>(ringSize, TransferEvent::new);
+            this.thread = new Thread(this, "transfer-shard-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        private void wakeUp() {
+            if (sleeping) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        private void post(final Message message) {
+            mailbox.offer(message);
+            wakeUp();
+        }
+
+        private void failed(final Throwable e) {
+            ShardedTransferEngine.this.failed(e);
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                int handled = 0;
+                Message message;
+                // Messages left on stop are handled by close().
+                while (handled < BATCH && running && (message = mailbox.poll()) != null) {
+                    message.handle(this);
+                    handled++;
+                }
+                handled += ring.drain(this::handle, BATCH);
+                if (handled == 0) {
+                    sleeping = true;
+                    if (mailbox.isEmpty() && ring.isEmpty()) {
+                        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    }
+                    sleeping = false;
+                }
+            }
+        }
+
+        private void handle(final TransferEvent event) {
+            final AccountingTransaction transaction = event.transaction;
+            final CompletableFuture<AccountingTransaction.OverallStatus> result = event.result;
+            event.set(null, null);
+            try {
+                final Shard payeeShard = shardOf(transaction.getPayee());
+                if (payeeShard == this) {
+                    result.complete(transaction.performOwned());
+                } else if (transaction.debit()) {
+                    payeeShard.post(new Step(transaction, result, true, null));
+                } else {
+                    result.complete(transaction.getOverallStatus());
+                }
+            } catch (Throwable e) {
+                logger.error("Shard {} failed to handle transaction: {}", index, e.getMessage(), e);
+                failed(e);
+                // Debit which failed after money were taken is a refund.
+                refund(new Step(transaction, result, false, e));
+            }
+        }
+
+        private void credit(final Step step) {
+            final AccountingTransaction transaction = step.transaction;
+            try {
+                if (transaction.credit()) {
+                    step.result.complete(transaction.getOverallStatus());
+                    return;
+                }
+            } catch (Throwable e) {
+                logger.error("Shard {} failed to credit payee: {}", index, e.getMessage(), e);
+                failed(e);
+                shardOf(transaction.getPayer()).post(new Step(transaction, step.result, false, e));
+                return;
+            }
+            shardOf(transaction.getPayer()).post(new Step(transaction, step.result, false, null));
+        }
+
+        /**
+         * Returns money in transit to payer if there are any and completes transaction.
+         */
+        private void refund(final Step step) {
+            try {
+                step.transaction.refund();
+            } catch (Throwable e) {
+                logger.error("Shard {} failed to refund payer: {}", index, e.getMessage(), e);
+                failed(e);
+                step.result.completeExceptionally(e);
+                return;
+            }
+            if (step.failure != null) {
+                step.result.completeExceptionally(step.failure);
+            } else {
+                step.result.complete(step.transaction.getOverallStatus());
+            }
+        }
+    }
+}
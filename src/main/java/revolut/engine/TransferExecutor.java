@@ -0,0 +1,126 @@
+package revolut.engine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import revolut.config.Configuration;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded executor of transfers, so request threads don't wait for account locks.
+ * <p>
+ * At most "threads" transfers run at once and at most "queue" transfers wait for a thread,
+ * further transfers are rejected with {@link RejectedExecutionException} at once.
+ * In "virtual" mode every transfer gets its own virtual thread, it needs JDK 21 or newer,
+ * and count of running plus waiting transfers is bounded in the same way.
+ * </p>
+ */
+public class TransferExecutor implements Executor, AutoCloseable {
+    public static final String MODE = "revolut.transfer.executor";
+    public static final String THREADS = "revolut.transfer.threads";
+    public static final String QUEUE = "revolut.transfer.queue";
+    public static final String VIRTUAL_MODE = "virtual";
+    public static final int DEFAULT_QUEUE = 1024;
+    private static final Logger logger = LoggerFactory.getLogger(TransferExecutor.class);
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final int capacity;
+    private final AtomicInteger running = new AtomicInteger();
+
+    public TransferExecutor(final int threads, final int queue, final boolean virtual) {
+        if (threads < 1 || queue < 0) {
+            throw new IllegalArgumentException("Count of threads must be positive and size of queue can't be negative.");
+        }
+        this.capacity = threads + queue;
+        this.permits = new Semaphore(capacity);
+        this.executor = virtual ? virtualThreadExecutor() : platformThreadExecutor(threads);
+        logger.info("Transfer executor started with {} {} threads and queue of {}.", threads, virtual ? "virtual" : "platform", queue);
+    }
+
+    public static TransferExecutor of(final Configuration configuration) {
+        return new TransferExecutor(
+                configuration.getInt(THREADS, 2 * Runtime.getRuntime().availableProcessors()),
+                configuration.getInt(QUEUE, DEFAULT_QUEUE),
+                VIRTUAL_MODE.equalsIgnoreCase(configuration.getString(MODE, "")));
+    }
+
+    @Override
+    public void execute(final Runnable task) {
+        if (!permits.tryAcquire()) {
+            throw new RejectedExecutionException("Too many transfers are waiting.");
+        }
+        try {
+            executor.execute(() -> {
+                running.incrementAndGet();
+                try {
+                    task.run();
+                } finally {
+                    running.decrementAndGet();
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * @return count of transfers which are running now.
+     */
+    public int getRunning() {
+        return running.get();
+    }
+
+    /**
+     * @return count of transfers which wait for a thread.
+     */
+    public int getQueued() {
+        return Math.max(0, capacity - permits.availablePermits() - running.get());
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ExecutorService platformThreadExecutor(final int threads) {
+        final AtomicInteger counter = new AtomicInteger();
+        // The queue isn't bounded itself, because permits bound it.
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), task -> {
+            final Thread thread = new Thread(task, "transfer-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * The project is built for older JDKs, so virtual threads are looked up on runtime.
+     */
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) MethodHandles.publicLookup()
+                    .findStatic(java.util.concurrent.Executors.class, "newVirtualThreadPerTaskExecutor",
+                            MethodType.methodType(ExecutorService.class))
+                    .invoke();
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException("Virtual threads need JDK 21 or newer.", e);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Virtual thread executor can't be created.", e);
+        }
+    }
+}
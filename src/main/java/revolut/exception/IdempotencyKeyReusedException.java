@@ -0,0 +1,10 @@
+package revolut.exception;
+
+/**
+ * The same idempotency key is sent with a different request.
+ */
+public class IdempotencyKeyReusedException extends IllegalArgumentException {
+    public IdempotencyKeyReusedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,80 @@
+package revolut.gateway;
+
+import lombok.Data;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Blocking client of {@link TcpGateway}. Requests are buffered and sent by {@link #flush()},
+ * so many of them go in one packet. It isn't thread safe.
+ * <p>
+ * The gateway stops reading while a connection has too many transfers in flight,
+ * so a client sending more than that should read responses in between.
+ * </p>
+ */
+public class GatewayClient implements AutoCloseable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private final SocketChannel channel;
+    private final ByteBuffer output = ByteBuffer.allocate(BUFFER_SIZE);
+    private final ByteBuffer input = ByteBuffer.allocate(BUFFER_SIZE);
+
+    public GatewayClient(final InetSocketAddress address) throws IOException {
+        this.channel = SocketChannel.open(address);
+        channel.socket().setTcpNoDelay(true);
+        input.flip();
+    }
+
+    /**
+     * @throws IllegalArgumentException if sum can't be encoded, see {@link GatewayProtocol#writeRequest}.
+     */
+    public void send(final long correlationId, final long payerAccountId, final long payeeAccountId, final BigDecimal sum) throws IOException {
+        if (output.remaining() < GatewayProtocol.REQUEST_FRAME_SIZE) {
+            flush();
+        }
+        GatewayProtocol.writeRequest(output, correlationId, payerAccountId, payeeAccountId, sum);
+    }
+
+    public void flush() throws IOException {
+        output.flip();
+        while (output.hasRemaining()) {
+            channel.write(output);
+        }
+        output.clear();
+    }
+
+    /**
+     * Waits for the next response.
+     */
+    public Response receive() throws IOException {
+        while (input.remaining() < GatewayProtocol.RESPONSE_FRAME_SIZE) {
+            input.compact();
+            final int read = channel.read(input);
+            input.flip();
+            if (read < 0) {
+                throw new EOFException("Gateway closed connection.");
+            }
+        }
+        final int length = input.getInt();
+        if (length != GatewayProtocol.RESPONSE_LENGTH) {
+            throw new IOException("Unexpected frame of " + length + " bytes.");
+        }
+        return new Response(input.getLong(), input.get());
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    @Data
+    public static class Response {
+        private final long correlationId;
+        /* One of codes of GatewayProtocol. */
+        private final byte code;
+    }
+}
@@ -0,0 +1,107 @@
+package revolut.gateway;
+
+import revolut.model.AccountingTransaction;
+import revolut.request.TransactionRequest;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Frames of binary transfer gateway. Every frame starts with its length in bytes without the length itself,
+ * numbers are big-endian.
+ * <pre>
+ * request:  int length = 33, long correlation id, long payer account id, long payee account id,
+ *           long unscaled sum, byte scale of sum from 0 to {@link #MAX_SCALE}
+ * response: int length = 9, long correlation id, byte result code
+ * </pre>
+ * Correlation id is chosen by the client. Requests of one connection are performed concurrently,
+ * so responses may come in a different order and are matched by correlation id.
+ */
+public final class GatewayProtocol {
+    public static final int REQUEST_LENGTH = 33;
+    public static final int RESPONSE_LENGTH = 9;
+    public static final int REQUEST_FRAME_SIZE = Integer.BYTES + REQUEST_LENGTH;
+    public static final int RESPONSE_FRAME_SIZE = Integer.BYTES + RESPONSE_LENGTH;
+    public static final int MAX_SCALE = Byte.MAX_VALUE;
+
+    public static final byte OK = 0;
+    public static final byte BAD = 1;
+    public static final byte PAYER_BUSY = 2;
+    public static final byte PAYEE_BUSY = 3;
+    public static final byte ROLLED_BACK = 4;
+    /* The request is invalid, e.g. an account isn't found or currencies differ. */
+    public static final byte INVALID = 16;
+    /* Transfer executor is full, the request may be sent again later. */
+    public static final byte REJECTED = 17;
+    public static final byte ERROR = 18;
+
+    private GatewayProtocol() {
+    }
+
+    /**
+     * Sum with negative scale is written with scale 0. Nothing is written if sum can't be encoded.
+     *
+     * @throws IllegalArgumentException if scale of sum is above {@link #MAX_SCALE} or unscaled sum doesn't fit into long.
+     */
+    public static void writeRequest(final ByteBuffer buffer, final long correlationId, final long payerAccountId,
+                                    final long payeeAccountId, final BigDecimal sum) {
+        Objects.requireNonNull(sum, "Sum can't be null.");
+        final BigDecimal scaled = sum.scale() < 0 ? sum.setScale(0) : sum;
+        if (scaled.scale() > MAX_SCALE) {
+            throw new IllegalArgumentException(String.format("Scale of sum can't be above %d: %s", MAX_SCALE, sum));
+        }
+        if (scaled.unscaledValue().bitLength() >= Long.SIZE) {
+            throw new IllegalArgumentException("Unscaled sum doesn't fit into long: " + sum);
+        }
+        buffer.putInt(REQUEST_LENGTH);
+        buffer.putLong(correlationId);
+        buffer.putLong(payerAccountId);
+        buffer.putLong(payeeAccountId);
+        buffer.putLong(scaled.unscaledValue().longValue());
+        buffer.put((byte) scaled.scale());
+    }
+
+    /**
+     * Reads body of request frame, the length is already read. Request is created directly without reflection.
+     *
+     * @return request or null if scale of sum is negative, then the request is answered with {@link #INVALID}.
+     */
+    public static TransactionRequest readRequest(final ByteBuffer buffer) {
+        final long payerAccountId = buffer.getLong();
+        final long payeeAccountId = buffer.getLong();
+        final long unscaled = buffer.getLong();
+        final byte scale = buffer.get();
+        if (scale < 0) {
+            return null;
+        }
+        final TransactionRequest request = new TransactionRequest();
+        request.setPayerAccountId(payerAccountId);
+        request.setPayeeAccountId(payeeAccountId);
+        request.setSum(BigDecimal.valueOf(unscaled, scale));
+        return request;
+    }
+
+    public static void writeResponse(final ByteBuffer buffer, final long correlationId, final byte code) {
+        buffer.putInt(RESPONSE_LENGTH);
+        buffer.putLong(correlationId);
+        buffer.put(code);
+    }
+
+    public static byte codeOf(final AccountingTransaction.TransactionStatus status) {
+        switch (status) {
+            case OK:
+                return OK;
+            case BAD:
+                return BAD;
+            case PAYER_BUSY:
+                return PAYER_BUSY;
+            case PAYEE_BUSY:
+                return PAYEE_BUSY;
+            case ROLLED_BACK:
+                return ROLLED_BACK;
+            default:
+                return ERROR;
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package revolut.gateway;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import revolut.config.Configuration;
+import revolut.metrics.Counter;
+import revolut.metrics.MetricsRegistry;
+import revolut.request.TransactionRequest;
+import revolut.service.TransactionService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Accepts transfers as binary frames of {@link GatewayProtocol} over TCP, it skips HTTP and JSON for internal clients.
+ * <p>
+ * All sockets are served by a single selector thread. Decoded requests are passed to
+ * {@link TransactionService#performAsync}, so a client may send many frames without waiting for responses.
+ * Results are collected by connections and written by the selector thread when it is woken up.
+ * If a connection has too many transfers in flight, its frames aren't read until some of them complete.
+ * </p>
+ */
+public class TcpGateway implements AutoCloseable {
+    public static final String PORT = "revolut.gateway.port";
+    public static final String HOST = "revolut.gateway.host";
+    public static final String MAX_IN_FLIGHT = "revolut.gateway.max-in-flight";
+    public static final int DEFAULT_MAX_IN_FLIGHT = 1024;
+    private static final Logger logger = LoggerFactory.getLogger(TcpGateway.class);
+    private static final Counter frames = MetricsRegistry.DEFAULT.counter("revolut_gateway_frames_total", "Transfer frames received by binary gateway.");
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private final TransactionService transactionService;
+    private final int maxInFlight;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    /* Connections with new results, they are flushed by the selector thread. */
+    private final Queue<Connection> pending = new ConcurrentLinkedQueue<>();
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    public TcpGateway(final InetSocketAddress address, final TransactionService transactionService, final int maxInFlight) throws IOException {
+        Objects.requireNonNull(address, "Address can't be null.");
+        this.transactionService = Objects.requireNonNull(transactionService, "Transaction service can't be null.");
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("Count of transfers in flight must be positive.");
+        }
+        this.maxInFlight = maxInFlight;
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        this.thread = new Thread(this::run, "gateway");
+        thread.setDaemon(true);
+        thread.start();
+        logger.info("Gateway listens on {}.", serverChannel.getLocalAddress());
+    }
+
+    /**
+     * Starts gateway if its port is configured.
+     *
+     * @return started gateway or null.
+     */
+    public static TcpGateway start(final Configuration configuration, final TransactionService transactionService) {
+        final int port = configuration.getInt(PORT, -1);
+        if (port < 0) {
+            return null;
+        }
+        final String host = configuration.getString(HOST, null);
+        try {
+            return new TcpGateway(host == null ? new InetSocketAddress(port) : new InetSocketAddress(host, port),
+                    transactionService, configuration.getInt(MAX_IN_FLIGHT, DEFAULT_MAX_IN_FLIGHT));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start gateway on port " + port, e);
+        }
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                selector.select();
+                Connection connection;
+                while ((connection = pending.poll()) != null) {
+                    // Results which come after this point schedule the connection again.
+                    connection.scheduled.set(false);
+                    connection.handle(false);
+                }
+                final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    final SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        ((Connection) key.attachment()).handle(key.isReadable());
+                    }
+                }
+            } catch (IOException e) {
+                logger.error("Gateway failed: {}", e.getMessage(), e);
+            }
+        }
+        for (final SelectionKey key : selector.keys()) {
+            closeQuietly(key);
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            logger.warn("Could not close selector: {}", e.getMessage());
+        }
+    }
+
+    private void accept() throws IOException {
+        final SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        final Connection connection = new Connection(channel);
+        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+    }
+
+    private static void closeQuietly(final SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            logger.warn("Could not close channel: {}", e.getMessage());
+        }
+    }
+
+    private static byte codeOf(final Throwable error) {
+        final Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof RejectedExecutionException) {
+            return GatewayProtocol.REJECTED;
+        }
+        if (cause instanceof NullPointerException || cause instanceof IllegalArgumentException) {
+            return GatewayProtocol.INVALID;
+        }
+        logger.error("Gateway transfer failed: {}", cause.getMessage(), cause);
+        return GatewayProtocol.ERROR;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Completion {
+        private final long correlationId;
+        private final byte code;
+
+        private Completion(final long correlationId, final byte code) {
+            this.correlationId = correlationId;
+            this.code = code;
+        }
+    }
+
+    private final class Connection {
+        private final SocketChannel channel;
+        private final ByteBuffer input = ByteBuffer.allocate(BUFFER_SIZE);
+        private final ByteBuffer output = ByteBuffer.allocate(BUFFER_SIZE);
+        private final Queue<Completion> completed = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private SelectionKey key;
+        /* Changed only by the selector thread. */
+        private int inFlight;
+
+        private Connection(final SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        private void handle(final boolean readable) {
+            if (!key.isValid()) {
+                return;
+            }
+            try {
+                if (readable && channel.read(input) < 0) {
+                    closeQuietly(key);
+                    return;
+                }
+                flush();
+                if (decode()) {
+                    flush();
+                    // Frames aren't read while too many transfers are in flight, so a fast client can't exhaust memory.
+                    key.interestOps((inFlight < maxInFlight ? SelectionKey.OP_READ : 0)
+                            | (output.position() > 0 || !completed.isEmpty() ? SelectionKey.OP_WRITE : 0));
+                }
+            } catch (IOException e) {
+                logger.debug("Gateway connection is closed: {}", e.getMessage());
+                closeQuietly(key);
+            }
+        }
+
+        /**
+         * @return false if connection is closed because of broken frame.
+         */
+        private boolean decode() throws IOException {
+            input.flip();
+            try {
+                while (input.remaining() >= Integer.BYTES && inFlight < maxInFlight) {
+                    final int length = input.getInt(input.position());
+                    if (length != GatewayProtocol.REQUEST_LENGTH) {
+                        logger.warn("Gateway connection {} sent frame of {} bytes, it is closed.", channel.getRemoteAddress(), length);
+                        closeQuietly(key);
+                        return false;
+                    }
+                    if (input.remaining() < GatewayProtocol.REQUEST_FRAME_SIZE) {
+                        break;
+                    }
+                    input.getInt();
+                    final long correlationId = input.getLong();
+                    dispatch(correlationId, GatewayProtocol.readRequest(input));
+                }
+            } finally {
+                input.compact();
+            }
+            return true;
+        }
+
+        private void dispatch(final long correlationId, final TransactionRequest request) {
+            inFlight++;
+            frames.increment();
+            if (request == null) {
+                complete(correlationId, GatewayProtocol.INVALID);
+                return;
+            }
+            transactionService.performAsync(request, null).whenComplete((status, error) ->
+                    complete(correlationId, error == null ? GatewayProtocol.codeOf(status.getStatus()) : codeOf(error)));
+        }
+
+        private void complete(final long correlationId, final byte code) {
+            completed.offer(new Completion(correlationId, code));
+            if (scheduled.compareAndSet(false, true)) {
+                pending.offer(this);
+                selector.wakeup();
+            }
+        }
+
+        private void flush() throws IOException {
+            Completion completion;
+            while (output.remaining() >= GatewayProtocol.RESPONSE_FRAME_SIZE && (completion = completed.poll()) != null) {
+                GatewayProtocol.writeResponse(output, completion.correlationId, completion.code);
+                inFlight--;
+            }
+            output.flip();
+            try {
+                channel.write(output);
+            } finally {
+                output.compact();
+            }
+        }
+    }
+}
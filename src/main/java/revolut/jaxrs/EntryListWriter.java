@@ -0,0 +1,35 @@
+package revolut.jaxrs;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import revolut.model.Entry;
+
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Writes entries as JSON array one by one in the same form as {@link GsonMessageBodyHandler} writes them.
+ */
+public class EntryListWriter implements StreamingOutput {
+    private static final Gson GSON = GsonMessageBodyHandler.createGson();
+    private final Iterable<Entry> entries;
+
+    public EntryListWriter(final Iterable<Entry> entries) {
+        this.entries = Objects.requireNonNull(entries, "Entries can't be null");
+    }
+
+    @Override
+    public void write(final OutputStream output) throws IOException {
+        final JsonWriter writer = new JsonWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        writer.beginArray();
+        for (final Entry entry : entries) {
+            GSON.toJson(entry, Entry.class, writer);
+        }
+        writer.endArray();
+        writer.flush();
+    }
+}
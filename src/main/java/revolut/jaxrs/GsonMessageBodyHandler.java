@@ -4,9 +4,17 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import org.joda.money.CurrencyUnit;
 import org.joda.money.Money;
-import revolut.serializer.CurrencySerializer;
-import revolut.serializer.MoneySerializer;
-import revolut.serializer.ZonedDateTimeSerializer;
+import revolut.model.Account;
+import revolut.model.AccountingTransaction;
+import revolut.model.Entry;
+import revolut.model.Holder;
+import revolut.serializer.AccountTypeAdapter;
+import revolut.serializer.CurrencyTypeAdapter;
+import revolut.serializer.EntryTypeAdapter;
+import revolut.serializer.HolderTypeAdapter;
+import revolut.serializer.MoneyTypeAdapter;
+import revolut.serializer.OverallStatusTypeAdapter;
+import revolut.serializer.ZonedDateTimeTypeAdapter;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -21,6 +29,7 @@ import javax.ws.rs.Consumes;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.ext.MessageBodyReader;
 import javax.ws.rs.ext.MessageBodyWriter;
 import javax.ws.rs.ext.Provider;
@@ -32,13 +41,29 @@ public final class GsonMessageBodyHandler implements MessageBodyWriter<Object>,
     private static final String UTF_8 = "UTF-8";
     private Gson gson;
 
+    /**
+     * Creates Gson with serializers of the application, it is used by streaming writers too.
+     */
+    public static Gson createGson() {
+        final MoneyTypeAdapter moneyAdapter = new MoneyTypeAdapter();
+        final ZonedDateTimeTypeAdapter dateAdapter = new ZonedDateTimeTypeAdapter();
+        final CurrencyTypeAdapter currencyAdapter = new CurrencyTypeAdapter();
+        final EntryTypeAdapter entryAdapter = new EntryTypeAdapter(moneyAdapter, dateAdapter);
+        final AccountTypeAdapter accountAdapter = new AccountTypeAdapter(entryAdapter, moneyAdapter, currencyAdapter);
+        final GsonBuilder gsonBuilder = new GsonBuilder();
+        gsonBuilder.registerTypeAdapter(ZonedDateTime.class, dateAdapter.nullSafe());
+        gsonBuilder.registerTypeAdapter(Money.class, moneyAdapter.nullSafe());
+        gsonBuilder.registerTypeAdapter(CurrencyUnit.class, currencyAdapter.nullSafe());
+        gsonBuilder.registerTypeAdapter(Entry.class, entryAdapter.nullSafe());
+        gsonBuilder.registerTypeAdapter(Account.class, accountAdapter.nullSafe());
+        gsonBuilder.registerTypeAdapter(Holder.class, new HolderTypeAdapter(accountAdapter).nullSafe());
+        gsonBuilder.registerTypeAdapter(AccountingTransaction.OverallStatus.class, new OverallStatusTypeAdapter(moneyAdapter).nullSafe());
+        return gsonBuilder.create();
+    }
+
     private Gson getGson() {
         if (gson == null) {
-            final GsonBuilder gsonBuilder = new GsonBuilder();
-            gsonBuilder.registerTypeAdapter(ZonedDateTime.class, new ZonedDateTimeSerializer());
-            gsonBuilder.registerTypeAdapter(Money.class, new MoneySerializer());
-            gsonBuilder.registerTypeAdapter(CurrencyUnit.class, new CurrencySerializer());
-            gson = gsonBuilder.create();
+            gson = createGson();
         }
         return gson;
     }
@@ -51,7 +76,8 @@ public final class GsonMessageBodyHandler implements MessageBodyWriter<Object>,
 
     @Override
     public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
-        return true;
+        // Streaming output writes itself.
+        return !StreamingOutput.class.isAssignableFrom(type);
     }
 
     @Override
@@ -63,7 +89,9 @@ public final class GsonMessageBodyHandler implements MessageBodyWriter<Object>,
     public void writeTo(Object object, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException, WebApplicationException {
         try (OutputStreamWriter writer = new OutputStreamWriter(entityStream, UTF_8)) {
             Type jsonType;
-            if (type.equals(genericType)) {
+            if (type.equals(genericType) || !(genericType instanceof Class || genericType instanceof java.lang.reflect.ParameterizedType)
+                    || genericType instanceof Class && !((Class<?>) genericType).isAssignableFrom(type)) {
+                // Entities resumed by asynchronous responses come with the return type of resource method which is void.
                 jsonType = type;
             } else {
                 jsonType = genericType;
@@ -0,0 +1,72 @@
+package revolut.jaxrs;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import org.joda.money.Money;
+import revolut.model.Account;
+import revolut.model.Holder;
+import revolut.model.LedgerVersions;
+import revolut.model.ReadView;
+
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Writes holders as JSON array one by one, so the response isn't built in memory.
+ * Holders are written in the same form as {@link GsonMessageBodyHandler} writes them.
+ * Without entries, accounts have committed balance instead of the list of entries, and balances of all accounts
+ * are read from one {@link ReadView}, so they are a consistent cut even while transfers go on.
+ */
+public class HolderListWriter implements StreamingOutput {
+    private static final Gson GSON = GsonMessageBodyHandler.createGson();
+    private final Iterable<Holder> holders;
+    private final boolean withEntries;
+
+    public HolderListWriter(final Iterable<Holder> holders, final boolean withEntries) {
+        this.holders = Objects.requireNonNull(holders, "Holders can't be null");
+        this.withEntries = withEntries;
+    }
+
+    @Override
+    public void write(final OutputStream output) throws IOException {
+        final JsonWriter writer = new JsonWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        try (ReadView view = withEntries ? null : LedgerVersions.open()) {
+            writer.beginArray();
+            for (final Holder holder : holders) {
+                writeHolder(writer, holder, view);
+            }
+            writer.endArray();
+        }
+        writer.flush();
+    }
+
+    private void writeHolder(final JsonWriter writer, final Holder holder, final ReadView view) throws IOException {
+        writer.beginObject();
+        writer.name("id").value(holder.getId());
+        writer.name("fullName").value(holder.getFullName());
+        writer.name("accounts").beginObject();
+        for (final Account account : holder.getAccounts().values()) {
+            writer.name(String.valueOf(account.getId()));
+            if (withEntries) {
+                GSON.toJson(account, Account.class, writer);
+            } else {
+                writer.beginObject();
+                writer.name("id").value(account.getId());
+                writer.name("currency").value(account.getCurrency().getCode());
+                writer.name("initBalance");
+                GSON.toJson(account.getInitBalance(), Money.class, writer);
+                writer.name("balance");
+                final Money balance = view.balanceOf(account);
+                // Account created after the view is written as it is now.
+                GSON.toJson(balance == null ? account.getCommittedState().getBalance() : balance, Money.class, writer);
+                writer.endObject();
+            }
+        }
+        writer.endObject();
+        writer.endObject();
+    }
+}
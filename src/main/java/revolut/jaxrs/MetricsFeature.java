@@ -0,0 +1,50 @@
+package revolut.jaxrs;
+
+import revolut.metrics.LatencyHistogram;
+import revolut.metrics.MetricsRegistry;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.DynamicFeature;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.FeatureContext;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Measures latency of every resource method. Every method gets its own filter with its own histogram,
+ * so nothing is looked up per request. Streamed responses are measured until their writing starts.
+ */
+@Provider
+public class MetricsFeature implements DynamicFeature {
+    private static final String START = MetricsFeature.class.getName() + ".start";
+
+    @Override
+    public void configure(final ResourceInfo resourceInfo, final FeatureContext context) {
+        final String resource = resourceInfo.getResourceClass().getSimpleName() + "." + resourceInfo.getResourceMethod().getName();
+        context.register(new TimingFilter(MetricsRegistry.DEFAULT.histogram("revolut_http_request_seconds",
+                "Latency of resource methods.", "resource", resource)));
+    }
+
+    private static final class TimingFilter implements ContainerRequestFilter, ContainerResponseFilter {
+        private final LatencyHistogram histogram;
+
+        private TimingFilter(final LatencyHistogram histogram) {
+            this.histogram = histogram;
+        }
+
+        @Override
+        public void filter(final ContainerRequestContext request) {
+            request.setProperty(START, System.nanoTime());
+        }
+
+        @Override
+        public void filter(final ContainerRequestContext request, final ContainerResponseContext response) {
+            final Object start = request.getProperty(START);
+            if (start instanceof Long) {
+                histogram.record(System.nanoTime() - (Long) start);
+            }
+        }
+    }
+}
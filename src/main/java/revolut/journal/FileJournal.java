@@ -0,0 +1,428 @@
+package revolut.journal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import revolut.config.Configuration;
+import revolut.model.AccountingTransaction;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Journal in a local file with group commit.
+ * Transactions put their records into a buffer, the writer thread takes the whole buffer,
+ * writes it through {@link FileChannel} and forces it to disk by a single sync according to {@link SyncPolicy}.
+ * So many transactions share one sync and durability doesn't limit throughput by the disk sync rate.
+ * <p>
+ * On opening, the file is read to find the last sequence number and an incomplete record at the end is cut off.
+ * </p>
+ * <p>
+ * When the file grows over {@link #SEGMENT_RECORDS}, it is renamed into a segment with the last sequence number
+ * in the name and a new file is started. Segments covered by snapshot are deleted, see {@link #truncate(long)}.
+ * </p>
+ * If the file can't be written, the journal stops accepting records for good and transactions are rejected before
+ * they change accounts, see {@link #checkAvailable()}.
+ */
+public class FileJournal implements Journal {
+    public static final String PATH = "revolut.journal.path";
+    public static final String SYNC = "revolut.journal.sync";
+    public static final String SYNC_INTERVAL = "revolut.journal.sync-interval";
+    public static final String SYNC_RECORDS = "revolut.journal.sync-records";
+    public static final String SEGMENT_RECORDS = "revolut.journal.segment-records";
+    public static final int DEFAULT_SEGMENT_RECORDS = 1 << 20;
+    private static final Logger logger = LoggerFactory.getLogger(FileJournal.class);
+    private static final int INITIAL_BUFFER_RECORDS = 1024;
+    /* Segments are named by the last sequence number with leading zeros, so they are sorted by name too. */
+    private static final int SEGMENT_DIGITS = 19;
+    private final Path path;
+    private final SyncPolicy policy;
+    private final long syncIntervalNanos;
+    private final int syncRecords;
+    private final long segmentSize;
+    private final Thread writer;
+    /* The current file, it is replaced only by the writer. */
+    private FileChannel channel;
+
+    /* Guarded by "this". */
+    private ByteBuffer active = newBuffer(INITIAL_BUFFER_RECORDS);
+    private ByteBuffer flushing = newBuffer(INITIAL_BUFFER_RECORDS);
+    private long sequence;
+    private int pending;
+    private boolean running = true;
+    /* False after close or failure of writer, it is read without lock before every transaction. */
+    private volatile boolean available = true;
+
+    /* Guarded by "durable". */
+    private final Object durable = new Object();
+    private long durableSequence;
+    private JournalException failure;
+
+    public FileJournal(final Path path, final SyncPolicy policy, final long syncIntervalMillis, final int syncRecords) throws IOException {
+        this(path, policy, syncIntervalMillis, syncRecords, DEFAULT_SEGMENT_RECORDS);
+    }
+
+    public FileJournal(final Path path, final SyncPolicy policy, final long syncIntervalMillis, final int syncRecords,
+                       final int segmentRecords) throws IOException {
+        this(path, openChannel(path), policy, syncIntervalMillis, syncRecords, segmentRecords);
+    }
+
+    /**
+     * Journal in the channel opened for reading and writing.
+     */
+    FileJournal(final Path path, final FileChannel channel, final SyncPolicy policy, final long syncIntervalMillis,
+                final int syncRecords, final int segmentRecords) throws IOException {
+        this.path = Objects.requireNonNull(path, "Path can't be null");
+        this.channel = Objects.requireNonNull(channel, "Channel can't be null");
+        this.policy = Objects.requireNonNull(policy, "Policy can't be null");
+        if (syncIntervalMillis < 1 || syncRecords < 1 || segmentRecords < 1) {
+            throw new IllegalArgumentException("Sync interval and counts of records must be positive.");
+        }
+        this.syncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(syncIntervalMillis);
+        this.syncRecords = syncRecords;
+        this.segmentSize = (long) segmentRecords * JournalRecord.SIZE;
+        // The file is empty just after rolling, then the last sequence number is in the name of the last segment.
+        final NavigableMap<Long, Path> segments = segments(path);
+        final long[] last = {segments.isEmpty() ? 0 : segments.lastKey()};
+        final long size = scan(channel, 0, record -> last[0] = record.getSequence());
+        if (size < channel.size()) {
+            logger.warn("Journal {} has incomplete record at the end, {} bytes are cut off.", path, channel.size() - size);
+            channel.truncate(size);
+        }
+        channel.position(size);
+        this.sequence = last[0];
+        this.durableSequence = last[0];
+        this.writer = new Thread(this::run, "journal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+        logger.info("Journal {} is opened with last sequence {} and sync policy {}.", path, sequence, policy);
+    }
+
+    private static FileChannel openChannel(final Path path) throws IOException {
+        Objects.requireNonNull(path, "Path can't be null");
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Opens journal configured by {@link #PATH} or returns {@link Journal#NONE} if path isn't set.
+     */
+    public static Journal open(final Configuration configuration) {
+        final String path = configuration.getString(PATH, "");
+        if (path.isEmpty()) {
+            return Journal.NONE;
+        }
+        try {
+            return new FileJournal(Paths.get(path),
+                    SyncPolicy.of(configuration.getString(SYNC, "every-commit")),
+                    configuration.getLong(SYNC_INTERVAL, 10L),
+                    configuration.getInt(SYNC_RECORDS, 256),
+                    configuration.getInt(SEGMENT_RECORDS, DEFAULT_SEGMENT_RECORDS));
+        } catch (IOException e) {
+            throw new JournalException("Journal " + path + " can't be opened.", e);
+        }
+    }
+
+    /**
+     * Reads valid records of journal after the given sequence number. Segments with earlier records are skipped,
+     * and the first record in a file is found by binary search, so only the tail is read.
+     *
+     * @throws IOException if a segment is damaged, so later records can't be applied.
+     */
+    public static void read(final Path path, final long afterSequence, final Consumer<JournalRecord> consumer) throws IOException {
+        for (final Path segment : segments(path).tailMap(afterSequence, false).values()) {
+            if (!readFile(segment, afterSequence, consumer)) {
+                throw new IOException("Journal segment " + segment + " is damaged.");
+            }
+        }
+        if (Files.exists(path)) {
+            readFile(path, afterSequence, consumer);
+        }
+    }
+
+    /**
+     * @return true if the whole file is read.
+     */
+    private static boolean readFile(final Path file, final long afterSequence, final Consumer<JournalRecord> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return scan(channel, positionAfter(channel, afterSequence), record -> {
+                if (record.getSequence() > afterSequence) {
+                    consumer.accept(record);
+                }
+            }) == channel.size();
+        }
+    }
+
+    /**
+     * Finds the first record with sequence number greater than the given one. Records have the same size
+     * and growing sequence numbers, so only O(log n) of them are read.
+     */
+    private static long positionAfter(final FileChannel channel, final long sequence) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+        long low = 0;
+        long high = channel.size() / JournalRecord.SIZE;
+        while (low < high) {
+            final long middle = (low + high) >>> 1;
+            buffer.clear();
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, middle * JournalRecord.SIZE + buffer.position()) < 0) {
+                    throw new IOException("Journal ends before record " + middle);
+                }
+            }
+            // Sequence number is the first field of record.
+            if (buffer.getLong(0) <= sequence) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low * JournalRecord.SIZE;
+    }
+
+    /**
+     * @return rolled segments of journal by their last sequence numbers.
+     */
+    private static NavigableMap<Long, Path> segments(final Path path) throws IOException {
+        final NavigableMap<Long, Path> segments = new TreeMap<>();
+        final Path directory = path.toAbsolutePath().getParent();
+        if (directory == null || !Files.isDirectory(directory)) {
+            return segments;
+        }
+        final String prefix = path.getFileName() + ".";
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, prefix + "*")) {
+            for (final Path file : files) {
+                final String suffix = file.getFileName().toString().substring(prefix.length());
+                if (suffix.length() == SEGMENT_DIGITS && suffix.chars().allMatch(Character::isDigit)) {
+                    segments.put(Long.parseLong(suffix), file);
+                }
+            }
+        }
+        return segments;
+    }
+
+    private static Path segment(final Path path, final long lastSequence) {
+        return path.resolveSibling(path.getFileName() + "." + String.format("%0" + SEGMENT_DIGITS + "d", lastSequence));
+    }
+
+    /**
+     * @return position after the last valid record.
+     */
+    private static long scan(final FileChannel channel, long position, final Consumer<JournalRecord> consumer) throws IOException {
+        final ByteBuffer buffer = newBuffer(INITIAL_BUFFER_RECORDS * 16);
+        while (true) {
+            buffer.clear();
+            final int read = channel.read(buffer, position);
+            if (read < JournalRecord.SIZE) {
+                return position;
+            }
+            buffer.flip();
+            JournalRecord record;
+            while ((record = JournalRecord.read(buffer)) != null) {
+                consumer.accept(record);
+                position += JournalRecord.SIZE;
+            }
+            if (buffer.remaining() >= JournalRecord.SIZE) {
+                // Broken record, the rest of file can't be trusted.
+                return position;
+            }
+        }
+    }
+
+    @Override
+    public long committed(final AccountingTransaction transaction) {
+        synchronized (this) {
+            if (!running) {
+                throw new JournalException("Journal is closed.");
+            }
+            final long next = sequence + 1;
+            if (active.remaining() < JournalRecord.SIZE) {
+                final ByteBuffer grown = newBuffer(active.capacity() / JournalRecord.SIZE * 2);
+                active.flip();
+                grown.put(active);
+                active = grown;
+            }
+            JournalRecord.of(next, transaction).write(active);
+            sequence = next;
+            pending++;
+            // The first record starts sync interval of the writer.
+            if (pending == 1 || policy == SyncPolicy.EVERY_COMMIT || (policy == SyncPolicy.RECORDS && pending >= syncRecords)) {
+                notifyAll();
+            }
+            return next;
+        }
+    }
+
+    @Override
+    public void checkAvailable() {
+        if (!available) {
+            synchronized (durable) {
+                throw failure != null ? failure : new JournalException("Journal is closed.");
+            }
+        }
+    }
+
+    @Override
+    public void await(final long sequence) {
+        if (sequence <= 0) {
+            return;
+        }
+        synchronized (durable) {
+            while (durableSequence < sequence) {
+                if (failure != null) {
+                    throw failure;
+                }
+                try {
+                    durable.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new JournalException("Interrupted while waiting for journal.", e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized long getLastSequence() {
+        return sequence;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Deletes segments which have only records up to the sequence number. Records of the current file are kept.
+     */
+    @Override
+    public void truncate(final long sequence) {
+        try {
+            for (final Path segment : segments(path).headMap(sequence, true).values()) {
+                Files.deleteIfExists(segment);
+                logger.info("Journal segment {} is covered by snapshot and deleted.", segment);
+            }
+        } catch (IOException e) {
+            // Segments which are left are skipped by recovery anyway.
+            logger.warn("Journal segments up to sequence {} can't be deleted: {}", sequence, e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            running = false;
+            available = false;
+            notifyAll();
+        }
+        try {
+            writer.join();
+            channel.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            logger.error(e.getMessage(), e);
+        }
+    }
+
+    private void run() {
+        long lastSync = System.nanoTime();
+        while (true) {
+            final ByteBuffer batch;
+            final long batchSequence;
+            synchronized (this) {
+                try {
+                    while (running && !readyToSync(lastSync)) {
+                        if (pending == 0 || policy == SyncPolicy.EVERY_COMMIT) {
+                            wait();
+                        } else {
+                            TimeUnit.NANOSECONDS.timedWait(this, Math.max(1, lastSync + syncIntervalNanos - System.nanoTime()));
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    running = false;
+                    available = false;
+                }
+                if (pending == 0) {
+                    if (!running) {
+                        return;
+                    }
+                    continue;
+                }
+                batch = active;
+                active = flushing;
+                flushing = batch;
+                active.clear();
+                batchSequence = sequence;
+                pending = 0;
+            }
+            try {
+                batch.flip();
+                while (batch.hasRemaining()) {
+                    channel.write(batch);
+                }
+                channel.force(false);
+                lastSync = System.nanoTime();
+                synchronized (durable) {
+                    durableSequence = batchSequence;
+                    durable.notifyAll();
+                }
+                if (channel.position() >= segmentSize) {
+                    roll(batchSequence);
+                }
+            } catch (IOException e) {
+                logger.error("Journal {} can't be written: {}", path, e.getMessage(), e);
+                // Transactions are rejected before waiters learn about failure.
+                available = false;
+                synchronized (durable) {
+                    failure = new JournalException("Journal can't be written.", e);
+                    durable.notifyAll();
+                }
+                synchronized (this) {
+                    running = false;
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Renames the current file into a segment and starts a new one. All records are already forced to disk.
+     */
+    private void roll(final long lastSequence) throws IOException {
+        channel.close();
+        final Path segment = segment(path, lastSequence);
+        Files.move(path, segment, StandardCopyOption.ATOMIC_MOVE);
+        channel = openChannel(path);
+        logger.info("Journal segment {} is rolled.", segment);
+    }
+
+    private boolean readyToSync(final long lastSync) {
+        if (pending == 0) {
+            return false;
+        }
+        switch (policy) {
+            case EVERY_COMMIT:
+                return true;
+            case RECORDS:
+                return pending >= syncRecords || System.nanoTime() - lastSync >= syncIntervalNanos;
+            default:
+                return System.nanoTime() - lastSync >= syncIntervalNanos;
+        }
+    }
+
+    private static ByteBuffer newBuffer(final int records) {
+        return ByteBuffer.allocate(records * JournalRecord.SIZE);
+    }
+}
@@ -0,0 +1,56 @@
+package revolut.journal;
+
+import revolut.model.AccountingTransaction;
+import revolut.model.CommitListener;
+
+/**
+ * Write-ahead journal of completed transactions.
+ * {@link #committed} is called inside commit of transaction, so it only assigns sequence number and queues the record.
+ * The caller must {@link #await} the sequence number before it reports success to the client.
+ */
+public interface Journal extends CommitListener, AutoCloseable {
+    /**
+     * Journal which doesn't keep anything.
+     */
+    Journal NONE = new Journal() {
+        @Override
+        public long committed(AccountingTransaction transaction) {
+            return 0L;
+        }
+
+        @Override
+        public void await(long sequence) {
+        }
+
+        @Override
+        public long getLastSequence() {
+            return 0L;
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    /**
+     * Waits until the record with given sequence number and all previous records are stored durably.
+     *
+     * @throws JournalException if records can't be stored.
+     */
+    void await(long sequence);
+
+    /**
+     * @return sequence number of the last record.
+     */
+    long getLastSequence();
+
+    /**
+     * Lets journal drop records up to the sequence number inclusive, they are covered by snapshot
+     * and aren't needed for recovery. Journal may keep them longer.
+     */
+    default void truncate(long sequence) {
+    }
+
+    @Override
+    void close();
+}
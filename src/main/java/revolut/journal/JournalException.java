@@ -0,0 +1,11 @@
+package revolut.journal;
+
+public class JournalException extends RuntimeException {
+    public JournalException(String message) {
+        super(message);
+    }
+
+    public JournalException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
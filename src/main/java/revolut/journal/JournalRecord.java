@@ -0,0 +1,103 @@
+package revolut.journal;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+import revolut.model.AccountingTransaction;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+/**
+ * A completed transaction stored in journal.
+ * <p>
+ * Binary format, big-endian, {@link #SIZE} bytes:
+ * sequence (8), payer id (8), payee id (8), amount in minor units (8), currency code (3), reserved (1),
+ * epoch second (8), nanosecond (4), zone offset in seconds (4), CRC32 of previous bytes (4).
+ * </p>
+ * Only offset of the date is kept, not the zone region.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public class JournalRecord {
+    public static final int SIZE = 56;
+    private static final int CHECKED_SIZE = SIZE - 4;
+    private final long sequence;
+    private final long payerId;
+    private final long payeeId;
+    private final Money amount;
+    private final ZonedDateTime date;
+
+    public JournalRecord(final long sequence, final long payerId, final long payeeId, final Money amount, final ZonedDateTime date) {
+        this.sequence = sequence;
+        this.payerId = payerId;
+        this.payeeId = payeeId;
+        this.amount = Objects.requireNonNull(amount, "Amount can't be null");
+        this.date = Objects.requireNonNull(date, "Date can't be null");
+    }
+
+    public static JournalRecord of(final long sequence, final AccountingTransaction transaction) {
+        return new JournalRecord(sequence, transaction.getPayer().getId(), transaction.getPayee().getId(),
+                transaction.getAmount(), transaction.getDate());
+    }
+
+    public void write(final ByteBuffer buffer) {
+        final int start = buffer.position();
+        buffer.putLong(sequence);
+        buffer.putLong(payerId);
+        buffer.putLong(payeeId);
+        buffer.putLong(amount.getAmountMinorLong());
+        buffer.put(amount.getCurrencyUnit().getCode().getBytes(StandardCharsets.US_ASCII));
+        buffer.put((byte) 0);
+        buffer.putLong(date.toEpochSecond());
+        buffer.putInt(date.getNano());
+        buffer.putInt(date.getOffset().getTotalSeconds());
+        buffer.putInt(checksum(buffer, start));
+    }
+
+    /**
+     * Reads record from the current position of buffer.
+     *
+     * @return record or null if the buffer doesn't contain a whole valid record.
+     */
+    public static JournalRecord read(final ByteBuffer buffer) {
+        if (buffer.remaining() < SIZE) {
+            return null;
+        }
+        final int start = buffer.position();
+        if (checksum(buffer, start) != buffer.getInt(start + CHECKED_SIZE)) {
+            return null;
+        }
+        final long sequence = buffer.getLong();
+        final long payerId = buffer.getLong();
+        final long payeeId = buffer.getLong();
+        final long minor = buffer.getLong();
+        final byte[] code = new byte[3];
+        buffer.get(code);
+        buffer.get();
+        final long epochSecond = buffer.getLong();
+        final int nano = buffer.getInt();
+        final int offset = buffer.getInt();
+        buffer.getInt();
+        final CurrencyUnit currency = CurrencyUnit.of(new String(code, StandardCharsets.US_ASCII));
+        final ZoneOffset zone = ZoneOffset.ofTotalSeconds(offset);
+        return new JournalRecord(sequence, payerId, payeeId, Money.ofMinor(currency, minor),
+                ZonedDateTime.ofInstant(Instant.ofEpochSecond(epochSecond, nano), zone));
+    }
+
+    private static int checksum(final ByteBuffer buffer, final int start) {
+        final CRC32 crc = new CRC32();
+        final ByteBuffer checked = buffer.duplicate();
+        checked.position(start).limit(start + CHECKED_SIZE);
+        crc.update(checked);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,18 @@
+package revolut.journal;
+
+/**
+ * When the journal forces written records to disk.
+ * In every case records collected while the previous sync was running are written and synced together.
+ */
+public enum SyncPolicy {
+    /* As soon as there is any record. */
+    EVERY_COMMIT,
+    /* Once per sync interval. */
+    INTERVAL,
+    /* When count of waiting records reaches the limit or sync interval passes. */
+    RECORDS;
+
+    public static SyncPolicy of(final String name) {
+        return valueOf(name.trim().toUpperCase().replace('-', '_'));
+    }
+}
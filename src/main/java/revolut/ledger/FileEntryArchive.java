@@ -0,0 +1,177 @@
+package revolut.ledger;
+
+import org.joda.money.CurrencyUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import revolut.config.Configuration;
+import revolut.model.Entry;
+import revolut.model.EntryArchive;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Archive of all accounts in one append-only file. Position of entry is its offset in the file.
+ * <p>
+ * Record has fixed size {@link #RECORD_SIZE}, big-endian: account id (8), position of the previous entry of
+ * the same account (8), amount in minor units (8), epoch second (8), nanosecond (4), zone offset in seconds (4).
+ * </p>
+ * The file is kept across restarts: journal segments covered by snapshot are deleted, so it is the only copy
+ * of collapsed entries. On open the last entry of every account is found, so accounts continue their chains.
+ * A record torn by crash at the end of the file is dropped.
+ */
+public class FileEntryArchive implements EntryArchive {
+    public static final String PATH = "revolut.ledger.archive";
+    public static final int RECORD_SIZE = 40;
+    private static final Logger logger = LoggerFactory.getLogger(FileEntryArchive.class);
+    private final FileChannel channel;
+    /* Positions of the last entries of accounts archived before open. */
+    private final Map<Long, Long> restored = new HashMap<>();
+    /* Guarded by "this". */
+    private long end;
+
+    public FileEntryArchive(final Path path) throws IOException {
+        Objects.requireNonNull(path, "Path can't be null");
+        if (path.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            this.end = restore();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        logger.info("Collapsed entries are archived into {}, it has {} entries of {} accounts.", path, end / RECORD_SIZE, restored.size());
+    }
+
+    /**
+     * Reads account ids and positions of all records.
+     *
+     * @return position after the last whole record.
+     */
+    private long restore() throws IOException {
+        final long size = channel.size();
+        final long whole = size - size % RECORD_SIZE;
+        if (whole < size) {
+            logger.warn("The last record of archive is torn, {} bytes are dropped.", size - whole);
+            channel.truncate(whole);
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * 1024);
+        for (long position = 0; position < whole; ) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), whole - position));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new IOException("Archive ends before position " + whole);
+                }
+            }
+            for (int offset = 0; offset < buffer.limit(); offset += RECORD_SIZE) {
+                restored.put(buffer.getLong(offset), position + offset);
+            }
+            position += buffer.limit();
+        }
+        return whole;
+    }
+
+    /**
+     * @return archive configured by {@link #PATH} or {@link EntryArchive#NONE} if path isn't set.
+     */
+    public static EntryArchive open(final Configuration configuration) {
+        final String path = configuration.getString(PATH, "");
+        if (path.isEmpty()) {
+            return EntryArchive.NONE;
+        }
+        try {
+            return new FileEntryArchive(Paths.get(path));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Archive " + path + " can't be opened.", e);
+        }
+    }
+
+    @Override
+    public long last(final long accountId) {
+        return restored.getOrDefault(accountId, EMPTY);
+    }
+
+    @Override
+    public long append(final long accountId, final long last, final List<Entry> entries) {
+        if (entries.isEmpty()) {
+            return last;
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate(entries.size() * RECORD_SIZE);
+        synchronized (this) {
+            long previous = last;
+            for (final Entry entry : entries) {
+                buffer.putLong(accountId);
+                buffer.putLong(previous);
+                buffer.putLong(entry.getAmountMinor());
+                buffer.putLong(entry.getDate().toEpochSecond());
+                buffer.putInt(entry.getDate().getNano());
+                buffer.putInt(entry.getDate().getOffset().getTotalSeconds());
+                previous = end + buffer.position() - RECORD_SIZE;
+            }
+            buffer.flip();
+            try {
+                long position = end;
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Entries of account " + accountId + " can't be archived.", e);
+            }
+            end += buffer.limit();
+            return previous;
+        }
+    }
+
+    @Override
+    public List<Entry> read(final long accountId, final CurrencyUnit currency, final long last) {
+        final List<Entry> entries = new ArrayList<>();
+        final ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+        try {
+            for (long position = last; position != EMPTY; position = buffer.getLong(8)) {
+                buffer.clear();
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, position + buffer.position()) < 0) {
+                        throw new IOException("Archive ends before position " + position);
+                    }
+                }
+                if (buffer.getLong(0) != accountId) {
+                    throw new IOException("Archived entry at " + position + " doesn't belong to account " + accountId);
+                }
+                final ZoneOffset zone = ZoneOffset.ofTotalSeconds(buffer.getInt(36));
+                entries.add(new Entry(currency, buffer.getLong(16),
+                        ZonedDateTime.ofInstant(Instant.ofEpochSecond(buffer.getLong(24), buffer.getInt(32)), zone)));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Archived entries of account " + accountId + " can't be read.", e);
+        }
+        Collections.reverse(entries);
+        return entries;
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.error(e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package revolut.ledger;
+
+import org.joda.money.CurrencyUnit;
+import revolut.model.ChunkedEntryStore;
+import revolut.model.Entry;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Objects;
+
+/**
+ * Entries of one account encoded into memory mapped file, so they don't occupy heap and page cache of OS keeps them.
+ * Chunks of {@link ChunkedEntryStore} are cut from segments of the file shared by all accounts, see {@link MappedLedger},
+ * so a written record is never moved or changed.
+ * <p>
+ * Record has fixed size {@link #RECORD_SIZE}, big-endian:
+ * amount in minor units (8), epoch second (8), nanosecond (4), zone offset in seconds (4).
+ * Currency is the same for all entries of account and isn't stored.
+ * </p>
+ * Entries are decoded into new objects on every access.
+ */
+public class MappedEntryStore extends ChunkedEntryStore<ByteBuffer> {
+    public static final int RECORD_SIZE = 24;
+    public static final int FIRST_CHUNK = 4;
+    public static final int MAX_CHUNK = 8192;
+    private final MappedLedger ledger;
+    private final CurrencyUnit currency;
+
+    public MappedEntryStore(final MappedLedger ledger, final CurrencyUnit currency) {
+        super(Math.min(FIRST_CHUNK, ledger.getMaxChunk()), ledger.getMaxChunk());
+        this.ledger = ledger;
+        this.currency = Objects.requireNonNull(currency, "Currency can't be null");
+    }
+
+    @Override
+    protected ByteBuffer allocate(final int slots) {
+        return ledger.allocate(slots);
+    }
+
+    @Override
+    protected void write(final ByteBuffer chunk, final int slot, final Entry entry) {
+        final int offset = slot * RECORD_SIZE;
+        final ZonedDateTime date = entry.getDate();
+        chunk.putLong(offset, entry.getAmountMinor());
+        chunk.putLong(offset + 8, date.toEpochSecond());
+        chunk.putInt(offset + 16, date.getNano());
+        chunk.putInt(offset + 20, date.getOffset().getTotalSeconds());
+    }
+
+    @Override
+    protected Entry read(final ByteBuffer chunk, final int slot) {
+        final int offset = slot * RECORD_SIZE;
+        final ZoneOffset zone = ZoneOffset.ofTotalSeconds(chunk.getInt(offset + 20));
+        return new Entry(currency, chunk.getLong(offset),
+                ZonedDateTime.ofInstant(Instant.ofEpochSecond(chunk.getLong(offset + 8), chunk.getInt(offset + 16)), zone));
+    }
+}
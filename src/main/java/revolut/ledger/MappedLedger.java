@@ -0,0 +1,133 @@
+package revolut.ledger;
+
+import org.joda.money.CurrencyUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import revolut.config.Configuration;
+import revolut.model.EntryArchive;
+import revolut.model.EntryStore;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * Creates {@link MappedEntryStore} for every account. Entries of all accounts are kept in one file {@link #FILE},
+ * so the count of open files doesn't depend on the count of accounts. The file is mapped by segments of the same size,
+ * chunks of accounts are cut from the last segment one after another.
+ * <p>
+ * The file is created from scratch, the state of accounts is restored from their source, not from it.
+ * Space of chunks dropped by collapse isn't reused until restart, as views may still read them,
+ * so the file grows by every entry added since start.
+ * </p>
+ * Collapsed entries go to archive, see {@link FileEntryArchive}.
+ */
+public class MappedLedger implements EntryStore.Factory {
+    public static final String MODE = "revolut.ledger.mode";
+    public static final String PATH = "revolut.ledger.path";
+    public static final String SEGMENT_ENTRIES = "revolut.ledger.segment-entries";
+    public static final String MAPPED_MODE = "mapped";
+    public static final String FILE = "entries";
+    public static final int DEFAULT_SEGMENT_ENTRIES = 1 << 20;
+    private static final Logger logger = LoggerFactory.getLogger(MappedLedger.class);
+    private final FileChannel channel;
+    private final int segmentEntries;
+    private final int maxChunk;
+    private final EntryArchive archive;
+    /* Guarded by "this". */
+    private MappedByteBuffer segment;
+    private int segmentCount;
+    private int used;
+
+    public MappedLedger(final Path directory, final int segmentEntries) throws IOException {
+        this(directory, segmentEntries, EntryArchive.NONE);
+    }
+
+    public MappedLedger(final Path directory, final int segmentEntries, final EntryArchive archive) throws IOException {
+        Objects.requireNonNull(directory, "Directory can't be null");
+        this.archive = Objects.requireNonNull(archive, "Archive can't be null");
+        if (segmentEntries < 1 || (long) segmentEntries * MappedEntryStore.RECORD_SIZE > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Wrong count of entries in segment.");
+        }
+        this.segmentEntries = segmentEntries;
+        this.maxChunk = Integer.highestOneBit(Math.min(segmentEntries, MappedEntryStore.MAX_CHUNK));
+        Files.createDirectories(directory);
+        this.channel = FileChannel.open(directory.resolve(FILE), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        logger.info("Entries of accounts are mapped from {}.", directory.resolve(FILE));
+    }
+
+    /**
+     * @return mapped ledger if {@link #MODE} is "mapped", otherwise entries are kept in heap.
+     * Both keep collapsed entries in archive configured by {@link FileEntryArchive#PATH}.
+     */
+    public static EntryStore.Factory of(final Configuration configuration) {
+        final EntryArchive archive = FileEntryArchive.open(configuration);
+        if (!MAPPED_MODE.equalsIgnoreCase(configuration.getString(MODE, ""))) {
+            return EntryStore.Factory.heap(archive);
+        }
+        final String path = configuration.getString(PATH, Paths.get(System.getProperty("java.io.tmpdir"), "revolut-ledger").toString());
+        try {
+            return new MappedLedger(Paths.get(path), configuration.getInt(SEGMENT_ENTRIES, DEFAULT_SEGMENT_ENTRIES), archive);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ledger directory " + path + " can't be created.", e);
+        }
+    }
+
+    @Override
+    public EntryStore create(final Long accountId, final CurrencyUnit currency) {
+        return new MappedEntryStore(this, currency);
+    }
+
+    @Override
+    public EntryArchive archive() {
+        return archive;
+    }
+
+    /**
+     * @return the biggest chunk which fits into segment.
+     */
+    int getMaxChunk() {
+        return maxChunk;
+    }
+
+    /**
+     * Cuts a chunk from the last segment. The rest of segment is skipped if the chunk doesn't fit into it.
+     */
+    synchronized ByteBuffer allocate(final int slots) {
+        if (segment == null || used + slots > segmentEntries) {
+            final long segmentSize = (long) segmentEntries * MappedEntryStore.RECORD_SIZE;
+            try {
+                segment = channel.map(FileChannel.MapMode.READ_WRITE, segmentCount * segmentSize, segmentSize);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Segment of entries can't be mapped.", e);
+            }
+            segmentCount++;
+            used = 0;
+        }
+        final ByteBuffer chunk = segment.duplicate();
+        chunk.position(used * MappedEntryStore.RECORD_SIZE).limit((used + slots) * MappedEntryStore.RECORD_SIZE);
+        used += slots;
+        return chunk.slice();
+    }
+
+    /**
+     * Closes the file and archive, mapped segments stay readable until they are collected.
+     */
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.error(e.getMessage(), e);
+        }
+        archive.close();
+    }
+}
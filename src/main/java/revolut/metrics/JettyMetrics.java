@@ -0,0 +1,23 @@
+package revolut.metrics;
+
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
+
+/**
+ * Gauges of thread pool of Jetty server.
+ */
+public final class JettyMetrics {
+    private JettyMetrics() {
+    }
+
+    public static void register(final MetricsRegistry registry, final ThreadPool pool) {
+        registry.gauge("jetty_threads", "Threads of the pool.", pool::getThreads);
+        registry.gauge("jetty_threads_idle", "Idle threads of the pool.", pool::getIdleThreads);
+        registry.gauge("jetty_threads_low", "1 if the pool is low on threads.", () -> pool.isLowOnThreads() ? 1 : 0);
+        if (pool instanceof QueuedThreadPool) {
+            final QueuedThreadPool queued = (QueuedThreadPool) pool;
+            registry.gauge("jetty_threads_max", "Maximal threads of the pool.", queued::getMaxThreads);
+            registry.gauge("jetty_queue_size", "Jobs waiting for a thread.", queued::getQueueSize);
+        }
+    }
+}
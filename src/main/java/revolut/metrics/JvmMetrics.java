@@ -0,0 +1,36 @@
+package revolut.metrics;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Gauges of memory, threads and garbage collection of JVM.
+ */
+public final class JvmMetrics {
+    private JvmMetrics() {
+    }
+
+    public static void register(final MetricsRegistry registry) {
+        final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        registry.gauge("jvm_memory_used_bytes", "Used memory.", () -> memory.getHeapMemoryUsage().getUsed(), "area", "heap");
+        registry.gauge("jvm_memory_used_bytes", "Used memory.", () -> memory.getNonHeapMemoryUsage().getUsed(), "area", "nonheap");
+        registry.gauge("jvm_memory_committed_bytes", "Committed memory.", () -> memory.getHeapMemoryUsage().getCommitted(), "area", "heap");
+        registry.gauge("jvm_memory_committed_bytes", "Committed memory.", () -> memory.getNonHeapMemoryUsage().getCommitted(), "area", "nonheap");
+        registry.gauge("jvm_memory_max_bytes", "Maximal heap memory.", () -> memory.getHeapMemoryUsage().getMax(), "area", "heap");
+
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        registry.gauge("jvm_threads", "Live threads.", threads::getThreadCount);
+        registry.gauge("jvm_threads_daemon", "Live daemon threads.", threads::getDaemonThreadCount);
+
+        for (final GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            registry.gauge("jvm_gc_collections", "Count of collections since start.",
+                    collector::getCollectionCount, "gc", collector.getName());
+            registry.gauge("jvm_gc_collection_seconds", "Time of collections since start.",
+                    () -> collector.getCollectionTime() / 1000.0, "gc", collector.getName());
+        }
+        registry.gauge("jvm_uptime_seconds", "Time since start of JVM.",
+                () -> ManagementFactory.getRuntimeMXBean().getUptime() / 1000.0);
+    }
+}
@@ -0,0 +1,90 @@
+package revolut.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations in nanoseconds with log-linear buckets in the way of HdrHistogram.
+ * <p>
+ * Every power of two is split into {@value #SUB_BUCKETS} buckets, so a quantile is reported with relative error
+ * about 3% and values up to {@link Long#MAX_VALUE} fit into less than two thousand counters.
+ * Recording is an array index calculation and three atomic additions without allocation.
+ * </p>
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 5;
+    static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_BUCKETS;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    LatencyHistogram() {
+    }
+
+    public void record(final long nanos) {
+        final long value = Math.max(0, nanos);
+        counts.incrementAndGet(index(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSum() {
+        return sum.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @param quantile from 0 to 1.
+     * @return the highest value of the bucket which contains the quantile, 0 if nothing is recorded.
+     */
+    public long valueAt(final double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("Quantile must be from 0 to 1.");
+        }
+        final long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(highestValue(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Values below 2 * SUB_BUCKETS have own buckets, bigger values share a bucket with values
+     * which differ only in bits below the highest SUB_BITS + 1 bits.
+     */
+    static int index(final long value) {
+        final int magnitude = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - SUB_BITS);
+        return (magnitude << SUB_BITS) + (int) (value >>> magnitude);
+    }
+
+    static long highestValue(final int index) {
+        final int magnitude = Math.max(0, (index >> SUB_BITS) - 1);
+        final long subBucket = index - ((long) magnitude << SUB_BITS);
+        final long next = (subBucket + 1) << magnitude;
+        return next < 0 ? Long.MAX_VALUE : next - 1;
+    }
+}
@@ -0,0 +1,130 @@
+package revolut.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Registry of named metrics which are written in Prometheus text format.
+ * <p>
+ * Metrics are created once and kept by their users, so recording doesn't look up the registry.
+ * Metrics with the same name and different labels belong to one family and share its type and help.
+ * Labels are given as pairs of name and value.
+ * </p>
+ */
+public class MetricsRegistry {
+    public static final MetricsRegistry DEFAULT = new MetricsRegistry();
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final double NANOS_PER_SECOND = 1e9;
+    private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    public Counter counter(final String name, final String help, final String... labels) {
+        return (Counter) family(name, help, Type.COUNTER).metrics.computeIfAbsent(labels(labels), key -> new Counter());
+    }
+
+    /**
+     * Durations are recorded in nanoseconds and written in seconds as a summary with quantiles.
+     */
+    public LatencyHistogram histogram(final String name, final String help, final String... labels) {
+        return (LatencyHistogram) family(name, help, Type.SUMMARY).metrics.computeIfAbsent(labels(labels), key -> new LatencyHistogram());
+    }
+
+    /**
+     * Registers a value which is read on every writing. The previous gauge with the same labels is replaced.
+     */
+    public void gauge(final String name, final String help, final DoubleSupplier supplier, final String... labels) {
+        Objects.requireNonNull(supplier, "Supplier can't be null");
+        family(name, help, Type.GAUGE).metrics.put(labels(labels), supplier);
+    }
+
+    public void write(final Writer writer) throws IOException {
+        for (final Family family : families.values()) {
+            writer.write("# HELP " + family.name + " " + escape(family.help, false) + "\n");
+            writer.write("# TYPE " + family.name + " " + family.type.name().toLowerCase(Locale.ROOT) + "\n");
+            for (final Map.Entry<String, Object> metric : family.metrics.entrySet()) {
+                final String labels = metric.getKey();
+                switch (family.type) {
+                    case COUNTER:
+                        sample(writer, family.name, labels, ((Counter) metric.getValue()).get());
+                        break;
+                    case GAUGE:
+                        sample(writer, family.name, labels, ((DoubleSupplier) metric.getValue()).getAsDouble());
+                        break;
+                    default:
+                        final LatencyHistogram histogram = (LatencyHistogram) metric.getValue();
+                        for (final double quantile : QUANTILES) {
+                            final String quantileLabel = "quantile=\"" + quantile + "\"";
+                            sample(writer, family.name, labels.isEmpty() ? quantileLabel : labels + "," + quantileLabel,
+                                    histogram.valueAt(quantile) / NANOS_PER_SECOND);
+                        }
+                        sample(writer, family.name + "_sum", labels, histogram.getSum() / NANOS_PER_SECOND);
+                        sample(writer, family.name + "_count", labels, histogram.getCount());
+                }
+            }
+        }
+        writer.flush();
+    }
+
+    private Family family(final String name, final String help, final Type type) {
+        Objects.requireNonNull(name, "Name can't be null");
+        if (!name.matches("[a-zA-Z_:][a-zA-Z0-9_:]*")) {
+            throw new IllegalArgumentException("Illegal metric name " + name);
+        }
+        final Family family = families.computeIfAbsent(name, key -> new Family(name, help, type));
+        if (family.type != type) {
+            throw new IllegalArgumentException(String.format("Metric %s is already registered as %s.", name, family.type));
+        }
+        return family;
+    }
+
+    private static String labels(final String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be pairs of name and value.");
+        }
+        final StringBuilder result = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                result.append(',');
+            }
+            result.append(labels[i]).append("=\"").append(escape(labels[i + 1], true)).append('"');
+        }
+        return result.toString();
+    }
+
+    private static String escape(final String value, final boolean quotes) {
+        final String escaped = String.valueOf(value).replace("\\", "\\\\").replace("\n", "\\n");
+        return quotes ? escaped.replace("\"", "\\\"") : escaped;
+    }
+
+    private static void sample(final Writer writer, final String name, final String labels, final double value) throws IOException {
+        writer.write(name);
+        if (!labels.isEmpty()) {
+            writer.write("{" + labels + "}");
+        }
+        writer.write(" ");
+        writer.write(value == Math.rint(value) && !Double.isInfinite(value) ? Long.toString((long) value) : Double.toString(value));
+        writer.write("\n");
+    }
+
+    private enum Type {
+        COUNTER, GAUGE, SUMMARY
+    }
+
+    private static final class Family {
+        private final String name;
+        private final String help;
+        private final Type type;
+        private final Map<String, Object> metrics = new ConcurrentSkipListMap<>();
+
+        private Family(final String name, final String help, final Type type) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+        }
+    }
+}
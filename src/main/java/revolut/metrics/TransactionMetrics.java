@@ -0,0 +1,54 @@
+package revolut.metrics;
+
+import revolut.model.Account;
+import revolut.model.AccountingTransaction;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Counters of transaction results and time of waiting for account locks. They are shared by all transactions.
+ */
+public final class TransactionMetrics {
+    private static final Map<AccountingTransaction.TransactionStatus, Counter> transactions =
+            new EnumMap<>(AccountingTransaction.TransactionStatus.class);
+    private static final Map<Account.FixerStatus, Counter> payers = new EnumMap<>(Account.FixerStatus.class);
+    private static final Map<Account.FixerStatus, Counter> payees = new EnumMap<>(Account.FixerStatus.class);
+    private static final LatencyHistogram lockWait = MetricsRegistry.DEFAULT.histogram("revolut_lock_wait_seconds",
+            "Time of taking both account locks by a transaction including retries.");
+
+    static {
+        for (final AccountingTransaction.TransactionStatus status : AccountingTransaction.TransactionStatus.values()) {
+            transactions.put(status, MetricsRegistry.DEFAULT.counter("revolut_transactions_total",
+                    "Completed transactions by status.", "status", status.name()));
+        }
+        for (final Account.FixerStatus status : Account.FixerStatus.values()) {
+            payers.put(status, MetricsRegistry.DEFAULT.counter("revolut_entries_total",
+                    "Checked entries of transactions by side and status.", "side", "payer", "status", status.name()));
+            payees.put(status, MetricsRegistry.DEFAULT.counter("revolut_entries_total",
+                    "Checked entries of transactions by side and status.", "side", "payee", "status", status.name()));
+        }
+    }
+
+    private TransactionMetrics() {
+    }
+
+    public static void record(final AccountingTransaction.OverallStatus status) {
+        if (status == null) {
+            return;
+        }
+        if (status.getStatus() != null) {
+            transactions.get(status.getStatus()).increment();
+        }
+        if (status.getPayerStatus() != null) {
+            payers.get(status.getPayerStatus()).increment();
+        }
+        if (status.getPayeeStatus() != null) {
+            payees.get(status.getPayeeStatus()).increment();
+        }
+    }
+
+    public static void lockWait(final long nanos) {
+        lockWait.record(nanos);
+    }
+}
@@ -1,26 +1,38 @@
 package revolut.model;
 
+import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
 import org.joda.money.CurrencyMismatchException;
 import org.joda.money.CurrencyUnit;
 import org.joda.money.Money;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.invoke.VarHandle;
+import java.time.ZonedDateTime;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * The class represents an account with concrete currency and operation made for this account.
  * It allowed any negative values.
  * The same "id" from different account instances means the same account.
+ * <p>
+ * Entries and balance are changed by a single writer at a time: the thread which holds the lock or the owner
+ * of account, see {@link AccountOwners}, which doesn't take the lock. Readers don't take the lock either,
+ * they read again if account was changed meanwhile. Committed state is changed only by commits, see {@link LedgerVersions}.
+ * </p>
  */
 @EqualsAndHashCode(onlyExplicitlyIncluded = true)
 public class Account {
@@ -29,13 +41,43 @@ public class Account {
     @EqualsAndHashCode.Include
     private final Long id;
     private final transient Lock lock = new ReentrantLock();
-    private final List<Entry> entries = new CopyOnWriteArrayList<>();
-    private final Money initBalance;
+    private final transient LockContention contention = new LockContention();
+    /* Contention is reported there while account belongs to holder service, null otherwise. */
+    private transient volatile HotAccounts hotAccounts;
+    private final EntryStore entries;
+    /* Entries which were collapsed into initial balance. They aren't used for balance anymore. */
+    private final transient EntryArchive archive;
+    /* Position of the last archived entry, it is changed only by the writer. */
+    private transient volatile long archivedPosition;
+    private transient volatile int archivedCount;
+    /* The same entries ordered by date, see getEntries(ZonedDateTime, ZonedDateTime, Position). */
+    private final transient EntryIndex index;
+    /* Entries before this date are collapsed into initial balance or account is restored at it, so earlier balances are unknown. */
+    private transient volatile ZonedDateTime collapsedBefore;
+    private volatile Money initBalance;
     private final CurrencyUnit currency;
+    /* Running balance in minor units, i.e. initBalance plus all entries. It is changed only by the writer. */
+    private transient volatile long balance;
+    /* Odd while the writer changes entries or balance, readers compare it before and after reading, see read(). */
+    private transient volatile long changes;
+    /* Balance of committed transactions, it doesn't include money of unfinished two-step transactions. It is changed only by commits. */
+    private transient volatile long committedBalance;
+    /* Sequence number of the last journal record of this account. It is changed only by commits. */
+    private transient volatile long journalSequence;
+    /* The newest published version of committed state, see LedgerVersions. */
+    private transient volatile Version version;
+    /* It is set while a new version is being published. */
+    private transient volatile boolean publishing;
 
     public Account(final Long id, final CurrencyUnit currency, final Money initBalance, final Collection<Entry> entries) {
+        this(id, currency, initBalance, entries, EntryStore.Factory.HEAP);
+    }
+
+    public Account(final Long id, final CurrencyUnit currency, final Money initBalance, final Collection<Entry> entries,
+                   final EntryStore.Factory storeFactory) {
         Objects.requireNonNull(id, "Id can't be null");
         Objects.requireNonNull(currency, "Currency can't be null");
+        Objects.requireNonNull(storeFactory, "Store factory can't be null");
         this.initBalance = Optional.ofNullable(initBalance).orElse(Money.zero(currency));
 
         if (!currency.equals(this.initBalance.getCurrencyUnit())) {
@@ -43,34 +85,140 @@ public class Account {
         }
         if (entries != null && entries.size() > 0) {
             for (final Entry entry : entries) {
-                if (!entry.getAmount().getCurrencyUnit().equals(currency)) {
-                    throw new CurrencyMismatchException(entry.getAmount().getCurrencyUnit(), currency);
+                if (!entry.getCurrency().equals(currency)) {
+                    throw new CurrencyMismatchException(entry.getCurrency(), currency);
                 }
-                this.entries.add(entry);
+            }
+        }
+        this.entries = storeFactory.create(id, currency);
+        this.index = new EntryIndex(this.entries);
+        this.archive = storeFactory.archive();
+        this.archivedPosition = archive.last(id);
+        if (entries != null) {
+            for (final Entry entry : entries) {
+                index.add(entry, this.entries.add(entry));
             }
         }
         this.id = id;
         this.currency = currency;
-        logger.info("Account {} initialized with balance  {}.", getId(), getBalance());
+        this.balance = sumEntries().getAmountMinorLong();
+        this.committedBalance = balance;
+        this.version = new Version(LedgerVersions.current(), new CommittedState(currency, balance, 0));
+        // Millions of accounts may be loaded on start, so it isn't logged at info level.
+        if (logger.isDebugEnabled()) {
+            logger.debug("Account {} initialized with balance {}.", getId(), getBalance());
+        }
     }
 
     /**
-     * Returns copy of entries to prevent collection modification.
+     * Returns read only view of entries to prevent collection modification.
+     * Depending on the store, entries of the view can be decoded on every access.
      *
-     * @return copy of account operations.
+     * @return account operations.
      */
     public Collection<Entry> getEntries() {
-        return Collections.unmodifiableList(entries);
+        return entries.view();
+    }
+
+    /**
+     * Returns entries of a period in order of date, it doesn't scan entries out of the period.
+     * Every iteration reads the store as it is at its beginning, collapsed entries aren't included.
+     *
+     * @param from  the earliest date inclusive, null for no bound.
+     * @param to    the latest date exclusive, null for no bound.
+     * @param after position of the last entry of the previous page, null for the first page.
+     * @return read only entries by their positions.
+     */
+    public Iterable<Map.Entry<EntryIndex.Position, Entry>> getEntries(final ZonedDateTime from, final ZonedDateTime to,
+                                                                    final EntryIndex.Position after) {
+        return index.range(from, to, after);
+    }
+
+    /**
+     * Returns collapsed entries, see {@link #collapseEntries(ZonedDateTime)}. They are read from archive,
+     * so the list is empty if archive drops entries.
+     *
+     * @return read only list of archived operations.
+     */
+    public Collection<Entry> getArchivedEntries() {
+        return Collections.unmodifiableList(archive.read(id, currency, archivedPosition));
+    }
+
+    /**
+     * @return count of entries collapsed since start, including dropped ones.
+     */
+    public int getArchivedCount() {
+        return archivedCount;
     }
 
     /**
      * Returns initial balance of account.
-     * In the future there would be method to collapse entries into initial balance for performance.
+     * It includes all entries collapsed by {@link #collapseEntries(ZonedDateTime)}.
      */
     public Money getInitBalance() {
         return initBalance;
     }
 
+    /**
+     * Collapses entries made before the horizon into initial balance and moves them into archive, so they don't occupy heap.
+     * Entries are removed only after they are archived. The balance of account stays the same.
+     *
+     * @param horizon entries with earlier date are collapsed.
+     * @return count of collapsed entries or -1 if account is busy or entries can't be archived, then account isn't changed.
+     */
+    public int collapseEntries(final ZonedDateTime horizon) {
+        Objects.requireNonNull(horizon, "Horizon can't be null");
+        try {
+            if (lock.tryLock(WAITING_INTERVAL, TimeUnit.MILLISECONDS)) {
+                try {
+                    return collapseEntriesOwned(horizon);
+                } finally {
+                    lock.unlock();
+                }
+            }
+        } catch (InterruptedException e) {
+            logger.error(e.getMessage());
+            Thread.currentThread().interrupt();
+        }
+        return -1;
+    }
+
+    /**
+     * The same as {@link #collapseEntries(ZonedDateTime)}, but the caller has locked or owns account, see {@link AccountOwners}.
+     *
+     * @return count of collapsed entries or -1 if entries can't be archived, then account isn't changed.
+     */
+    public int collapseEntriesOwned(final ZonedDateTime horizon) {
+        Objects.requireNonNull(horizon, "Horizon can't be null");
+        final List<Entry> collapsed = entries.view().stream()
+                .filter(entry -> entry.getDate().isBefore(horizon))
+                .collect(Collectors.toList());
+        if (collapsed.isEmpty()) {
+            return 0;
+        }
+        try {
+            archivedPosition = archive.append(id, archivedPosition, collapsed);
+        } catch (RuntimeException e) {
+            logger.error("Entries of account {} aren't collapsed, they can't be archived: {}", getId(), e.getMessage(), e);
+            return -1;
+        }
+        beginChange();
+        try {
+            // The index reads entries which are removed from the store.
+            index.removeBefore(horizon);
+            entries.removeBefore(horizon);
+            if (collapsedBefore == null || collapsedBefore.isBefore(horizon)) {
+                collapsedBefore = horizon;
+            }
+            archivedCount += collapsed.size();
+            initBalance = initBalance.plusMinor(collapsed.stream().mapToLong(Entry::getAmountMinor).sum());
+        } finally {
+            endChange();
+        }
+        logger.info("Account {} collapsed {} entries into initial balance {}.", getId(), collapsed.size(), initBalance);
+        return collapsed.size();
+    }
+
     /**
      * Currency of current account.
      *
@@ -80,20 +228,181 @@ public class Account {
         return currency;
     }
 
+    /**
+     * Returns balance at the end of the given moment, i.e. initial balance plus entries made until it inclusive.
+     * It takes O(log n) of entries.
+     *
+     * @throws IllegalArgumentException if entries before the date are collapsed or account is restored later.
+     */
+    public Money getBalanceAsOf(final ZonedDateTime date) {
+        Objects.requireNonNull(date, "Date can't be null");
+        return read(() -> {
+            final ZonedDateTime collapsed = collapsedBefore;
+            if (collapsed != null && date.isBefore(collapsed)) {
+                throw new IllegalArgumentException(String.format("Entries of account %d before %s aren't kept.", id, collapsed));
+            }
+            return initBalance.plusMinor(index.sumUntil(date));
+        });
+    }
+
+    /**
+     * Returns the running balance which is maintained on every entry change,
+     * so the call doesn't depend on the number of entries.
+     *
+     * @return current balance of account.
+     */
     public Money getBalance() {
+        return Money.ofMinor(currency, balance);
+    }
+
+    /**
+     * The same as {@link #getBalance()} in minor units of currency.
+     */
+    public long getBalanceMinor() {
+        return balance;
+    }
+
+    /**
+     * Calculates the balance from scratch. Entries are the source of truth and the result
+     * must be always equal to {@link #getBalance()}, so it can be used for audit.
+     *
+     * @return initial balance plus sum of all entries.
+     */
+    public Money sumEntries() {
+        return read(() -> {
+            if (entries.size() == 0) {
+                return initBalance;
+            }
+            return initBalance.plusMinor(entries.view().stream().mapToLong(Entry::getAmountMinor).sum());
+        });
+    }
+
+    /**
+     * Reads balance of completed transactions and sequence number of the last journal record together,
+     * so they can be stored in snapshot. The state is the last published version, see {@link LedgerVersions},
+     * it doesn't include money of unfinished two-step transactions.
+     */
+    public CommittedState getCommittedState() {
+        while (publishing) {
+            Thread.onSpinWait();
+        }
+        return version.state;
+    }
+
+    /**
+     * Sets sequence number of the last journal record for account restored from snapshot.
+     * Initial balance includes all entries before the date of snapshot, so balances before it are unknown.
+     *
+     * @param restoredAt the date of snapshot, entries before it aren't kept.
+     */
+    public void restore(final long sequence, final ZonedDateTime restoredAt) {
+        Objects.requireNonNull(restoredAt, "Date can't be null");
         try {
             lock.lock();
-            if (entries.isEmpty()) {
-                return initBalance;
+            if (collapsedBefore == null || collapsedBefore.isBefore(restoredAt)) {
+                collapsedBefore = restoredAt;
             }
-            return entries.stream().map(Entry::getAmount).reduce(Money::plus).get().plus(initBalance);
+            LedgerVersions.commit(() -> {
+                committed(0, sequence);
+                LedgerVersions.publish(List.of(this));
+                return sequence;
+            });
         } finally {
             lock.unlock();
         }
     }
 
     /**
-     * Adds new record into account. If entry is null
+     * Applies entry of journal record during recovery. Records which are already included
+     * in the balance are skipped, and no checks are made because the record was already accepted.
+     *
+     * @return true if entry was applied.
+     */
+    public boolean replay(final Entry entry, final long sequence) {
+        Objects.requireNonNull(entry, "Entry can't be null");
+        try {
+            lock.lock();
+            if (sequence <= journalSequence) {
+                return false;
+            }
+            beginChange();
+            try {
+                index.add(entry, entries.add(entry));
+                balance += entry.getAmountMinor();
+            } finally {
+                endChange();
+            }
+            LedgerVersions.commit(() -> {
+                committed(entry.getAmountMinor(), sequence);
+                LedgerVersions.publish(List.of(this));
+                return sequence;
+            });
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getJournalSequence() {
+        return journalSequence;
+    }
+
+    /**
+     * Checks whether account has journal records after the sequence number. Commits which took sequence numbers
+     * up to it must be finished, see {@link LedgerVersions#awaitCommits()}.
+     */
+    public boolean hasJournalRecordsAfter(final long sequence) {
+        return journalSequence > sequence;
+    }
+
+    /**
+     * Adds entry of completed transaction to committed balance and remembers its journal record.
+     * It is called only by commits, see {@link LedgerVersions#commit(java.util.function.LongSupplier)}.
+     */
+    void committed(final long amountMinor, final long sequence) {
+        committedBalance += amountMinor;
+        if (sequence > journalSequence) {
+            journalSequence = sequence;
+        }
+    }
+
+    /**
+     * Returns committed state published not later than the version or null if account was created later.
+     */
+    CommittedState getCommittedState(final long version) {
+        while (publishing) {
+            Thread.onSpinWait();
+        }
+        for (Version current = this.version; current != null; current = current.previous) {
+            if (current.number <= version) {
+                return current.state;
+            }
+        }
+        return null;
+    }
+
+    void beginVersion() {
+        publishing = true;
+    }
+
+    /**
+     * Publishes current committed state and drops versions older than the newest one not greater than oldest.
+     * It is called only by commits.
+     */
+    void publishVersion(final long number, final long oldest) {
+        final Version published = new Version(number, new CommittedState(currency, committedBalance, journalSequence));
+        published.previous = version;
+        Version kept = published;
+        while (kept.number > oldest && kept.previous != null) {
+            kept = kept.previous;
+        }
+        kept.previous = null;
+        version = published;
+        publishing = false;
+    }
+
+    /**
+     * Adds new record into account. The caller has locked or owns account, see {@link Fixer}.
      * We are sure that parameters passes all prechecks.
      *
      * @param entry . Operation for performing.
@@ -101,17 +410,20 @@ public class Account {
      */
     private boolean addEntry(final Entry entry) {
         try {
-            if (lock.tryLock(WAITING_INTERVAL, TimeUnit.MILLISECONDS)) {
+            // Currency is already checked by checkEntry(), overflow throws ArithmeticException.
+            final long newBalance = Math.addExact(balance, entry.getAmountMinor());
+            if (newBalance >= 0) {
+                beginChange();
                 try {
-                    // method above checking for currency and returns CurrencyMismatchException if mismatch is.
-                    if (getBalance().plus(entry.getAmount()).compareTo(Money.zero(currency)) != -1) {
-                        entries.add(entry);
-                        logger.info("Account {} changed balance for {}.", getId(), entry.getAmount());
-                        return true;
-                    }
+                    index.add(entry, entries.add(entry));
+                    balance = newBalance;
                 } finally {
-                    lock.unlock();
+                    endChange();
+                }
+                if (logger.isInfoEnabled()) {
+                    logger.info("Account {} changed balance for {}.", getId(), entry.getAmount());
                 }
+                return true;
             }
         } catch (Exception e) {
             logger.error(e.getMessage());
@@ -127,12 +439,12 @@ public class Account {
         Fixer fixer = null;
         try {
             Objects.requireNonNull(entry, "Entry can't be null");
-            if (entry.getAmount().getCurrencyUnit().compareTo(this.currency) != 0) {
+            if (!entry.getCurrency().equals(this.currency)) {
                 fixer = new Fixer(this, entry, FixerStatus.INCORRECT_CURRENCY);
-                throw new CurrencyMismatchException(entry.getAmount().getCurrencyUnit(), currency);
+                throw new CurrencyMismatchException(entry.getCurrency(), currency);
             }
-            // method above checks for currency and returns CurrencyMismatchException if mismatch is.
-            if (getBalance().plus(entry.getAmount()).compareTo(Money.zero(currency)) != -1) {
+            // Balance and amount are compared in minor units, so nothing is allocated except the fixer.
+            if (Math.addExact(balance, entry.getAmountMinor()) >= 0) {
                 return new Fixer(this, entry, FixerStatus.GOOD);
             } else {
                 return new Fixer(this, entry, FixerStatus.INSUFFICIENT_SUM);
@@ -146,19 +458,56 @@ public class Account {
         return fixer;
     }
 
-    private void removeEntry(Entry entry) {
+    /**
+     * Cancels entry by the opposite one with the same date, entries are never removed.
+     * The caller has locked or owns account, see {@link Fixer}.
+     */
+    private void cancelEntry(Entry entry) {
+        final Entry reversal = entry.negated();
+        beginChange();
         try {
-            if (lock.tryLock(WAITING_INTERVAL, TimeUnit.MILLISECONDS)) {
+            index.add(reversal, entries.add(reversal));
+            balance -= entry.getAmountMinor();
+        } finally {
+            endChange();
+        }
+        if (logger.isInfoEnabled()) {
+            logger.info("Account {} cancelled operation for balance {}.", getId(), entry.getAmount());
+        }
+    }
+
+    private void beginChange() {
+        changes++;
+        // Changes must not be seen before the counter is odd.
+        VarHandle.releaseFence();
+    }
+
+    private void endChange() {
+        changes++;
+    }
+
+    /**
+     * Reads entries without the lock. If the writer changed account meanwhile, the result may be wrong
+     * or reading may fail, so it is repeated.
+     */
+    private <T> T read(final Supplier<T> reader) {
+        while (true) {
+            final long before = changes;
+            if ((before & 1) == 0) {
                 try {
-                    if (entries.remove(entry)) {
-                        logger.info("Account {} lost operation for balance {}.", getId(), entry.getAmount());
+                    final T result = reader.get();
+                    VarHandle.acquireFence();
+                    if (changes == before) {
+                        return result;
+                    }
+                } catch (RuntimeException e) {
+                    VarHandle.acquireFence();
+                    if (changes == before) {
+                        throw e;
                     }
-                } finally {
-                    lock.unlock();
                 }
             }
-        } catch (InterruptedException e) {
-            logger.error(e.getMessage());
+            Thread.onSpinWait();
         }
     }
 
@@ -166,10 +515,79 @@ public class Account {
         return lock;
     }
 
+    /**
+     * Takes the lock waiting up to the interval and counts contention, see {@link HotAccounts}.
+     * The lock taken by this method must be released by {@link #unlock()}.
+     *
+     * @return true if the lock is taken.
+     */
+    public boolean tryLock(final long waitMillis) throws InterruptedException {
+        if (lock.tryLock()) {
+            contention.acquired(0, false);
+            return true;
+        }
+        final long start = System.nanoTime();
+        final boolean locked = lock.tryLock(waitMillis, TimeUnit.MILLISECONDS);
+        final long waited = System.nanoTime() - start;
+        if (locked) {
+            contention.acquired(waited, true);
+        } else {
+            contention.failed(waited);
+        }
+        final HotAccounts tracker = hotAccounts;
+        if (tracker != null) {
+            tracker.contended(this);
+        }
+        return locked;
+    }
+
+    /**
+     * Releases the lock taken by {@link #tryLock(long)} and counts the time it was held.
+     */
+    public void unlock() {
+        contention.released();
+        lock.unlock();
+    }
+
+    /**
+     * @param hotAccounts set which contention of account is reported to, null to stop reporting.
+     */
+    public void setHotAccounts(final HotAccounts hotAccounts) {
+        this.hotAccounts = hotAccounts;
+    }
+
+    public LockContention getContention() {
+        return contention;
+    }
+
     public Long getId() {
         return id;
     }
 
+    @Getter
+    @ToString
+    @AllArgsConstructor
+    public static class CommittedState {
+        private final CurrencyUnit currency;
+        private final long balanceMinor;
+        private final long journalSequence;
+
+        public Money getBalance() {
+            return Money.ofMinor(currency, balanceMinor);
+        }
+    }
+
+    private static final class Version {
+        private final long number;
+        private final CommittedState state;
+        private volatile Version previous;
+
+        private Version(final long number, final CommittedState state) {
+            this.number = number;
+            this.state = state;
+        }
+    }
+
     public enum FixerStatus {
         GOOD, BAD, INSUFFICIENT_SUM, INCORRECT_CURRENCY, NOT_DEFINED
     }
@@ -177,7 +595,7 @@ public class Account {
     /**
      * An instance of this class holds the corresponding entry for inserting.
      * If status is "GOOD", it can push entry to the account otherwise it does nothing.
-     * This class must exist always in locked scoped.
+     * This class must exist always in locked scoped, or be used by the owner of account, see {@link AccountOwners}.
      * Only Account class can create instance.
      */
     static public class Fixer {
@@ -185,6 +603,8 @@ public class Account {
         private final Account account;
         private final Entry entry;
         private FixerStatus status;
+        /* The entry is added to account and isn't cancelled. */
+        private boolean pushed;
 
         private Fixer(Account account, Entry entry, FixerStatus status) {
             Objects.requireNonNull(account, "Account can't be null");
@@ -203,6 +623,7 @@ public class Account {
         public boolean push() {
             if (status.equals(FixerStatus.GOOD)) {
                 boolean result = account.addEntry(entry);
+                pushed = result;
                 if (!result) {
                     this.status = FixerStatus.BAD;
                     logger.warn("Could not added operation to account {}.", account.getId());
@@ -225,7 +646,10 @@ public class Account {
          * Cancel operation if it was done.
          **/
         public void cancel() {
-            this.account.removeEntry(this.entry);
+            if (pushed) {
+                this.account.cancelEntry(this.entry);
+                pushed = false;
+            }
         }
     }
 }
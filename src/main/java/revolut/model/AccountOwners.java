@@ -0,0 +1,27 @@
+package revolut.model;
+
+import java.util.Collection;
+import java.util.function.Supplier;
+
+/**
+ * Threads which own accounts, see {@link revolut.engine.ShardedTransferEngine}. Only the owner changes an account,
+ * so every other writer, e.g. a batch or a checkpoint, passes its change to the owners.
+ */
+public interface AccountOwners {
+    /* Accounts have no owners, writers lock them, so the task is run by the caller. */
+    AccountOwners NONE = new AccountOwners() {
+        @Override
+        public <T> T execute(final Collection<Account> accounts, final Supplier<T> task) {
+            return task.get();
+        }
+    };
+
+    /**
+     * Runs the task by the owner of accounts. If accounts have different owners, the task is run by the caller
+     * while the owners wait for it. The caller waits for the result in both cases.
+     *
+     * @return result of task.
+     * @throws IllegalStateException if owners are stopped or failed.
+     */
+    <T> T execute(Collection<Account> accounts, Supplier<T> task);
+}
@@ -7,11 +7,11 @@ import org.joda.money.Money;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import revolut.exception.TheSamePayerAndPayeeException;
+import revolut.metrics.TransactionMetrics;
 
 import java.time.ZonedDateTime;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Lock;
 
 @EqualsAndHashCode
 public class AccountingTransaction {
@@ -20,10 +20,28 @@ public class AccountingTransaction {
     private final Account payee;
     private final Entry from;
     private final Entry to;
+    private final LockRetryPolicy retryPolicy;
+    private final CommitListener commitListener;
+    private long commitSequence;
     private OverallStatus overallStatus = new OverallStatus();
     private ZonedDateTime date;
+    /* Payer's part of transaction performed in two steps, see debit(). */
+    private Account.Fixer debitFixer;
+    /* Both parts of completed transaction, they are kept for rollback(). */
+    private Account.Fixer fromFixer;
+    private Account.Fixer toFixer;
 
     public AccountingTransaction(final Money amount, final Account payer, final Account payee, final ZonedDateTime date) {
+        this(amount, payer, payee, date, LockRetryPolicy.DEFAULT);
+    }
+
+    public AccountingTransaction(final Money amount, final Account payer, final Account payee, final ZonedDateTime date,
+                                 final LockRetryPolicy retryPolicy) {
+        this(amount, payer, payee, date, retryPolicy, CommitListener.NONE);
+    }
+
+    public AccountingTransaction(final Money amount, final Account payer, final Account payee, final ZonedDateTime date,
+                                 final LockRetryPolicy retryPolicy, final CommitListener commitListener) {
         Objects.requireNonNull(amount, "Amount of money can't be null.");
         Objects.requireNonNull(payer, "Payer can't be null.");
         Objects.requireNonNull(payee, "Payee can't be null.");
@@ -41,11 +59,13 @@ public class AccountingTransaction {
             throw new TheSamePayerAndPayeeException("The Payer and the payee can't be the same.");
         }
 
+        this.retryPolicy = Objects.requireNonNull(retryPolicy, "Retry policy can't be null.");
+        this.commitListener = Objects.requireNonNull(commitListener, "Commit listener can't be null.");
         this.date = date;
         this.payee = payee;
         this.payer = payer;
-        from = new Entry(amount.negated(), date);
         to = new Entry(amount, date);
+        from = to.negated();
     }
 
     public synchronized OverallStatus perform() {
@@ -55,68 +75,297 @@ public class AccountingTransaction {
         return overallStatus;
     }
 
+    /**
+     * Performs transaction by the owner of both accounts, see {@link AccountOwners}, so accounts aren't locked.
+     */
+    public synchronized OverallStatus performOwned() {
+        if (overallStatus.getStatus() != TransactionStatus.OK) {
+            transferAndCommit();
+        }
+        return overallStatus;
+    }
+
+    /**
+     * Locks both accounts in order of their ids, so two transactions between the same accounts
+     * in opposite directions can't wait for each other. If a lock is busy, all taken locks are released
+     * and the attempt is repeated after a random pause according to retry policy.
+     */
     private void doRun() {
-        final Lock payerLock = payer.getLock();
+        final Account first = payer.getId().compareTo(payee.getId()) < 0 ? payer : payee;
+        final Account second = first == payer ? payee : payer;
+        LockStatistics.started();
+        final long start = System.nanoTime();
         try {
-            if (payerLock.tryLock(Account.WAITING_INTERVAL, TimeUnit.MILLISECONDS)) {
-                try {
-                    final Lock payeeLock = payee.getLock();
-                    if (payeeLock.tryLock(Account.WAITING_INTERVAL, TimeUnit.MILLISECONDS)) {
-                        try {
-                            overallStatus.setPayerStatus(Account.FixerStatus.NOT_DEFINED);
-                            overallStatus.setPayeeStatus(Account.FixerStatus.NOT_DEFINED);
-                            overallStatus.setInitialPayeeBalance(payee.getBalance());
-                            overallStatus.setInitialPayerBalance(payer.getBalance());
-                            overallStatus.setTransferSum(to.getAmount());
-
-                            Account.Fixer fromFixer = payer.checkEntry(from);
-                            Account.Fixer toFixer = payee.checkEntry(to);
-
-                            if (fromFixer.getStatus().equals(Account.FixerStatus.GOOD) &&
-                                    toFixer.getStatus().equals(Account.FixerStatus.GOOD)) {
-                                boolean fromResult = fromFixer.push();
-                                boolean toResult = toFixer.push();
-                                overallStatus.setPayerStatus(fromFixer.getStatus());
-                                overallStatus.setPayeeStatus(toFixer.getStatus());
-                                if (fromResult && toResult) {
-                                    overallStatus.setPayeeBalance(payee.getBalance());
-                                    overallStatus.setPayerBalance(payer.getBalance());
-                                    overallStatus.setStatus(TransactionStatus.OK);
-                                    return;
-                                } else {
-                                    fromFixer.cancel();
-                                    toFixer.cancel(); // Optional call, exists just in case
-                                }
+            for (int attempt = 1; ; attempt++) {
+                final Account busy;
+                if (first.tryLock(retryPolicy.getWaitInterval())) {
+                    try {
+                        if (second.tryLock(retryPolicy.getWaitInterval())) {
+                            try {
+                                TransactionMetrics.lockWait(System.nanoTime() - start);
+                                transferAndCommit();
+                                return;
+                            } finally {
+                                second.unlock();
                             }
-                            overallStatus.setPayeeBalance(payee.getBalance());
-                            overallStatus.setPayerBalance(payer.getBalance());
-                            overallStatus.setPayerStatus(fromFixer.getStatus());
-                            overallStatus.setPayeeStatus(toFixer.getStatus());
-                            overallStatus.setStatus(TransactionStatus.BAD);
-                        } finally {
-                            payeeLock.unlock();
                         }
-                    } else {
-                        overallStatus.setStatus(TransactionStatus.PAYEE_BUSY);
+                        busy = second;
+                    } finally {
+                        first.unlock();
                     }
-                } finally {
-                    payerLock.unlock();
+                } else {
+                    busy = first;
                 }
-            } else {
-                overallStatus.setStatus(TransactionStatus.PAYER_BUSY);
+                if (attempt >= retryPolicy.getMaxAttempts()) {
+                    overallStatus.setStatus(busy == payer ? TransactionStatus.PAYER_BUSY : TransactionStatus.PAYEE_BUSY);
+                    LockStatistics.rejected(overallStatus.getStatus());
+                    TransactionMetrics.lockWait(System.nanoTime() - start);
+                    return;
+                }
+                LockStatistics.retried();
+                TimeUnit.NANOSECONDS.sleep(retryPolicy.backoff(attempt));
             }
         } catch (InterruptedException e) {
             overallStatus.setStatus(TransactionStatus.BAD);
             logger.error(e.getLocalizedMessage(), e);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Moves money and commits transaction. The caller has locked or owns both accounts.
+     */
+    private void transferAndCommit() {
+        commitListener.checkAvailable();
+        transfer();
+        if (overallStatus.getStatus() == TransactionStatus.OK) {
+            try {
+                notifyCommitted();
+            } catch (RuntimeException | Error e) {
+                // Accounts must not have what isn't committed.
+                rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * The first step of transaction performed in two steps: takes money from payer, payee isn't touched.
+     * It is used when payer and payee are owned by different threads, see {@link AccountOwners}, and is called
+     * by the owner of payer. If it succeeds, {@link #credit()} must follow, money are in transit between the steps.
+     *
+     * @return true if money were taken from payer.
+     */
+    public synchronized boolean debit() {
+        if (overallStatus.getStatus() == TransactionStatus.OK || debitFixer != null) {
+            return false;
+        }
+        overallStatus.setPayerStatus(Account.FixerStatus.NOT_DEFINED);
+        overallStatus.setPayeeStatus(Account.FixerStatus.NOT_DEFINED);
+        overallStatus.setTransferSum(to.getAmount());
+        commitListener.checkAvailable();
+        overallStatus.setInitialPayerBalance(payer.getBalance());
+        final Account.Fixer fixer = payer.checkEntry(from);
+        final boolean result = fixer.getStatus().equals(Account.FixerStatus.GOOD) && fixer.push();
+        overallStatus.setPayerStatus(fixer.getStatus());
+        overallStatus.setPayerBalance(payer.getBalance());
+        if (result) {
+            debitFixer = fixer;
+        } else {
+            overallStatus.setStatus(TransactionStatus.BAD);
         }
+        return result;
+    }
+
+    /**
+     * The second step of transaction performed in two steps: gives money taken by {@link #debit()} to payee.
+     * It is called by the owner of payee, payer isn't touched except its committed state, see {@link LedgerVersions}.
+     *
+     * @return true if transaction is completed, otherwise {@link #refund()} must follow.
+     */
+    public synchronized boolean credit() {
+        if (debitFixer == null) {
+            return false;
+        }
+        overallStatus.setInitialPayeeBalance(payee.getBalance());
+        final Account.Fixer fixer = payee.checkEntry(to);
+        final boolean result = fixer.getStatus().equals(Account.FixerStatus.GOOD) && fixer.push();
+        overallStatus.setPayeeStatus(fixer.getStatus());
+        overallStatus.setPayeeBalance(payee.getBalance());
+        overallStatus.setStatus(result ? TransactionStatus.OK : TransactionStatus.BAD);
+        if (result) {
+            try {
+                notifyCommitted();
+            } catch (RuntimeException | Error e) {
+                // Money are still in transit, refund() must follow.
+                fixer.cancel();
+                overallStatus.setPayeeBalance(payee.getBalance());
+                overallStatus.setStatus(TransactionStatus.BAD);
+                throw e;
+            }
+            debitFixer = null;
+        }
+        return result;
+    }
+
+    /**
+     * Returns money to payer if {@link #credit()} failed. It is called by the owner of payer.
+     */
+    public synchronized void refund() {
+        if (debitFixer == null) {
+            return;
+        }
+        debitFixer.cancel();
+        debitFixer = null;
+        overallStatus.setPayerBalance(payer.getBalance());
+        if (overallStatus.getStatus() == null || overallStatus.getStatus() == TransactionStatus.OK) {
+            overallStatus.setStatus(TransactionStatus.BAD);
+        }
+    }
+
+    public synchronized OverallStatus getOverallStatus() {
+        return overallStatus;
+    }
+
+    public Account getPayer() {
+        return payer;
+    }
+
+    public Account getPayee() {
+        return payee;
+    }
+
+    public Money getAmount() {
+        return to.getAmount();
+    }
+
+    /**
+     * @return sequence number given by commit listener, 0 if transaction isn't completed.
+     */
+    public synchronized long getCommitSequence() {
+        return commitSequence;
+    }
+
+    /**
+     * Passes completed transaction to commit listener, changes committed states of accounts
+     * and publishes their new versions. Entries are already added by the caller.
+     */
+    synchronized void notifyCommitted() {
+        LedgerVersions.commit(() -> {
+            if (notifyListener()) {
+                LedgerVersions.publish(payer, payee);
+            }
+            return commitSequence;
+        });
+    }
+
+    /**
+     * The same as {@link #notifyCommitted()}, but versions are published by the caller.
+     *
+     * @return true if transaction is completed and wasn't reported before.
+     */
+    synchronized boolean notifyListener() {
+        if (overallStatus.getStatus() == TransactionStatus.OK && commitSequence == 0) {
+            commitSequence = LedgerVersions.commit(() -> {
+                final long sequence = commitListener.committed(this);
+                payer.committed(from.getAmountMinor(), sequence);
+                payee.committed(to.getAmountMinor(), sequence);
+                return sequence;
+            });
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Moves money between accounts. The caller has locked or owns both accounts.
+     */
+    private void transfer() {
+        overallStatus.setPayerStatus(Account.FixerStatus.NOT_DEFINED);
+        overallStatus.setPayeeStatus(Account.FixerStatus.NOT_DEFINED);
+        overallStatus.setInitialPayeeBalance(payee.getBalance());
+        overallStatus.setInitialPayerBalance(payer.getBalance());
+        overallStatus.setTransferSum(to.getAmount());
+
+        Account.Fixer fromFixer = payer.checkEntry(from);
+        Account.Fixer toFixer = payee.checkEntry(to);
+
+        if (fromFixer.getStatus().equals(Account.FixerStatus.GOOD) &&
+                toFixer.getStatus().equals(Account.FixerStatus.GOOD)) {
+            boolean fromResult = fromFixer.push();
+            boolean toResult = toFixer.push();
+            overallStatus.setPayerStatus(fromFixer.getStatus());
+            overallStatus.setPayeeStatus(toFixer.getStatus());
+            if (fromResult && toResult) {
+                overallStatus.setPayeeBalance(payee.getBalance());
+                overallStatus.setPayerBalance(payer.getBalance());
+                overallStatus.setStatus(TransactionStatus.OK);
+                this.fromFixer = fromFixer;
+                this.toFixer = toFixer;
+                return;
+            } else {
+                fromFixer.cancel();
+                toFixer.cancel(); // Optional call, exists just in case
+            }
+        }
+        overallStatus.setPayeeBalance(payee.getBalance());
+        overallStatus.setPayerBalance(payer.getBalance());
+        overallStatus.setPayerStatus(fromFixer.getStatus());
+        overallStatus.setPayeeStatus(toFixer.getStatus());
+        overallStatus.setStatus(TransactionStatus.BAD);
+    }
+
+    /**
+     * Is called by {@link BatchTransaction} before it changes accounts.
+     */
+    void checkAvailable() {
+        commitListener.checkAvailable();
+    }
+
+    /**
+     * Performs transaction when the caller has already locked or owns both accounts, see {@link BatchTransaction}.
+     */
+    synchronized OverallStatus performLocked() {
+        if (overallStatus.getStatus() != TransactionStatus.OK) {
+            transfer();
+        }
+        return overallStatus;
+    }
+
+    /**
+     * Cancels completed transaction which isn't committed. The caller has locked or owns both accounts.
+     */
+    synchronized void rollback() {
+        if (overallStatus.getStatus() != TransactionStatus.OK) {
+            return;
+        }
+        fromFixer.cancel();
+        toFixer.cancel();
+        fromFixer = null;
+        toFixer = null;
+        overallStatus.setPayerBalance(payer.getBalance());
+        overallStatus.setPayeeBalance(payee.getBalance());
+        overallStatus.setStatus(TransactionStatus.ROLLED_BACK);
+    }
+
+    /**
+     * Marks transaction which won't be performed.
+     */
+    synchronized void reject(final TransactionStatus status) {
+        overallStatus.setTransferSum(to.getAmount());
+        overallStatus.setStatus(status);
     }
 
     public ZonedDateTime getDate() {
         return date;
     }
 
+    /**
+     * ROLLED_BACK means that transaction was cancelled or not performed, because another transaction
+     * of the same all-or-nothing batch failed.
+     */
     public enum TransactionStatus {
-        PAYEE_BUSY, PAYER_BUSY, BAD, OK
+        PAYEE_BUSY, PAYER_BUSY, BAD, OK, ROLLED_BACK
     }
 
     @Data
@@ -0,0 +1,8 @@
+package revolut.model;
+
+public enum BatchMode {
+    /* Every transaction of batch is performed independently. */
+    BEST_EFFORT,
+    /* If any transaction fails, all transactions of batch are cancelled. */
+    ALL_OR_NOTHING
+}
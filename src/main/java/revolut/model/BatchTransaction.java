@@ -0,0 +1,322 @@
+package revolut.model;
+
+import lombok.Data;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Performs many transactions at once.
+ * Transactions are split into groups. All accounts of a group are locked once in order of their ids,
+ * then transactions of the group are performed without taking locks again.
+ * In BEST_EFFORT mode transactions which share accounts directly or through other transactions are grouped together,
+ * a group has at most "group size" transactions, so unrelated accounts aren't locked together.
+ * In ALL_OR_NOTHING mode the whole batch is a single group, and if any transaction fails,
+ * the completed ones are rolled back before locks are released. Such batch can't lock more than "max locks" accounts.
+ * If accounts have owners, groups are performed by them without locks, see {@link #perform(AccountOwners)}.
+ */
+public class BatchTransaction {
+    public static final int GROUP_SIZE = 256;
+    public static final int MAX_LOCKS = 1024;
+    private static final Logger logger = LoggerFactory.getLogger(BatchTransaction.class);
+    private final List<AccountingTransaction> transactions;
+    private final BatchMode mode;
+    private final LockRetryPolicy retryPolicy;
+    private final int groupSize;
+
+    public BatchTransaction(final List<AccountingTransaction> transactions, final BatchMode mode, final LockRetryPolicy retryPolicy) {
+        this(transactions, mode, retryPolicy, GROUP_SIZE);
+    }
+
+    public BatchTransaction(final List<AccountingTransaction> transactions, final BatchMode mode,
+                            final LockRetryPolicy retryPolicy, final int groupSize) {
+        this(transactions, mode, retryPolicy, groupSize, MAX_LOCKS);
+    }
+
+    /**
+     * @throws IllegalArgumentException if ALL_OR_NOTHING batch has more than maxLocks accounts.
+     */
+    public BatchTransaction(final List<AccountingTransaction> transactions, final BatchMode mode,
+                            final LockRetryPolicy retryPolicy, final int groupSize, final int maxLocks) {
+        Objects.requireNonNull(transactions, "Transactions can't be null.");
+        Objects.requireNonNull(mode, "Mode can't be null.");
+        Objects.requireNonNull(retryPolicy, "Retry policy can't be null.");
+        if (groupSize < 1) {
+            throw new IllegalArgumentException("Group size must be positive.");
+        }
+        this.transactions = List.copyOf(transactions);
+        this.mode = mode;
+        this.retryPolicy = retryPolicy;
+        this.groupSize = groupSize;
+        if (mode == BatchMode.ALL_OR_NOTHING && accountsOf(this.transactions).size() > maxLocks) {
+            throw new IllegalArgumentException(String.format("All-or-nothing batch can't involve more than %d accounts.", maxLocks));
+        }
+    }
+
+    public List<AccountingTransaction> getTransactions() {
+        return transactions;
+    }
+
+    public BatchStatus perform() {
+        return perform(this::performGroup);
+    }
+
+    /**
+     * Passes every group to the owners of its accounts, which perform it as a whole, so accounts aren't locked.
+     */
+    public BatchStatus perform(final AccountOwners owners) {
+        Objects.requireNonNull(owners, "Owners can't be null.");
+        return perform(group -> {
+            final Collection<Account> accounts = accountsOf(group).values();
+            return owners.execute(accounts, () -> performOwnedGroup(group, accounts));
+        });
+    }
+
+    private BatchStatus perform(final Function<List<AccountingTransaction>, List<AccountingTransaction.OverallStatus>> performer) {
+        final BatchStatus batchStatus = new BatchStatus();
+        batchStatus.setMode(mode);
+        final List<AccountingTransaction.OverallStatus> results;
+        if (mode == BatchMode.ALL_OR_NOTHING) {
+            results = performer.apply(transactions);
+        } else {
+            final AccountingTransaction.OverallStatus[] ordered = new AccountingTransaction.OverallStatus[transactions.size()];
+            for (final List<Integer> group : groups()) {
+                final List<AccountingTransaction> members = new ArrayList<>(group.size());
+                group.forEach(index -> members.add(transactions.get(index)));
+                final List<AccountingTransaction.OverallStatus> groupResults = performer.apply(members);
+                for (int i = 0; i < group.size(); i++) {
+                    ordered[group.get(i)] = groupResults.get(i);
+                }
+            }
+            results = Arrays.asList(ordered);
+        }
+        int succeeded = 0;
+        for (final AccountingTransaction.OverallStatus result : results) {
+            if (result.getStatus() == AccountingTransaction.TransactionStatus.OK) {
+                succeeded++;
+            }
+        }
+        batchStatus.setSucceeded(succeeded);
+        batchStatus.setFailed(results.size() - succeeded);
+        batchStatus.setResults(results);
+        return batchStatus;
+    }
+
+    /**
+     * Splits transactions into sets connected by accounts, every set keeps order of its transactions
+     * and is cut into groups of at most {@link #groupSize} transactions.
+     * Transactions of different sets don't share accounts, so the order of sets doesn't change results.
+     *
+     * @return indexes of transactions by groups.
+     */
+    private List<List<Integer>> groups() {
+        final Map<Account, Integer> accounts = new HashMap<>();
+        final int[] parents = new int[2 * transactions.size()];
+        for (final AccountingTransaction transaction : transactions) {
+            union(parents, indexOf(accounts, parents, transaction.getPayer()), indexOf(accounts, parents, transaction.getPayee()));
+        }
+        final Map<Integer, List<Integer>> sets = new LinkedHashMap<>();
+        for (int i = 0; i < transactions.size(); i++) {
+            final int root = find(parents, accounts.get(transactions.get(i).getPayer()));
+            sets.computeIfAbsent(root, key -> new ArrayList<>()).add(i);
+        }
+        final List<List<Integer>> groups = new ArrayList<>();
+        for (final List<Integer> set : sets.values()) {
+            for (int from = 0; from < set.size(); from += groupSize) {
+                groups.add(set.subList(from, Math.min(set.size(), from + groupSize)));
+            }
+        }
+        return groups;
+    }
+
+    private static int indexOf(final Map<Account, Integer> accounts, final int[] parents, final Account account) {
+        return accounts.computeIfAbsent(account, key -> {
+            final int index = accounts.size();
+            parents[index] = index;
+            return index;
+        });
+    }
+
+    private static int find(final int[] parents, final int index) {
+        int root = index;
+        while (parents[root] != root) {
+            root = parents[root];
+        }
+        for (int next = index; parents[next] != root; ) {
+            final int parent = parents[next];
+            parents[next] = root;
+            next = parent;
+        }
+        return root;
+    }
+
+    private static void union(final int[] parents, final int first, final int second) {
+        final int firstRoot = find(parents, first);
+        final int secondRoot = find(parents, second);
+        if (firstRoot != secondRoot) {
+            parents[Math.max(firstRoot, secondRoot)] = Math.min(firstRoot, secondRoot);
+        }
+    }
+
+    /**
+     * @return accounts of transactions in order of their ids.
+     */
+    private static TreeMap<Long, Account> accountsOf(final List<AccountingTransaction> transactions) {
+        final TreeMap<Long, Account> accounts = new TreeMap<>();
+        for (final AccountingTransaction transaction : transactions) {
+            accounts.put(transaction.getPayer().getId(), transaction.getPayer());
+            accounts.put(transaction.getPayee().getId(), transaction.getPayee());
+        }
+        return accounts;
+    }
+
+    private List<AccountingTransaction.OverallStatus> performGroup(final List<AccountingTransaction> group) {
+        final TreeMap<Long, Account> accounts = accountsOf(group);
+        final List<Account> locked = new ArrayList<>(accounts.size());
+        try {
+            final Account busy = lockAll(accounts.values(), locked);
+            if (busy != null) {
+                return performBusyGroup(group, busy);
+            }
+            return performOwnedGroup(group, accounts.values());
+        } catch (InterruptedException e) {
+            logger.error(e.getLocalizedMessage(), e);
+            Thread.currentThread().interrupt();
+            return performBusyGroup(group, null);
+        } finally {
+            Collections.reverse(locked);
+            locked.forEach(Account::unlock);
+        }
+    }
+
+    /**
+     * Performs group when the caller has locked or owns all its accounts.
+     */
+    private List<AccountingTransaction.OverallStatus> performOwnedGroup(final List<AccountingTransaction> group,
+                                                                        final Collection<Account> accounts) {
+        group.forEach(AccountingTransaction::checkAvailable);
+        final List<AccountingTransaction.OverallStatus> results = new ArrayList<>(group.size());
+        for (int i = 0; i < group.size(); i++) {
+            final AccountingTransaction.OverallStatus result = group.get(i).performLocked();
+            results.add(result);
+            if (mode == BatchMode.ALL_OR_NOTHING && result.getStatus() != AccountingTransaction.TransactionStatus.OK) {
+                rollback(group, i);
+                for (int j = i + 1; j < group.size(); j++) {
+                    results.add(group.get(j).getOverallStatus());
+                }
+                return results;
+            }
+            if (mode == BatchMode.BEST_EFFORT) {
+                notifyListener(group, i, i, accounts);
+            }
+        }
+        // The whole group becomes visible to read views at once.
+        LedgerVersions.commit(() -> {
+            if (mode == BatchMode.ALL_OR_NOTHING) {
+                // Nothing can be rolled back anymore, so transactions are reported as completed.
+                for (int i = 0; i < group.size(); i++) {
+                    notifyListener(group, i, group.size() - 1, accounts);
+                }
+            }
+            LedgerVersions.publish(accounts);
+            return 0L;
+        });
+        return results;
+    }
+
+    /**
+     * Reports transaction to its commit listener. If listener fails, transactions from the given one to "last"
+     * aren't committed, so they are cancelled, and changes made before are published.
+     */
+    private void notifyListener(final List<AccountingTransaction> group, final int index, final int last,
+                                final Collection<Account> accounts) {
+        try {
+            group.get(index).notifyListener();
+        } catch (RuntimeException e) {
+            for (int i = last; i >= index; i--) {
+                group.get(i).rollback();
+            }
+            LedgerVersions.publish(accounts);
+            throw e;
+        }
+    }
+
+    /**
+     * Cancels transactions before the failed one and marks the rest of batch as rolled back.
+     */
+    private void rollback(final List<AccountingTransaction> group, final int failed) {
+        for (int i = failed - 1; i >= 0; i--) {
+            group.get(i).rollback();
+        }
+        for (int i = failed + 1; i < group.size(); i++) {
+            group.get(i).reject(AccountingTransaction.TransactionStatus.ROLLED_BACK);
+        }
+        logger.info("Batch of {} transactions is rolled back because transaction {} failed.", group.size(), failed);
+    }
+
+    /**
+     * If not all accounts of group can be locked, in BEST_EFFORT mode every transaction is performed separately,
+     * in ALL_OR_NOTHING mode the batch is rejected.
+     */
+    private List<AccountingTransaction.OverallStatus> performBusyGroup(final List<AccountingTransaction> group, final Account busy) {
+        final List<AccountingTransaction.OverallStatus> results = new ArrayList<>(group.size());
+        for (final AccountingTransaction transaction : group) {
+            if (mode == BatchMode.BEST_EFFORT) {
+                results.add(transaction.perform());
+            } else {
+                transaction.reject(transaction.getPayee().equals(busy) ?
+                        AccountingTransaction.TransactionStatus.PAYEE_BUSY : AccountingTransaction.TransactionStatus.PAYER_BUSY);
+                results.add(transaction.getOverallStatus());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Locks accounts in the given order according to retry policy.
+     *
+     * @return null if all accounts are locked, otherwise the account which was busy. Locked accounts are added to the list.
+     */
+    private Account lockAll(final Iterable<Account> accounts, final List<Account> locked) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            Account busy = null;
+            for (final Account account : accounts) {
+                if (!account.tryLock(retryPolicy.getWaitInterval())) {
+                    busy = account;
+                    break;
+                }
+                locked.add(account);
+            }
+            if (busy == null) {
+                return null;
+            }
+            Collections.reverse(locked);
+            locked.forEach(Account::unlock);
+            locked.clear();
+            if (attempt >= retryPolicy.getMaxAttempts()) {
+                return busy;
+            }
+            TimeUnit.NANOSECONDS.sleep(retryPolicy.backoff(attempt));
+        }
+    }
+
+    @Data
+    public static class BatchStatus {
+        private BatchMode mode;
+        private int succeeded;
+        private int failed;
+        private List<AccountingTransaction.OverallStatus> results;
+    }
+}
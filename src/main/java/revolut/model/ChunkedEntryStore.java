@@ -0,0 +1,231 @@
+package revolut.model;
+
+import java.time.ZonedDateTime;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Append-only store. Entries are written into chunks: the first chunk has "first" slots, every next one is twice bigger
+ * up to "max" slots, so adding doesn't copy entries and small accounts don't waste memory.
+ * <p>
+ * A written slot is never changed, so a view is bounded by the positions of the first and the last entries
+ * at the moment of call, it never changes and reading doesn't need any lock.
+ * Removal doesn't touch slots either: removed entries at the beginning move the first position forward,
+ * the rest of removed ones, i.e. entries added after later ones, become holes which views skip.
+ * Chunks entirely before the first position are dropped, a view which still reads them keeps them.
+ * </p>
+ *
+ * @param <C> chunk of slots.
+ */
+public abstract class ChunkedEntryStore<C> implements EntryStore {
+    private static final int[] NO_HOLES = new int[0];
+    private final int firstBits;
+    private final int maxBits;
+    /* Count of slots in chunks of growing size, the rest of chunks have "max" slots. */
+    private final long growingSlots;
+    /* A chunk is published before count, dropped chunks are null. */
+    private volatile Object[] chunks = new Object[0];
+    private volatile Head head = new Head(0, NO_HOLES);
+    /* Position after the last entry. */
+    private volatile int count;
+
+    protected ChunkedEntryStore(final int firstChunk, final int maxChunk) {
+        if (Integer.bitCount(firstChunk) != 1 || Integer.bitCount(maxChunk) != 1 || firstChunk > maxChunk) {
+            throw new IllegalArgumentException("Sizes of chunks must be powers of two.");
+        }
+        this.firstBits = Integer.numberOfTrailingZeros(firstChunk);
+        this.maxBits = Integer.numberOfTrailingZeros(maxChunk);
+        this.growingSlots = (1L << (maxBits + 1)) - (1L << firstBits);
+    }
+
+    /**
+     * @return new chunk with the given count of slots.
+     */
+    protected abstract C allocate(int slots);
+
+    protected abstract void write(C chunk, int slot, Entry entry);
+
+    protected abstract Entry read(C chunk, int slot);
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public int add(final Entry entry) {
+        Objects.requireNonNull(entry, "Entry can't be null");
+        final int position = count;
+        final int chunk = chunkOf(position);
+        Object[] current = chunks;
+        if (chunk == current.length) {
+            current = Arrays.copyOf(current, chunk + 1);
+            current[chunk] = allocate(chunk <= maxBits - firstBits ? 1 << (firstBits + chunk) : 1 << maxBits);
+            chunks = current;
+        }
+        write((C) current[chunk], slotOf(position), entry);
+        // The entry is published by the count.
+        count = position + 1;
+        return position;
+    }
+
+    @Override
+    public List<Entry> removeBefore(final ZonedDateTime horizon) {
+        final View current = snapshot();
+        final List<Entry> removed = new ArrayList<>();
+        // Position of the first entry which stays becomes the start.
+        int start = -1;
+        int[] holes = Arrays.copyOf(current.holes, current.holeCount + 8);
+        int holeCount = current.holeCount;
+        for (int i = 0; i < current.size(); i++) {
+            final Entry entry = current.get(i);
+            if (!entry.getDate().isBefore(horizon)) {
+                if (start < 0) {
+                    start = current.positionOf(i);
+                }
+            } else {
+                removed.add(entry);
+                if (start >= 0) {
+                    if (holeCount == holes.length) {
+                        holes = Arrays.copyOf(holes, holeCount * 2);
+                    }
+                    holes[holeCount++] = current.positionOf(i);
+                }
+            }
+        }
+        if (removed.isEmpty()) {
+            return removed;
+        }
+        if (start < 0) {
+            start = current.end;
+        }
+        Arrays.sort(holes, 0, holeCount);
+        final int from = lowerBound(holes, holeCount, start);
+        head = new Head(start, from == holeCount ? NO_HOLES : Arrays.copyOfRange(holes, from, holeCount));
+        // The chunk of the start may be not allocated yet, then all chunks are dropped.
+        final int firstKept = Math.min(chunkOf(start), chunks.length);
+        if (firstKept > 0 && chunks[firstKept - 1] != null) {
+            final Object[] kept = chunks.clone();
+            Arrays.fill(kept, 0, firstKept, null);
+            chunks = kept;
+        }
+        return removed;
+    }
+
+    /**
+     * Returns view of entries which were in the store at the moment of call.
+     */
+    @Override
+    public EntryStore.View view() {
+        return snapshot();
+    }
+
+    @Override
+    public int size() {
+        return snapshot().size();
+    }
+
+    private View snapshot() {
+        // The count is read first, so chunks have all entries before it. Head is published before chunks are dropped.
+        final int end = count;
+        final Object[] current = chunks;
+        final Head first = head;
+        return new View(current, Math.min(first.start, end), end, first.holes);
+    }
+
+    private int chunkOf(final int position) {
+        if (position < growingSlots) {
+            final long shifted = position + (1L << firstBits);
+            return 63 - Long.numberOfLeadingZeros(shifted) - firstBits;
+        }
+        return maxBits - firstBits + 1 + (int) ((position - growingSlots) >> maxBits);
+    }
+
+    private int slotOf(final int position) {
+        if (position < growingSlots) {
+            final long shifted = position + (1L << firstBits);
+            return (int) (shifted - Long.highestOneBit(shifted));
+        }
+        return (int) ((position - growingSlots) & ((1L << maxBits) - 1));
+    }
+
+    /**
+     * @return index of the first value which isn't less than the key.
+     */
+    private static int lowerBound(final int[] values, final int length, final int key) {
+        int low = 0;
+        int high = length;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (values[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Position of the first entry and sorted positions of removed entries after it, they are changed together.
+     */
+    private static final class Head {
+        private final int start;
+        private final int[] holes;
+
+        private Head(final int start, final int[] holes) {
+            this.start = start;
+            this.holes = holes;
+        }
+    }
+
+    private class View extends AbstractList<Entry> implements EntryStore.View, RandomAccess {
+        private final Object[] chunks;
+        private final int start;
+        private final int end;
+        private final int[] holes;
+        /* Count of holes before the end, later ones belong to entries added after the view. */
+        private final int holeCount;
+
+        private View(final Object[] chunks, final int start, final int end, final int[] holes) {
+            this.chunks = chunks;
+            this.start = start;
+            this.end = end;
+            this.holes = holes;
+            this.holeCount = lowerBound(holes, holes.length, end);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Entry get(final int index) {
+            final int position = positionOf(index);
+            return read((C) chunks[chunkOf(position)], slotOf(position));
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Entry atPosition(final int position) {
+            if (position < start || position >= end || Arrays.binarySearch(holes, 0, holeCount, position) >= 0) {
+                return null;
+            }
+            return read((C) chunks[chunkOf(position)], slotOf(position));
+        }
+
+        @Override
+        public int size() {
+            return end - start - holeCount;
+        }
+
+        /**
+         * @return position in store of the entry with the given index in view.
+         */
+        int positionOf(final int index) {
+            Objects.checkIndex(index, size());
+            int position = start + index;
+            for (int i = 0; i < holeCount && holes[i] <= position; i++) {
+                position++;
+            }
+            return position;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package revolut.model;
+
+/**
+ * Gets every completed transaction. It is called by commits which don't overlap, see {@link LedgerVersions},
+ * so the order of calls for an account is the order in which its committed balance was changed.
+ */
+public interface CommitListener {
+    CommitListener NONE = transaction -> 0L;
+
+    /**
+     * @return sequence number assigned to transaction, 0 if it isn't tracked.
+     */
+    long committed(AccountingTransaction transaction);
+
+    /**
+     * Is called before accounts are changed, so a transaction which can't be committed doesn't change them.
+     *
+     * @throws RuntimeException if completed transactions can't be accepted.
+     */
+    default void checkAvailable() {
+    }
+}
@@ -1,7 +1,6 @@
 package revolut.model;
 
-import lombok.EqualsAndHashCode;
-import lombok.Getter;
+import org.joda.money.CurrencyUnit;
 import org.joda.money.Money;
 
 import java.time.ZonedDateTime;
@@ -14,16 +13,47 @@ import java.util.Objects;
  * Any instance of this class can't have null fields otherwise it throws NullPointerException.
  * It is an immutable class.
  * </p>
+ * <p>
+ * Amount is kept in minor units of currency, so accounts check and sum entries without creating {@link Money}.
+ * </p>
  */
-@Getter
 public class Entry {
-    private final Money amount;
+    private final CurrencyUnit currency;
+    private final long amountMinor;
     private final ZonedDateTime date;
 
     public Entry(final Money amount, final ZonedDateTime date) {
-        Objects.requireNonNull(amount, "Amount can't be null");
+        this(Objects.requireNonNull(amount, "Amount can't be null").getCurrencyUnit(), amount.getAmountMinorLong(), date);
+    }
+
+    public Entry(final CurrencyUnit currency, final long amountMinor, final ZonedDateTime date) {
+        Objects.requireNonNull(currency, "Currency can't be null");
         Objects.requireNonNull(date, "Date can't be null");
-        this.amount = amount;
+        this.currency = currency;
+        this.amountMinor = amountMinor;
         this.date = date;
     }
+
+    public Money getAmount() {
+        return Money.ofMinor(currency, amountMinor);
+    }
+
+    public CurrencyUnit getCurrency() {
+        return currency;
+    }
+
+    public long getAmountMinor() {
+        return amountMinor;
+    }
+
+    public ZonedDateTime getDate() {
+        return date;
+    }
+
+    /**
+     * @return the same entry with opposite amount.
+     */
+    public Entry negated() {
+        return new Entry(currency, -amountMinor, date);
+    }
 }
@@ -0,0 +1,57 @@
+package revolut.model;
+
+import org.joda.money.CurrencyUnit;
+
+import java.util.List;
+
+/**
+ * Keeps entries collapsed into initial balance of accounts out of heap.
+ * Archived entries of an account are chained, so the account keeps only the position of its last archived entry.
+ */
+public interface EntryArchive extends AutoCloseable {
+    /* Position of the last archived entry of account which has none. */
+    long EMPTY = -1L;
+
+    /**
+     * Archive which drops entries, they stay only in initial balance of account and in journal.
+     */
+    EntryArchive NONE = new EntryArchive() {
+        @Override
+        public long append(long accountId, long last, List<Entry> entries) {
+            return last;
+        }
+
+        @Override
+        public List<Entry> read(long accountId, CurrencyUnit currency, long last) {
+            return List.of();
+        }
+    };
+
+    /**
+     * @return position of the last entry of account archived before the archive is opened or {@link #EMPTY}.
+     */
+    default long last(long accountId) {
+        return EMPTY;
+    }
+
+    /**
+     * Appends entries of account. It is called only by the writer of account, see {@link Account}.
+     *
+     * @param last position of the last archived entry of account or {@link #EMPTY}.
+     * @return position of the last archived entry of account.
+     */
+    long append(long accountId, long last, List<Entry> entries);
+
+    /**
+     * @param last position returned by the last {@link #append}.
+     * @return archived entries of account in order of archiving.
+     */
+    List<Entry> read(long accountId, CurrencyUnit currency, long last);
+
+    /**
+     * Releases the file of archive, it is called once on shutdown.
+     */
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,530 @@
+package revolut.model;
+
+import lombok.EqualsAndHashCode;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Index of account entries by date over {@link EntryStore}, so entries of a period are found in O(log n + k)
+ * and the sum until any date in O(log n) instead of scanning all of them. Entries with the same date are kept
+ * in order of adding.
+ * <p>
+ * New entries come almost always in order of date. Such entries are kept only by the store, as their dates grow
+ * together with their positions: the index keeps a checkpoint with the date, the position and the running sum
+ * of every {@link #CHECKPOINT_INTERVAL}-th of them, and the store is read between checkpoints.
+ * An entry earlier than the last one in order, e.g. a reversal of cancelled entry, is late. Only late entries
+ * take heap per entry: they are kept in a treap where every node has the sum of its subtree, so adding a late entry
+ * and the sum until a date take O(log n) of late entries. Nodes are never changed, a change replaces the path to
+ * the root, so the tree is read at any time.
+ * </p>
+ * Changes are made only by the writer of account, see {@link Account}. Entries can be read at any time,
+ * sums are checked by account against concurrent changes.
+ */
+public class EntryIndex {
+    public static final int CHECKPOINT_INTERVAL = 64;
+    /* Longs of checkpoint: epoch second, nano and position in store, sum of earlier entries in order. */
+    private static final int CHECKPOINT_SIZE = 3;
+    private final EntryStore store;
+    /* Checkpoints are published by their count. */
+    private volatile long[] checkpoints = new long[CHECKPOINT_SIZE * 4];
+    private volatile int checkpointCount;
+    /* Positions in store of late entries, entries in order are read around them. */
+    private volatile Positions latePositions = new Positions(new int[0], 0);
+    /* Position in store after the last entry in order, it is published after the entry is indexed. */
+    private volatile int inOrderEnd;
+    /* The first entry in order which isn't removed. */
+    private volatile Mark start = new Mark(0, 0, 0);
+    /* Count, sum and date of entries in order including removed ones, they are used only by the writer and sums. */
+    private int inOrderCount;
+    private long inOrderSum;
+    private Instant last;
+    /* Root of the tree of late entries, null if there are none. */
+    private volatile Node late;
+
+    public EntryIndex(final EntryStore store) {
+        this.store = Objects.requireNonNull(store, "Store can't be null");
+    }
+
+    /**
+     * @param storePosition position of the entry returned by {@link EntryStore#add(Entry)}.
+     */
+    public void add(final Entry entry, final int storePosition) {
+        final Instant date = entry.getDate().toInstant();
+        final long amount = entry.getAmountMinor();
+        if (last == null || !date.isBefore(last)) {
+            if (inOrderCount % CHECKPOINT_INTERVAL == 0) {
+                addCheckpoint(date, storePosition);
+            }
+            inOrderSum = Math.addExact(inOrderSum, amount);
+            inOrderCount++;
+            last = date;
+            inOrderEnd = storePosition + 1;
+            return;
+        }
+        latePositions = latePositions.plus(storePosition);
+        final Node node = new Node(date.getEpochSecond(), date.getNano(), storePosition, amount);
+        final Node[] parts = split(late, new Position(date, storePosition));
+        late = merge(merge(parts[0], node), parts[1]);
+    }
+
+    private void addCheckpoint(final Instant date, final int storePosition) {
+        long[] current = checkpoints;
+        final int offset = checkpointCount * CHECKPOINT_SIZE;
+        if (offset == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[offset] = date.getEpochSecond();
+        current[offset + 1] = (long) date.getNano() << Integer.SIZE | storePosition;
+        current[offset + 2] = inOrderSum;
+        checkpoints = current;
+        checkpointCount++;
+    }
+
+    /**
+     * Removes entries made before the horizon. It must be called before they are removed from the store.
+     */
+    public void removeBefore(final ZonedDateTime horizon) {
+        final Position key = new Position(horizon.toInstant(), Integer.MIN_VALUE);
+        final Walk walk = walk(store.view(), key);
+        while (walk.peek() != null && walk.compareTo(key) < 0) {
+            walk.advance();
+        }
+        if (walk.ordinal > start.ordinal) {
+            start = new Mark(walk.position, walk.ordinal, walk.sum);
+            latePositions = latePositions.from(walk.position);
+        }
+        late = split(late, key)[1];
+    }
+
+    /**
+     * Sums amounts of entries made until the date inclusive. The result is wrong if entries are changed meanwhile.
+     */
+    public long sumUntil(final ZonedDateTime date) {
+        final Position key = new Position(date.toInstant(), Integer.MAX_VALUE);
+        final Walk walk = walk(store.view(), key);
+        while (walk.peek() != null && walk.compareTo(key) <= 0) {
+            walk.advance();
+        }
+        long lateSum = 0;
+        for (Node node = late; node != null; ) {
+            if (node.compareTo(key) <= 0) {
+                lateSum = Math.addExact(lateSum, Math.addExact(Node.sumOf(node.left), node.amount));
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return walk.sum - start.sum + lateSum;
+    }
+
+    /**
+     * Returns entries in order of date. Every iteration reads the store as it is at its beginning,
+     * entries changed during iteration may be seen or not.
+     *
+     * @param from  the earliest date inclusive, null for no bound.
+     * @param to    the latest date exclusive, null for no bound.
+     * @param after position of the last entry already read, null to read from the beginning.
+     * @return entries by their positions.
+     */
+    public Iterable<Map.Entry<Position, Entry>> range(final ZonedDateTime from, final ZonedDateTime to, final Position after) {
+        Position lower = from == null ? null : new Position(from.toInstant(), Integer.MIN_VALUE);
+        final boolean inclusive = after == null || (lower != null && after.compareTo(lower) < 0);
+        if (!inclusive) {
+            lower = after;
+        }
+        final Position lowerBound = lower;
+        final Position upper = to == null ? null : new Position(to.toInstant(), Integer.MIN_VALUE);
+        return () -> new Range(lowerBound, inclusive, upper);
+    }
+
+    /**
+     * @return count of entries, it is wrong if entries are changed meanwhile.
+     */
+    public int size() {
+        return inOrderCount - start.ordinal + Node.sizeOf(late);
+    }
+
+    /**
+     * Starts reading entries in order from the last checkpoint not after the key.
+     *
+     * @param key null to start from the first entry.
+     */
+    private Walk walk(final EntryStore.View view, final Position key) {
+        // The end is read first, so checkpoints and late positions of all entries before it are seen.
+        final int end = inOrderEnd;
+        final Mark first = start;
+        final int count = checkpointCount;
+        final long[] current = checkpoints;
+        int low = 0;
+        int high = count;
+        while (key != null && low < high) {
+            final int middle = (low + high) >>> 1;
+            final int offset = middle * CHECKPOINT_SIZE;
+            if (compare(current[offset], (int) (current[offset + 1] >>> Integer.SIZE), (int) current[offset + 1], key) <= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        Mark from = first;
+        if (low > 0 && (long) (low - 1) * CHECKPOINT_INTERVAL > first.ordinal) {
+            final int offset = (low - 1) * CHECKPOINT_SIZE;
+            from = new Mark((int) current[offset + 1], (low - 1) * CHECKPOINT_INTERVAL, current[offset + 2]);
+        }
+        return new Walk(view, end, latePositions, from);
+    }
+
+    private static int compare(final long epochSecond, final int nano, final int storePosition, final Position key) {
+        int result = Long.compare(epochSecond, key.epochSecond);
+        if (result == 0) {
+            result = Integer.compare(nano, key.nano);
+        }
+        return result == 0 ? Integer.compare(storePosition, key.storePosition) : result;
+    }
+
+    /**
+     * @return nodes before the key and the rest.
+     */
+    private static Node[] split(final Node node, final Position key) {
+        if (node == null) {
+            return new Node[2];
+        }
+        if (node.compareTo(key) < 0) {
+            final Node[] parts = split(node.right, key);
+            parts[0] = node.with(node.left, parts[0]);
+            return parts;
+        }
+        final Node[] parts = split(node.left, key);
+        parts[1] = node.with(parts[1], node.right);
+        return parts;
+    }
+
+    /**
+     * @param first nodes before all of the second ones.
+     */
+    private static Node merge(final Node first, final Node second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        if (first.priority > second.priority) {
+            return first.with(first.left, merge(first.right, second));
+        }
+        return second.with(merge(first, second.left), second.right);
+    }
+
+    /**
+     * Late entry. Nodes are ordered by position and heap-ordered by random priority, so the tree stays balanced.
+     */
+    private static final class Node {
+        private final long epochSecond;
+        private final int nano;
+        private final int storePosition;
+        private final long amount;
+        private final int priority;
+        private final Node left;
+        private final Node right;
+        /* Sum and count of entries of the subtree. */
+        private final long sum;
+        private final int size;
+
+        private Node(final long epochSecond, final int nano, final int storePosition, final long amount) {
+            this(epochSecond, nano, storePosition, amount, ThreadLocalRandom.current().nextInt(), null, null);
+        }
+
+        private Node(final long epochSecond, final int nano, final int storePosition, final long amount,
+                     final int priority, final Node left, final Node right) {
+            this.epochSecond = epochSecond;
+            this.nano = nano;
+            this.storePosition = storePosition;
+            this.amount = amount;
+            this.priority = priority;
+            this.left = left;
+            this.right = right;
+            this.sum = Math.addExact(Math.addExact(sumOf(left), sumOf(right)), amount);
+            this.size = sizeOf(left) + sizeOf(right) + 1;
+        }
+
+        private Node with(final Node left, final Node right) {
+            return left == this.left && right == this.right ? this
+                    : new Node(epochSecond, nano, storePosition, amount, priority, left, right);
+        }
+
+        private int compareTo(final Position key) {
+            return compare(epochSecond, nano, storePosition, key);
+        }
+
+        private Position position() {
+            return new Position(Instant.ofEpochSecond(epochSecond, nano), storePosition);
+        }
+
+        private static long sumOf(final Node node) {
+            return node == null ? 0 : node.sum;
+        }
+
+        private static int sizeOf(final Node node) {
+            return node == null ? 0 : node.size;
+        }
+    }
+
+    /**
+     * Late entries of a tree in order from the lower bound.
+     */
+    private static final class LateNodes {
+        private final Deque<Node> path = new ArrayDeque<>();
+
+        private LateNodes(final Node root, final Position lower, final boolean inclusive) {
+            for (Node node = root; node != null; ) {
+                if (lower == null || node.compareTo(lower) >= (inclusive ? 0 : 1)) {
+                    path.push(node);
+                    node = node.left;
+                } else {
+                    node = node.right;
+                }
+            }
+        }
+
+        /**
+         * @return the next node or null if there are no more nodes.
+         */
+        private Node next() {
+            final Node node = path.poll();
+            if (node != null) {
+                for (Node next = node.right; next != null; next = next.left) {
+                    path.push(next);
+                }
+            }
+            return node;
+        }
+    }
+
+    /**
+     * Entry in order with its position in store, count and sum of entries in order before it.
+     */
+    private static final class Mark {
+        private final int position;
+        private final int ordinal;
+        private final long sum;
+
+        private Mark(final int position, final int ordinal, final long sum) {
+            this.position = position;
+            this.ordinal = ordinal;
+            this.sum = sum;
+        }
+    }
+
+    /**
+     * Sorted positions in store. A writer fills a slot after the count of every published instance,
+     * so published instances never change.
+     */
+    private static final class Positions {
+        private final int[] values;
+        private final int count;
+
+        private Positions(final int[] values, final int count) {
+            this.values = values;
+            this.count = count;
+        }
+
+        private Positions plus(final int position) {
+            final int[] next = count == values.length ? Arrays.copyOf(values, Math.max(4, count * 2)) : values;
+            next[count] = position;
+            return new Positions(next, count + 1);
+        }
+
+        /**
+         * @return positions which aren't less than the given one.
+         */
+        private Positions from(final int position) {
+            final int first = lowerBound(position);
+            return first == 0 ? this : new Positions(Arrays.copyOfRange(values, first, count), count - first);
+        }
+
+        private int lowerBound(final int position) {
+            final int index = Arrays.binarySearch(values, 0, count, position);
+            return index < 0 ? -index - 1 : index;
+        }
+    }
+
+    /**
+     * Reads entries in order from the store one by one, late entries and removed ones are skipped.
+     */
+    private static final class Walk {
+        private final EntryStore.View view;
+        private final int end;
+        private final Positions skipped;
+        private int skippedIndex;
+        /* Position, count and sum of entries in order before the current entry. */
+        private int position;
+        private int ordinal;
+        private long sum;
+        private Entry current;
+
+        private Walk(final EntryStore.View view, final int end, final Positions skipped, final Mark from) {
+            this.view = view;
+            this.end = end;
+            this.skipped = skipped;
+            this.position = from.position;
+            this.ordinal = from.ordinal;
+            this.sum = from.sum;
+            this.skippedIndex = skipped.lowerBound(position);
+        }
+
+        /**
+         * @return the current entry or null if there are no more entries.
+         */
+        private Entry peek() {
+            while (current == null && position < end) {
+                while (skippedIndex < skipped.count && skipped.values[skippedIndex] < position) {
+                    skippedIndex++;
+                }
+                if (skippedIndex < skipped.count && skipped.values[skippedIndex] == position) {
+                    position++;
+                } else {
+                    current = view.atPosition(position);
+                    if (current == null) {
+                        // It is removed after reading started.
+                        position++;
+                    }
+                }
+            }
+            return current;
+        }
+
+        private void advance() {
+            sum = Math.addExact(sum, current.getAmountMinor());
+            ordinal++;
+            position++;
+            current = null;
+        }
+
+        private int compareTo(final Position key) {
+            final Instant date = current.getDate().toInstant();
+            return compare(date.getEpochSecond(), date.getNano(), position, key);
+        }
+
+        private Position key() {
+            return new Position(current.getDate().toInstant(), position);
+        }
+    }
+
+    /**
+     * Merges entries in order with late ones.
+     */
+    private final class Range implements Iterator<Map.Entry<Position, Entry>> {
+        private final EntryStore.View view;
+        private final Walk inOrder;
+        private final LateNodes lateNodes;
+        private final Position upper;
+        private Node nextLate;
+        private Map.Entry<Position, Entry> next;
+
+        private Range(final Position lower, final boolean inclusive, final Position upper) {
+            this.view = store.view();
+            this.inOrder = walk(view, lower);
+            this.upper = upper;
+            while (lower != null && inOrder.peek() != null && inOrder.compareTo(lower) < (inclusive ? 0 : 1)) {
+                inOrder.advance();
+            }
+            this.lateNodes = new LateNodes(late, lower, inclusive);
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null) {
+                if (nextLate == null) {
+                    nextLate = lateNodes.next();
+                    if (nextLate != null && upper != null && nextLate.compareTo(upper) >= 0) {
+                        nextLate = null;
+                    }
+                }
+                final Entry entry = inOrder.peek();
+                if (entry != null && (upper == null || inOrder.compareTo(upper) < 0)
+                        && (nextLate == null || nextLate.compareTo(inOrder.key()) > 0)) {
+                    next = new AbstractMap.SimpleImmutableEntry<>(inOrder.key(), entry);
+                    inOrder.advance();
+                } else if (nextLate != null) {
+                    final Entry lateEntry = view.atPosition(nextLate.storePosition);
+                    if (lateEntry != null) {
+                        next = new AbstractMap.SimpleImmutableEntry<>(nextLate.position(), lateEntry);
+                    }
+                    nextLate = null;
+                } else {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Map.Entry<Position, Entry> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final Map.Entry<Position, Entry> result = next;
+            next = null;
+            return result;
+        }
+    }
+
+    /**
+     * Place of entry in index. Its text form is used as a cursor of pages.
+     */
+    @EqualsAndHashCode
+    public static final class Position implements Comparable<Position> {
+        private final long epochSecond;
+        private final int nano;
+        private final int storePosition;
+
+        private Position(final Instant instant, final int storePosition) {
+            this.epochSecond = instant.getEpochSecond();
+            this.nano = instant.getNano();
+            this.storePosition = storePosition;
+        }
+
+        /**
+         * @throws IllegalArgumentException if text isn't made by {@link #toString()}.
+         */
+        public static Position parse(final String text) {
+            Objects.requireNonNull(text, "Position can't be null");
+            final String[] parts = text.split(":");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Wrong position: " + text);
+            }
+            try {
+                return new Position(Instant.ofEpochSecond(Long.parseLong(parts[0]), Integer.parseInt(parts[1])), Integer.parseInt(parts[2]));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Wrong position: " + text, e);
+            }
+        }
+
+        /**
+         * @return position of entry in {@link EntryStore}, it also orders entries with the same date.
+         */
+        public int getStorePosition() {
+            return storePosition;
+        }
+
+        @Override
+        public int compareTo(final Position other) {
+            return compare(epochSecond, nano, storePosition, other);
+        }
+
+        @Override
+        public String toString() {
+            return epochSecond + ":" + nano + ":" + storePosition;
+        }
+    }
+}
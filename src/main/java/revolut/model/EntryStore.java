@@ -0,0 +1,90 @@
+package revolut.model;
+
+import org.joda.money.CurrencyUnit;
+
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Append-only storage of account entries in order of adding.
+ * Changes are made only by the writer of account, see {@link Account}, reading can be done at any time.
+ */
+public interface EntryStore {
+    /**
+     * @return position of the entry in the store, it never changes.
+     */
+    int add(Entry entry);
+
+    default void addAll(final Collection<Entry> entries) {
+        entries.forEach(this::add);
+    }
+
+    /**
+     * Removes entries made before the horizon, order and positions of the rest stay the same.
+     *
+     * @return removed entries.
+     */
+    List<Entry> removeBefore(ZonedDateTime horizon);
+
+    /**
+     * @return read only list of entries.
+     */
+    View view();
+
+    int size();
+
+    /**
+     * Entries which were in the store at the moment of {@link #view()}.
+     */
+    interface View extends List<Entry> {
+        /**
+         * @param position position returned by {@link #add(Entry)}.
+         * @return entry or null if it is removed or added after the view.
+         */
+        Entry atPosition(int position);
+    }
+
+    /**
+     * Creates stores for accounts and gives archive for their collapsed entries.
+     */
+    interface Factory extends AutoCloseable {
+        /**
+         * Keeps entries as objects in heap, collapsed entries are dropped.
+         */
+        Factory HEAP = heap(EntryArchive.NONE);
+
+        /**
+         * Keeps entries as objects in heap and collapsed entries in the given archive.
+         */
+        static Factory heap(final EntryArchive archive) {
+            Objects.requireNonNull(archive, "Archive can't be null");
+            return new Factory() {
+                @Override
+                public EntryStore create(final Long accountId, final CurrencyUnit currency) {
+                    return new HeapEntryStore();
+                }
+
+                @Override
+                public EntryArchive archive() {
+                    return archive;
+                }
+            };
+        }
+
+        EntryStore create(Long accountId, CurrencyUnit currency);
+
+        default EntryArchive archive() {
+            return EntryArchive.NONE;
+        }
+
+        /**
+         * Releases files of stores and archive, it is called once on shutdown after the last entry is added.
+         */
+        @Override
+        default void close() {
+            archive().close();
+        }
+    }
+}
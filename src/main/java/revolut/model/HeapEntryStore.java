@@ -0,0 +1,29 @@
+package revolut.model;
+
+/**
+ * Entries are kept as objects in heap. Adding an entry takes constant time regardless of count of entries,
+ * and reading doesn't need any lock, see {@link ChunkedEntryStore}.
+ */
+public class HeapEntryStore extends ChunkedEntryStore<Entry[]> {
+    public static final int FIRST_CHUNK = 4;
+    public static final int MAX_CHUNK = 8192;
+
+    public HeapEntryStore() {
+        super(FIRST_CHUNK, MAX_CHUNK);
+    }
+
+    @Override
+    protected Entry[] allocate(final int slots) {
+        return new Entry[slots];
+    }
+
+    @Override
+    protected void write(final Entry[] chunk, final int slot, final Entry entry) {
+        chunk[slot] = entry;
+    }
+
+    @Override
+    protected Entry read(final Entry[] chunk, final int slot) {
+        return chunk[slot];
+    }
+}
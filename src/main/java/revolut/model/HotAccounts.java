@@ -0,0 +1,102 @@
+package revolut.model;
+
+import lombok.Data;
+
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Bounded set of the most contended accounts. Accounts report to it after they are added to holder service,
+ * see {@link Account#setHotAccounts(HotAccounts)}, and removed accounts are evicted.
+ * <p>
+ * Every account counts contention of its own lock exactly, see {@link LockContention}. The set keeps counters
+ * of at most {@link #CAPACITY} accounts by their ids, not accounts themselves, and an account which waited
+ * for its lock replaces the least contended one only if it has been contended more.
+ * </p>
+ */
+@Singleton
+public class HotAccounts {
+    public static final int CAPACITY = 64;
+    private final Map<Long, HotAccount> tracked = new ConcurrentHashMap<>();
+    /* Weight of the least contended tracked account. Weights only grow, so it is never greater than the real one. */
+    private volatile long minWeight;
+
+    void contended(final Account account) {
+        if (tracked.size() >= CAPACITY && account.getContention().getWeight() <= minWeight && !tracked.containsKey(account.getId())) {
+            return;
+        }
+        final HotAccount counters = HotAccount.of(account);
+        if (tracked.computeIfPresent(account.getId(), (id, previous) -> counters) != null) {
+            return;
+        }
+        synchronized (tracked) {
+            if (tracked.size() < CAPACITY || tracked.containsKey(account.getId())) {
+                tracked.put(account.getId(), counters);
+            } else {
+                final HotAccount coldest = coldest();
+                if (coldest.getWeight() < counters.getWeight()) {
+                    tracked.remove(coldest.getAccountId());
+                    tracked.put(account.getId(), counters);
+                }
+            }
+            if (tracked.size() >= CAPACITY) {
+                minWeight = coldest().getWeight();
+            }
+        }
+    }
+
+    /**
+     * Forgets removed account.
+     */
+    public void remove(final Long accountId) {
+        synchronized (tracked) {
+            tracked.remove(accountId);
+        }
+    }
+
+    private HotAccount coldest() {
+        return tracked.values().stream().min(Comparator.comparingLong(HotAccount::getWeight)).get();
+    }
+
+    /**
+     * @return counters of the most contended accounts, the hottest first.
+     */
+    public List<HotAccount> top(final int limit) {
+        return new ArrayList<>(tracked.values()).stream()
+                .sorted(Comparator.comparingLong(HotAccount::getWeight).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Counters of the lock of account at the moment of its last contention.
+     */
+    @Data
+    public static class HotAccount {
+        private long accountId;
+        private long weight;
+        private long acquisitions;
+        private long contended;
+        private long failures;
+        private double waitMillis;
+        private double holdMillis;
+
+        static HotAccount of(final Account account) {
+            final LockContention contention = account.getContention();
+            final HotAccount result = new HotAccount();
+            result.setAccountId(account.getId());
+            result.setAcquisitions(contention.getAcquisitions());
+            result.setContended(contention.getContended());
+            result.setFailures(contention.getFailures());
+            result.setWeight(contention.getContended() + contention.getFailures());
+            result.setWaitMillis(contention.getWaitNanos() / 1e6);
+            result.setHoldMillis(contention.getHoldNanos() / 1e6);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package revolut.model;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Versions of committed balances, they let reports read all accounts at one point in time without locking them.
+ * <p>
+ * Every completed transaction publishes new versions of its accounts with the next value of the global clock,
+ * and a {@link ReadView} sees the newest version of every account which isn't greater than the clock value taken
+ * on its opening. A view waits only for accounts which are being published right now, and transfers never wait for views.
+ * </p>
+ * <p>
+ * Commits, i.e. numbering of transaction by its commit listener together with changes of committed states of its accounts,
+ * and publishing don't overlap. So journal records of every account are numbered in the order they change its committed
+ * state, though accounts aren't locked by their owners and owners of payer and payee may be different threads,
+ * see {@link AccountOwners}. Commit takes only a sequence number and a few fields, entries are changed before it.
+ * </p>
+ * <p>
+ * Account keeps the newest version and the versions which may be needed by open views,
+ * the older ones are dropped on the next publishing.
+ * </p>
+ */
+public final class LedgerVersions {
+    private static final AtomicLong clock = new AtomicLong();
+    /* Clock values pinned by open views with count of views for every value. */
+    private static final ConcurrentSkipListMap<Long, Integer> pins = new ConcurrentSkipListMap<>();
+    private static final Object commits = new Object();
+
+    private LedgerVersions() {
+    }
+
+    /**
+     * Opens a view of the last published versions. It must be closed, otherwise accounts keep all versions since then.
+     */
+    public static ReadView open() {
+        final long pin = clock.get();
+        pins.merge(pin, 1, Integer::sum);
+        // The version is taken after the pin is visible, so publishers which didn't see the pin
+        // have already published versions not newer than the view.
+        return new ReadView(pin, clock.get());
+    }
+
+    /**
+     * @return the last published version.
+     */
+    public static long current() {
+        return clock.get();
+    }
+
+    /**
+     * @return count of open views.
+     */
+    public static int openViews() {
+        return pins.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    /**
+     * Waits for commits which are running now, so every sequence number taken before the call is remembered by its accounts.
+     */
+    public static void awaitCommits() {
+        synchronized (commits) {
+            // Nothing to do, commits can't be running here.
+        }
+    }
+
+    /**
+     * Runs commit of transaction, see {@link AccountingTransaction#notifyListener()}.
+     *
+     * @return sequence number given by the commit.
+     */
+    static long commit(final LongSupplier commit) {
+        synchronized (commits) {
+            return commit.getAsLong();
+        }
+    }
+
+    static void release(final long pin) {
+        pins.computeIfPresent(pin, (key, count) -> count == 1 ? null : count - 1);
+    }
+
+    static void publish(final Account first, final Account second) {
+        publish(List.of(first, second));
+    }
+
+    /**
+     * Publishes current committed state of accounts as one version.
+     */
+    static void publish(final Iterable<Account> accounts) {
+        synchronized (commits) {
+            for (final Account account : accounts) {
+                account.beginVersion();
+            }
+            final long version = clock.incrementAndGet();
+            final Map.Entry<Long, Integer> oldestPin = pins.firstEntry();
+            final long oldest = oldestPin == null ? version : Math.min(oldestPin.getKey(), version);
+            for (final Account account : accounts) {
+                account.publishVersion(version, oldest);
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package revolut.model;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * Contention of the lock of one account, see {@link Account#tryLock(long)}.
+ * Counters of taken locks are changed under the lock, so they are plain volatile fields,
+ * failed attempts are counted without the lock and their counters are atomic.
+ */
+public final class LockContention {
+    private static final AtomicLongFieldUpdater<LockContention> FAILURES =
+            AtomicLongFieldUpdater.newUpdater(LockContention.class, "failures");
+    private static final AtomicLongFieldUpdater<LockContention> FAILED_WAIT =
+            AtomicLongFieldUpdater.newUpdater(LockContention.class, "failedWaitNanos");
+    private volatile long acquisitions;
+    private volatile long contended;
+    private volatile long waitNanos;
+    private volatile long holdNanos;
+    private volatile long failures;
+    private volatile long failedWaitNanos;
+    /* Time of the last acquisition, it is used only by the owner of the lock. */
+    private long lockedAt;
+
+    void acquired(final long waited, final boolean wasContended) {
+        acquisitions++;
+        if (wasContended) {
+            contended++;
+            waitNanos += waited;
+        }
+        lockedAt = System.nanoTime();
+    }
+
+    void released() {
+        holdNanos += System.nanoTime() - lockedAt;
+    }
+
+    void failed(final long waited) {
+        FAILURES.incrementAndGet(this);
+        FAILED_WAIT.addAndGet(this, waited);
+    }
+
+    /**
+     * @return count of attempts which didn't get the lock at once, it orders accounts in {@link HotAccounts}.
+     */
+    public long getWeight() {
+        return contended + failures;
+    }
+
+    public long getAcquisitions() {
+        return acquisitions;
+    }
+
+    public long getContended() {
+        return contended;
+    }
+
+    public long getFailures() {
+        return failures;
+    }
+
+    /**
+     * @return time of waiting for the lock by successful and failed attempts.
+     */
+    public long getWaitNanos() {
+        return waitNanos + failedWaitNanos;
+    }
+
+    public long getHoldNanos() {
+        return holdNanos;
+    }
+}
@@ -0,0 +1,45 @@
+package revolut.model;
+
+import lombok.Getter;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Describes how a transaction acquires locks of accounts.
+ * Every attempt waits for each lock at most "waitInterval" milliseconds.
+ * Between attempts the thread sleeps random time (full jitter) up to the exponentially growing backoff,
+ * which is limited by "maxBackoff" milliseconds.
+ */
+@Getter
+public class LockRetryPolicy {
+    public static final LockRetryPolicy DEFAULT = new LockRetryPolicy(3, Account.WAITING_INTERVAL, 1L, 20L);
+    private final int maxAttempts;
+    private final long waitInterval;
+    private final long minBackoff;
+    private final long maxBackoff;
+
+    public LockRetryPolicy(final int maxAttempts, final long waitInterval, final long minBackoff, final long maxBackoff) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be positive.");
+        }
+        if (waitInterval < 0 || minBackoff < 0 || maxBackoff < minBackoff) {
+            throw new IllegalArgumentException("Intervals must be positive and minBackoff can't exceed maxBackoff.");
+        }
+        this.maxAttempts = maxAttempts;
+        this.waitInterval = waitInterval;
+        this.minBackoff = minBackoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    /**
+     * @param attempt number of failed attempt starting from 1.
+     * @return time to sleep in nanoseconds before the next attempt.
+     */
+    public long backoff(final int attempt) {
+        final long min = TimeUnit.MILLISECONDS.toNanos(minBackoff);
+        final long max = TimeUnit.MILLISECONDS.toNanos(maxBackoff);
+        final long ceiling = Math.min(max, min << Math.min(attempt - 1, 30));
+        return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+}
@@ -0,0 +1,56 @@
+package revolut.model;
+
+import lombok.Data;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of lock acquisition by transactions. They are shared by all transactions.
+ */
+public final class LockStatistics {
+    private static final LongAdder transactions = new LongAdder();
+    private static final LongAdder retries = new LongAdder();
+    private static final LongAdder payerBusy = new LongAdder();
+    private static final LongAdder payeeBusy = new LongAdder();
+
+    private LockStatistics() {
+    }
+
+    static void started() {
+        transactions.increment();
+    }
+
+    static void retried() {
+        retries.increment();
+    }
+
+    static void rejected(final AccountingTransaction.TransactionStatus status) {
+        if (status == AccountingTransaction.TransactionStatus.PAYER_BUSY) {
+            payerBusy.increment();
+        } else {
+            payeeBusy.increment();
+        }
+    }
+
+    public static Snapshot snapshot() {
+        final Snapshot snapshot = new Snapshot();
+        snapshot.setTransactions(transactions.sum());
+        snapshot.setRetries(retries.sum());
+        snapshot.setPayerBusy(payerBusy.sum());
+        snapshot.setPayeeBusy(payeeBusy.sum());
+        if (snapshot.getTransactions() > 0) {
+            snapshot.setBusyRate((double) (snapshot.getPayerBusy() + snapshot.getPayeeBusy()) / snapshot.getTransactions());
+        }
+        return snapshot;
+    }
+
+    @Data
+    public static class Snapshot {
+        private long transactions;
+        private long retries;
+        private long payerBusy;
+        private long payeeBusy;
+        /* Share of transactions rejected because an account was busy. */
+        private double busyRate;
+    }
+}
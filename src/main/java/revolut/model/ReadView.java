@@ -0,0 +1,51 @@
+package revolut.model;
+
+import org.joda.money.Money;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Consistent point-in-time view of committed balances of all accounts, see {@link LedgerVersions}.
+ * Money of unfinished two-step transactions belong to payer in the view.
+ */
+public final class ReadView implements AutoCloseable {
+    private final long pin;
+    private final long version;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    ReadView(final long pin, final long version) {
+        this.pin = pin;
+        this.version = version;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return committed state of account at the version of the view or null if account was created later.
+     */
+    public Account.CommittedState stateOf(final Account account) {
+        Objects.requireNonNull(account, "Account can't be null");
+        if (closed.get()) {
+            throw new IllegalStateException("View is closed.");
+        }
+        return account.getCommittedState(version);
+    }
+
+    /**
+     * @return committed balance of account at the version of the view or null if account was created later.
+     */
+    public Money balanceOf(final Account account) {
+        final Account.CommittedState state = stateOf(account);
+        return state == null ? null : state.getBalance();
+    }
+
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            LedgerVersions.release(pin);
+        }
+    }
+}
@@ -3,8 +3,10 @@ package revolut.provider;
 import com.google.common.collect.ImmutableMap;
 import org.joda.money.CurrencyUnit;
 import org.joda.money.Money;
+import revolut.config.Configuration;
 import revolut.model.Account;
 import revolut.model.Entry;
+import revolut.model.EntryStore;
 import revolut.model.Holder;
 
 import java.time.ZonedDateTime;
@@ -19,24 +21,39 @@ public class DataProvider {
     static Long account_id = 0L;
     static Long holder_id = 0L;
 
-    private static Holder getRandomHolder() {
+    private static Holder getRandomHolder(final EntryStore.Factory storeFactory) {
         String fullName = generateRandomWord(10);
 
-        Holder holder = new Holder(++holder_id, fullName, generateAccounts());
+        Holder holder = new Holder(++holder_id, fullName, generateAccounts(storeFactory));
         return holder;
     }
 
+    /**
+     * Generates data selected by configuration: synthetic data of {@link SyntheticDataGenerator}
+     * if {@link SyntheticDataGenerator#GENERATOR} is "synthetic", otherwise a few demo holders.
+     */
+    public static Map<Long, Holder> generateHolders(final Configuration configuration, final EntryStore.Factory storeFactory) {
+        if (SyntheticDataGenerator.SYNTHETIC.equalsIgnoreCase(configuration.getString(SyntheticDataGenerator.GENERATOR, ""))) {
+            return new SyntheticDataGenerator(configuration).generate(storeFactory);
+        }
+        return generateHolders(3, storeFactory);
+    }
+
     public static Map<Long, Holder> generateHolders(final Integer count) {
+        return generateHolders(count, EntryStore.Factory.HEAP);
+    }
+
+    public static Map<Long, Holder> generateHolders(final Integer count, final EntryStore.Factory storeFactory) {
         account_id = 0L;
         holder_id = 0L;
         final Map<Long, Holder> result = new HashMap<>();
         for (int i = 0; i < count; i++) {
-            Holder holder = getRandomHolder();
+            Holder holder = getRandomHolder(storeFactory);
             result.put(holder.getId(), holder);
         }
 
         String fullName = "Bruce Willis";
-        Account account = generateAccountWithCurrency(CurrencyUnit.GBP);
+        Account account = generateAccountWithCurrency(CurrencyUnit.GBP, storeFactory);
         HashMap<Long, Account> accounts = new HashMap<>();
         accounts.put(account.getId(), account);
         Holder holder = new Holder(++holder_id, fullName, accounts);
@@ -54,17 +71,17 @@ public class DataProvider {
         return sb.toString();
     }
 
-    private static Map<Long, Account> generateAccounts() {
+    private static Map<Long, Account> generateAccounts(final EntryStore.Factory storeFactory) {
         Map<Long, Account> accounts = new HashMap<>();
         for (int i = 0; i < 2; i++) {
-            Account account = generateAccount();
+            Account account = generateAccountWithCurrency(CurrencyUnit.USD, storeFactory);
             accounts.put(account.getId(), account);
         }
         return accounts;
     }
 
-    private static Account generateAccountWithCurrency(CurrencyUnit currency) {
-        Account account = new Account(++account_id, currency, null, generatesEntriesWithCurrency(currency));
+    private static Account generateAccountWithCurrency(CurrencyUnit currency, EntryStore.Factory storeFactory) {
+        Account account = new Account(++account_id, currency, null, generatesEntriesWithCurrency(currency), storeFactory);
         return account;
     }
 
@@ -76,10 +93,6 @@ public class DataProvider {
         return entries;
     }
 
-    private static Account generateAccount() {
-        return generateAccountWithCurrency(CurrencyUnit.USD);
-    }
-
     private static List<Entry> generatesEntries() {
         return generatesEntriesWithCurrency(CurrencyUnit.USD);
     }
@@ -0,0 +1,221 @@
+package revolut.provider;
+
+import com.google.common.collect.ImmutableMap;
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import revolut.config.Configuration;
+import revolut.model.Account;
+import revolut.model.Entry;
+import revolut.model.EntryStore;
+import revolut.model.Holder;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Generates holders, accounts and entries of production size for load testing.
+ * <p>
+ * The same seed and settings give the same data regardless of count of threads: every holder gets its own random
+ * generator derived from the seed and its number. Holders are built in parallel, ids are dense and start from 1,
+ * accounts are numbered in order of holders.
+ * </p>
+ * <p>
+ * Every account gets initial balance from the distribution and random entries in order of date within the period.
+ * Entries never make the balance negative.
+ * </p>
+ */
+public class SyntheticDataGenerator {
+    public static final String GENERATOR = "revolut.data.generator";
+    public static final String SYNTHETIC = "synthetic";
+    public static final String SEED = "revolut.data.seed";
+    public static final String HOLDERS = "revolut.data.holders";
+    public static final String MIN_ACCOUNTS = "revolut.data.accounts.min";
+    public static final String MAX_ACCOUNTS = "revolut.data.accounts.max";
+    public static final String MIN_ENTRIES = "revolut.data.entries.min";
+    public static final String MAX_ENTRIES = "revolut.data.entries.max";
+    public static final String CURRENCIES = "revolut.data.currencies";
+    public static final String BALANCE_DISTRIBUTION = "revolut.data.balance.distribution";
+    public static final String BALANCE_MEAN = "revolut.data.balance.mean";
+    public static final String START = "revolut.data.start";
+    public static final String PERIOD = "revolut.data.period";
+    private static final Logger logger = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+    /* Mixes seed and number of holder, constant of SplittableRandom. */
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    /* Sigma of log-normal distribution of balances, the mean stays as configured. */
+    private static final double LOG_NORMAL_SIGMA = 1.0;
+    private final long seed;
+    private final int holders;
+    private final int minAccounts;
+    private final int maxAccounts;
+    private final int minEntries;
+    private final int maxEntries;
+    private final CurrencyUnit[] currencies;
+    /* Cumulative weights of currencies, the last one is 1. */
+    private final double[] currencyWeights;
+    private final BalanceDistribution distribution;
+    private final long balanceMean;
+    private final ZonedDateTime start;
+    private final long periodSeconds;
+
+    public SyntheticDataGenerator(final Configuration configuration) {
+        Objects.requireNonNull(configuration, "Configuration can't be null");
+        this.seed = configuration.getLong(SEED, 42L);
+        this.holders = configuration.getInt(HOLDERS, 1000);
+        this.minAccounts = configuration.getInt(MIN_ACCOUNTS, 1);
+        this.maxAccounts = configuration.getInt(MAX_ACCOUNTS, 3);
+        this.minEntries = configuration.getInt(MIN_ENTRIES, 0);
+        this.maxEntries = configuration.getInt(MAX_ENTRIES, 10);
+        if (holders < 0 || minAccounts < 1 || maxAccounts < minAccounts || minEntries < 0 || maxEntries < minEntries) {
+            throw new IllegalArgumentException("Counts of holders and entries can't be negative, every holder has at least one account.");
+        }
+        final String[] mix = configuration.getString(CURRENCIES, "USD:70,EUR:20,GBP:10").split(",");
+        this.currencies = new CurrencyUnit[mix.length];
+        this.currencyWeights = new double[mix.length];
+        double total = 0;
+        for (int i = 0; i < mix.length; i++) {
+            final String[] parts = mix[i].trim().split(":");
+            currencies[i] = CurrencyUnit.of(parts[0].trim());
+            total += parts.length > 1 ? Double.parseDouble(parts[1].trim()) : 1;
+            currencyWeights[i] = total;
+        }
+        if (!(total > 0)) {
+            throw new IllegalArgumentException("Weights of currencies must be positive.");
+        }
+        for (int i = 0; i < mix.length; i++) {
+            currencyWeights[i] /= total;
+        }
+        this.distribution = BalanceDistribution.valueOf(configuration.getString(BALANCE_DISTRIBUTION, "lognormal").toUpperCase());
+        this.balanceMean = configuration.getLong(BALANCE_MEAN, 1000L);
+        this.start = ZonedDateTime.parse(configuration.getString(START, "2020-01-01T00:00:00Z"));
+        this.periodSeconds = configuration.getDuration(PERIOD, Duration.ofDays(365)).getSeconds();
+        if (balanceMean < 0 || periodSeconds < 1) {
+            throw new IllegalArgumentException("Mean balance can't be negative and period must be at least a second.");
+        }
+    }
+
+    public Map<Long, Holder> generate(final EntryStore.Factory storeFactory) {
+        Objects.requireNonNull(storeFactory, "Store factory can't be null");
+        final long begin = System.nanoTime();
+        // Counts of accounts are drawn first, so ids of accounts are known before holders are built in parallel.
+        final long[] firstAccountIds = new long[holders];
+        long nextAccountId = 1;
+        for (int i = 0; i < holders; i++) {
+            firstAccountIds[i] = nextAccountId;
+            nextAccountId += accountCount(random(i));
+        }
+        final Holder[] result = new Holder[holders];
+        IntStream.range(0, holders).parallel().forEach(i -> result[i] = holder(i, firstAccountIds[i], storeFactory));
+        final ImmutableMap.Builder<Long, Holder> map = ImmutableMap.builderWithExpectedSize(holders);
+        for (final Holder holder : result) {
+            map.put(holder.getId(), holder);
+        }
+        logger.info("Generated {} holders with {} accounts in {} ms, seed {}.", holders, nextAccountId - 1,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin), seed);
+        return map.build();
+    }
+
+    private Holder holder(final int number, final long firstAccountId, final EntryStore.Factory storeFactory) {
+        final SplittableRandom random = random(number);
+        final int count = accountCount(random);
+        final Map<Long, Account> accounts = new HashMap<>(count * 2);
+        final String fullName = word(random, 6) + " " + word(random, 8);
+        for (int i = 0; i < count; i++) {
+            final long id = firstAccountId + i;
+            final CurrencyUnit currency = currency(random);
+            final long initBalance = balance(random, currency);
+            accounts.put(id, new Account(id, currency, Money.ofMinor(currency, initBalance), entries(random, currency, initBalance), storeFactory));
+        }
+        return new Holder((long) number + 1, fullName, accounts);
+    }
+
+    private List<Entry> entries(final SplittableRandom random, final CurrencyUnit currency, final long initBalance) {
+        final int count = minEntries + random.nextInt(maxEntries - minEntries + 1);
+        final long[] offsets = new long[count];
+        for (int i = 0; i < count; i++) {
+            offsets[i] = random.nextLong(periodSeconds);
+        }
+        Arrays.sort(offsets);
+        final List<Entry> entries = new ArrayList<>(count);
+        long balance = initBalance;
+        final long maxDeposit = Math.max(1, balanceMean * scale(currency) / 10);
+        for (final long offset : offsets) {
+            // Amount is from minus the whole balance to a tenth of mean balance.
+            final long amount = random.nextLong(-balance, maxDeposit + 1);
+            balance += amount;
+            entries.add(new Entry(currency, amount, start.plusSeconds(offset)));
+        }
+        return entries;
+    }
+
+    private int accountCount(final SplittableRandom random) {
+        return minAccounts + random.nextInt(maxAccounts - minAccounts + 1);
+    }
+
+    private CurrencyUnit currency(final SplittableRandom random) {
+        final double value = random.nextDouble();
+        for (int i = 0; i < currencyWeights.length - 1; i++) {
+            if (value < currencyWeights[i]) {
+                return currencies[i];
+            }
+        }
+        return currencies[currencies.length - 1];
+    }
+
+    /**
+     * @return balance in minor units, the mean is in major units.
+     */
+    private long balance(final SplittableRandom random, final CurrencyUnit currency) {
+        final long mean = balanceMean * scale(currency);
+        switch (distribution) {
+            case FIXED:
+                return mean;
+            case UNIFORM:
+                return random.nextLong(2 * mean + 1);
+            default:
+                // Mean of log-normal distribution is exp(mu + sigma^2 / 2).
+                final double mu = Math.log(Math.max(mean, 1)) - LOG_NORMAL_SIGMA * LOG_NORMAL_SIGMA / 2;
+                return (long) Math.exp(mu + LOG_NORMAL_SIGMA * gaussian(random));
+        }
+    }
+
+    private static long scale(final CurrencyUnit currency) {
+        long scale = 1;
+        for (int i = 0; i < currency.getDecimalPlaces(); i++) {
+            scale *= 10;
+        }
+        return scale;
+    }
+
+    private static double gaussian(final SplittableRandom random) {
+        // Box-Muller transform, SplittableRandom has no nextGaussian().
+        return Math.sqrt(-2 * Math.log(1 - random.nextDouble())) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+
+    private static String word(final SplittableRandom random, final int length) {
+        final char[] letters = new char[length];
+        letters[0] = (char) ('A' + random.nextInt(26));
+        for (int i = 1; i < length; i++) {
+            letters[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(letters);
+    }
+
+    private SplittableRandom random(final int number) {
+        return new SplittableRandom(seed + GOLDEN_GAMMA * (number + 1));
+    }
+
+    public enum BalanceDistribution {
+        FIXED, UNIFORM, LOGNORMAL
+    }
+}
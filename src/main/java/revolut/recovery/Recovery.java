@@ -0,0 +1,139 @@
+package revolut.recovery;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import revolut.config.Configuration;
+import revolut.journal.FileJournal;
+import revolut.journal.JournalRecord;
+import revolut.model.Account;
+import revolut.model.Entry;
+import revolut.model.EntryStore;
+import revolut.model.Holder;
+import revolut.provider.DataProvider;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Restores state on start: loads the latest snapshot, or generates initial data if there is no snapshot,
+ * and replays journal records made after it.
+ */
+public final class Recovery {
+    public static final String SNAPSHOT_PATH = "revolut.snapshot.path";
+    /* Count of journal records which are read before they are applied, so the tail isn't kept in memory. */
+    private static final int REPLAY_BATCH = 1 << 16;
+    private static final Logger logger = LoggerFactory.getLogger(Recovery.class);
+
+    private Recovery() {
+    }
+
+    public static Map<Long, Holder> recover(final Configuration configuration, final EntryStore.Factory storeFactory) {
+        final long start = System.nanoTime();
+        final String snapshotPath = configuration.getString(SNAPSHOT_PATH, "");
+        final String journalPath = configuration.getString(FileJournal.PATH, "");
+        try {
+            final Map<Long, Holder> holders;
+            long journalSequence = 0;
+            if (!snapshotPath.isEmpty() && Files.exists(Paths.get(snapshotPath))) {
+                final Snapshot.Restored restored = Snapshot.read(Paths.get(snapshotPath), storeFactory);
+                holders = restored.getHolders();
+                journalSequence = restored.getJournalSequence();
+                logger.info("Snapshot {} with {} holders is loaded, journal is replayed after sequence {}.",
+                        snapshotPath, holders.size(), journalSequence);
+            } else {
+                holders = DataProvider.generateHolders(configuration, storeFactory);
+            }
+            final long replayed = journalPath.isEmpty() ? 0 : replay(holders, Paths.get(journalPath), journalSequence);
+            logger.info("State is recovered in {} ms, {} journal records are replayed.",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), replayed);
+            return holders;
+        } catch (IOException e) {
+            throw new UncheckedIOException("State can't be recovered.", e);
+        }
+    }
+
+    /**
+     * Applies journal records after the sequence number which aren't included into the balances of accounts yet.
+     * Records are read in batches, accounts are split into parts and every part applies the batch in parallel with others,
+     * so records of an account are applied in their order.
+     *
+     * @param afterSequence all records up to it are already applied.
+     * @return count of applied entries.
+     */
+    public static long replay(final Map<Long, Holder> holders, final Path journal, final long afterSequence) throws IOException {
+        final Map<Long, Account> accounts = new HashMap<>();
+        for (final Holder holder : holders.values()) {
+            for (final Account account : holder.getAccounts().values()) {
+                accounts.put(account.getId(), account);
+            }
+        }
+        final Batch batch = new Batch(accounts, ForkJoinPool.getCommonPoolParallelism());
+        FileJournal.read(journal, afterSequence, batch::add);
+        batch.apply();
+        return batch.applied.sum();
+    }
+
+    private static final class Batch {
+        private final Map<Long, Account> accounts;
+        private final int parts;
+        private final JournalRecord[] records = new JournalRecord[REPLAY_BATCH];
+        private final Account[] payers = new Account[REPLAY_BATCH];
+        private final Account[] payees = new Account[REPLAY_BATCH];
+        private final LongAdder applied = new LongAdder();
+        private int size;
+
+        private Batch(final Map<Long, Account> accounts, final int parts) {
+            this.accounts = accounts;
+            this.parts = Math.max(1, parts);
+        }
+
+        private void add(final JournalRecord record) {
+            final Account payer = accounts.get(record.getPayerId());
+            final Account payee = accounts.get(record.getPayeeId());
+            if (payer == null || payee == null) {
+                logger.warn("Journal record {} refers to unknown account, it is skipped.", record.getSequence());
+                return;
+            }
+            records[size] = record;
+            payers[size] = payer;
+            payees[size] = payee;
+            if (++size == REPLAY_BATCH) {
+                apply();
+            }
+        }
+
+        private void apply() {
+            IntStream.range(0, parts).parallel().forEach(part -> {
+                for (int i = 0; i < size; i++) {
+                    final JournalRecord record = records[i];
+                    if (partOf(payers[i]) == part) {
+                        apply(payers[i], new Entry(record.getAmount().negated(), record.getDate()), record.getSequence());
+                    }
+                    if (partOf(payees[i]) == part) {
+                        apply(payees[i], new Entry(record.getAmount(), record.getDate()), record.getSequence());
+                    }
+                }
+            });
+            size = 0;
+        }
+
+        private void apply(final Account account, final Entry entry, final long sequence) {
+            if (account.replay(entry, sequence)) {
+                applied.increment();
+            }
+        }
+
+        private int partOf(final Account account) {
+            return Math.floorMod(account.getId().hashCode(), parts);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package revolut.recovery;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+import revolut.model.Account;
+import revolut.model.EntryStore;
+import revolut.model.Holder;
+import revolut.model.LedgerVersions;
+import revolut.model.ReadView;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Compact binary snapshot of holders and balances of their accounts.
+ * <p>
+ * Balances are read from one {@link ReadView}, so transfers aren't paused and the snapshot is a consistent cut.
+ * Every account is stored with the sequence number of its last journal record in the cut,
+ * and the journal records after that number restore the rest.
+ * The snapshot also stores the sequence number which all journal records up to are in the cut,
+ * so recovery reads the journal after it and older records can be dropped.
+ * Entries aren't stored, the balance becomes initial balance of restored account, and balances of restored account
+ * before the date of snapshot are unknown.
+ * </p>
+ * Format: magic, version, date of snapshot (epoch second and nanosecond), count of holders, then every holder
+ * with its accounts, the journal sequence number and CRC32 of all previous bytes.
+ * The file is written into a temporary file, forced to disk and then renamed, so a crash doesn't damage
+ * the previous snapshot.
+ */
+public final class Snapshot {
+    private static final int MAGIC = 0x52564E53;
+    private static final int VERSION = 3;
+    /* Versions without the date of snapshot, accounts are supposed to be restored at the moment of reading. */
+    private static final int VERSION_WITHOUT_DATE = 2;
+    /* Version without the journal sequence number too, all records are read for it. */
+    private static final int VERSION_WITHOUT_SEQUENCE = 1;
+
+    private Snapshot() {
+    }
+
+    /**
+     * @param journalSequence the last sequence number of journal before the call.
+     * @return count of stored accounts and the sequence number which all journal records up to are in the snapshot.
+     */
+    public static Cut write(final Path path, final Collection<Holder> holders, final long journalSequence) throws IOException {
+        Objects.requireNonNull(path, "Path can't be null");
+        final List<Holder> copy = new ArrayList<>(holders);
+        final Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        if (path.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+        }
+        int accounts = 0;
+        long covered = journalSequence;
+        // Transactions in the cut are created before, so their entries are earlier.
+        final Instant date = Instant.now();
+        final CRC32 crc = new CRC32();
+        // Accounts remember sequence numbers up to the given one, see Account.hasJournalRecordsAfter().
+        LedgerVersions.awaitCommits();
+        try (ReadView view = LedgerVersions.open();
+             DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temporary)), crc))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(date.getEpochSecond());
+            out.writeInt(date.getNano());
+            out.writeInt(copy.size());
+            for (final Holder holder : copy) {
+                out.writeLong(holder.getId());
+                out.writeUTF(holder.getFullName());
+                out.writeInt(holder.getAccounts().size());
+                for (final Account account : holder.getAccounts().values()) {
+                    final Account.CommittedState viewed = view.stateOf(account);
+                    // Account created after the view is stored as it is now, the journal is replayed per account anyway.
+                    final Account.CommittedState state = viewed == null ? account.getCommittedState() : viewed;
+                    out.writeLong(account.getId());
+                    out.writeUTF(account.getCurrency().getCode());
+                    out.writeLong(state.getBalanceMinor());
+                    out.writeLong(state.getJournalSequence());
+                    // Later records of account may have been given smaller numbers than the last one, e.g. they are committed now.
+                    if (account.hasJournalRecordsAfter(state.getJournalSequence())) {
+                        covered = Math.min(covered, state.getJournalSequence());
+                    }
+                    accounts++;
+                }
+            }
+            out.writeLong(covered);
+            out.flush();
+            out.writeLong(crc.getValue());
+        }
+        // Journal covered by snapshot may be dropped, so the snapshot must be durable before.
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new Cut(accounts, covered);
+    }
+
+    public static Restored read(final Path path, final EntryStore.Factory storeFactory) throws IOException {
+        Objects.requireNonNull(storeFactory, "Store factory can't be null");
+        final CRC32 crc = new CRC32();
+        try (DataInputStream in = new DataInputStream(new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(path)), crc))) {
+            final int version = in.readInt() == MAGIC ? in.readInt() : -1;
+            if (version != VERSION && version != VERSION_WITHOUT_DATE && version != VERSION_WITHOUT_SEQUENCE) {
+                throw new IOException("File " + path + " isn't a snapshot.");
+            }
+            final ZonedDateTime date = version == VERSION
+                    ? ZonedDateTime.ofInstant(Instant.ofEpochSecond(in.readLong(), in.readInt()), ZoneOffset.UTC)
+                    : ZonedDateTime.now(ZoneOffset.UTC);
+            final int holderCount = in.readInt();
+            final Map<Long, Holder> holders = new HashMap<>(holderCount * 2);
+            for (int i = 0; i < holderCount; i++) {
+                final long holderId = in.readLong();
+                final String fullName = in.readUTF();
+                final int accountCount = in.readInt();
+                final Map<Long, Account> accounts = new HashMap<>(accountCount * 2);
+                for (int j = 0; j < accountCount; j++) {
+                    final long accountId = in.readLong();
+                    final CurrencyUnit currency = CurrencyUnit.of(in.readUTF());
+                    final Money balance = Money.ofMinor(currency, in.readLong());
+                    final Account account = new Account(accountId, currency, balance, null, storeFactory);
+                    account.restore(in.readLong(), date);
+                    accounts.put(accountId, account);
+                }
+                holders.put(holderId, new Holder(holderId, fullName, accounts));
+            }
+            final long journalSequence = version != VERSION_WITHOUT_SEQUENCE ? in.readLong() : 0L;
+            final long expected = crc.getValue();
+            if (in.readLong() != expected) {
+                throw new IOException("Snapshot " + path + " is damaged.");
+            }
+            return new Restored(holders, journalSequence);
+        }
+    }
+
+    /**
+     * Result of writing: count of stored accounts and the sequence number which all journal records up to are in the snapshot.
+     */
+    @Getter
+    @ToString
+    @AllArgsConstructor
+    public static final class Cut {
+        private final int accounts;
+        private final long journalSequence;
+    }
+
+    /**
+     * Restored holders and the sequence number which all journal records up to are applied to them.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class Restored {
+        private final Map<Long, Holder> holders;
+        private final long journalSequence;
+    }
+}
@@ -0,0 +1,17 @@
+package revolut.request;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import revolut.model.BatchMode;
+
+import java.util.List;
+
+@Data
+@EqualsAndHashCode
+@ToString
+public class BatchTransactionRequest {
+    private List<TransactionRequest> transactions;
+    /* BEST_EFFORT if it isn't specified. */
+    private BatchMode mode;
+}
@@ -0,0 +1,109 @@
+package revolut.resource;
+
+import io.swagger.annotations.Api;
+import org.joda.money.Money;
+import revolut.jaxrs.EntryListWriter;
+import revolut.model.Account;
+import revolut.model.Entry;
+import revolut.model.EntryIndex;
+import revolut.service.HolderService;
+
+import javax.inject.Inject;
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.NotFoundException;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+@Path("/accounts")
+@Api
+public class AccountResource {
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+    public static final String NEXT_HEADER = "X-Next-Cursor";
+    @Inject
+    private HolderService holderService;
+
+    /**
+     * Returns a page of account entries in order of date. Dates are in ISO-8601 format, e.g. "2020-01-01T00:00:00Z",
+     * "from" is inclusive and "to" is exclusive. If there are more entries, header {@link #NEXT_HEADER}
+     * contains the value of "cursor" parameter for the next page.
+     */
+    @GET
+    @Path("/{id}/entries")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response entries(@PathParam("id") Long id,
+                            @QueryParam("from") String from,
+                            @QueryParam("to") String to,
+                            @QueryParam("cursor") String cursor,
+                            @QueryParam("limit") @DefaultValue("" + DEFAULT_LIMIT) int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new BadRequestException(String.format("Limit must be from 1 to %d.", MAX_LIMIT));
+        }
+        final Account account = holderService.getAccountById(id);
+        if (account == null) {
+            throw new NotFoundException(String.format("Account %d is not found.", id));
+        }
+        final Iterator<Map.Entry<EntryIndex.Position, Entry>> range;
+        try {
+            range = account.getEntries(parseDate(from), parseDate(to), cursor == null ? null : EntryIndex.Position.parse(cursor))
+                    .iterator();
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+        final List<Entry> page = new ArrayList<>(Math.min(limit, DEFAULT_LIMIT));
+        EntryIndex.Position last = null;
+        while (page.size() < limit && range.hasNext()) {
+            final Map.Entry<EntryIndex.Position, Entry> next = range.next();
+            page.add(next.getValue());
+            last = next.getKey();
+        }
+        final Response.ResponseBuilder response = Response.ok(new EntryListWriter(page));
+        if (range.hasNext()) {
+            response.header(NEXT_HEADER, last);
+        }
+        return response.type(MediaType.APPLICATION_JSON).build();
+    }
+
+    /**
+     * Returns balance of account at the end of the given moment, "asOf" is in ISO-8601 format.
+     */
+    @GET
+    @Path("/{id}/balance")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response balance(@PathParam("id") Long id, @QueryParam("asOf") String asOf) {
+        final Account account = holderService.getAccountById(id);
+        if (account == null) {
+            throw new NotFoundException(String.format("Account %d is not found.", id));
+        }
+        try {
+            Objects.requireNonNull(asOf, "Parameter asOf is required.");
+            final Money balance = account.getBalanceAsOf(parseDate(asOf));
+            final Map<String, Object> result = new HashMap<>();
+            result.put("id", account.getId());
+            result.put("asOf", asOf);
+            result.put("currency", balance.getCurrencyUnit().getCode());
+            result.put("balance", balance.getAmount());
+            return Response.ok().entity(result).build();
+        } catch (NullPointerException | DateTimeParseException | IllegalArgumentException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+    }
+
+    private static ZonedDateTime parseDate(final String date) {
+        return date == null ? null : ZonedDateTime.parse(date);
+    }
+}
@@ -0,0 +1,35 @@
+package revolut.resource;
+
+import io.swagger.annotations.Api;
+import revolut.model.HotAccounts;
+
+import javax.inject.Inject;
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import java.util.List;
+
+@Path("/admin")
+@Api
+public class AdminResource {
+    public static final int DEFAULT_HOT_ACCOUNTS = 10;
+    @Inject
+    private HotAccounts hotAccounts;
+
+    /**
+     * Returns the most contended accounts with counters of their locks since start.
+     */
+    @GET
+    @Path("/hot-accounts")
+    @Produces(MediaType.APPLICATION_JSON)
+    public List<HotAccounts.HotAccount> hotAccounts(@QueryParam("limit") @DefaultValue("" + DEFAULT_HOT_ACCOUNTS) int limit) {
+        if (limit < 1 || limit > HotAccounts.CAPACITY) {
+            throw new BadRequestException(String.format("Limit must be from 1 to %d.", HotAccounts.CAPACITY));
+        }
+        return hotAccounts.top(limit);
+    }
+}
@@ -1,28 +1,54 @@
 package revolut.resource;
 
 import io.swagger.annotations.Api;
+import revolut.jaxrs.HolderListWriter;
 import revolut.model.Holder;
 import revolut.service.HolderService;
 
 import javax.inject.Inject;
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
-import java.util.Map;
+import javax.ws.rs.core.Response;
+import java.util.List;
 
 @Path("/holders")
 @Api
 public class HolderResource {
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+    public static final String NEXT_HEADER = "X-Next-After";
     @Inject
     private HolderService holderService;
 
+    /**
+     * Returns a page of holders sorted by id. If there are more holders, header {@link #NEXT_HEADER}
+     * contains the value of "after" parameter for the next page.
+     */
     @GET
     @Path("")
     @Produces(MediaType.APPLICATION_JSON)
-    public Map<Long, Holder> holders() {
-        return holderService.getHolders();
+    public Response holders(@QueryParam("after") Long after,
+                            @QueryParam("limit") @DefaultValue("" + DEFAULT_LIMIT) int limit,
+                            @QueryParam("entries") @DefaultValue("true") boolean entries) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new BadRequestException(String.format("Limit must be from 1 to %d.", MAX_LIMIT));
+        }
+        final List<Holder> page = holderService.getHolders(after, limit + 1);
+        final Response.ResponseBuilder response;
+        if (page.size() > limit) {
+            final List<Holder> holders = page.subList(0, limit);
+            response = Response.ok(new HolderListWriter(holders, entries))
+                    .header(NEXT_HEADER, holders.get(holders.size() - 1).getId());
+        } else {
+            response = Response.ok(new HolderListWriter(page, entries));
+        }
+        return response.type(MediaType.APPLICATION_JSON).build();
     }
 
     @GET
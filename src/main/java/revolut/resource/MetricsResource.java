@@ -0,0 +1,25 @@
+package revolut.resource;
+
+import io.swagger.annotations.Api;
+import revolut.metrics.MetricsRegistry;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+@Path("/metrics")
+@Api
+public class MetricsResource {
+    /**
+     * Returns all metrics in Prometheus text format.
+     */
+    @GET
+    @Path("")
+    @Produces(MetricsRegistry.CONTENT_TYPE)
+    public StreamingOutput metrics() {
+        return output -> MetricsRegistry.DEFAULT.write(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+    }
+}
@@ -2,58 +2,124 @@ package revolut.resource;
 
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiParam;
-import org.joda.money.CurrencyMismatchException;
 import org.joda.money.CurrencyUnit;
 import org.joda.money.IllegalCurrencyException;
 import org.joda.money.Money;
-import revolut.exception.TheSamePayerAndPayeeException;
+import revolut.exception.IdempotencyKeyReusedException;
 import revolut.model.Account;
 import revolut.model.AccountingTransaction;
+import revolut.model.BatchTransaction;
 import revolut.model.Holder;
+import revolut.model.LedgerVersions;
+import revolut.model.LockStatistics;
+import revolut.model.ReadView;
+import revolut.request.BatchTransactionRequest;
 import revolut.request.TransactionRequest;
 import revolut.service.HolderService;
 import revolut.service.impl.TransactionServiceImpl;
 
 import javax.inject.Inject;
 import javax.ws.rs.BadRequestException;
+import javax.ws.rs.ClientErrorException;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.ServiceUnavailableException;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 @Path("/transactions")
 @Api
 public class TransactionResource {
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    public static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+    private static final int UNPROCESSABLE_ENTITY = 422;
+    private static final long RETRY_AFTER_SECONDS = 1;
     @Inject
     private HolderService holderService;
 
     @Inject
     private TransactionServiceImpl transactionService;
 
+    /**
+     * Transaction is performed by transfer executor, so the request thread is released at once.
+     * If too many transactions are waiting, the request is rejected with 503.
+     */
     @PUT
     @Path("")
     @Produces(MediaType.APPLICATION_JSON)
     @Consumes(MediaType.APPLICATION_JSON)
-    public AccountingTransaction.OverallStatus transaction(@ApiParam(required = true) TransactionRequest request) {
+    public void transaction(@ApiParam(required = true) TransactionRequest request,
+                            @HeaderParam(IDEMPOTENCY_KEY) String idempotencyKey,
+                            @Suspended AsyncResponse response) {
         try {
             Objects.requireNonNull(request, "Request can't be null");
             Objects.requireNonNull(request.getSum(), "Sum can't be null");
             Objects.requireNonNull(request.getPayeeAccountId(), "Payee account can't be null.");
             Objects.requireNonNull(request.getPayerAccountId(), "Payer account can't be null.");
-            return transactionService.perform(request);
-        } catch (CurrencyMismatchException | NullPointerException | TheSamePayerAndPayeeException e) {
+            if (idempotencyKey != null && (idempotencyKey.isEmpty() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH)) {
+                throw new IllegalArgumentException(String.format("%s must have from 1 to %d characters.", IDEMPOTENCY_KEY, MAX_IDEMPOTENCY_KEY_LENGTH));
+            }
+        } catch (NullPointerException | IllegalArgumentException e) {
+            response.resume(new BadRequestException(e.getMessage()));
+            return;
+        }
+        transactionService.performAsync(request, idempotencyKey).whenComplete((status, error) -> {
+            if (error == null) {
+                response.resume(status);
+            } else {
+                response.resume(toWebException(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error));
+            }
+        });
+    }
+
+    private static Throwable toWebException(final Throwable error) {
+        if (error instanceof IdempotencyKeyReusedException) {
+            return new ClientErrorException(error.getMessage(), UNPROCESSABLE_ENTITY);
+        }
+        if (error instanceof NullPointerException || error instanceof IllegalArgumentException) {
+            // Currency mismatch and the same payer and payee are reported as illegal arguments too.
+            return new BadRequestException(error.getMessage());
+        }
+        if (error instanceof RejectedExecutionException) {
+            return new ServiceUnavailableException(error.getMessage(), RETRY_AFTER_SECONDS);
+        }
+        return error;
+    }
+
+    @PUT
+    @Path("/batch")
+    @Produces(MediaType.APPLICATION_JSON)
+    @Consumes(MediaType.APPLICATION_JSON)
+    public BatchTransaction.BatchStatus batch(@ApiParam(required = true) BatchTransactionRequest request) {
+        try {
+            Objects.requireNonNull(request, "Request can't be null");
+            Objects.requireNonNull(request.getTransactions(), "Transactions can't be null");
+            return transactionService.performBatch(request);
+        } catch (NullPointerException | IllegalArgumentException e) {
             throw new BadRequestException(e.getMessage());
         }
     }
 
+    @GET
+    @Path("/lock-statistics")
+    @Produces(MediaType.APPLICATION_JSON)
+    public LockStatistics.Snapshot lockStatistics() {
+        return LockStatistics.snapshot();
+    }
+
     @GET
     @Path("/total-system-balance/{currency}")
     @Produces(MediaType.APPLICATION_JSON)
@@ -68,4 +134,28 @@ public class TransactionResource {
             throw new BadRequestException(e.getMessage());
         }
     }
+
+    /**
+     * Compares the total balance with the sum of balances of all accounts read at one point in time.
+     */
+    @GET
+    @Path("/reconciliation/{currency}")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response reconciliation(@PathParam("currency") String currency) {
+        try {
+            final CurrencyUnit currencyUnit = CurrencyUnit.of(currency);
+            final Map<String, Object> result = new HashMap<>();
+            try (ReadView view = LedgerVersions.open()) {
+                final Money ledgerBalance = holderService.getTotalBalance(currencyUnit, view);
+                final Money totalBalance = transactionService.getTotalSystemBalance(currencyUnit);
+                result.put("version", view.getVersion());
+                result.put("totalBalance", totalBalance.getAmount());
+                result.put("ledgerBalance", ledgerBalance.getAmount());
+                result.put("consistent", totalBalance.isEqual(ledgerBalance));
+            }
+            return Response.ok().entity(result).build();
+        } catch (NullPointerException | IllegalCurrencyException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,78 @@
+package revolut.serializer;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+import revolut.model.Account;
+import revolut.model.Entry;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes account with its entries, initial balance and currency. Running balance isn't written,
+ * it is calculated from entries when account is read.
+ */
+public class AccountTypeAdapter extends TypeAdapter<Account> {
+    private final EntryTypeAdapter entryAdapter;
+    private final MoneyTypeAdapter moneyAdapter;
+    private final CurrencyTypeAdapter currencyAdapter;
+
+    public AccountTypeAdapter(EntryTypeAdapter entryAdapter, MoneyTypeAdapter moneyAdapter, CurrencyTypeAdapter currencyAdapter) {
+        this.entryAdapter = entryAdapter;
+        this.moneyAdapter = moneyAdapter;
+        this.currencyAdapter = currencyAdapter;
+    }
+
+    @Override
+    public void write(JsonWriter out, Account account) throws IOException {
+        out.beginObject();
+        out.name("id").value(account.getId());
+        out.name("entries").beginArray();
+        for (final Entry entry : account.getEntries()) {
+            entryAdapter.write(out, entry);
+        }
+        out.endArray();
+        out.name("initBalance");
+        moneyAdapter.write(out, account.getInitBalance());
+        out.name("currency");
+        currencyAdapter.write(out, account.getCurrency());
+        out.endObject();
+    }
+
+    @Override
+    public Account read(JsonReader in) throws IOException {
+        Long id = null;
+        CurrencyUnit currency = null;
+        Money initBalance = null;
+        final List<Entry> entries = new ArrayList<>();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "id":
+                    id = in.nextLong();
+                    break;
+                case "entries":
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        entries.add(entryAdapter.read(in));
+                    }
+                    in.endArray();
+                    break;
+                case "initBalance":
+                    initBalance = moneyAdapter.read(in);
+                    break;
+                case "currency":
+                    currency = currencyAdapter.read(in);
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return new Account(id, currency, initBalance, entries);
+    }
+}
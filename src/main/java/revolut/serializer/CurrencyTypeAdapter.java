@@ -0,0 +1,23 @@
+package revolut.serializer;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import org.joda.money.CurrencyUnit;
+
+import java.io.IOException;
+
+/**
+ * Writes currency as its code, e.g. "USD".
+ */
+public class CurrencyTypeAdapter extends TypeAdapter<CurrencyUnit> {
+    @Override
+    public void write(JsonWriter out, CurrencyUnit currencyUnit) throws IOException {
+        out.value(currencyUnit.getCode());
+    }
+
+    @Override
+    public CurrencyUnit read(JsonReader in) throws IOException {
+        return CurrencyUnit.of(in.nextString());
+    }
+}
@@ -0,0 +1,51 @@
+package revolut.serializer;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import org.joda.money.Money;
+import revolut.model.Entry;
+
+import java.io.IOException;
+import java.time.ZonedDateTime;
+
+public class EntryTypeAdapter extends TypeAdapter<Entry> {
+    private final MoneyTypeAdapter moneyAdapter;
+    private final ZonedDateTimeTypeAdapter dateAdapter;
+
+    public EntryTypeAdapter(MoneyTypeAdapter moneyAdapter, ZonedDateTimeTypeAdapter dateAdapter) {
+        this.moneyAdapter = moneyAdapter;
+        this.dateAdapter = dateAdapter;
+    }
+
+    @Override
+    public void write(JsonWriter out, Entry entry) throws IOException {
+        out.beginObject();
+        out.name("amount");
+        moneyAdapter.write(out, entry.getAmount());
+        out.name("date");
+        dateAdapter.write(out, entry.getDate());
+        out.endObject();
+    }
+
+    @Override
+    public Entry read(JsonReader in) throws IOException {
+        Money amount = null;
+        ZonedDateTime date = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "amount":
+                    amount = moneyAdapter.read(in);
+                    break;
+                case "date":
+                    date = dateAdapter.read(in);
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return new Entry(amount, date);
+    }
+}
@@ -0,0 +1,67 @@
+package revolut.serializer;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import revolut.model.Account;
+import revolut.model.Holder;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes holder with accounts as an object where keys are ids of accounts.
+ */
+public class HolderTypeAdapter extends TypeAdapter<Holder> {
+    private final AccountTypeAdapter accountAdapter;
+
+    public HolderTypeAdapter(AccountTypeAdapter accountAdapter) {
+        this.accountAdapter = accountAdapter;
+    }
+
+    @Override
+    public void write(JsonWriter out, Holder holder) throws IOException {
+        out.beginObject();
+        out.name("id").value(holder.getId());
+        out.name("fullName").value(holder.getFullName());
+        out.name("accounts").beginObject();
+        for (final Map.Entry<Long, Account> account : holder.getAccounts().entrySet()) {
+            out.name(String.valueOf(account.getKey()));
+            accountAdapter.write(out, account.getValue());
+        }
+        out.endObject();
+        out.endObject();
+    }
+
+    @Override
+    public Holder read(JsonReader in) throws IOException {
+        Long id = null;
+        String fullName = null;
+        final Map<Long, Account> accounts = new HashMap<>();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "id":
+                    id = in.nextLong();
+                    break;
+                case "fullName":
+                    fullName = in.nextString();
+                    break;
+                case "accounts":
+                    in.beginObject();
+                    while (in.hasNext()) {
+                        in.nextName();
+                        final Account account = accountAdapter.read(in);
+                        accounts.put(account.getId(), account);
+                    }
+                    in.endObject();
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return new Holder(id, fullName, accounts);
+    }
+}
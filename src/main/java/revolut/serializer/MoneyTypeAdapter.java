@@ -0,0 +1,79 @@
+package revolut.serializer;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+import org.joda.money.format.MoneyFormatter;
+import org.joda.money.format.MoneyFormatterBuilder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.text.DecimalFormatSymbols;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes money as localized currency symbol and amount, e.g. "$ 50.00".
+ * Reading accepts the same form or currency code instead of symbol, e.g. "USD 50.00".
+ * Formatter is immutable and thread-safe, so it is created once.
+ */
+public class MoneyTypeAdapter extends TypeAdapter<Money> {
+    private static final Locale LOCALE = Locale.getDefault();
+    private static final MoneyFormatter FORMATTER = new MoneyFormatterBuilder()
+            .appendCurrencySymbolLocalized()
+            .appendLiteral(" ")
+            .appendAmountLocalized()
+            .toFormatter(LOCALE);
+    private static final Map<String, CurrencyUnit> SYMBOLS = symbols();
+    private static final char GROUPING = DecimalFormatSymbols.getInstance(LOCALE).getGroupingSeparator();
+    private static final char DECIMAL = DecimalFormatSymbols.getInstance(LOCALE).getDecimalSeparator();
+
+    @Override
+    public void write(JsonWriter out, Money money) throws IOException {
+        out.value(FORMATTER.print(money));
+    }
+
+    @Override
+    public Money read(JsonReader in) throws IOException {
+        final String value = in.nextString();
+        final int space = value.indexOf(' ');
+        if (space < 0) {
+            throw new JsonParseException("Money must contain currency and amount: " + value);
+        }
+        final String symbol = value.substring(0, space);
+        final CurrencyUnit currency = SYMBOLS.containsKey(symbol) ? SYMBOLS.get(symbol) : CurrencyUnit.of(symbol);
+        final StringBuilder amount = new StringBuilder(value.length() - space);
+        for (int i = space + 1; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == DECIMAL) {
+                amount.append('.');
+            } else if (c != GROUPING && !Character.isSpaceChar(c)) {
+                amount.append(c);
+            }
+        }
+        return Money.of(currency, new BigDecimal(amount.toString()));
+    }
+
+    /**
+     * Localized symbols which belong to a single currency.
+     */
+    private static Map<String, CurrencyUnit> symbols() {
+        final Map<String, CurrencyUnit> symbols = new HashMap<>();
+        final Map<String, Integer> counts = new HashMap<>();
+        for (final CurrencyUnit currency : CurrencyUnit.registeredCurrencies()) {
+            final String symbol = currency.getSymbol(LOCALE);
+            symbols.put(symbol, currency);
+            counts.merge(symbol, 1, Integer::sum);
+        }
+        counts.forEach((symbol, count) -> {
+            if (count > 1) {
+                symbols.remove(symbol);
+            }
+        });
+        return symbols;
+    }
+}
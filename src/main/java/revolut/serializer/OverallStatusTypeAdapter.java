@@ -0,0 +1,86 @@
+package revolut.serializer;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import org.joda.money.Money;
+import revolut.model.Account;
+import revolut.model.AccountingTransaction;
+
+import java.io.IOException;
+
+/**
+ * Writes result of transaction, fields without value are omitted.
+ */
+public class OverallStatusTypeAdapter extends TypeAdapter<AccountingTransaction.OverallStatus> {
+    private final MoneyTypeAdapter moneyAdapter;
+
+    public OverallStatusTypeAdapter(MoneyTypeAdapter moneyAdapter) {
+        this.moneyAdapter = moneyAdapter;
+    }
+
+    @Override
+    public void write(JsonWriter out, AccountingTransaction.OverallStatus status) throws IOException {
+        out.beginObject();
+        writeEnum(out, "payerStatus", status.getPayerStatus());
+        writeEnum(out, "payeeStatus", status.getPayeeStatus());
+        writeMoney(out, "payerBalance", status.getPayerBalance());
+        writeMoney(out, "payeeBalance", status.getPayeeBalance());
+        writeMoney(out, "initialPayerBalance", status.getInitialPayerBalance());
+        writeMoney(out, "initialPayeeBalance", status.getInitialPayeeBalance());
+        writeMoney(out, "transferSum", status.getTransferSum());
+        writeEnum(out, "status", status.getStatus());
+        out.endObject();
+    }
+
+    @Override
+    public AccountingTransaction.OverallStatus read(JsonReader in) throws IOException {
+        final AccountingTransaction.OverallStatus status = new AccountingTransaction.OverallStatus();
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "payerStatus":
+                    status.setPayerStatus(Account.FixerStatus.valueOf(in.nextString()));
+                    break;
+                case "payeeStatus":
+                    status.setPayeeStatus(Account.FixerStatus.valueOf(in.nextString()));
+                    break;
+                case "payerBalance":
+                    status.setPayerBalance(moneyAdapter.read(in));
+                    break;
+                case "payeeBalance":
+                    status.setPayeeBalance(moneyAdapter.read(in));
+                    break;
+                case "initialPayerBalance":
+                    status.setInitialPayerBalance(moneyAdapter.read(in));
+                    break;
+                case "initialPayeeBalance":
+                    status.setInitialPayeeBalance(moneyAdapter.read(in));
+                    break;
+                case "transferSum":
+                    status.setTransferSum(moneyAdapter.read(in));
+                    break;
+                case "status":
+                    status.setStatus(AccountingTransaction.TransactionStatus.valueOf(in.nextString()));
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+        return status;
+    }
+
+    private void writeEnum(JsonWriter out, String name, Enum<?> value) throws IOException {
+        if (value != null) {
+            out.name(name).value(value.name());
+        }
+    }
+
+    private void writeMoney(JsonWriter out, String name, Money value) throws IOException {
+        if (value != null) {
+            out.name(name);
+            moneyAdapter.write(out, value);
+        }
+    }
+}
@@ -1,17 +0,0 @@
-package revolut.serializer;
-
-import com.google.gson.JsonElement;
-import com.google.gson.JsonPrimitive;
-import com.google.gson.JsonSerializationContext;
-import com.google.gson.JsonSerializer;
-
-import java.lang.reflect.Type;
-import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
-
-public class ZonedDateTimeSerializer implements JsonSerializer<ZonedDateTime> {
-    @Override
-    public JsonElement serialize(ZonedDateTime zonedDateTime, Type type, JsonSerializationContext jsonSerializationContext) {
-        return new JsonPrimitive(DateTimeFormatter.ofPattern("dd/MM/yyyy - HH:mm:ss Z").format(zonedDateTime));
-    }
-}
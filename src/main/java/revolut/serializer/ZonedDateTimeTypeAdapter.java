@@ -0,0 +1,26 @@
+package revolut.serializer;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Writes date as "dd/MM/yyyy - HH:mm:ss Z", e.g. "01/01/2020 - 00:00:00 +0000".
+ */
+public class ZonedDateTimeTypeAdapter extends TypeAdapter<ZonedDateTime> {
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("dd/MM/yyyy - HH:mm:ss Z");
+
+    @Override
+    public void write(JsonWriter out, ZonedDateTime zonedDateTime) throws IOException {
+        out.value(FORMATTER.format(zonedDateTime));
+    }
+
+    @Override
+    public ZonedDateTime read(JsonReader in) throws IOException {
+        return ZonedDateTime.parse(in.nextString(), FORMATTER);
+    }
+}
@@ -0,0 +1,74 @@
+package revolut.server;
+
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.HandlerWrapper;
+import revolut.metrics.Counter;
+import revolut.metrics.MetricsRegistry;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+/**
+ * Answers 503 Service Unavailable at once instead of letting requests wait when the server is saturated.
+ * <p>
+ * A request is rejected if too many requests are handled now or too many jobs wait for a thread of Jetty.
+ * Rejection costs only a status line, so the thread is returned to the pool quickly and the queue is drained.
+ * Limits which are not positive are not checked.
+ * </p>
+ */
+public class LoadSheddingHandler extends HandlerWrapper {
+    public static final String RETRY_AFTER_SECONDS = "1";
+    private static final Counter shed = MetricsRegistry.DEFAULT.counter("revolut_http_shed_total", "Requests rejected with 503 because the server was saturated.");
+    private final AtomicInteger active = new AtomicInteger();
+    private final int maxRequests;
+    private final int maxQueued;
+    private final IntSupplier queued;
+
+    /**
+     * @param maxRequests how many requests may be handled at once.
+     * @param maxQueued   how many jobs may wait for a thread.
+     * @param queued      count of jobs waiting for a thread now.
+     */
+    public LoadSheddingHandler(final int maxRequests, final int maxQueued, final IntSupplier queued) {
+        this.maxRequests = maxRequests;
+        this.maxQueued = maxQueued;
+        this.queued = Objects.requireNonNull(queued, "Queue size can't be null.");
+    }
+
+    @Override
+    public void handle(final String target, final Request baseRequest, final HttpServletRequest request,
+                       final HttpServletResponse response) throws IOException, ServletException {
+        if (baseRequest.getDispatcherType() != DispatcherType.REQUEST) {
+            super.handle(target, baseRequest, request, response);
+            return;
+        }
+        final int count = active.incrementAndGet();
+        try {
+            if ((maxRequests > 0 && count > maxRequests) || (maxQueued > 0 && queued.getAsInt() >= maxQueued)) {
+                shed.increment();
+                baseRequest.setHandled(true);
+                response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                response.setHeader("Retry-After", RETRY_AFTER_SECONDS);
+                response.setContentLength(0);
+                return;
+            }
+            super.handle(target, baseRequest, request, response);
+        } finally {
+            active.decrementAndGet();
+        }
+    }
+
+    public int getActive() {
+        return active.get();
+    }
+
+    public static long getShed() {
+        return shed.get();
+    }
+}
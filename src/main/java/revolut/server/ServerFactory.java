@@ -0,0 +1,91 @@
+package revolut.server;
+
+import org.eclipse.jetty.server.Handler;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.util.BlockingArrayQueue;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import revolut.config.Configuration;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * Creates Jetty server with connector and thread pool sized by configuration, so every node can be tuned for its hardware.
+ * <p>
+ * Jobs of the pool wait in a bounded queue. Before the queue is full, requests are rejected with 503
+ * by {@link LoadSheddingHandler}, the bound itself only protects memory if connections come faster than they are rejected.
+ * </p>
+ */
+public final class ServerFactory {
+    public static final String PORT = "revolut.server.port";
+    public static final String HOST = "revolut.server.host";
+    public static final String MIN_THREADS = "revolut.server.threads.min";
+    public static final String MAX_THREADS = "revolut.server.threads.max";
+    public static final String THREAD_IDLE_TIMEOUT = "revolut.server.threads.idle-timeout";
+    public static final String QUEUE = "revolut.server.queue";
+    public static final String MAX_REQUESTS = "revolut.server.max-requests";
+    public static final String ACCEPTORS = "revolut.server.acceptors";
+    public static final String SELECTORS = "revolut.server.selectors";
+    public static final String ACCEPT_QUEUE = "revolut.server.accept-queue";
+    public static final String IDLE_TIMEOUT = "revolut.server.idle-timeout";
+    public static final String REQUEST_HEADER_SIZE = "revolut.server.request-header-size";
+    public static final String RESPONSE_HEADER_SIZE = "revolut.server.response-header-size";
+    public static final String OUTPUT_BUFFER_SIZE = "revolut.server.output-buffer-size";
+    public static final int DEFAULT_PORT = 8080;
+    public static final int DEFAULT_QUEUE = 1024;
+    private static final Logger logger = LoggerFactory.getLogger(ServerFactory.class);
+    private static final int QUEUE_GROW_BY = 256;
+
+    private ServerFactory() {
+    }
+
+    /**
+     * Creates server which is not started yet.
+     *
+     * @param handler handler of the application, it is put behind load shedding.
+     */
+    public static Server create(final Configuration configuration, final Handler handler) {
+        Objects.requireNonNull(configuration, "Configuration can't be null.");
+        Objects.requireNonNull(handler, "Handler can't be null.");
+        final int minThreads = configuration.getInt(MIN_THREADS, 8);
+        final int maxThreads = configuration.getInt(MAX_THREADS, 200);
+        final int queue = configuration.getInt(QUEUE, DEFAULT_QUEUE);
+        if (minThreads < 1 || maxThreads < minThreads || queue < 0) {
+            throw new IllegalArgumentException(String.format("Illegal thread pool: %d..%d threads, queue of %d.", minThreads, maxThreads, queue));
+        }
+        final int threadIdleTimeout = (int) configuration.getDuration(THREAD_IDLE_TIMEOUT, Duration.ofSeconds(60)).toMillis();
+        final QueuedThreadPool pool = queue == 0
+                ? new QueuedThreadPool(maxThreads, minThreads, threadIdleTimeout)
+                // Jobs over the shedding limit still fit, so requests are answered with 503 instead of dropped connections.
+                : new QueuedThreadPool(maxThreads, minThreads, threadIdleTimeout,
+                new BlockingArrayQueue<>(Math.min(queue, QUEUE_GROW_BY), QUEUE_GROW_BY, queue + maxThreads));
+        pool.setName("jetty");
+        final Server server = new Server(pool);
+
+        final HttpConfiguration http = new HttpConfiguration();
+        http.setRequestHeaderSize(configuration.getInt(REQUEST_HEADER_SIZE, 8 * 1024));
+        http.setResponseHeaderSize(configuration.getInt(RESPONSE_HEADER_SIZE, 8 * 1024));
+        http.setOutputBufferSize(configuration.getInt(OUTPUT_BUFFER_SIZE, 32 * 1024));
+        http.setSendServerVersion(false);
+        // Executor, scheduler and buffer pool of the server are used.
+        final ServerConnector connector = new ServerConnector(server, null, null, null,
+                configuration.getInt(ACCEPTORS, -1), configuration.getInt(SELECTORS, -1), new HttpConnectionFactory(http));
+        connector.setPort(configuration.getInt(PORT, DEFAULT_PORT));
+        connector.setHost(configuration.getString(HOST, null));
+        connector.setAcceptQueueSize(configuration.getInt(ACCEPT_QUEUE, 0));
+        connector.setIdleTimeout(configuration.getDuration(IDLE_TIMEOUT, Duration.ofSeconds(30)).toMillis());
+        server.addConnector(connector);
+
+        final LoadSheddingHandler shedding = new LoadSheddingHandler(configuration.getInt(MAX_REQUESTS, 0), queue, pool::getQueueSize);
+        shedding.setHandler(handler);
+        server.setHandler(shedding);
+        logger.info("Server is configured with {}..{} threads, queue of {} and {} acceptors on port {}.",
+                minThreads, maxThreads, queue, connector.getAcceptors(), connector.getPort());
+        return server;
+    }
+}
@@ -0,0 +1,16 @@
+package revolut.service;
+
+import java.time.ZonedDateTime;
+
+public interface CheckpointService {
+    /**
+     * Collapses entries of all accounts made before the horizon.
+     *
+     * @return count of collapsed entries.
+     */
+    long checkpoint(ZonedDateTime horizon);
+
+    void start();
+
+    void stop();
+}
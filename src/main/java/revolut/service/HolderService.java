@@ -1,14 +1,44 @@
 package revolut.service;
 
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
 import revolut.model.Account;
 import revolut.model.Holder;
+import revolut.model.ReadView;
 
+import java.util.List;
 import java.util.Map;
 
 public interface HolderService {
     Map<Long, Holder> getHolders();
 
+    /**
+     * Returns a page of holders sorted by id.
+     *
+     * @param after id of the last holder of the previous page or null for the first page.
+     * @param limit maximal count of holders.
+     */
+    List<Holder> getHolders(Long after, int limit);
+
     Holder getHolderById(Long id);
 
     Account getAccountById(Long id);
+
+    /**
+     * Returns sum of balances of all accounts with the currency without visiting the accounts.
+     */
+    Money getTotalBalance(CurrencyUnit currency);
+
+    /**
+     * Sums balances of all accounts with the currency as they are seen by the view.
+     * Accounts are visited, but transfers aren't blocked.
+     */
+    Money getTotalBalance(CurrencyUnit currency, ReadView view);
+
+    /**
+     * Adds new holder or replaces the holder with the same id together with its accounts.
+     */
+    void addHolder(Holder holder);
+
+    Holder removeHolder(Long id);
 }
@@ -0,0 +1,14 @@
+package revolut.service;
+
+public interface SnapshotService {
+    /**
+     * Stores balances of all accounts into snapshot file.
+     *
+     * @return count of stored accounts.
+     */
+    int snapshot();
+
+    void start();
+
+    void stop();
+}
@@ -3,9 +3,29 @@ package revolut.service;
 import org.joda.money.CurrencyUnit;
 import org.joda.money.Money;
 import revolut.model.AccountingTransaction;
+import revolut.model.BatchTransaction;
+import revolut.request.BatchTransactionRequest;
 import revolut.request.TransactionRequest;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface TransactionService {
     AccountingTransaction.OverallStatus perform(TransactionRequest request);
+
+    /**
+     * Performs transaction once for the key. Repeated requests with the same key get the result of the first one
+     * while it is kept, a request with the same key and different parameters is rejected.
+     *
+     * @param idempotencyKey if it is null, transaction is always performed.
+     */
+    AccountingTransaction.OverallStatus perform(TransactionRequest request, String idempotencyKey);
+
+    /**
+     * The same as {@link #perform(TransactionRequest, String)}, but transaction is performed by transfer executor.
+     * If the executor is overloaded, the future fails with {@link java.util.concurrent.RejectedExecutionException}.
+     */
+    CompletableFuture<AccountingTransaction.OverallStatus> performAsync(TransactionRequest request, String idempotencyKey);
+
+    BatchTransaction.BatchStatus performBatch(BatchTransactionRequest request);
     Money getTotalSystemBalance(final CurrencyUnit currency);
 }
@@ -0,0 +1,119 @@
+package revolut.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import revolut.config.Configuration;
+import revolut.ledger.FileEntryArchive;
+import revolut.model.Account;
+import revolut.model.AccountOwners;
+import revolut.model.EntryArchive;
+import revolut.model.Holder;
+import revolut.service.CheckpointService;
+import revolut.service.HolderService;
+
+import javax.inject.Inject;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically collapses old entries of every account into its initial balance,
+ * so the list of live entries stays small for long-lived accounts.
+ * Collapsed entries are moved out of heap into archive, see {@link revolut.model.EntryArchive}.
+ * Scheduled checkpoints can't be enabled without archive, otherwise collapsed entries would be lost
+ * once journal segments covered by snapshot are deleted.
+ * If accounts have owners, every account is collapsed by its owner.
+ */
+public class CheckpointServiceImpl implements CheckpointService {
+    public static final String ENABLED = "revolut.checkpoint.enabled";
+    public static final String INTERVAL = "revolut.checkpoint.interval";
+    public static final String HORIZON = "revolut.checkpoint.horizon";
+    private static final Logger logger = LoggerFactory.getLogger(CheckpointServiceImpl.class);
+    private final HolderService holderService;
+    private final AccountOwners owners;
+    private final boolean enabled;
+    private final Duration interval;
+    private final Duration horizon;
+    private ScheduledExecutorService scheduler;
+
+    public CheckpointServiceImpl(HolderService holderService, Configuration configuration) {
+        this(holderService, configuration, EntryArchive.NONE);
+    }
+
+    /**
+     * @throws IllegalStateException if checkpoints are enabled and archive drops entries.
+     */
+    @Inject
+    public CheckpointServiceImpl(HolderService holderService, Configuration configuration, EntryArchive archive) {
+        this(holderService, configuration, archive, AccountOwners.NONE);
+    }
+
+    /**
+     * @throws IllegalStateException if checkpoints are enabled and archive drops entries.
+     */
+    public CheckpointServiceImpl(HolderService holderService, Configuration configuration, EntryArchive archive,
+                                 AccountOwners owners) {
+        Objects.requireNonNull(archive, "Archive can't be null.");
+        this.holderService = holderService;
+        this.owners = Objects.requireNonNull(owners, "Owners can't be null.");
+        this.enabled = configuration.getBoolean(ENABLED, false);
+        this.interval = configuration.getDuration(INTERVAL, Duration.ofMinutes(10));
+        this.horizon = configuration.getDuration(HORIZON, Duration.ofDays(30));
+        if (enabled && archive == EntryArchive.NONE) {
+            throw new IllegalStateException(String.format("%s requires archive of collapsed entries, set %s.", ENABLED, FileEntryArchive.PATH));
+        }
+    }
+
+    @Override
+    public long checkpoint(final ZonedDateTime horizon) {
+        Objects.requireNonNull(horizon, "Horizon can't be null.");
+        long collapsed = 0;
+        for (final Holder holder : holderService.getHolders().values()) {
+            for (final Account account : holder.getAccounts().values()) {
+                final int count = owners == AccountOwners.NONE ? account.collapseEntries(horizon)
+                        : owners.execute(List.of(account), () -> account.collapseEntriesOwned(horizon));
+                if (count < 0) {
+                    logger.warn("Account {} isn't collapsed, it will be collapsed on the next checkpoint.", account.getId());
+                } else {
+                    collapsed += count;
+                }
+            }
+        }
+        return collapsed;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (!enabled || scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::run, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        logger.info("Checkpoint is scheduled every {} for entries older than {}.", interval, horizon);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private void run() {
+        try {
+            final long collapsed = checkpoint(ZonedDateTime.now().minus(horizon));
+            logger.info("Checkpoint collapsed {} entries.", collapsed);
+        } catch (Exception e) {
+            logger.error(e.getMessage(), e);
+        }
+    }
+}
@@ -1,37 +1,156 @@
 package revolut.service.impl;
 
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+import revolut.collection.LongObjectHashMap;
 import revolut.model.Account;
+import revolut.model.EntryStore;
 import revolut.model.Holder;
+import revolut.model.HotAccounts;
+import revolut.model.ReadView;
 import revolut.provider.DataProvider;
 import revolut.service.HolderService;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
 
 public class HolderServiceImpl implements HolderService {
-    /* holders is an immutable hash map.*/
-    private Map<Long, Holder> holders;
+    /* holders are sorted by id.*/
+    private final NavigableMap<Long, Holder> holders = new ConcurrentSkipListMap<>();
+    /* index of accounts of all holders by account id.*/
+    private final LongObjectHashMap<Account> accounts;
+    /* Sum of balances by currency in minor units. Transfers don't change it, because both accounts have the same currency,
+     * so it changes only when accounts are added or removed. */
+    private final Map<CurrencyUnit, LongAdder> totals = new ConcurrentHashMap<>();
+    /* Accounts report contention of their locks there while they belong to the service. */
+    private final HotAccounts hotAccounts;
 
     public HolderServiceImpl() {
-        holders = DataProvider.generateHolders(3);
+        this(DataProvider.generateHolders(3));
+    }
+
+    public HolderServiceImpl(final EntryStore.Factory storeFactory) {
+        this(DataProvider.generateHolders(3, storeFactory));
+    }
+
+    public HolderServiceImpl(final Map<Long, Holder> holders) {
+        this(holders, new HotAccounts());
+    }
+
+    public HolderServiceImpl(final Map<Long, Holder> holders, final HotAccounts hotAccounts) {
+        Objects.requireNonNull(holders, "Holders can't be null");
+        this.hotAccounts = Objects.requireNonNull(hotAccounts, "Hot accounts can't be null");
+        this.accounts = new LongObjectHashMap<>(holders.size() * 2);
+        for (final Holder holder : holders.values()) {
+            addHolder(holder);
+        }
     }
 
     @Override
     public Map<Long, Holder> getHolders() {
-        return holders;
+        return Collections.unmodifiableNavigableMap(holders);
+    }
+
+    @Override
+    public List<Holder> getHolders(final Long after, final int limit) {
+        final NavigableMap<Long, Holder> tail = after == null ? holders : holders.tailMap(after, false);
+        final List<Holder> page = new ArrayList<>(Math.min(limit, 1024));
+        for (final Holder holder : tail.values()) {
+            if (page.size() >= limit) {
+                break;
+            }
+            page.add(holder);
+        }
+        return page;
     }
 
     @Override
     public Holder getHolderById(Long id) {
-        return holders.get(id);
+        return id == null ? null : holders.get(id);
     }
 
     @Override
     public Account getAccountById(Long id) {
-        for (Map.Entry<Long, Holder> holder : holders.entrySet()) {
-            if (holder.getValue().getAccounts().get(id) != null) {
-                return holder.getValue().getAccounts().get(id);
+        return id == null ? null : accounts.get(id);
+    }
+
+    @Override
+    public Money getTotalBalance(final CurrencyUnit currency) {
+        Objects.requireNonNull(currency, "Currency can't be null");
+        final LongAdder total = totals.get(currency);
+        return Money.ofMinor(currency, total == null ? 0L : total.sum());
+    }
+
+    @Override
+    public Money getTotalBalance(final CurrencyUnit currency, final ReadView view) {
+        Objects.requireNonNull(currency, "Currency can't be null");
+        Objects.requireNonNull(view, "View can't be null");
+        long total = 0;
+        for (final Holder holder : holders.values()) {
+            for (final Account account : holder.getAccounts().values()) {
+                if (account.getCurrency().equals(currency)) {
+                    final Account.CommittedState state = view.stateOf(account);
+                    total += state == null ? 0 : state.getBalanceMinor();
+                }
+            }
+        }
+        return Money.ofMinor(currency, total);
+    }
+
+    @Override
+    public synchronized void addHolder(final Holder holder) {
+        Objects.requireNonNull(holder, "Holder can't be null");
+        final Holder previous = holders.get(holder.getId());
+        for (final Long accountId : holder.getAccounts().keySet()) {
+            final Account account = accounts.get(accountId);
+            if (account != null && (previous == null || !previous.getAccounts().containsKey(accountId))) {
+                throw new IllegalArgumentException(String.format("Account %d already belongs to another holder.", accountId));
             }
         }
-        return null;
+        if (previous != null) {
+            previous.getAccounts().keySet().forEach(accounts::remove);
+            previous.getAccounts().values().stream()
+                    .filter(account -> holder.getAccounts().get(account.getId()) != account)
+                    .forEach(this::detach);
+        }
+        holder.getAccounts().forEach(accounts::put);
+        holder.getAccounts().values().stream()
+                .filter(account -> previous == null || previous.getAccounts().get(account.getId()) != account)
+                .forEach(account -> {
+                    addToTotal(account, 1);
+                    account.setHotAccounts(hotAccounts);
+                });
+        holders.put(holder.getId(), holder);
+    }
+
+    @Override
+    public synchronized Holder removeHolder(final Long id) {
+        final Holder holder = id == null ? null : holders.remove(id);
+        if (holder != null) {
+            holder.getAccounts().keySet().forEach(accounts::remove);
+            holder.getAccounts().values().forEach(this::detach);
+        }
+        return holder;
+    }
+
+    /**
+     * Takes removed account out of totals and hot accounts.
+     */
+    private void detach(final Account account) {
+        addToTotal(account, -1);
+        account.setHotAccounts(null);
+        hotAccounts.remove(account.getId());
+    }
+
+    private void addToTotal(final Account account, final int sign) {
+        final long balance = account.getCommittedState().getBalanceMinor();
+        totals.computeIfAbsent(account.getCurrency(), currency -> new LongAdder()).add(sign * balance);
     }
 }
@@ -0,0 +1,89 @@
+package revolut.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import revolut.config.Configuration;
+import revolut.journal.Journal;
+import revolut.recovery.Recovery;
+import revolut.recovery.Snapshot;
+import revolut.service.HolderService;
+import revolut.service.SnapshotService;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically writes snapshot of all accounts in background, so on restart only the journal after it is replayed.
+ * Journal records covered by the snapshot are dropped. It is enabled if snapshot path is set.
+ */
+public class SnapshotServiceImpl implements SnapshotService {
+    public static final String INTERVAL = "revolut.snapshot.interval";
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotServiceImpl.class);
+    private final HolderService holderService;
+    private final Journal journal;
+    private final Path path;
+    private final Duration interval;
+    private ScheduledExecutorService scheduler;
+
+    @Inject
+    public SnapshotServiceImpl(HolderService holderService, Configuration configuration, Journal journal) {
+        this.holderService = holderService;
+        this.journal = journal;
+        final String path = configuration.getString(Recovery.SNAPSHOT_PATH, "");
+        this.path = path.isEmpty() ? null : Paths.get(path);
+        this.interval = configuration.getDuration(INTERVAL, Duration.ofMinutes(5));
+    }
+
+    @Override
+    public synchronized int snapshot() {
+        if (path == null) {
+            throw new IllegalStateException("Snapshot path isn't set.");
+        }
+        try {
+            final Snapshot.Cut cut = Snapshot.write(path, holderService.getHolders().values(), journal.getLastSequence());
+            journal.truncate(cut.getJournalSequence());
+            return cut.getAccounts();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Snapshot " + path + " can't be written.", e);
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (path == null || scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::run, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+        logger.info("Snapshot {} is written every {}.", path, interval);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private void run() {
+        try {
+            final long start = System.nanoTime();
+            final int accounts = snapshot();
+            logger.info("Snapshot of {} accounts is written in {} ms.", accounts, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (Exception e) {
+            logger.error(e.getMessage(), e);
+        }
+    }
+}
@@ -1,52 +1,252 @@
 package revolut.service.impl;
 
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import org.joda.money.CurrencyUnit;
 import org.joda.money.Money;
+import revolut.config.Configuration;
+import revolut.engine.ShardedTransferEngine;
+import revolut.engine.TransferExecutor;
+import revolut.exception.IdempotencyKeyReusedException;
+import revolut.journal.Journal;
+import revolut.metrics.TransactionMetrics;
 import revolut.model.Account;
+import revolut.model.AccountOwners;
 import revolut.model.AccountingTransaction;
-import revolut.model.Holder;
+import revolut.model.BatchMode;
+import revolut.model.BatchTransaction;
+import revolut.model.LockRetryPolicy;
+import revolut.request.BatchTransactionRequest;
 import revolut.request.TransactionRequest;
 import revolut.service.HolderService;
 import revolut.service.TransactionService;
 
 import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.ZonedDateTime;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
-public class TransactionServiceImpl implements TransactionService {
+@Singleton
+public class TransactionServiceImpl implements TransactionService, AutoCloseable {
+    public static final String LOCK_ATTEMPTS = "revolut.lock.attempts";
+    public static final String LOCK_WAIT = "revolut.lock.wait";
+    public static final String LOCK_MIN_BACKOFF = "revolut.lock.backoff.min";
+    public static final String LOCK_MAX_BACKOFF = "revolut.lock.backoff.max";
+    public static final String ENGINE_MODE = "revolut.engine.mode";
+    public static final String ENGINE_SHARDS = "revolut.engine.shards";
+    public static final String ENGINE_RING_SIZE = "revolut.engine.ring-size";
+    public static final String SHARDED_MODE = "sharded";
+    public static final String BATCH_MAX_SIZE = "revolut.batch.max-size";
+    public static final int DEFAULT_BATCH_MAX_SIZE = 50_000;
+    public static final String BATCH_MAX_LOCKS = "revolut.batch.max-locks";
+    public static final String IDEMPOTENCY_MAX_SIZE = "revolut.idempotency.max-size";
+    public static final String IDEMPOTENCY_TTL = "revolut.idempotency.ttl";
+    public static final int DEFAULT_IDEMPOTENCY_MAX_SIZE = 100_000;
+    public static final Duration DEFAULT_IDEMPOTENCY_TTL = Duration.ofHours(1);
     private HolderService holderService;
+    private final LockRetryPolicy retryPolicy;
+    private int maxBatchSize = DEFAULT_BATCH_MAX_SIZE;
+    private int maxBatchLocks = BatchTransaction.MAX_LOCKS;
+    /* If it is null, transactions are performed by request threads. */
+    private final ShardedTransferEngine transferEngine;
+    /* Successful transactions are reported only after they are stored by journal. */
+    private final Journal journal;
+    /* Transactions of asynchronous requests are performed here, by default by the calling thread. */
+    private Executor asyncExecutor = Runnable::run;
+    /* Results of transactions by idempotency key. */
+    private Cache<String, IdempotentResult> idempotentResults = idempotentResults(DEFAULT_IDEMPOTENCY_MAX_SIZE, DEFAULT_IDEMPOTENCY_TTL);
 
-    @Inject
     public TransactionServiceImpl(HolderService holderService) {
+        this(holderService, LockRetryPolicy.DEFAULT);
+    }
+
+    @Inject
+    public TransactionServiceImpl(HolderService holderService, Configuration configuration, Journal journal,
+                                  TransferExecutor transferExecutor) {
+        this(holderService, retryPolicy(configuration), transferEngine(configuration), journal);
+        this.asyncExecutor = Objects.requireNonNull(transferExecutor, "Transfer executor can't be null.");
+        this.maxBatchSize = configuration.getInt(BATCH_MAX_SIZE, DEFAULT_BATCH_MAX_SIZE);
+        this.maxBatchLocks = configuration.getInt(BATCH_MAX_LOCKS, BatchTransaction.MAX_LOCKS);
+        this.idempotentResults = idempotentResults(
+                configuration.getInt(IDEMPOTENCY_MAX_SIZE, DEFAULT_IDEMPOTENCY_MAX_SIZE),
+                configuration.getDuration(IDEMPOTENCY_TTL, DEFAULT_IDEMPOTENCY_TTL));
+    }
+
+    public TransactionServiceImpl(HolderService holderService, LockRetryPolicy retryPolicy) {
+        this(holderService, retryPolicy, null);
+    }
+
+    public TransactionServiceImpl(HolderService holderService, LockRetryPolicy retryPolicy, ShardedTransferEngine transferEngine) {
+        this(holderService, retryPolicy, transferEngine, Journal.NONE);
+    }
+
+    public TransactionServiceImpl(HolderService holderService, LockRetryPolicy retryPolicy, ShardedTransferEngine transferEngine,
+                                  Journal journal) {
         this.holderService = holderService;
+        this.retryPolicy = retryPolicy;
+        this.transferEngine = transferEngine;
+        this.journal = Objects.requireNonNull(journal, "Journal can't be null.");
+    }
+
+    private static LockRetryPolicy retryPolicy(final Configuration configuration) {
+        return new LockRetryPolicy(
+                configuration.getInt(LOCK_ATTEMPTS, LockRetryPolicy.DEFAULT.getMaxAttempts()),
+                configuration.getLong(LOCK_WAIT, LockRetryPolicy.DEFAULT.getWaitInterval()),
+                configuration.getLong(LOCK_MIN_BACKOFF, LockRetryPolicy.DEFAULT.getMinBackoff()),
+                configuration.getLong(LOCK_MAX_BACKOFF, LockRetryPolicy.DEFAULT.getMaxBackoff()));
+    }
+
+    private static ShardedTransferEngine transferEngine(final Configuration configuration) {
+        if (!SHARDED_MODE.equalsIgnoreCase(configuration.getString(ENGINE_MODE, ""))) {
+            return null;
+        }
+        return new ShardedTransferEngine(
+                configuration.getInt(ENGINE_SHARDS, Runtime.getRuntime().availableProcessors()),
+                configuration.getInt(ENGINE_RING_SIZE, 1024));
     }
 
     @Override
     public AccountingTransaction.OverallStatus perform(TransactionRequest request) {
         Objects.requireNonNull(request, "Request can't be null.");
+        AccountingTransaction at = createTransaction(request);
+        final AccountingTransaction.OverallStatus status = transferEngine == null ? at.perform() : transferEngine.perform(at);
+        journal.await(at.getCommitSequence());
+        TransactionMetrics.record(status);
+        return status;
+    }
+
+    @Override
+    public AccountingTransaction.OverallStatus perform(final TransactionRequest request, final String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return perform(request);
+        }
+        Objects.requireNonNull(request, "Request can't be null.");
+        final IdempotentResult result;
+        try {
+            // Concurrent requests with the same key wait for the first one instead of performing transaction again.
+            result = idempotentResults.get(idempotencyKey, () -> new IdempotentResult(request, perform(request)));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new IllegalStateException(e.getCause());
+        }
+        if (!result.matches(request)) {
+            throw new IdempotencyKeyReusedException("Idempotency key is already used by another request.");
+        }
+        final AccountingTransaction.TransactionStatus status = result.getStatus().getStatus();
+        if (status == AccountingTransaction.TransactionStatus.PAYER_BUSY || status == AccountingTransaction.TransactionStatus.PAYEE_BUSY) {
+            // Nothing is changed by busy transaction, so the next retry performs it again.
+            idempotentResults.asMap().remove(idempotencyKey, result);
+        }
+        return result.getStatus();
+    }
+
+    @Override
+    public CompletableFuture<AccountingTransaction.OverallStatus> performAsync(final TransactionRequest request, final String idempotencyKey) {
+        try {
+            return CompletableFuture.supplyAsync(() -> perform(request, idempotencyKey), asyncExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public BatchTransaction.BatchStatus performBatch(BatchTransactionRequest request) {
+        Objects.requireNonNull(request, "Request can't be null.");
+        Objects.requireNonNull(request.getTransactions(), "Transactions can't be null.");
+        if (request.getTransactions().size() > maxBatchSize) {
+            throw new IllegalArgumentException(String.format("Batch can't contain more than %d transactions.", maxBatchSize));
+        }
+        final List<AccountingTransaction> transactions = new ArrayList<>(request.getTransactions().size());
+        for (int i = 0; i < request.getTransactions().size(); i++) {
+            final TransactionRequest item = request.getTransactions().get(i);
+            try {
+                Objects.requireNonNull(item, "Request can't be null.");
+                Objects.requireNonNull(item.getSum(), "Sum can't be null.");
+                transactions.add(createTransaction(item));
+            } catch (NullPointerException | IllegalArgumentException e) {
+                throw new IllegalArgumentException(String.format("Transaction %d: %s", i, e.getMessage()), e);
+            }
+        }
+        final BatchMode mode = Optional.ofNullable(request.getMode()).orElse(BatchMode.BEST_EFFORT);
+        final BatchTransaction batch = new BatchTransaction(transactions, mode, retryPolicy, BatchTransaction.GROUP_SIZE, maxBatchLocks);
+        // Accounts owned by shards are changed only by their owners.
+        final BatchTransaction.BatchStatus status = transferEngine == null ? batch.perform() : batch.perform(transferEngine);
+        journal.await(transactions.stream().mapToLong(AccountingTransaction::getCommitSequence).max().orElse(0L));
+        status.getResults().forEach(TransactionMetrics::record);
+        return status;
+    }
+
+    private static Cache<String, IdempotentResult> idempotentResults(final int maxSize, final Duration ttl) {
+        return CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl.toNanos(), TimeUnit.NANOSECONDS)
+                .build();
+    }
+
+    private AccountingTransaction createTransaction(TransactionRequest request) {
         Account payer = holderService.getAccountById(request.getPayerAccountId());
         Objects.requireNonNull(payer, "Payer not found.");
         Account payee = holderService.getAccountById(request.getPayeeAccountId());
         Objects.requireNonNull(payee, "Payee not found.");
-        AccountingTransaction at = new AccountingTransaction(Money.of(CurrencyUnit.USD, request.getSum()), payer, payee, ZonedDateTime.now());
-        return at.perform();
+        return new AccountingTransaction(Money.of(CurrencyUnit.USD, request.getSum()), payer, payee, ZonedDateTime.now(), retryPolicy, journal);
+    }
+
+    /**
+     * @return owners of accounts which other writers must pass their changes to.
+     */
+    public AccountOwners getAccountOwners() {
+        return transferEngine == null ? AccountOwners.NONE : transferEngine;
     }
 
     @Override
     public Money getTotalSystemBalance(final CurrencyUnit currency) {
         Objects.requireNonNull(currency);
-        Money totalBalance = Money.zero(currency);
-        final Map<Long, Holder> holders = holderService.getHolders();
-        for (final Map.Entry<Long, Holder> holder : holders.entrySet()) {
-            Optional<Money> money = holder.getValue().getAccounts().values()
-                    .stream().filter(s -> s.getCurrency().equals(currency))
-                    .map(Account::getBalance).reduce(Money::plus);
-            if (money.isPresent()) {
-                totalBalance = totalBalance.plus(money.get());
-            }
+        return holderService.getTotalBalance(currency);
+    }
+
+    /**
+     * Stops transfer engine, transactions which aren't performed yet fail.
+     */
+    @Override
+    public void close() {
+        if (transferEngine != null) {
+            transferEngine.close();
+        }
+    }
+
+    private static final class IdempotentResult {
+        private final BigDecimal sum;
+        private final Long payerAccountId;
+        private final Long payeeAccountId;
+        private final AccountingTransaction.OverallStatus status;
+
+        private IdempotentResult(final TransactionRequest request, final AccountingTransaction.OverallStatus status) {
+            this.sum = request.getSum();
+            this.payerAccountId = request.getPayerAccountId();
+            this.payeeAccountId = request.getPayeeAccountId();
+            this.status = status;
+        }
+
+        private boolean matches(final TransactionRequest request) {
+            return sum.compareTo(request.getSum()) == 0
+                    && payerAccountId.equals(request.getPayerAccountId())
+                    && payeeAccountId.equals(request.getPayeeAccountId());
+        }
+
+        private AccountingTransaction.OverallStatus getStatus() {
+            return status;
         }
-        return totalBalance;
     }
 }
@@ -26,6 +26,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -67,6 +68,32 @@ class JettyServerTest {
         }
     }
 
+    @Test
+    public void getHoldersPageWithoutEntriesTest() throws IOException {
+        try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
+            final HttpGet httpget = new HttpGet(String.format("%s/holders?after=1&limit=2&entries=false", API_URL));
+            try (CloseableHttpResponse response = httpClient.execute(httpget)) {
+                assertEquals(HttpStatus.SC_OK, response.getStatusLine().getStatusCode());
+                assertEquals("3", response.getFirstHeader("X-Next-After").getValue());
+                final JsonNode holders = new ObjectMapper().readTree(EntityUtils.toString(response.getEntity()));
+                assertEquals(2, holders.size());
+                assertEquals(2, holders.get(0).get("id").asLong());
+                assertEquals(3, holders.get(1).get("id").asLong());
+                for (final Iterator<JsonNode> it = holders.get(0).get("accounts").elements(); it.hasNext(); ) {
+                    final JsonNode account = it.next();
+                    assertTrue(account.has("balance"));
+                    assertFalse(account.has("entries"));
+                }
+            }
+        }
+        try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
+            final HttpGet httpget = new HttpGet(String.format("%s/holders?limit=0", API_URL));
+            try (CloseableHttpResponse response = httpClient.execute(httpget)) {
+                assertEquals(HttpStatus.SC_BAD_REQUEST, response.getStatusLine().getStatusCode());
+            }
+        }
+    }
+
     public void checkHolder(JsonNode holder) {
         assertTrue(holder.has("fullName"));
         assertTrue(holder.has("accounts"));
@@ -131,6 +158,33 @@ class JettyServerTest {
         }
     }
 
+    @Test
+    public void transactionWithIdempotencyKeyTest() throws IOException {
+        final String key = "transaction-" + System.nanoTime();
+        final String[] answers = new String[2];
+        try (final CloseableHttpClient httpClient = HttpClients.createDefault()) {
+            for (int i = 0; i < answers.length; i++) {
+                final HttpPut httpPut = new HttpPut(String.format("%s/transactions", API_URL));
+                httpPut.setHeader("Content-Type", MediaType.APPLICATION_JSON);
+                httpPut.setHeader("Idempotency-Key", key);
+                httpPut.setEntity(new StringEntity("{\"sum\": 1,\"payerAccountId\": 3,\"payeeAccountId\": 4}"));
+                try (final CloseableHttpResponse response = httpClient.execute(httpPut)) {
+                    assertEquals(HttpStatus.SC_OK, response.getStatusLine().getStatusCode());
+                    answers[i] = EntityUtils.toString(response.getEntity());
+                }
+            }
+            assertEquals(answers[0], answers[1]);
+
+            final HttpPut httpPut = new HttpPut(String.format("%s/transactions", API_URL));
+            httpPut.setHeader("Content-Type", MediaType.APPLICATION_JSON);
+            httpPut.setHeader("Idempotency-Key", key);
+            httpPut.setEntity(new StringEntity("{\"sum\": 2,\"payerAccountId\": 3,\"payeeAccountId\": 4}"));
+            try (final CloseableHttpResponse response = httpClient.execute(httpPut)) {
+                assertEquals(422, response.getStatusLine().getStatusCode());
+            }
+        }
+    }
+
     @Test
     public void transactionInsufficientBalanceTest() throws IOException {
         try (final CloseableHttpClient httpClient = HttpClients.createDefault()) {
@@ -302,6 +356,40 @@ class JettyServerTest {
         }
     }
 
+    @Test
+    public void batchTransactionTest() throws IOException {
+        try (final CloseableHttpClient httpClient = HttpClients.createDefault()) {
+            final HttpPut httpPut = new HttpPut(String.format("%s/transactions/batch", API_URL));
+            httpPut.setHeader("Content-Type", MediaType.APPLICATION_JSON);
+            HttpEntity requestEntity = new StringEntity("{\"mode\": \"ALL_OR_NOTHING\", \"transactions\": [" +
+                    "{\"sum\": 10, \"payerAccountId\": 3, \"payeeAccountId\": 4}," +
+                    "{\"sum\": 10, \"payerAccountId\": 4, \"payeeAccountId\": 3}]}");
+            httpPut.setEntity(requestEntity);
+            try (final CloseableHttpResponse response = httpClient.execute(httpPut)) {
+                assertEquals(HttpStatus.SC_OK, response.getStatusLine().getStatusCode());
+                final HttpEntity entity = response.getEntity();
+                assertEquals(MediaType.APPLICATION_JSON, entity.getContentType().getValue());
+                final JsonNode answer = new ObjectMapper().readTree(EntityUtils.toString(entity));
+                assertEquals("ALL_OR_NOTHING", answer.get("mode").asText());
+                assertEquals(2, answer.get("succeeded").asInt());
+                assertEquals(2, answer.get("results").size());
+                assertEquals("OK", answer.get("results").get(0).get("status").asText());
+            }
+        }
+
+        try (final CloseableHttpClient httpClient = HttpClients.createDefault()) {
+            final HttpPut httpPut = new HttpPut(String.format("%s/transactions/batch", API_URL));
+            httpPut.setHeader("Content-Type", MediaType.APPLICATION_JSON);
+            HttpEntity requestEntity = new StringEntity("{\"transactions\": [{\"sum\": 10, \"payerAccountId\": 3, \"payeeAccountId\": 3}]}");
+            httpPut.setEntity(requestEntity);
+            try (final CloseableHttpResponse response = httpClient.execute(httpPut)) {
+                assertEquals(HttpStatus.SC_BAD_REQUEST, response.getStatusLine().getStatusCode());
+                final JsonNode answer = new ObjectMapper().readTree(EntityUtils.toString(response.getEntity()));
+                assertEquals("Transaction 0: The Payer and the payee can't be the same.", answer.get("error").asText());
+            }
+        }
+    }
+
     @Test
     public void checkTotalSystemBalanceTest() throws IOException {
         BigDecimal totalSystemBalance = getToTalSystemBalance();
@@ -388,6 +476,105 @@ class JettyServerTest {
         }
     }
 
+    @Test
+    public void hotAccountsTest() throws IOException {
+        try (final CloseableHttpClient httpClient = HttpClients.createDefault()) {
+            try (final CloseableHttpResponse response = httpClient.execute(new HttpGet(String.format("%s/admin/hot-accounts?limit=5", API_URL)))) {
+                assertEquals(HttpStatus.SC_OK, response.getStatusLine().getStatusCode());
+                final JsonNode accounts = new ObjectMapper().readTree(EntityUtils.toString(response.getEntity()));
+                assertTrue(accounts.isArray());
+                assertTrue(accounts.size() <= 5);
+            }
+            try (final CloseableHttpResponse response = httpClient.execute(new HttpGet(String.format("%s/admin/hot-accounts?limit=65", API_URL)))) {
+                assertEquals(HttpStatus.SC_BAD_REQUEST, response.getStatusLine().getStatusCode());
+            }
+        }
+    }
+
+    @Test
+    public void accountEntriesTest() throws IOException {
+        try (final CloseableHttpClient httpClient = HttpClients.createDefault()) {
+            // Account 7 has generated entries only, pages of 2 entries are read until there is no cursor.
+            int count = 0;
+            String cursor = null;
+            do {
+                final String url = String.format("%s/accounts/7/entries?limit=2%s", API_URL, cursor == null ? "" : "&cursor=" + cursor);
+                try (final CloseableHttpResponse response = httpClient.execute(new HttpGet(url))) {
+                    assertEquals(HttpStatus.SC_OK, response.getStatusLine().getStatusCode());
+                    final JsonNode entries = new ObjectMapper().readTree(EntityUtils.toString(response.getEntity()));
+                    assertTrue(entries.size() <= 2);
+                    count += entries.size();
+                    cursor = response.getFirstHeader("X-Next-Cursor") == null ? null : response.getFirstHeader("X-Next-Cursor").getValue();
+                }
+            } while (cursor != null);
+            assertEquals(5, count);
+
+            try (final CloseableHttpResponse response = httpClient.execute(new HttpGet(String.format("%s/accounts/7/entries?to=2000-01-01T00:00:00Z", API_URL)))) {
+                assertEquals(HttpStatus.SC_OK, response.getStatusLine().getStatusCode());
+                assertEquals(0, new ObjectMapper().readTree(EntityUtils.toString(response.getEntity())).size());
+            }
+            try (final CloseableHttpResponse response = httpClient.execute(new HttpGet(String.format("%s/accounts/7/entries?cursor=abc", API_URL)))) {
+                assertEquals(HttpStatus.SC_BAD_REQUEST, response.getStatusLine().getStatusCode());
+            }
+            try (final CloseableHttpResponse response = httpClient.execute(new HttpGet(String.format("%s/accounts/1000/entries", API_URL)))) {
+                assertEquals(HttpStatus.SC_NOT_FOUND, response.getStatusLine().getStatusCode());
+            }
+        }
+    }
+
+    @Test
+    public void accountBalanceTest() throws IOException {
+        try (final CloseableHttpClient httpClient = HttpClients.createDefault()) {
+            try (final CloseableHttpResponse response = httpClient.execute(new HttpGet(String.format("%s/accounts/7/balance?asOf=2000-01-01T00:00:00Z", API_URL)))) {
+                assertEquals(HttpStatus.SC_OK, response.getStatusLine().getStatusCode());
+                final JsonNode balance = new ObjectMapper().readTree(EntityUtils.toString(response.getEntity()));
+                assertEquals("GBP", balance.get("currency").asText());
+                assertEquals(0, balance.get("balance").decimalValue().compareTo(BigDecimal.ZERO));
+            }
+            try (final CloseableHttpResponse response = httpClient.execute(new HttpGet(String.format("%s/accounts/7/balance?asOf=2100-01-01T00:00:00Z", API_URL)))) {
+                assertEquals(HttpStatus.SC_OK, response.getStatusLine().getStatusCode());
+                final JsonNode balance = new ObjectMapper().readTree(EntityUtils.toString(response.getEntity()));
+                assertEquals(0, balance.get("balance").decimalValue().compareTo(new BigDecimal(500)));
+            }
+            try (final CloseableHttpResponse response = httpClient.execute(new HttpGet(String.format("%s/accounts/7/balance", API_URL)))) {
+                assertEquals(HttpStatus.SC_BAD_REQUEST, response.getStatusLine().getStatusCode());
+            }
+        }
+    }
+
+    @Test
+    public void metricsTest() throws IOException {
+        try (final CloseableHttpClient httpClient = HttpClients.createDefault()) {
+            try (final CloseableHttpResponse response = httpClient.execute(new HttpGet(String.format("%s/holders/id/1", API_URL)))) {
+                assertEquals(HttpStatus.SC_OK, response.getStatusLine().getStatusCode());
+            }
+            try (final CloseableHttpResponse response = httpClient.execute(new HttpGet(String.format("%s/metrics", API_URL)))) {
+                assertEquals(HttpStatus.SC_OK, response.getStatusLine().getStatusCode());
+                assertTrue(response.getEntity().getContentType().getValue().startsWith("text/plain"));
+                final String metrics = EntityUtils.toString(response.getEntity());
+                assertTrue(metrics.contains("# TYPE revolut_http_request_seconds summary"));
+                assertTrue(metrics.contains("revolut_http_request_seconds_count{resource=\"HolderResource.holder\"}"));
+                assertTrue(metrics.contains("jvm_memory_used_bytes{area=\"heap\"}"));
+                assertTrue(metrics.contains("jetty_threads "));
+            }
+        }
+    }
+
+    @Test
+    public void reconciliationTest() throws IOException {
+        try (final CloseableHttpClient httpClient = HttpClients.createDefault()) {
+            final HttpGet httpGet = new HttpGet(String.format("%s/transactions/reconciliation/GBP", API_URL));
+            try (final CloseableHttpResponse response = httpClient.execute(httpGet)) {
+                assertEquals(HttpStatus.SC_OK, response.getStatusLine().getStatusCode());
+                final JsonNode answer = new ObjectMapper().readTree(EntityUtils.toString(response.getEntity()));
+                assertEquals(0, new BigDecimal("500").compareTo(answer.get("ledgerBalance").decimalValue()));
+                assertEquals(0, new BigDecimal("500").compareTo(answer.get("totalBalance").decimalValue()));
+                assertTrue(answer.get("consistent").asBoolean());
+                assertTrue(answer.has("version"));
+            }
+        }
+    }
+
     @Test
     public void page302StatusTest() throws IOException {
         try (final CloseableHttpClient httpClient = HttpClients.createDefault()) {
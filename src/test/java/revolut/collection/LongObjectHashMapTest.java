@@ -0,0 +1,58 @@
+package revolut.collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongObjectHashMapTest {
+    @Test
+    void putGetRemove() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        assertTrue(map.isEmpty());
+        assertNull(map.put(1L, "one"));
+        assertNull(map.put(0L, "zero"));
+        assertNull(map.put(-1L, "minus one"));
+        assertEquals("one", map.put(1L, "first"));
+        assertEquals(3, map.size());
+        assertEquals("first", map.get(1L));
+        assertEquals("zero", map.get(0L));
+        assertEquals("minus one", map.get(-1L));
+        assertNull(map.get(2L));
+
+        assertEquals("first", map.remove(1L));
+        assertNull(map.remove(1L));
+        assertEquals("zero", map.remove(0L));
+        assertFalse(map.containsKey(1L));
+        assertEquals(1, map.size());
+        assertNull(map.put(1L, "again"));
+        assertEquals("again", map.get(1L));
+        assertThrows(NullPointerException.class, () -> map.put(3L, null));
+    }
+
+    @Test
+    void theSameAsHashMap() {
+        LongObjectHashMap<Long> map = new LongObjectHashMap<>();
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(20_000);
+            if (random.nextInt(4) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, (long) i), map.put(key, (long) i));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        Map<Long, Long> actual = new HashMap<>();
+        map.forEach(actual::put);
+        assertEquals(expected, actual);
+    }
+}
@@ -0,0 +1,70 @@
+package revolut.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RingBufferTest {
+    @Test
+    void offerAndDrain() {
+        RingBuffer<AtomicLong> ring = new RingBuffer<>(4, AtomicLong::new);
+        assertTrue(ring.isEmpty());
+        for (int i = 0; i < 4; i++) {
+            final int value = i;
+            assertTrue(ring.offer(slot -> slot.set(value)));
+        }
+        assertFalse(ring.offer(slot -> slot.set(5)));
+        List<Long> values = new ArrayList<>();
+        assertEquals(3, ring.drain(slot -> values.add(slot.get()), 3));
+        assertEquals(List.of(0L, 1L, 2L), values);
+        assertTrue(ring.offer(slot -> slot.set(4)));
+        assertEquals(2, ring.drain(slot -> values.add(slot.get()), 10));
+        assertEquals(List.of(0L, 1L, 2L, 3L, 4L), values);
+        assertTrue(ring.isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> new RingBuffer<>(3, AtomicLong::new));
+    }
+
+    @Test
+    void manyProducers() throws InterruptedException {
+        final RingBuffer<long[]> ring = new RingBuffer<>(64, () -> new long[2]);
+        final int producers = 4;
+        final int count = 50_000;
+        final List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < count; i++) {
+                    final int value = i;
+                    while (!ring.offer(slot -> {
+                        slot[0] = producer;
+                        slot[1] = value;
+                    })) {
+                        Thread.yield();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        final long[] last = new long[]{-1, -1, -1, -1};
+        int received = 0;
+        while (received < producers * count) {
+            received += ring.drain(slot -> {
+                // Messages of every producer come in the same order.
+                assertEquals(last[(int) slot[0]] + 1, slot[1]);
+                last[(int) slot[0]] = slot[1];
+            }, 100);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(ring.isEmpty());
+    }
+}
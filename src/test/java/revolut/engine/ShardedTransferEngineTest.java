@@ -0,0 +1,231 @@
+package revolut.engine;
+
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import revolut.model.Account;
+import revolut.model.AccountingTransaction;
+import revolut.model.LockRetryPolicy;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardedTransferEngineTest {
+    private ShardedTransferEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new ShardedTransferEngine(4, 64);
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.close();
+    }
+
+    private Account createAccount(long id, long balance) {
+        return new Account(id, CurrencyUnit.USD, Money.of(CurrencyUnit.USD, balance), null);
+    }
+
+    private AccountingTransaction transaction(long sum, Account payer, Account payee) {
+        return new AccountingTransaction(Money.of(CurrencyUnit.USD, sum), payer, payee, ZonedDateTime.now());
+    }
+
+    @Test
+    void performInTheSameShard() {
+        Account payer = createAccount(1L, 100);
+        Account payee = createAccount(5L, 100);
+        assertEquals(engine.shardIndexOf(payer), engine.shardIndexOf(payee));
+        AccountingTransaction.OverallStatus status = engine.perform(transaction(30, payer, payee));
+        assertEquals(AccountingTransaction.TransactionStatus.OK, status.getStatus());
+        assertEquals(Money.of(CurrencyUnit.USD, 70), payer.getBalance());
+        assertEquals(Money.of(CurrencyUnit.USD, 130), payee.getBalance());
+    }
+
+    @Test
+    void performInDifferentShards() {
+        Account payer = createAccount(1L, 100);
+        Account payee = createAccount(2L, 100);
+        assertNotEquals(engine.shardIndexOf(payer), engine.shardIndexOf(payee));
+        AccountingTransaction.OverallStatus status = engine.perform(transaction(30, payer, payee));
+        assertEquals(AccountingTransaction.TransactionStatus.OK, status.getStatus());
+        assertEquals(Account.FixerStatus.GOOD, status.getPayerStatus());
+        assertEquals(Account.FixerStatus.GOOD, status.getPayeeStatus());
+        assertEquals(Money.of(CurrencyUnit.USD, 70), status.getPayerBalance());
+        assertEquals(Money.of(CurrencyUnit.USD, 130), status.getPayeeBalance());
+
+        status = engine.perform(transaction(300, payer, payee));
+        assertEquals(AccountingTransaction.TransactionStatus.BAD, status.getStatus());
+        assertEquals(Account.FixerStatus.INSUFFICIENT_SUM, status.getPayerStatus());
+        assertEquals(Money.of(CurrencyUnit.USD, 70), payer.getBalance());
+    }
+
+    @Test
+    void ownersDontWaitForLocks() throws Exception {
+        Account payer = createAccount(1L, 100);
+        Account payee = createAccount(2L, 100);
+        Account neighbour = createAccount(5L, 100);
+        // Locks are held by another thread, e.g. by a batch performed without the engine.
+        Thread holder = new Thread(() -> {
+            payer.getLock().lock();
+            payee.getLock().lock();
+        });
+        holder.start();
+        holder.join();
+        assertEquals(AccountingTransaction.TransactionStatus.OK,
+                engine.submit(transaction(30, payer, payee)).get(1, TimeUnit.SECONDS).getStatus());
+        assertEquals(AccountingTransaction.TransactionStatus.OK,
+                engine.submit(transaction(20, payer, neighbour)).get(1, TimeUnit.SECONDS).getStatus());
+        assertEquals(Money.of(CurrencyUnit.USD, 50), payer.getBalance());
+        assertEquals(Money.of(CurrencyUnit.USD, 50), payer.getCommittedState().getBalance());
+        assertEquals(Money.of(CurrencyUnit.USD, 130), payee.getCommittedState().getBalance());
+    }
+
+    @Test
+    void moneyAreReturnedIfPayeeRejectsThem() {
+        Account payer = createAccount(1L, 100);
+        Account payee = createAccount(2L, -1000);
+        AccountingTransaction.OverallStatus status = engine.perform(transaction(30, payer, payee));
+        assertEquals(AccountingTransaction.TransactionStatus.BAD, status.getStatus());
+        assertEquals(Account.FixerStatus.INSUFFICIENT_SUM, status.getPayeeStatus());
+        assertEquals(Money.of(CurrencyUnit.USD, 100), payer.getBalance());
+        assertEquals(Money.of(CurrencyUnit.USD, 100), status.getPayerBalance());
+        assertEquals(2, payer.getEntries().size());
+        assertEquals(payer.sumEntries(), payer.getBalance());
+    }
+
+    @Test
+    void closeReturnsMoneyInTransit() throws Exception {
+        Account payer = createAccount(1L, 100);
+        Account payee = createAccount(2L, 100);
+        CountDownLatch stalled = new CountDownLatch(1);
+        CountDownLatch released = new CountDownLatch(1);
+        // The owner of payee runs a task until it is released, so credit stays in the mailbox.
+        CompletableFuture<Boolean> task = CompletableFuture.supplyAsync(() -> engine.execute(List.of(payee), () -> {
+            stalled.countDown();
+            return awaitQuietly(released);
+        }));
+        assertTrue(stalled.await(1, TimeUnit.SECONDS));
+        CompletableFuture<AccountingTransaction.OverallStatus> inTransit = engine.submit(transaction(30, payer, payee));
+        while (payer.getBalance().isEqual(Money.of(CurrencyUnit.USD, 100))) {
+            Thread.yield();
+        }
+        CompletableFuture<Void> closed = CompletableFuture.runAsync(engine::close);
+        while (engine.isRunning()) {
+            Thread.yield();
+        }
+        released.countDown();
+        closed.get(1, TimeUnit.SECONDS);
+        assertTrue(task.get(1, TimeUnit.SECONDS));
+        assertTrue(inTransit.isCompletedExceptionally());
+        assertEquals(Money.of(CurrencyUnit.USD, 100), payer.getBalance());
+        assertEquals(payer.sumEntries(), payer.getBalance());
+        assertEquals(Money.of(CurrencyUnit.USD, 100), payee.getBalance());
+        assertThrows(CompletionException.class, () -> engine.perform(transaction(30, payer, payee)));
+    }
+
+    private static boolean awaitQuietly(CountDownLatch latch) {
+        try {
+            return latch.await(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Test
+    void errorOfOwnerFailsEngine() throws Exception {
+        Account payer = createAccount(1L, 100);
+        Account payee = createAccount(2L, 100);
+        AccountingTransaction broken = new AccountingTransaction(Money.of(CurrencyUnit.USD, 30), payer, payee,
+                ZonedDateTime.now(), LockRetryPolicy.DEFAULT, transaction -> {
+                    throw new AssertionError("Journal is broken.");
+                });
+        CompletableFuture<AccountingTransaction.OverallStatus> result = engine.submit(broken);
+        ExecutionException thrown = assertThrows(ExecutionException.class, () -> result.get(1, TimeUnit.SECONDS));
+        assertTrue(thrown.getCause() instanceof AssertionError);
+        // Money taken by the owner of payer are returned, although credit failed with an error.
+        while (!payer.getBalance().isEqual(Money.of(CurrencyUnit.USD, 100))) {
+            Thread.yield();
+        }
+        assertEquals(payer.sumEntries(), payer.getBalance());
+        assertEquals(Money.of(CurrencyUnit.USD, 100), payee.getBalance());
+        assertTrue(engine.submit(transaction(30, payer, payee)).isCompletedExceptionally());
+        assertThrows(IllegalStateException.class, () -> engine.execute(List.of(payer), () -> null));
+    }
+
+    @Test
+    void executeByOwner() {
+        Account first = createAccount(1L, 100);
+        Account second = createAccount(5L, 100);
+        String owner = engine.execute(List.of(first, second), () -> Thread.currentThread().getName());
+        assertEquals("transfer-shard-" + engine.shardIndexOf(first), owner);
+        assertThrows(IllegalArgumentException.class, () -> engine.execute(List.of(first), () -> {
+            throw new IllegalArgumentException();
+        }));
+    }
+
+    @Test
+    void executeWhileOwnersArePaused() throws Exception {
+        Account payer = createAccount(1L, 100);
+        Account payee = createAccount(2L, 100);
+        CompletableFuture<AccountingTransaction.OverallStatus> result = engine.execute(List.of(payer, payee), () -> {
+            // Owners of both accounts wait, so the transaction isn't performed until the task ends.
+            CompletableFuture<AccountingTransaction.OverallStatus> submitted = engine.submit(transaction(30, payer, payee));
+            assertEquals(Money.of(CurrencyUnit.USD, 100), payer.getBalance());
+            assertEquals(Money.of(CurrencyUnit.USD, 100), payee.getBalance());
+            return submitted;
+        });
+        assertEquals(AccountingTransaction.TransactionStatus.OK, result.get(1, TimeUnit.SECONDS).getStatus());
+        engine.close();
+        assertThrows(IllegalStateException.class, () -> engine.execute(List.of(payer, payee), () -> null));
+    }
+
+    @Test
+    void totalBalanceIsKeptUnderLoad() throws Exception {
+        final List<Account> accounts = new ArrayList<>();
+        for (long id = 1; id <= 8; id++) {
+            accounts.add(createAccount(id, 1000));
+        }
+        final ExecutorService service = Executors.newFixedThreadPool(8);
+        final List<Future<CompletableFuture<AccountingTransaction.OverallStatus>>> results = new ArrayList<>();
+        final Random random = new Random(1);
+        for (int i = 0; i < 20_000; i++) {
+            final Account payer = accounts.get(random.nextInt(accounts.size()));
+            Account payee = accounts.get(random.nextInt(accounts.size()));
+            if (payee == payer) {
+                payee = accounts.get((accounts.indexOf(payer) + 1) % accounts.size());
+            }
+            final AccountingTransaction transaction = transaction(1 + random.nextInt(50), payer, payee);
+            results.add(service.submit(() -> engine.submit(transaction)));
+        }
+        for (Future<CompletableFuture<AccountingTransaction.OverallStatus>> result : results) {
+            // PAYER_BUSY is possible if a shard is overloaded.
+            assertNotNull(result.get().get(10, TimeUnit.SECONDS).getStatus());
+        }
+        service.shutdown();
+        Money total = accounts.stream().map(Account::getBalance).reduce(Money::plus).get();
+        assertEquals(Money.of(CurrencyUnit.USD, 8000), total);
+        for (Account account : accounts) {
+            assertEquals(account.sumEntries(), account.getBalance());
+        }
+    }
+}
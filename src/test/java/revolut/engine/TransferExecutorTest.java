@@ -0,0 +1,54 @@
+package revolut.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TransferExecutorTest {
+    @Test
+    void overloadIsRejected() throws InterruptedException {
+        try (TransferExecutor executor = new TransferExecutor(1, 1, false)) {
+            final CountDownLatch started = new CountDownLatch(1);
+            final CountDownLatch release = new CountDownLatch(1);
+            final CountDownLatch done = new CountDownLatch(2);
+            executor.execute(() -> {
+                started.countDown();
+                await(release);
+                done.countDown();
+            });
+            started.await();
+            executor.execute(done::countDown);
+            assertEquals(1, executor.getRunning());
+            assertEquals(1, executor.getQueued());
+            assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> {
+            }));
+
+            release.countDown();
+            assertTrue(done.await(1, TimeUnit.SECONDS));
+            // Permits are returned, so new transfers are accepted again.
+            final CountDownLatch next = new CountDownLatch(1);
+            executor.execute(next::countDown);
+            assertTrue(next.await(1, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void illegalArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new TransferExecutor(0, 1, false));
+        assertThrows(IllegalArgumentException.class, () -> new TransferExecutor(1, -1, false));
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package revolut.gateway;
+
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+import org.junit.jupiter.api.Test;
+import revolut.config.Configuration;
+import revolut.engine.TransferExecutor;
+import revolut.journal.Journal;
+import revolut.service.HolderService;
+import revolut.service.impl.HolderServiceImpl;
+import revolut.service.impl.TransactionServiceImpl;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TcpGatewayTest {
+    private static final int COUNT = 200;
+
+    @Test
+    void pipelinedTransfers() throws IOException {
+        final HolderService holderService = new HolderServiceImpl();
+        try (TransferExecutor executor = new TransferExecutor(4, COUNT, false);
+             TcpGateway gateway = new TcpGateway(new InetSocketAddress("localhost", 0), service(holderService, executor), 8);
+             GatewayClient client = new GatewayClient(new InetSocketAddress("localhost", gateway.getPort()))) {
+            // More frames than may be in flight are sent at once, the rest wait in socket buffers.
+            for (int i = 0; i < COUNT; i++) {
+                client.send(i, 1L, 2L, new BigDecimal("0.5"));
+            }
+            client.flush();
+            final Set<Long> ids = new HashSet<>();
+            for (int i = 0; i < COUNT; i++) {
+                final GatewayClient.Response response = client.receive();
+                assertEquals(GatewayProtocol.OK, response.getCode());
+                ids.add(response.getCorrelationId());
+            }
+            assertEquals(COUNT, ids.size());
+            assertEquals(Money.of(CurrencyUnit.USD, 400), holderService.getAccountById(1L).getBalance());
+            assertEquals(Money.of(CurrencyUnit.USD, 600), holderService.getAccountById(2L).getBalance());
+
+            client.send(COUNT, 1L, 2L, new BigDecimal(1000));
+            client.send(COUNT + 1, 100L, 2L, BigDecimal.ONE);
+            client.flush();
+            for (int i = 0; i < 2; i++) {
+                final GatewayClient.Response response = client.receive();
+                assertEquals(response.getCorrelationId() == COUNT ? GatewayProtocol.BAD : GatewayProtocol.INVALID, response.getCode());
+            }
+        }
+    }
+
+    @Test
+    void wrongScaleIsInvalid() throws IOException {
+        try (TransferExecutor executor = new TransferExecutor(1, 1, false);
+             TcpGateway gateway = new TcpGateway(new InetSocketAddress("localhost", 0), service(new HolderServiceImpl(), executor), 8);
+             SocketChannel channel = SocketChannel.open(new InetSocketAddress("localhost", gateway.getPort()))) {
+            final ByteBuffer frame = ByteBuffer.allocate(GatewayProtocol.REQUEST_FRAME_SIZE);
+            GatewayProtocol.writeRequest(frame, 7L, 1L, 2L, BigDecimal.ONE);
+            frame.put(frame.position() - 1, (byte) -2);
+            frame.flip();
+            channel.write(frame);
+            final ByteBuffer response = ByteBuffer.allocate(GatewayProtocol.RESPONSE_FRAME_SIZE);
+            while (response.hasRemaining() && channel.read(response) >= 0) {
+                // The whole response is read.
+            }
+            assertEquals(7L, response.getLong(Integer.BYTES));
+            assertEquals(GatewayProtocol.INVALID, response.get(GatewayProtocol.RESPONSE_FRAME_SIZE - 1));
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate(GatewayProtocol.REQUEST_FRAME_SIZE);
+        assertThrows(IllegalArgumentException.class,
+                () -> GatewayProtocol.writeRequest(buffer, 1L, 1L, 2L, BigDecimal.valueOf(1, GatewayProtocol.MAX_SCALE + 1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> GatewayProtocol.writeRequest(buffer, 1L, 1L, 2L, BigDecimal.valueOf(Long.MAX_VALUE).add(BigDecimal.ONE)));
+        assertEquals(0, buffer.position());
+        GatewayProtocol.writeRequest(buffer, 1L, 1L, 2L, new BigDecimal("1E+2"));
+        buffer.flip();
+        buffer.getInt();
+        buffer.getLong();
+        assertEquals(new BigDecimal(100), GatewayProtocol.readRequest(buffer).getSum());
+    }
+
+    @Test
+    void brokenFrameClosesConnection() throws IOException {
+        try (TransferExecutor executor = new TransferExecutor(1, 1, false);
+             TcpGateway gateway = new TcpGateway(new InetSocketAddress("localhost", 0), service(new HolderServiceImpl(), executor), 8);
+             SocketChannel channel = SocketChannel.open(new InetSocketAddress("localhost", gateway.getPort()))) {
+            final ByteBuffer frame = ByteBuffer.allocate(8).putInt(4).putInt(0);
+            frame.flip();
+            channel.write(frame);
+            assertEquals(-1, channel.read(ByteBuffer.allocate(GatewayProtocol.RESPONSE_FRAME_SIZE)));
+        }
+        assertThrows(EOFException.class, () -> {
+            try (TransferExecutor executor = new TransferExecutor(1, 1, false);
+                 TcpGateway gateway = new TcpGateway(new InetSocketAddress("localhost", 0), service(new HolderServiceImpl(), executor), 8);
+                 GatewayClient client = new GatewayClient(new InetSocketAddress("localhost", gateway.getPort()))) {
+                client.send(1, 1L, 2L, BigDecimal.ONE);
+                client.flush();
+                client.receive();
+                gateway.close();
+                client.receive();
+            }
+        });
+    }
+
+    private static TransactionServiceImpl service(final HolderService holderService, final TransferExecutor executor) {
+        return new TransactionServiceImpl(holderService, new Configuration(new Properties()), Journal.NONE, executor);
+    }
+}
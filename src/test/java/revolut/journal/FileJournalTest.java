@@ -0,0 +1,215 @@
+package revolut.journal;
+
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import revolut.model.Account;
+import revolut.model.AccountingTransaction;
+import revolut.model.LockRetryPolicy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileJournalTest {
+    @TempDir
+    Path directory;
+
+    private Account createAccount(Long id) {
+        return new Account(id, CurrencyUnit.USD, Money.of(CurrencyUnit.USD, 100_000), null);
+    }
+
+    private AccountingTransaction transaction(Journal journal, Account payer, Account payee) {
+        return new AccountingTransaction(Money.of(CurrencyUnit.USD, 1.5), payer, payee, ZonedDateTime.now(),
+                LockRetryPolicy.DEFAULT, journal);
+    }
+
+    private List<JournalRecord> readAll(Path path) throws IOException {
+        return readAfter(path, 0);
+    }
+
+    private List<JournalRecord> readAfter(Path path, long sequence) throws IOException {
+        final List<JournalRecord> records = new ArrayList<>();
+        FileJournal.read(path, sequence, records::add);
+        return records;
+    }
+
+    private List<Long> sequences(List<JournalRecord> records) {
+        return records.stream().map(JournalRecord::getSequence).collect(Collectors.toList());
+    }
+
+    @Test
+    void recordRoundTrip() {
+        final JournalRecord record = new JournalRecord(7, 1, 2, Money.of(CurrencyUnit.GBP, 12.34), ZonedDateTime.now());
+        final ByteBuffer buffer = ByteBuffer.allocate(JournalRecord.SIZE);
+        record.write(buffer);
+        buffer.flip();
+        assertEquals(record.getSequence(), JournalRecord.read(buffer.duplicate()).getSequence());
+        assertEquals(record.getAmount(), JournalRecord.read(buffer.duplicate()).getAmount());
+        assertTrue(record.getDate().isEqual(JournalRecord.read(buffer.duplicate()).getDate()));
+        buffer.put(10, (byte) 1);
+        assertNull(JournalRecord.read(buffer));
+    }
+
+    @Test
+    void failedJournalDoesNotChangeAccounts() throws Exception {
+        final Path path = directory.resolve("journal");
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try (FileJournal journal = new FileJournal(path, channel, SyncPolicy.EVERY_COMMIT, 10, 1, FileJournal.DEFAULT_SEGMENT_RECORDS)) {
+            final Account payer = createAccount(1L);
+            final Account payee = createAccount(2L);
+            final AccountingTransaction stored = transaction(journal, payer, payee);
+            assertEquals(AccountingTransaction.TransactionStatus.OK, stored.perform().getStatus());
+            journal.await(stored.getCommitSequence());
+
+            channel.close();
+            final AccountingTransaction lost = transaction(journal, payer, payee);
+            lost.perform();
+            assertThrows(JournalException.class, () -> journal.await(lost.getCommitSequence()));
+
+            final Money payerBalance = payer.getBalance();
+            final Money payeeBalance = payee.getBalance();
+            final int entries = payer.getEntries().size();
+            assertThrows(JournalException.class, journal::checkAvailable);
+            assertThrows(JournalException.class, () -> transaction(journal, payer, payee).perform());
+            assertEquals(payerBalance, payer.getBalance());
+            assertEquals(payeeBalance, payee.getBalance());
+            assertEquals(entries, payer.getEntries().size());
+            assertEquals(payer.getBalance(), payer.sumEntries());
+        }
+        assertEquals(1, readAll(path).size());
+    }
+
+    @Test
+    void committedTransactionsAreStored() throws Exception {
+        final Path path = directory.resolve("journal.bin");
+        final Account first = createAccount(1L);
+        final Account second = createAccount(2L);
+        try (FileJournal journal = new FileJournal(path, SyncPolicy.EVERY_COMMIT, 10, 256)) {
+            final AccountingTransaction at = transaction(journal, first, second);
+            at.perform();
+            assertEquals(1, at.getCommitSequence());
+            journal.await(at.getCommitSequence());
+            final AccountingTransaction failed = new AccountingTransaction(Money.of(CurrencyUnit.USD, 1_000_000), first, second,
+                    ZonedDateTime.now(), LockRetryPolicy.DEFAULT, journal);
+            failed.perform();
+            assertEquals(0, failed.getCommitSequence());
+        }
+        final List<JournalRecord> records = readAll(path);
+        assertEquals(1, records.size());
+        assertEquals(1L, records.get(0).getPayerId());
+        assertEquals(2L, records.get(0).getPayeeId());
+        assertEquals(Money.of(CurrencyUnit.USD, 1.5), records.get(0).getAmount());
+    }
+
+    @Test
+    void groupCommit() throws Exception {
+        final Path path = directory.resolve("journal.bin");
+        final Account first = createAccount(1L);
+        final Account second = createAccount(2L);
+        final int threads = 8;
+        final int count = 200;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (FileJournal journal = new FileJournal(path, SyncPolicy.RECORDS, 2, 64)) {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                final boolean forward = i % 2 == 0;
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < count; j++) {
+                        final AccountingTransaction at = forward ? transaction(journal, first, second) : transaction(journal, second, first);
+                        at.perform();
+                        journal.await(at.getCommitSequence());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            assertEquals(threads * count, journal.getLastSequence());
+        } finally {
+            executor.shutdown();
+        }
+        final List<JournalRecord> records = readAll(path);
+        assertEquals(threads * count, records.size());
+        for (int i = 0; i < records.size(); i++) {
+            assertEquals(i + 1, records.get(i).getSequence());
+        }
+    }
+
+    @Test
+    void incompleteRecordIsCutOff() throws Exception {
+        final Path path = directory.resolve("journal.bin");
+        final Account first = createAccount(1L);
+        final Account second = createAccount(2L);
+        try (FileJournal journal = new FileJournal(path, SyncPolicy.INTERVAL, 1, 1)) {
+            for (int i = 0; i < 3; i++) {
+                final AccountingTransaction at = transaction(journal, first, second);
+                at.perform();
+                journal.await(at.getCommitSequence());
+            }
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[JournalRecord.SIZE / 2]));
+        }
+        try (FileJournal journal = new FileJournal(path, SyncPolicy.EVERY_COMMIT, 10, 256)) {
+            assertEquals(3 * JournalRecord.SIZE, Files.size(path));
+            assertEquals(3, journal.getLastSequence());
+            final AccountingTransaction at = transaction(journal, first, second);
+            at.perform();
+            assertEquals(4, at.getCommitSequence());
+            journal.await(at.getCommitSequence());
+        }
+        assertEquals(4, readAll(path).size());
+    }
+
+    @Test
+    void segmentsAreRolledAndTruncated() throws Exception {
+        final Path path = directory.resolve("journal.bin");
+        final Account first = createAccount(1L);
+        final Account second = createAccount(2L);
+        try (FileJournal journal = new FileJournal(path, SyncPolicy.EVERY_COMMIT, 10, 256, 4)) {
+            for (int i = 0; i < 8; i++) {
+                final AccountingTransaction at = transaction(journal, first, second);
+                at.perform();
+                journal.await(at.getCommitSequence());
+            }
+        }
+        assertTrue(Files.exists(directory.resolve("journal.bin.0000000000000000004")));
+        assertTrue(Files.exists(directory.resolve("journal.bin.0000000000000000008")));
+        assertEquals(0, Files.size(path));
+        // The last sequence number is taken from segment, when the current file is empty.
+        try (FileJournal journal = new FileJournal(path, SyncPolicy.EVERY_COMMIT, 10, 256, 4)) {
+            assertEquals(8, journal.getLastSequence());
+            for (int i = 0; i < 2; i++) {
+                final AccountingTransaction at = transaction(journal, first, second);
+                at.perform();
+                journal.await(at.getCommitSequence());
+            }
+            assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L), sequences(readAll(path)));
+            assertEquals(List.of(6L, 7L, 8L, 9L, 10L), sequences(readAfter(path, 5)));
+            assertEquals(List.of(), sequences(readAfter(path, 10)));
+
+            // Only segments which have no records after the sequence are deleted.
+            journal.truncate(6);
+            assertFalse(Files.exists(directory.resolve("journal.bin.0000000000000000004")));
+            assertEquals(List.of(5L, 6L, 7L, 8L, 9L, 10L), sequences(readAll(path)));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package revolut.ledger;
+
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import revolut.model.Entry;
+import revolut.model.EntryArchive;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FileEntryArchiveTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void entriesOfAccountsAreChained() throws Exception {
+        final ZonedDateTime date = ZonedDateTime.of(2020, 1, 1, 10, 0, 0, 123, ZoneOffset.ofHours(3));
+        try (FileEntryArchive archive = new FileEntryArchive(directory.resolve("archive"))) {
+            long first = EntryArchive.EMPTY;
+            long second = EntryArchive.EMPTY;
+            assertTrue(archive.read(1L, CurrencyUnit.USD, first).isEmpty());
+            first = archive.append(1L, first, List.of(entry(1, date), entry(2, date.plusSeconds(1))));
+            second = archive.append(2L, second, List.of(entry(-5, date)));
+            first = archive.append(1L, first, List.of(entry(3, date.plusSeconds(2))));
+            assertEquals(first, archive.append(1L, first, List.of()));
+
+            final List<Entry> entries = archive.read(1L, CurrencyUnit.USD, first);
+            assertEquals(3, entries.size());
+            assertEquals(Money.of(CurrencyUnit.USD, 1), entries.get(0).getAmount());
+            assertEquals(Money.of(CurrencyUnit.USD, 3), entries.get(2).getAmount());
+            assertEquals(date.plusSeconds(2), entries.get(2).getDate());
+            assertEquals(List.of(Money.of(CurrencyUnit.USD, -5)), List.of(archive.read(2L, CurrencyUnit.USD, second).get(0).getAmount()));
+
+            final long foreign = second;
+            assertThrows(RuntimeException.class, () -> archive.read(1L, CurrencyUnit.USD, foreign));
+        }
+    }
+
+    @Test
+    void entriesAreKeptAcrossRestarts() throws Exception {
+        final ZonedDateTime date = ZonedDateTime.of(2020, 1, 1, 10, 0, 0, 0, ZoneOffset.UTC);
+        final Path path = directory.resolve("archive");
+        final long last;
+        try (FileEntryArchive archive = new FileEntryArchive(path)) {
+            archive.append(2L, EntryArchive.EMPTY, List.of(entry(-5, date)));
+            last = archive.append(1L, EntryArchive.EMPTY, List.of(entry(1, date), entry(2, date)));
+        }
+        // A record torn by crash is dropped.
+        Files.write(path, new byte[]{1, 2, 3}, StandardOpenOption.APPEND);
+        try (FileEntryArchive archive = new FileEntryArchive(path)) {
+            assertEquals(last, archive.last(1L));
+            assertEquals(EntryArchive.EMPTY, archive.last(3L));
+            final long next = archive.append(1L, archive.last(1L), List.of(entry(3, date)));
+            assertEquals(3 * FileEntryArchive.RECORD_SIZE, next);
+            assertEquals(List.of(Money.of(CurrencyUnit.USD, 1), Money.of(CurrencyUnit.USD, 2), Money.of(CurrencyUnit.USD, 3)),
+                    archive.read(1L, CurrencyUnit.USD, next).stream().map(Entry::getAmount).collect(Collectors.toList()));
+            assertEquals(1, archive.read(2L, CurrencyUnit.USD, archive.last(2L)).size());
+        }
+    }
+
+    private static Entry entry(final int amount, final ZonedDateTime date) {
+        return new Entry(Money.of(CurrencyUnit.USD, amount), date);
+    }
+}
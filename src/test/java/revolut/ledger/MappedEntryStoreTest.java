@@ -0,0 +1,102 @@
+package revolut.ledger;
+
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import revolut.model.Account;
+import revolut.model.AccountingTransaction;
+import revolut.model.Entry;
+import revolut.model.EntryStore;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedEntryStoreTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void addAndRemove() throws Exception {
+        final ZonedDateTime date = ZonedDateTime.now();
+        try (MappedLedger ledger = new MappedLedger(directory, 4)) {
+            final EntryStore store = ledger.create(1L, CurrencyUnit.USD);
+            for (int i = 0; i < 10; i++) {
+                store.add(new Entry(Money.of(CurrencyUnit.USD, i), date.plusSeconds(i)));
+            }
+            final List<Entry> view = store.view();
+            assertEquals(10, store.size());
+            assertEquals(Money.of(CurrencyUnit.USD, 7), view.get(7).getAmount());
+            assertTrue(date.plusSeconds(7).isEqual(view.get(7).getDate()));
+            assertThrows(UnsupportedOperationException.class, () -> view.add(new Entry(Money.zero(CurrencyUnit.USD), date)));
+
+            // Entry added late becomes a hole.
+            store.add(new Entry(Money.of(CurrencyUnit.USD, 10), date.plusSeconds(3)));
+            store.add(new Entry(Money.of(CurrencyUnit.USD, 11), date.plusSeconds(11)));
+            final List<Entry> removed = store.removeBefore(date.plusSeconds(5));
+            assertEquals(6, removed.size());
+            assertEquals(6, store.size());
+            assertEquals(Money.of(CurrencyUnit.USD, 5), store.view().get(0).getAmount());
+            assertEquals(Money.of(CurrencyUnit.USD, 11), store.view().get(5).getAmount());
+            assertEquals(10, view.size());
+            assertEquals(Money.of(CurrencyUnit.USD, 3), view.get(3).getAmount());
+        }
+    }
+
+    @Test
+    void accountsShareOneFile() throws Exception {
+        final ZonedDateTime date = ZonedDateTime.now();
+        try (MappedLedger ledger = new MappedLedger(directory, 16)) {
+            final List<EntryStore> stores = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                stores.add(ledger.create((long) i, CurrencyUnit.USD));
+            }
+            for (int i = 0; i < 20; i++) {
+                for (int j = 0; j < stores.size(); j++) {
+                    stores.get(j).add(new Entry(Money.of(CurrencyUnit.USD, j * 100 + i), date.plusSeconds(i)));
+                }
+            }
+            for (int j = 0; j < stores.size(); j++) {
+                final List<Entry> view = stores.get(j).view();
+                assertEquals(20, view.size());
+                assertEquals(Money.of(CurrencyUnit.USD, j * 100 + 19), view.get(19).getAmount());
+            }
+            try (Stream<Path> files = Files.list(directory)) {
+                assertEquals(List.of(directory.resolve(MappedLedger.FILE)), files.collect(Collectors.toList()));
+            }
+        }
+    }
+
+    @Test
+    void accountWithMappedEntries() {
+        try (FileEntryArchive archive = new FileEntryArchive(directory.resolve("archive"));
+             MappedLedger ledger = new MappedLedger(directory, 2, archive)) {
+            final Entry entry = new Entry(Money.of(CurrencyUnit.USD, 100), ZonedDateTime.now().minusDays(1));
+            final Account payer = new Account(1L, CurrencyUnit.USD, null, List.of(entry, entry, entry), ledger);
+            final Account payee = new Account(2L, CurrencyUnit.USD, null, null, ledger);
+            for (int i = 0; i < 5; i++) {
+                new AccountingTransaction(Money.of(CurrencyUnit.USD, 10.25), payer, payee, ZonedDateTime.now()).perform();
+            }
+            assertEquals(Money.of(CurrencyUnit.USD, 248.75), payer.getBalance());
+            assertEquals(payer.getBalance(), payer.sumEntries());
+            assertEquals(8, payer.getEntries().size());
+            assertEquals(3, payer.collapseEntries(ZonedDateTime.now().minusHours(1)));
+            assertEquals(3, payer.getArchivedCount());
+            assertEquals(List.of(entry.getAmount(), entry.getAmount(), entry.getAmount()),
+                    payer.getArchivedEntries().stream().map(Entry::getAmount).collect(Collectors.toList()));
+            assertEquals(payer.getBalance(), payer.sumEntries());
+            assertEquals(Money.of(CurrencyUnit.USD, 51.25), payee.sumEntries());
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+}
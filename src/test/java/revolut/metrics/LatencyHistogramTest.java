@@ -0,0 +1,35 @@
+package revolut.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+    @Test
+    void bucketsCoverValues() {
+        for (long value : new long[]{0, 1, 63, 64, 65, 1000, 123_456_789, Long.MAX_VALUE}) {
+            final int index = LatencyHistogram.index(value);
+            assertTrue(LatencyHistogram.highestValue(index) >= value);
+            assertTrue(index == 0 || LatencyHistogram.highestValue(index - 1) < value);
+            assertTrue(LatencyHistogram.highestValue(index) - value <= value / LatencyHistogram.SUB_BUCKETS);
+        }
+    }
+
+    @Test
+    void quantiles() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.valueAt(0.5));
+        for (long value = 1; value <= 10_000; value++) {
+            histogram.record(value * 1000);
+        }
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(10_000_000, histogram.getMax());
+        assertEquals(50_005_000_000L, histogram.getSum());
+        assertEquals(5_000_000, histogram.valueAt(0.5), 5_000_000 * 0.04);
+        assertEquals(9_900_000, histogram.valueAt(0.99), 9_900_000 * 0.04);
+        assertEquals(10_000_000, histogram.valueAt(1));
+        assertThrows(IllegalArgumentException.class, () -> histogram.valueAt(1.5));
+    }
+}
@@ -0,0 +1,46 @@
+package revolut.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricsRegistryTest {
+    @Test
+    void prometheusFormat() throws IOException {
+        final MetricsRegistry registry = new MetricsRegistry();
+        final Counter ok = registry.counter("test_total", "Test counter.", "status", "OK");
+        assertSame(ok, registry.counter("test_total", "Test counter.", "status", "OK"));
+        ok.add(3);
+        registry.counter("test_total", "Test counter.", "status", "say \"hi\"").increment();
+        registry.gauge("test_gauge", "Test gauge.", () -> 1.5);
+        registry.histogram("test_seconds", "Test latency.", "resource", "a").record(2_000_000_000L);
+
+        final StringWriter writer = new StringWriter();
+        registry.write(writer);
+        final String text = writer.toString();
+        assertTrue(text.contains("# HELP test_total Test counter.\n# TYPE test_total counter\n"));
+        assertTrue(text.contains("test_total{status=\"OK\"} 3\n"));
+        assertTrue(text.contains("test_total{status=\"say \\\"hi\\\"\"} 1\n"));
+        assertTrue(text.contains("# TYPE test_gauge gauge\ntest_gauge 1.5\n"));
+        assertTrue(text.contains("# TYPE test_seconds summary\n"));
+        assertTrue(text.contains("test_seconds{resource=\"a\",quantile=\"0.5\"} 2\n"));
+        assertTrue(text.contains("test_seconds_sum{resource=\"a\"} 2\n"));
+        assertTrue(text.contains("test_seconds_count{resource=\"a\"} 1\n"));
+    }
+
+    @Test
+    void wrongRegistration() {
+        final MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("test_total", "Test counter.");
+        assertThrows(IllegalArgumentException.class, () -> registry.histogram("test_total", "Test latency."));
+        assertThrows(IllegalArgumentException.class, () -> registry.counter("test total", "Test counter."));
+        assertThrows(IllegalArgumentException.class, () -> registry.counter("test_other", "Test counter.", "status"));
+        assertEquals(0, registry.counter("test_total", "Test counter.").get());
+    }
+}
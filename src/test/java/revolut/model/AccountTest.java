@@ -9,6 +9,10 @@ import org.junit.jupiter.api.Test;
 import java.time.ZonedDateTime;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -132,4 +136,156 @@ class AccountTest {
         final Account account2 = new Account(3L, CurrencyUnit.USD, Money.of(CurrencyUnit.USD, 100), List.of(entry3, entry4));
         assertEquals(account1, account2);
     }
-}
\ No newline at end of file
+
+    @Test
+    void runningBalanceMatchesEntriesTest() {
+        Entry entry1 = new Entry(Money.of(CurrencyUnit.USD, 100), ZonedDateTime.now());
+        final Account account = new Account(3L, CurrencyUnit.USD, Money.of(CurrencyUnit.USD, 100), List.of(entry1));
+        for (int i = 0; i < 10; i++) {
+            Account.Fixer fixer = account.checkEntry(new Entry(Money.of(CurrencyUnit.USD, 10).negated(), ZonedDateTime.now()));
+            assertTrue(fixer.push());
+        }
+        Account.Fixer fixer = account.checkEntry(new Entry(Money.of(CurrencyUnit.USD, 50), ZonedDateTime.now()));
+        assertTrue(fixer.push());
+        fixer.cancel();
+        fixer.cancel();
+        assertEquals(Money.of(CurrencyUnit.USD, 100), account.getBalance());
+        assertEquals(account.sumEntries(), account.getBalance());
+        // Cancelled entry stays and is followed by the opposite one.
+        assertEquals(13, account.getEntries().size());
+        assertEquals(Money.of(CurrencyUnit.USD, -50), List.copyOf(account.getEntries()).get(12).getAmount());
+    }
+
+    @Test
+    void collapseEntriesTest() {
+        ZonedDateTime horizon = ZonedDateTime.now();
+        Entry entry1 = new Entry(Money.of(CurrencyUnit.USD, 100), horizon.minusDays(2));
+        Entry entry2 = new Entry(Money.of(CurrencyUnit.USD, 200), horizon.minusDays(1));
+        Entry entry3 = new Entry(Money.of(CurrencyUnit.USD, 300), horizon.plusSeconds(1));
+        final Account account = new Account(3L, CurrencyUnit.USD, Money.of(CurrencyUnit.USD, 100), List.of(entry1, entry2, entry3));
+        assertEquals(2, account.collapseEntries(horizon));
+        assertEquals(Money.of(CurrencyUnit.USD, 400), account.getInitBalance());
+        assertEquals(Money.of(CurrencyUnit.USD, 700), account.getBalance());
+        assertEquals(Money.of(CurrencyUnit.USD, 700), account.sumEntries());
+        assertEquals(List.of(entry3), List.copyOf(account.getEntries()));
+        assertEquals(2, account.getArchivedCount());
+        assertEquals(0, account.collapseEntries(horizon));
+    }
+
+    @Test
+    void collapseEntriesFailedArchiveTest() {
+        ZonedDateTime horizon = ZonedDateTime.now();
+        Entry entry1 = new Entry(Money.of(CurrencyUnit.USD, 100), horizon.minusDays(1));
+        Entry entry2 = new Entry(Money.of(CurrencyUnit.USD, 200), horizon.plusSeconds(1));
+        final EntryArchive failing = new EntryArchive() {
+            @Override
+            public long append(long accountId, long last, List<Entry> entries) {
+                throw new IllegalStateException("Archive is full.");
+            }
+
+            @Override
+            public List<Entry> read(long accountId, CurrencyUnit currency, long last) {
+                return List.of();
+            }
+        };
+        final Account account = new Account(3L, CurrencyUnit.USD, null, List.of(entry1, entry2), EntryStore.Factory.heap(failing));
+        // Entries which can't be archived stay in account.
+        assertEquals(-1, account.collapseEntries(horizon));
+        assertEquals(Money.zero(CurrencyUnit.USD), account.getInitBalance());
+        assertEquals(List.of(entry1, entry2), List.copyOf(account.getEntries()));
+        assertEquals(0, account.getArchivedCount());
+        assertEquals(Money.of(CurrencyUnit.USD, 100), account.getBalanceAsOf(horizon.minusHours(1)));
+    }
+
+    @Test
+    void balanceAsOfTest() {
+        ZonedDateTime horizon = ZonedDateTime.now();
+        Entry entry1 = new Entry(Money.of(CurrencyUnit.USD, 100), horizon.minusDays(2));
+        Entry entry2 = new Entry(Money.of(CurrencyUnit.USD, -50), horizon.minusDays(1));
+        Entry entry3 = new Entry(Money.of(CurrencyUnit.USD, 300), horizon.plusSeconds(1));
+        final Account account = new Account(3L, CurrencyUnit.USD, Money.of(CurrencyUnit.USD, 100), List.of(entry3, entry1, entry2));
+        assertEquals(Money.of(CurrencyUnit.USD, 100), account.getBalanceAsOf(horizon.minusDays(3)));
+        assertEquals(Money.of(CurrencyUnit.USD, 200), account.getBalanceAsOf(horizon.minusDays(2)));
+        assertEquals(Money.of(CurrencyUnit.USD, 150), account.getBalanceAsOf(horizon));
+        assertEquals(Money.of(CurrencyUnit.USD, 450), account.getBalanceAsOf(horizon.plusDays(1)));
+
+        // Balances after collapsing stay the same, earlier ones are unknown.
+        assertEquals(1, account.collapseEntries(horizon.minusDays(1)));
+        assertEquals(Money.of(CurrencyUnit.USD, 150), account.getBalanceAsOf(horizon));
+        assertEquals(Money.of(CurrencyUnit.USD, 450), account.getBalanceAsOf(horizon.plusDays(1)));
+        assertThrows(IllegalArgumentException.class, () -> account.getBalanceAsOf(horizon.minusDays(3)));
+    }
+
+    @Test
+    void entriesOfPeriodTest() {
+        ZonedDateTime horizon = ZonedDateTime.now();
+        Entry entry1 = new Entry(Money.of(CurrencyUnit.USD, 100), horizon.minusDays(2));
+        Entry entry2 = new Entry(Money.of(CurrencyUnit.USD, -50), horizon.minusDays(1));
+        Entry entry3 = new Entry(Money.of(CurrencyUnit.USD, 300), horizon.plusSeconds(1));
+        final Account account = new Account(3L, CurrencyUnit.USD, null, List.of(entry3, entry1, entry2));
+        assertEquals(List.of(entry1, entry2, entry3), values(account.getEntries(null, null, null)));
+        assertEquals(List.of(entry2), values(account.getEntries(horizon.minusDays(1), horizon, null)));
+
+        // Entries are read from the store, the period taken before collapsing doesn't show collapsed ones.
+        final Iterable<Map.Entry<EntryIndex.Position, Entry>> period = account.getEntries(null, null, null);
+        assertEquals(2, account.collapseEntries(horizon));
+        assertEquals(List.of(entry3), values(period));
+        assertEquals(List.of(entry3), values(account.getEntries(null, null, null)));
+    }
+
+    private static List<Entry> values(final Iterable<Map.Entry<EntryIndex.Position, Entry>> entries) {
+        return StreamSupport.stream(entries.spliterator(), false).map(Map.Entry::getValue).collect(Collectors.toList());
+    }
+
+    @Test
+    void journalRecordsAfterTest() throws Exception {
+        final Account account = new Account(3L, CurrencyUnit.USD, null, null);
+        account.restore(5, ZonedDateTime.now());
+        assertTrue(account.hasJournalRecordsAfter(4));
+        assertFalse(account.hasJournalRecordsAfter(5));
+
+        // A record taken by a running commit is remembered by account once the commit is awaited.
+        final CountDownLatch committing = new CountDownLatch(1);
+        final Thread commit = new Thread(() -> LedgerVersions.commit(() -> {
+            committing.countDown();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            account.committed(0, 6);
+            return 6;
+        }));
+        commit.start();
+        committing.await();
+        LedgerVersions.awaitCommits();
+        assertTrue(account.hasJournalRecordsAfter(5));
+        commit.join();
+    }
+
+    @Test
+    void readersDontTakeLockTest() throws Exception {
+        final ZonedDateTime date = ZonedDateTime.now();
+        final Account account = new Account(3L, CurrencyUnit.USD, Money.of(CurrencyUnit.USD, 100),
+                List.of(new Entry(Money.of(CurrencyUnit.USD, 50), date)));
+        final Thread holder = new Thread(() -> account.getLock().lock());
+        holder.start();
+        holder.join();
+        assertEquals(Money.of(CurrencyUnit.USD, 150), account.sumEntries());
+        assertEquals(Money.of(CurrencyUnit.USD, 150), account.getBalanceAsOf(date));
+        assertEquals(Money.of(CurrencyUnit.USD, 150), account.getCommittedState().getBalance());
+    }
+
+    @Test
+    void restoredBalanceAsOfTest() {
+        ZonedDateTime restoredAt = ZonedDateTime.now();
+        final Account account = new Account(3L, CurrencyUnit.USD, Money.of(CurrencyUnit.USD, 100), null);
+        account.restore(1, restoredAt);
+        assertTrue(account.replay(new Entry(Money.of(CurrencyUnit.USD, 50), restoredAt.plusSeconds(1)), 2));
+
+        // Initial balance includes entries made before the snapshot, so earlier balances are unknown.
+        assertThrows(IllegalArgumentException.class, () -> account.getBalanceAsOf(restoredAt.minusDays(1)));
+        assertEquals(Money.of(CurrencyUnit.USD, 100), account.getBalanceAsOf(restoredAt));
+        assertEquals(Money.of(CurrencyUnit.USD, 150), account.getBalanceAsOf(restoredAt.plusSeconds(1)));
+    }
+}
@@ -12,13 +12,17 @@ import revolut.service.impl.TransactionServiceImpl;
 import java.io.IOException;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class AccountingTransactionTest {
 
@@ -163,6 +167,68 @@ class AccountingTransactionTest {
         assertEquals(totalBalance, afterTotalBalance);
     }
 
+    @Test
+    void oppositeDirectionTransactionsDoNotFailTest() throws Exception {
+        final Account first = createAccount(1L);
+        final Account second = createAccount(2L);
+        final LockRetryPolicy policy = new LockRetryPolicy(10, Account.WAITING_INTERVAL, 1L, 20L);
+        final ExecutorService service = Executors.newFixedThreadPool(8);
+        final List<Future<AccountingTransaction.OverallStatus>> results = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            final Account payer = i % 2 == 0 ? first : second;
+            final Account payee = i % 2 == 0 ? second : first;
+            results.add(service.submit(() -> new AccountingTransaction(Money.of(CurrencyUnit.USD, 1), payer, payee, getZonedDateTime(), policy).perform()));
+        }
+        for (Future<AccountingTransaction.OverallStatus> result : results) {
+            assertEquals(AccountingTransaction.TransactionStatus.OK, result.get().getStatus());
+        }
+        awaitTerminationAfterShutdown(service);
+        assertEquals(Money.of(CurrencyUnit.USD, 300), first.getBalance());
+        assertEquals(Money.of(CurrencyUnit.USD, 300), second.getBalance());
+    }
+
+    @Test
+    void busyAccountIsReportedAfterRetriesTest() throws Exception {
+        final Account payer = createAccount(1L);
+        final Account payee = createAccount(2L);
+        final CountDownLatch locked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Thread owner = new Thread(() -> {
+            payee.getLock().lock();
+            try {
+                locked.countDown();
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                payee.getLock().unlock();
+            }
+        });
+        owner.start();
+        locked.await();
+        final LockStatistics.Snapshot before = LockStatistics.snapshot();
+        final LockRetryPolicy policy = new LockRetryPolicy(2, 10L, 1L, 5L);
+        final AccountingTransaction transaction = new AccountingTransaction(Money.of(CurrencyUnit.USD, 1), payer, payee, getZonedDateTime(), policy);
+        assertEquals(AccountingTransaction.TransactionStatus.PAYEE_BUSY, transaction.perform().getStatus());
+        release.countDown();
+        owner.join();
+        final LockStatistics.Snapshot after = LockStatistics.snapshot();
+        assertTrue(after.getPayeeBusy() > before.getPayeeBusy());
+        assertTrue(after.getRetries() > before.getRetries());
+        assertEquals(AccountingTransaction.TransactionStatus.OK, transaction.perform().getStatus());
+    }
+
+    @Test
+    void backoffIsLimitedTest() {
+        final LockRetryPolicy policy = new LockRetryPolicy(5, 10L, 1L, 4L);
+        for (int attempt = 1; attempt < 40; attempt++) {
+            final long backoff = policy.backoff(attempt);
+            assertTrue(backoff >= 0 && backoff <= TimeUnit.MILLISECONDS.toNanos(4));
+        }
+        assertThrows(IllegalArgumentException.class, () -> new LockRetryPolicy(0, 10L, 1L, 4L));
+        assertThrows(IllegalArgumentException.class, () -> new LockRetryPolicy(1, 10L, 5L, 4L));
+    }
+
     public void awaitTerminationAfterShutdown(ExecutorService threadPool) {
         threadPool.shutdown();
         try {
@@ -0,0 +1,119 @@
+package revolut.model;
+
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BatchTransactionTest {
+    private Account createAccount(Long id) {
+        return new Account(id, CurrencyUnit.USD, Money.of(CurrencyUnit.USD, 300), null);
+    }
+
+    private AccountingTransaction transaction(long sum, Account payer, Account payee) {
+        return new AccountingTransaction(Money.of(CurrencyUnit.USD, sum), payer, payee, ZonedDateTime.now());
+    }
+
+    @Test
+    void bestEffort() {
+        Account first = createAccount(1L);
+        Account second = createAccount(2L);
+        Account third = createAccount(3L);
+        List<AccountingTransaction> transactions = List.of(
+                transaction(100, first, second),
+                transaction(1000, second, third),
+                transaction(50, third, first));
+        BatchTransaction.BatchStatus status = new BatchTransaction(transactions, BatchMode.BEST_EFFORT, LockRetryPolicy.DEFAULT).perform();
+        assertEquals(BatchMode.BEST_EFFORT, status.getMode());
+        assertEquals(2, status.getSucceeded());
+        assertEquals(1, status.getFailed());
+        assertEquals(AccountingTransaction.TransactionStatus.OK, status.getResults().get(0).getStatus());
+        assertEquals(AccountingTransaction.TransactionStatus.BAD, status.getResults().get(1).getStatus());
+        assertEquals(Account.FixerStatus.INSUFFICIENT_SUM, status.getResults().get(1).getPayerStatus());
+        assertEquals(AccountingTransaction.TransactionStatus.OK, status.getResults().get(2).getStatus());
+        assertEquals(Money.of(CurrencyUnit.USD, 250), first.getBalance());
+        assertEquals(Money.of(CurrencyUnit.USD, 400), second.getBalance());
+        assertEquals(Money.of(CurrencyUnit.USD, 250), third.getBalance());
+    }
+
+    @Test
+    void allOrNothing() {
+        Account first = createAccount(1L);
+        Account second = createAccount(2L);
+        Account third = createAccount(3L);
+        List<AccountingTransaction> transactions = List.of(
+                transaction(100, first, second),
+                transaction(50, third, first),
+                transaction(1000, second, third),
+                transaction(10, second, third));
+        BatchTransaction.BatchStatus status = new BatchTransaction(transactions, BatchMode.ALL_OR_NOTHING, LockRetryPolicy.DEFAULT).perform();
+        assertEquals(0, status.getSucceeded());
+        assertEquals(4, status.getFailed());
+        assertEquals(AccountingTransaction.TransactionStatus.ROLLED_BACK, status.getResults().get(0).getStatus());
+        assertEquals(AccountingTransaction.TransactionStatus.ROLLED_BACK, status.getResults().get(1).getStatus());
+        assertEquals(AccountingTransaction.TransactionStatus.BAD, status.getResults().get(2).getStatus());
+        assertEquals(AccountingTransaction.TransactionStatus.ROLLED_BACK, status.getResults().get(3).getStatus());
+        for (Account account : List.of(first, second, third)) {
+            assertEquals(Money.of(CurrencyUnit.USD, 300), account.getBalance());
+            assertEquals(0, account.getEntries().stream().mapToLong(Entry::getAmountMinor).sum());
+        }
+
+        transactions = List.of(transaction(100, first, second), transaction(50, third, first));
+        status = new BatchTransaction(transactions, BatchMode.ALL_OR_NOTHING, LockRetryPolicy.DEFAULT).perform();
+        assertEquals(2, status.getSucceeded());
+        assertEquals(Money.of(CurrencyUnit.USD, 250), first.getBalance());
+    }
+
+    @Test
+    void manyGroups() {
+        Account first = createAccount(1L);
+        Account second = createAccount(2L);
+        List<AccountingTransaction> transactions = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            transactions.add(i % 2 == 0 ? transaction(1, first, second) : transaction(1, second, first));
+        }
+        BatchTransaction.BatchStatus status = new BatchTransaction(transactions, BatchMode.BEST_EFFORT, LockRetryPolicy.DEFAULT, 4).perform();
+        assertEquals(25, status.getSucceeded());
+        assertEquals(25, status.getResults().size());
+        assertEquals(Money.of(CurrencyUnit.USD, 299), first.getBalance());
+        assertEquals(Money.of(CurrencyUnit.USD, 301), second.getBalance());
+    }
+
+    @Test
+    void groupsAreConnectedByAccounts() {
+        Account first = createAccount(1L);
+        Account second = createAccount(2L);
+        Account third = createAccount(3L);
+        Account fourth = createAccount(4L);
+        List<AccountingTransaction> transactions = List.of(
+                transaction(200, first, second),
+                transaction(200, third, fourth),
+                transaction(400, second, first),
+                transaction(250, fourth, third));
+        // The third transaction needs money of the first one, they must be performed in order.
+        BatchTransaction.BatchStatus status = new BatchTransaction(transactions, BatchMode.BEST_EFFORT, LockRetryPolicy.DEFAULT, 2).perform();
+        assertEquals(4, status.getSucceeded());
+        assertEquals(Money.of(CurrencyUnit.USD, 500), first.getBalance());
+        assertEquals(Money.of(CurrencyUnit.USD, 100), second.getBalance());
+        assertEquals(Money.of(CurrencyUnit.USD, 350), third.getBalance());
+        assertEquals(Money.of(CurrencyUnit.USD, 250), fourth.getBalance());
+        assertEquals(Money.of(CurrencyUnit.USD, 400), status.getResults().get(2).getTransferSum());
+        assertEquals(Money.of(CurrencyUnit.USD, 250), status.getResults().get(3).getTransferSum());
+    }
+
+    @Test
+    void allOrNothingLocksAreLimited() {
+        List<AccountingTransaction> transactions = List.of(
+                transaction(1, createAccount(1L), createAccount(2L)),
+                transaction(1, createAccount(3L), createAccount(1L)));
+        assertThrows(IllegalArgumentException.class,
+                () -> new BatchTransaction(transactions, BatchMode.ALL_OR_NOTHING, LockRetryPolicy.DEFAULT, 256, 2));
+        assertEquals(2, new BatchTransaction(transactions, BatchMode.BEST_EFFORT, LockRetryPolicy.DEFAULT, 256, 2).perform().getSucceeded());
+    }
+}
@@ -0,0 +1,171 @@
+package revolut.model;
+
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class EntryIndexTest {
+    private static final ZonedDateTime START = ZonedDateTime.of(2020, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    private final EntryStore store = new HeapEntryStore();
+    private final EntryIndex index = new EntryIndex(store);
+
+    @Test
+    void rangeAndCursor() {
+        // Entries are added out of order of date, the last two have the same date.
+        add(entry(3, 2));
+        add(entry(1, 0));
+        add(entry(2, 1));
+        add(entry(4, 2));
+
+        assertEquals(List.of(1, 2, 0, 3), positions(index.range(null, null, null)));
+        assertEquals(List.of(2), positions(index.range(START.plusDays(1), START.plusDays(2), null)));
+
+        final EntryIndex.Position cursor = index.range(START.plusDays(1), null, null).iterator().next().getKey();
+        assertEquals(cursor, EntryIndex.Position.parse(cursor.toString()));
+        assertEquals(List.of(0, 3), positions(index.range(START.plusDays(1), null, cursor)));
+        assertThrows(IllegalArgumentException.class, () -> EntryIndex.Position.parse("1:2"));
+        assertThrows(IllegalArgumentException.class, () -> EntryIndex.Position.parse("a:b:c"));
+    }
+
+    @Test
+    void removal() {
+        add(entry(1, 0));
+        add(entry(2, 1));
+        add(entry(3, 2));
+
+        removeBefore(START.plusDays(2));
+        assertEquals(1, index.size());
+        assertEquals(List.of(2), positions(index.range(null, null, null)));
+    }
+
+    @Test
+    void prefixSums() {
+        add(entry(10, 0));
+        add(entry(30, 2));
+        // Entry in the middle changes sums of later entries.
+        add(entry(20, 1));
+        assertEquals(0, index.sumUntil(START.minusDays(1)));
+        assertEquals(1000, index.sumUntil(START));
+        assertEquals(3000, index.sumUntil(START.plusDays(1).plusHours(1)));
+        assertEquals(6000, index.sumUntil(START.plusDays(2)));
+
+        // Cancelled entry is followed by the opposite one with the same date.
+        add(entry(-20, 1));
+        assertEquals(1000, index.sumUntil(START.plusDays(1)));
+        assertEquals(4000, index.sumUntil(START.plusDays(2)));
+        removeBefore(START.plusDays(1));
+        // Sums are counted from the removed head.
+        assertEquals(0, index.sumUntil(START.plusDays(1)));
+        assertEquals(3000, index.sumUntil(START.plusDays(2)));
+        add(entry(-5, 3));
+        assertEquals(2500, index.sumUntil(START.plusDays(3)));
+    }
+
+    @Test
+    void manyEntriesAroundCheckpoints() {
+        final Random random = new Random(7);
+        final List<Entry> added = new ArrayList<>();
+        ZonedDateTime now = START;
+        for (int i = 0; i < EntryIndex.CHECKPOINT_INTERVAL * 20; i++) {
+            now = now.plusMinutes(random.nextInt(3));
+            // Every tenth entry is late, like a transfer which waited for locks.
+            final ZonedDateTime date = random.nextInt(10) == 0 ? now.minusMinutes(random.nextInt(30)) : now;
+            final Entry entry = new Entry(Money.ofMinor(CurrencyUnit.USD, random.nextInt(1000) - 300), date);
+            added.add(entry);
+            add(entry);
+        }
+        check(added, now);
+
+        final ZonedDateTime horizon = now.minusHours(10);
+        removeBefore(horizon);
+        added.removeIf(entry -> entry.getDate().isBefore(horizon));
+        assertEquals(added.size(), index.size());
+        check(added, now);
+    }
+
+    @Test
+    void entriesInReverseOrder() {
+        // Every entry after the first one is late.
+        final int count = 10_000;
+        final List<Entry> added = new ArrayList<>();
+        for (int i = count; i > 0; i--) {
+            final Entry entry = new Entry(Money.ofMinor(CurrencyUnit.USD, i), START.plusSeconds(i));
+            added.add(entry);
+            add(entry);
+        }
+        assertEquals(count, index.size());
+        assertEquals(100L * 101 / 2, index.sumUntil(START.plusSeconds(100)));
+        assertEquals((long) count * (count + 1) / 2, index.sumUntil(START.plusSeconds(count)));
+        assertEquals(List.of(added.get(count - 5), added.get(count - 6)), entries(index.range(START.plusSeconds(5), START.plusSeconds(7), null)));
+
+        removeBefore(START.plusSeconds(101));
+        assertEquals(count - 100, index.size());
+        assertEquals(101, index.sumUntil(START.plusSeconds(101)));
+        assertEquals(added.get(count - 101), index.range(null, null, null).iterator().next().getValue());
+    }
+
+    /**
+     * Compares the index with sorting and summing all entries.
+     */
+    private void check(final List<Entry> added, final ZonedDateTime now) {
+        final List<Entry> sorted = added.stream()
+                .sorted(Comparator.comparing(Entry::getDate))
+                .collect(Collectors.toList());
+        assertEquals(sorted, entries(index.range(null, null, null)));
+        for (ZonedDateTime date = sorted.get(0).getDate(); !date.isAfter(now); date = date.plusMinutes(7)) {
+            final ZonedDateTime until = date;
+            assertEquals(added.stream().filter(entry -> !entry.getDate().isAfter(until)).mapToLong(Entry::getAmountMinor).sum(),
+                    index.sumUntil(until));
+            final ZonedDateTime to = date.plusMinutes(40);
+            assertEquals(sorted.stream().filter(entry -> !entry.getDate().isBefore(until) && entry.getDate().isBefore(to))
+                    .collect(Collectors.toList()), entries(index.range(until, to, null)));
+        }
+        // Pages by cursor give all entries once.
+        final List<Entry> paged = new ArrayList<>();
+        EntryIndex.Position cursor = null;
+        do {
+            final List<Map.Entry<EntryIndex.Position, Entry>> page = StreamSupport.stream(index.range(null, null, cursor).spliterator(), false)
+                    .limit(50)
+                    .collect(Collectors.toList());
+            page.forEach(entry -> paged.add(entry.getValue()));
+            cursor = page.size() < 50 ? null : page.get(page.size() - 1).getKey();
+        } while (cursor != null);
+        assertEquals(sorted, paged);
+    }
+
+    private void add(final Entry entry) {
+        index.add(entry, store.add(entry));
+    }
+
+    private void removeBefore(final ZonedDateTime horizon) {
+        index.removeBefore(horizon);
+        store.removeBefore(horizon);
+    }
+
+    private static List<Integer> positions(final Iterable<Map.Entry<EntryIndex.Position, Entry>> range) {
+        return StreamSupport.stream(range.spliterator(), false)
+                .map(entry -> entry.getKey().getStorePosition())
+                .collect(Collectors.toList());
+    }
+
+    private static List<Entry> entries(final Iterable<Map.Entry<EntryIndex.Position, Entry>> range) {
+        return StreamSupport.stream(range.spliterator(), false).map(Map.Entry::getValue).collect(Collectors.toList());
+    }
+
+    private static Entry entry(final int amount, final int day) {
+        return new Entry(Money.of(CurrencyUnit.USD, amount), START.plusDays(day));
+    }
+}
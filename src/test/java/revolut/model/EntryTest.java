@@ -18,6 +18,18 @@ class EntryTest {
         assertEquals(date, entry.getDate());
     }
 
+    @Test
+    void minorUnitsTest() {
+        ZonedDateTime date = ZonedDateTime.now();
+        Entry entry = new Entry(Money.of(CurrencyUnit.USD, 1.25), date);
+        assertEquals(125, entry.getAmountMinor());
+        assertEquals(CurrencyUnit.USD, entry.getCurrency());
+        Entry negated = entry.negated();
+        assertEquals(Money.of(CurrencyUnit.USD, -1.25), negated.getAmount());
+        assertEquals(date, negated.getDate());
+        assertEquals(Money.ofMinor(CurrencyUnit.JPY, 7), new Entry(CurrencyUnit.JPY, 7, date).getAmount());
+    }
+
     @Test
     void createEntryWithoutAmountTest() {
         assertThrows(NullPointerException.class, () -> new Entry(null, ZonedDateTime.now()));
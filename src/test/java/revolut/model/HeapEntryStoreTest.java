@@ -0,0 +1,84 @@
+package revolut.model;
+
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HeapEntryStoreTest {
+    private static final ZonedDateTime START = ZonedDateTime.of(2020, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    @Test
+    void entriesCrossChunks() {
+        final HeapEntryStore store = new HeapEntryStore();
+        final List<Entry> added = new ArrayList<>();
+        // Growing chunks and a few chunks of the largest size.
+        final int count = 3 * HeapEntryStore.MAX_CHUNK + 5;
+        for (int i = 0; i < count; i++) {
+            final Entry entry = entry(i, i);
+            added.add(entry);
+            assertEquals(i, store.add(entry));
+        }
+        assertEquals(count, store.size());
+        final List<Entry> view = store.view();
+        for (int i = 0; i < count; i++) {
+            assertSame(added.get(i), view.get(i));
+        }
+        assertSame(added.get(count - 1), store.view().atPosition(count - 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> view.get(count));
+        assertThrows(UnsupportedOperationException.class, () -> view.add(entry(1, 1)));
+    }
+
+    @Test
+    void viewDoesNotChange() {
+        final HeapEntryStore store = new HeapEntryStore();
+        for (int i = 0; i < 10; i++) {
+            store.add(entry(i, i));
+        }
+        final EntryStore.View before = store.view();
+        final List<Entry> copy = List.copyOf(before);
+
+        // Entries added late become holes.
+        store.add(entry(10, 2));
+        store.add(entry(11, 11));
+        store.add(entry(12, 4));
+        assertEquals(7, store.removeBefore(START.plusSeconds(5)).size());
+
+        assertEquals(copy, before);
+        assertEquals(6, store.size());
+        assertEquals(List.of(5, 6, 7, 8, 9, 11), amounts(store.view()));
+        // Removed and later entries have no position in the view, the old view still has removed ones.
+        assertNull(store.view().atPosition(10));
+        assertNull(store.view().atPosition(4));
+        assertEquals(Money.of(CurrencyUnit.USD, 11), store.view().atPosition(11).getAmount());
+        assertNull(before.atPosition(10));
+        assertEquals(Money.of(CurrencyUnit.USD, 4), before.atPosition(4).getAmount());
+        store.add(entry(13, 1));
+        assertEquals(List.of(5, 6, 7, 8, 9, 11, 13), amounts(store.view()));
+        assertEquals(1, store.removeBefore(START.plusSeconds(5)).size());
+        assertEquals(6, store.removeBefore(START.plusSeconds(20)).size());
+        assertEquals(0, store.size());
+        store.add(entry(14, 30));
+        assertEquals(List.of(14), amounts(store.view()));
+        assertEquals(copy, before);
+    }
+
+    private static List<Integer> amounts(final List<Entry> entries) {
+        final List<Integer> amounts = new ArrayList<>();
+        entries.forEach(entry -> amounts.add((int) (entry.getAmountMinor() / 100)));
+        return amounts;
+    }
+
+    private static Entry entry(final int amount, final int second) {
+        return new Entry(Money.of(CurrencyUnit.USD, amount), START.plusSeconds(second));
+    }
+}
@@ -0,0 +1,129 @@
+package revolut.model;
+
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+import org.junit.jupiter.api.Test;
+import revolut.provider.DataProvider;
+import revolut.service.impl.HolderServiceImpl;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HotAccountsTest {
+    private Account createAccount(Long id) {
+        return new Account(id, CurrencyUnit.USD, Money.of(CurrencyUnit.USD, 300), null);
+    }
+
+    @Test
+    void contentionIsCounted() throws InterruptedException {
+        final Account account = createAccount(1L);
+        assertTrue(account.tryLock(10));
+        account.unlock();
+        assertEquals(1, account.getContention().getAcquisitions());
+        assertEquals(0, account.getContention().getWeight());
+
+        final CountDownLatch locked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Thread owner = new Thread(() -> {
+            try {
+                account.tryLock(10);
+                locked.countDown();
+                release.await();
+                account.unlock();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        owner.start();
+        locked.await();
+        assertFalse(account.tryLock(5));
+        release.countDown();
+        owner.join();
+
+        final LockContention contention = account.getContention();
+        assertEquals(2, contention.getAcquisitions());
+        assertEquals(1, contention.getFailures());
+        assertEquals(1, contention.getWeight());
+        assertTrue(contention.getWaitNanos() >= 5_000_000);
+        assertTrue(contention.getHoldNanos() >= 5_000_000);
+    }
+
+    @Test
+    void hottestAccountsAreKept() throws InterruptedException {
+        final HotAccounts hotAccounts = new HotAccounts();
+        final Account hot = createAccount(1000L);
+        hot.setHotAccounts(hotAccounts);
+        for (long id = 0; id < HotAccounts.CAPACITY * 2; id++) {
+            final Account cold = createAccount(2000L + id);
+            cold.setHotAccounts(hotAccounts);
+            contend(cold, 1);
+        }
+        assertEquals(HotAccounts.CAPACITY, hotAccounts.top(HotAccounts.CAPACITY + 1).size());
+        contend(hot, 3);
+        final List<HotAccounts.HotAccount> top = hotAccounts.top(1);
+        assertEquals(1, top.size());
+        assertEquals(1000L, top.get(0).getAccountId());
+        assertEquals(3, top.get(0).getFailures());
+
+        hotAccounts.remove(1000L);
+        assertEquals(HotAccounts.CAPACITY - 1, hotAccounts.top(HotAccounts.CAPACITY).size());
+        assertTrue(hotAccounts.top(HotAccounts.CAPACITY).stream().noneMatch(account -> account.getAccountId() == 1000L));
+    }
+
+    @Test
+    void removedAccountsAreEvicted() throws InterruptedException {
+        final HotAccounts hotAccounts = new HotAccounts();
+        final HolderServiceImpl holderService = new HolderServiceImpl(DataProvider.generateHolders(3), hotAccounts);
+        final Holder holder = holderService.getHolders().values().iterator().next();
+        final Account account = holder.getAccounts().values().iterator().next();
+        contend(account, 1);
+        assertEquals(account.getId(), hotAccounts.top(1).get(0).getAccountId());
+
+        holderService.removeHolder(holder.getId());
+        assertTrue(hotAccounts.top(1).isEmpty());
+        // Removed account doesn't report contention anymore.
+        contend(account, 1);
+        assertTrue(hotAccounts.top(1).isEmpty());
+    }
+
+    @Test
+    void transactionsCountContention() {
+        final Account payer = createAccount(1L);
+        final Account payee = createAccount(2L);
+        new AccountingTransaction(Money.of(CurrencyUnit.USD, 1), payer, payee, ZonedDateTime.now()).perform();
+        assertEquals(1, payer.getContention().getAcquisitions());
+        assertEquals(1, payee.getContention().getAcquisitions());
+        assertTrue(payer.getContention().getHoldNanos() > 0);
+    }
+
+    /**
+     * Makes the given count of failed attempts to lock account which is held by another thread.
+     */
+    private void contend(final Account account, final int failures) throws InterruptedException {
+        final CountDownLatch locked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Thread owner = new Thread(() -> {
+            account.getLock().lock();
+            locked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                account.getLock().unlock();
+            }
+        });
+        owner.start();
+        locked.await();
+        for (int i = 0; i < failures; i++) {
+            assertFalse(account.tryLock(0));
+        }
+        release.countDown();
+        owner.join();
+    }
+}
@@ -0,0 +1,108 @@
+package revolut.model;
+
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReadViewTest {
+    private Account createAccount(Long id) {
+        return new Account(id, CurrencyUnit.USD, Money.of(CurrencyUnit.USD, 300), null);
+    }
+
+    private AccountingTransaction transaction(long sum, Account payer, Account payee) {
+        return new AccountingTransaction(Money.of(CurrencyUnit.USD, sum), payer, payee, ZonedDateTime.now());
+    }
+
+    @Test
+    void viewDoesNotSeeLaterTransactions() {
+        final Account first = createAccount(1L);
+        final Account second = createAccount(2L);
+        try (ReadView view = LedgerVersions.open()) {
+            transaction(100, first, second).perform();
+            assertEquals(Money.of(CurrencyUnit.USD, 300), view.balanceOf(first));
+            assertEquals(Money.of(CurrencyUnit.USD, 300), view.balanceOf(second));
+            assertNull(view.balanceOf(createAccount(3L)));
+            try (ReadView later = LedgerVersions.open()) {
+                assertTrue(later.getVersion() > view.getVersion());
+                assertEquals(Money.of(CurrencyUnit.USD, 200), later.balanceOf(first));
+                assertEquals(Money.of(CurrencyUnit.USD, 400), later.balanceOf(second));
+            }
+            assertEquals(Money.of(CurrencyUnit.USD, 300), view.balanceOf(first));
+        }
+    }
+
+    @Test
+    void unfinishedTransactionBelongsToPayer() {
+        final Account first = createAccount(1L);
+        final Account second = createAccount(2L);
+        final AccountingTransaction transaction = transaction(100, first, second);
+        assertTrue(transaction.debit());
+        try (ReadView view = LedgerVersions.open()) {
+            assertEquals(Money.of(CurrencyUnit.USD, 300), view.balanceOf(first));
+        }
+        assertTrue(transaction.credit());
+        try (ReadView view = LedgerVersions.open()) {
+            assertEquals(Money.of(CurrencyUnit.USD, 200), view.balanceOf(first));
+            assertEquals(Money.of(CurrencyUnit.USD, 400), view.balanceOf(second));
+        }
+    }
+
+    @Test
+    void closedView() {
+        final Account account = createAccount(1L);
+        final ReadView view = LedgerVersions.open();
+        view.close();
+        view.close();
+        assertThrows(IllegalStateException.class, () -> view.balanceOf(account));
+    }
+
+    @Test
+    void sumIsTheSameInEveryView() throws InterruptedException {
+        final List<Account> accounts = new ArrayList<>();
+        for (long id = 1; id <= 10; id++) {
+            accounts.add(createAccount(id));
+        }
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            threads.add(new Thread(() -> {
+                final ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (running.get()) {
+                    final Account payer = accounts.get(random.nextInt(accounts.size()));
+                    final Account payee = accounts.get(random.nextInt(accounts.size()));
+                    if (payer != payee) {
+                        transaction(random.nextInt(1, 50), payer, payee).perform();
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        try {
+            for (int i = 0; i < 2000; i++) {
+                try (ReadView view = LedgerVersions.open()) {
+                    Money sum = Money.zero(CurrencyUnit.USD);
+                    for (final Account account : accounts) {
+                        sum = sum.plus(view.balanceOf(account));
+                    }
+                    assertEquals(Money.of(CurrencyUnit.USD, 3000), sum);
+                }
+            }
+        } finally {
+            running.set(false);
+            for (final Thread thread : threads) {
+                thread.join();
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package revolut.provider;
+
+import org.joda.money.CurrencyUnit;
+import org.junit.jupiter.api.Test;
+import revolut.config.Configuration;
+import revolut.model.Account;
+import revolut.model.Entry;
+import revolut.model.EntryStore;
+import revolut.model.Holder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SyntheticDataGeneratorTest {
+    @Test
+    void sameSeedGivesSameData() {
+        final Map<Long, Holder> first = generate(7L);
+        final Map<Long, Holder> second = generate(7L);
+        assertEquals(describe(first), describe(second));
+        assertNotEquals(describe(first), describe(generate(8L)));
+    }
+
+    @Test
+    void settingsAreRespected() {
+        final Map<Long, Holder> holders = generate(1L);
+        assertEquals(200, holders.size());
+        final Set<Long> accountIds = new TreeSet<>();
+        for (final Holder holder : holders.values()) {
+            assertTrue(holder.getAccounts().size() >= 1 && holder.getAccounts().size() <= 4);
+            for (final Account account : holder.getAccounts().values()) {
+                accountIds.add(account.getId());
+                assertTrue(account.getCurrency().equals(CurrencyUnit.USD) || account.getCurrency().equals(CurrencyUnit.JPY));
+                assertTrue(account.getEntries().size() >= 2 && account.getEntries().size() <= 5);
+                assertTrue(account.getBalanceMinor() >= 0);
+                assertEquals(account.getBalance(), account.sumEntries());
+            }
+        }
+        // Ids of accounts are dense.
+        assertEquals(LongStream.rangeClosed(1, accountIds.size()).boxed().collect(Collectors.toList()), List.copyOf(accountIds));
+    }
+
+    @Test
+    void wrongSettings() {
+        final Properties properties = new Properties();
+        properties.setProperty(SyntheticDataGenerator.MIN_ACCOUNTS, "0");
+        assertThrows(IllegalArgumentException.class, () -> new SyntheticDataGenerator(new Configuration(properties)));
+        properties.setProperty(SyntheticDataGenerator.MIN_ACCOUNTS, "1");
+        properties.setProperty(SyntheticDataGenerator.CURRENCIES, "XXXX:1");
+        assertThrows(IllegalArgumentException.class, () -> new SyntheticDataGenerator(new Configuration(properties)));
+    }
+
+    private static Map<Long, Holder> generate(final long seed) {
+        final Properties properties = new Properties();
+        properties.setProperty(SyntheticDataGenerator.SEED, String.valueOf(seed));
+        properties.setProperty(SyntheticDataGenerator.HOLDERS, "200");
+        properties.setProperty(SyntheticDataGenerator.MAX_ACCOUNTS, "4");
+        properties.setProperty(SyntheticDataGenerator.MIN_ENTRIES, "2");
+        properties.setProperty(SyntheticDataGenerator.MAX_ENTRIES, "5");
+        properties.setProperty(SyntheticDataGenerator.CURRENCIES, "USD:3, JPY:1");
+        properties.setProperty(SyntheticDataGenerator.BALANCE_DISTRIBUTION, "uniform");
+        return new SyntheticDataGenerator(new Configuration(properties)).generate(EntryStore.Factory.HEAP);
+    }
+
+    private static String describe(final Map<Long, Holder> holders) {
+        final StringBuilder result = new StringBuilder();
+        for (final Holder holder : holders.values()) {
+            result.append(holder.getId()).append(holder.getFullName());
+            for (final Account account : holder.getAccounts().values()) {
+                result.append(account.getId()).append(account.getInitBalance());
+                for (final Entry entry : account.getEntries()) {
+                    result.append(entry.getAmount()).append(entry.getDate());
+                }
+            }
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,98 @@
+package revolut.recovery;
+
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import revolut.journal.FileJournal;
+import revolut.journal.SyncPolicy;
+import revolut.model.Account;
+import revolut.model.AccountingTransaction;
+import revolut.model.EntryStore;
+import revolut.model.Holder;
+import revolut.model.LockRetryPolicy;
+
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecoveryTest {
+    @TempDir
+    Path directory;
+
+    private Map<Long, Holder> createHolders() {
+        return Map.of(
+                1L, new Holder(1L, "John Doe", Map.of(1L, new Account(1L, CurrencyUnit.USD, Money.of(CurrencyUnit.USD, 1000), null))),
+                2L, new Holder(2L, "Jane Doe", Map.of(
+                        2L, new Account(2L, CurrencyUnit.USD, Money.of(CurrencyUnit.USD, 1000), null),
+                        3L, new Account(3L, CurrencyUnit.USD, Money.of(CurrencyUnit.USD, 1000), null))));
+    }
+
+    private AccountingTransaction transaction(FileJournal journal, Map<Long, Holder> holders, long payerId, long payeeId, long sum) {
+        return new AccountingTransaction(Money.of(CurrencyUnit.USD, sum), account(holders, payerId), account(holders, payeeId),
+                ZonedDateTime.now(), LockRetryPolicy.DEFAULT, journal);
+    }
+
+    private Account account(Map<Long, Holder> holders, long id) {
+        return holders.values().stream().map(holder -> holder.getAccounts().get(id)).filter(a -> a != null).findFirst().get();
+    }
+
+    @Test
+    void snapshotAndJournalTail() throws Exception {
+        final Path journalPath = directory.resolve("journal.bin");
+        final Path snapshotPath = directory.resolve("snapshot.bin");
+        final Map<Long, Holder> holders = createHolders();
+        try (FileJournal journal = new FileJournal(journalPath, SyncPolicy.EVERY_COMMIT, 10, 256)) {
+            transaction(journal, holders, 1, 2, 100).perform();
+            transaction(journal, holders, 2, 3, 50).perform();
+            // Money of unfinished transaction isn't stored in snapshot, the journal brings it after completion.
+            final AccountingTransaction unfinished = transaction(journal, holders, 3, 1, 30);
+            assertTrue(unfinished.debit());
+            final Snapshot.Cut cut = Snapshot.write(snapshotPath, holders.values(), journal.getLastSequence());
+            assertEquals(3, cut.getAccounts());
+            assertEquals(2, cut.getJournalSequence());
+            assertTrue(unfinished.credit());
+            transaction(journal, holders, 1, 3, 20).perform();
+            journal.await(journal.getLastSequence());
+        }
+
+        final Snapshot.Restored restored = Snapshot.read(snapshotPath, EntryStore.Factory.HEAP);
+        final Map<Long, Holder> recovered = restored.getHolders();
+        assertEquals(2, restored.getJournalSequence());
+        assertEquals(Money.of(CurrencyUnit.USD, 900), account(recovered, 1).getBalance());
+        assertEquals(Money.of(CurrencyUnit.USD, 1050), account(recovered, 3).getBalance());
+        assertEquals("Jane Doe", recovered.get(2L).getFullName());
+
+        assertEquals(4, Recovery.replay(recovered, journalPath, restored.getJournalSequence()));
+        for (long id = 1; id <= 3; id++) {
+            assertEquals(account(holders, id).getBalance(), account(recovered, id).getBalance());
+            assertEquals(account(holders, id).getJournalSequence(), account(recovered, id).getJournalSequence());
+        }
+        assertEquals(0, Recovery.replay(recovered, journalPath, 0));
+        // Balances before the snapshot aren't known, the later ones include replayed entries.
+        assertThrows(IllegalArgumentException.class, () -> account(recovered, 1).getBalanceAsOf(ZonedDateTime.now().minusDays(1)));
+        assertEquals(account(holders, 1).getBalance(), account(recovered, 1).getBalanceAsOf(ZonedDateTime.now()));
+    }
+
+    @Test
+    void journalWithoutSnapshot() throws Exception {
+        final Path journalPath = directory.resolve("journal.bin");
+        final Map<Long, Holder> holders = createHolders();
+        try (FileJournal journal = new FileJournal(journalPath, SyncPolicy.EVERY_COMMIT, 10, 256)) {
+            for (int i = 0; i < 10; i++) {
+                transaction(journal, holders, 1 + i % 3, 1 + (i + 1) % 3, 10 + i).perform();
+            }
+            journal.await(journal.getLastSequence());
+        }
+        final Map<Long, Holder> recovered = createHolders();
+        assertEquals(20, Recovery.replay(recovered, journalPath, 0));
+        for (long id = 1; id <= 3; id++) {
+            assertEquals(account(holders, id).getBalance(), account(recovered, id).getBalance());
+            assertEquals(account(holders, id).getEntries().size(), account(recovered, id).getEntries().size());
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package revolut.serializer;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import org.joda.money.CurrencyUnit;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CurrencyTypeAdapterTest {
+    @Test
+    void serialize() throws IOException {
+        CurrencyTypeAdapter currencyAdapter = new CurrencyTypeAdapter();
+        assertEquals("\"USD\"", toJson(currencyAdapter, CurrencyUnit.USD));
+        assertEquals(CurrencyUnit.GBP, fromJson(currencyAdapter, "\"GBP\""));
+    }
+
+    private static <T> String toJson(TypeAdapter<T> adapter, T value) throws IOException {
+        final StringWriter out = new StringWriter();
+        final JsonWriter writer = new JsonWriter(out);
+        writer.setLenient(true);
+        adapter.write(writer, value);
+        return out.toString();
+    }
+
+    private static <T> T fromJson(TypeAdapter<T> adapter, String json) throws IOException {
+        final JsonReader reader = new JsonReader(new StringReader(json));
+        reader.setLenient(true);
+        return adapter.read(reader);
+    }
+}
@@ -0,0 +1,38 @@
+package revolut.serializer;
+
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+import org.junit.jupiter.api.Test;
+import revolut.model.Account;
+import revolut.model.Entry;
+import revolut.model.Holder;
+
+import java.io.IOException;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HolderTypeAdapterTest {
+    private final MoneyTypeAdapter moneyAdapter = new MoneyTypeAdapter();
+    private final HolderTypeAdapter holderAdapter = new HolderTypeAdapter(new AccountTypeAdapter(
+            new EntryTypeAdapter(moneyAdapter, new ZonedDateTimeTypeAdapter()), moneyAdapter, new CurrencyTypeAdapter()));
+
+    @Test
+    void serialize() throws IOException {
+        final Entry entry = new Entry(Money.of(CurrencyUnit.USD, 100), ZonedDateTime.of(2020, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC));
+        final Account account = new Account(1L, CurrencyUnit.USD, Money.of(CurrencyUnit.USD, 10), List.of(entry));
+        final Holder holder = new Holder(1L, "John Doe", Map.of(1L, account));
+        final String json = holderAdapter.toJson(holder);
+        assertEquals("{\"id\":1,\"fullName\":\"John Doe\",\"accounts\":{\"1\":{\"id\":1,"
+                + "\"entries\":[{\"amount\":\"$ 100.00\",\"date\":\"01/01/2020 - 00:00:00 +0000\"}],"
+                + "\"initBalance\":\"$ 10.00\",\"currency\":\"USD\"}}}", json);
+
+        final Holder read = holderAdapter.fromJson(json);
+        assertEquals(holder, read);
+        assertEquals("John Doe", read.getFullName());
+        assertEquals(Money.of(CurrencyUnit.USD, 110), read.getAccounts().get(1L).getBalance());
+    }
+}
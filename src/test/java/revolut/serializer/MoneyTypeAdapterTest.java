@@ -0,0 +1,39 @@
+package revolut.serializer;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MoneyTypeAdapterTest {
+    @Test
+    void serialize() throws IOException {
+        MoneyTypeAdapter moneyAdapter = new MoneyTypeAdapter();
+        assertEquals("\"$ 50.00\"", toJson(moneyAdapter, Money.of(CurrencyUnit.USD, 50)));
+        assertEquals(Money.of(CurrencyUnit.USD, 50), fromJson(moneyAdapter, "\"$ 50.00\""));
+        assertEquals(Money.of(CurrencyUnit.USD, 1234.5), fromJson(moneyAdapter, toJson(moneyAdapter, Money.of(CurrencyUnit.USD, 1234.5))));
+        assertEquals(Money.of(CurrencyUnit.EUR, 10), fromJson(moneyAdapter, "\"EUR 10.00\""));
+    }
+
+    private static <T> String toJson(TypeAdapter<T> adapter, T value) throws IOException {
+        final StringWriter out = new StringWriter();
+        final JsonWriter writer = new JsonWriter(out);
+        writer.setLenient(true);
+        adapter.write(writer, value);
+        return out.toString();
+    }
+
+    private static <T> T fromJson(TypeAdapter<T> adapter, String json) throws IOException {
+        final JsonReader reader = new JsonReader(new StringReader(json));
+        reader.setLenient(true);
+        return adapter.read(reader);
+    }
+}
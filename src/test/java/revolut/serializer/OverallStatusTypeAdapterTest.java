@@ -0,0 +1,23 @@
+package revolut.serializer;
+
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+import org.junit.jupiter.api.Test;
+import revolut.model.AccountingTransaction;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OverallStatusTypeAdapterTest {
+    @Test
+    void serialize() throws IOException {
+        final OverallStatusTypeAdapter statusAdapter = new OverallStatusTypeAdapter(new MoneyTypeAdapter());
+        final AccountingTransaction.OverallStatus status = new AccountingTransaction.OverallStatus();
+        status.setStatus(AccountingTransaction.TransactionStatus.OK);
+        status.setTransferSum(Money.of(CurrencyUnit.USD, 5));
+        final String json = statusAdapter.toJson(status);
+        assertEquals("{\"transferSum\":\"$ 5.00\",\"status\":\"OK\"}", json);
+        assertEquals(status, statusAdapter.fromJson(json));
+    }
+}
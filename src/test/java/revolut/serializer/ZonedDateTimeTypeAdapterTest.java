@@ -0,0 +1,39 @@
+package revolut.serializer;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ZonedDateTimeTypeAdapterTest {
+    @Test
+    void serialize() throws IOException {
+        ZonedDateTimeTypeAdapter dateAdapter = new ZonedDateTimeTypeAdapter();
+        ZonedDateTime zonedDateTime = ZonedDateTime.of(2020, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        assertEquals("\"01/01/2020 - 00:00:00 +0000\"", toJson(dateAdapter, zonedDateTime));
+        assertTrue(zonedDateTime.isEqual(fromJson(dateAdapter, "\"01/01/2020 - 00:00:00 +0000\"")));
+    }
+
+    private static <T> String toJson(TypeAdapter<T> adapter, T value) throws IOException {
+        final StringWriter out = new StringWriter();
+        final JsonWriter writer = new JsonWriter(out);
+        writer.setLenient(true);
+        adapter.write(writer, value);
+        return out.toString();
+    }
+
+    private static <T> T fromJson(TypeAdapter<T> adapter, String json) throws IOException {
+        final JsonReader reader = new JsonReader(new StringReader(json));
+        reader.setLenient(true);
+        return adapter.read(reader);
+    }
+}
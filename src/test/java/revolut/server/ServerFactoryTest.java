@@ -0,0 +1,112 @@
+package revolut.server;
+
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.junit.jupiter.api.Test;
+import revolut.config.Configuration;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ServerFactoryTest {
+    @Test
+    void settings() {
+        final Properties properties = new Properties();
+        properties.setProperty(ServerFactory.PORT, "0");
+        properties.setProperty(ServerFactory.MIN_THREADS, "4");
+        properties.setProperty(ServerFactory.MAX_THREADS, "16");
+        properties.setProperty(ServerFactory.ACCEPTORS, "1");
+        properties.setProperty(ServerFactory.IDLE_TIMEOUT, "PT5S");
+        final Server server = ServerFactory.create(new Configuration(properties), new OkHandler(null, null));
+        final QueuedThreadPool pool = (QueuedThreadPool) server.getThreadPool();
+        assertEquals(4, pool.getMinThreads());
+        assertEquals(16, pool.getMaxThreads());
+        final ServerConnector connector = (ServerConnector) server.getConnectors()[0];
+        assertEquals(1, connector.getAcceptors());
+        assertEquals(5000, connector.getIdleTimeout());
+        assertTrue(server.getHandler() instanceof LoadSheddingHandler);
+
+        properties.setProperty(ServerFactory.MAX_THREADS, "2");
+        assertThrows(IllegalArgumentException.class, () -> ServerFactory.create(new Configuration(properties), new OkHandler(null, null)));
+    }
+
+    @Test
+    void saturatedServerSheds() throws Exception {
+        final Properties properties = new Properties();
+        properties.setProperty(ServerFactory.PORT, "0");
+        properties.setProperty(ServerFactory.MAX_REQUESTS, "1");
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Server server = ServerFactory.create(new Configuration(properties), new OkHandler(started, release));
+        server.start();
+        try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
+            final String url = String.format("http://localhost:%d/", ((ServerConnector) server.getConnectors()[0]).getLocalPort());
+            final CompletableFuture<Integer> first = CompletableFuture.supplyAsync(() -> status(httpClient, url));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            final long shed = LoadSheddingHandler.getShed();
+            try (CloseableHttpResponse response = httpClient.execute(new HttpGet(url))) {
+                assertEquals(HttpStatus.SC_SERVICE_UNAVAILABLE, response.getStatusLine().getStatusCode());
+                assertEquals(LoadSheddingHandler.RETRY_AFTER_SECONDS, response.getFirstHeader("Retry-After").getValue());
+            }
+            assertEquals(shed + 1, LoadSheddingHandler.getShed());
+
+            release.countDown();
+            assertEquals(HttpStatus.SC_OK, (int) first.get(5, TimeUnit.SECONDS));
+            assertEquals(HttpStatus.SC_OK, status(httpClient, url));
+        } finally {
+            release.countDown();
+            server.stop();
+        }
+    }
+
+    private static int status(final CloseableHttpClient httpClient, final String url) {
+        try (CloseableHttpResponse response = httpClient.execute(new HttpGet(url))) {
+            return response.getStatusLine().getStatusCode();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class OkHandler extends AbstractHandler {
+        private final CountDownLatch started;
+        private final CountDownLatch release;
+
+        private OkHandler(final CountDownLatch started, final CountDownLatch release) {
+            this.started = started;
+            this.release = release;
+        }
+
+        @Override
+        public void handle(final String target, final Request baseRequest, final HttpServletRequest request,
+                           final HttpServletResponse response) {
+            if (started != null && started.getCount() > 0) {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            response.setStatus(HttpServletResponse.SC_OK);
+            baseRequest.setHandled(true);
+        }
+    }
+}
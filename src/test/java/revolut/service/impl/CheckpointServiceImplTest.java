@@ -0,0 +1,57 @@
+package revolut.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import revolut.config.Configuration;
+import revolut.engine.ShardedTransferEngine;
+import revolut.model.Account;
+import revolut.model.EntryArchive;
+import revolut.service.CheckpointService;
+
+import java.time.ZonedDateTime;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CheckpointServiceImplTest {
+    private HolderServiceImpl holderService;
+    private CheckpointService checkpointService;
+
+    @BeforeEach
+    void setUp() {
+        holderService = new HolderServiceImpl();
+        checkpointService = new CheckpointServiceImpl(holderService, new Configuration(new Properties()));
+    }
+
+    @Test
+    void checkpoint() {
+        final Account account = holderService.getAccountById(1L);
+        final int entries = account.getEntries().size();
+        assertEquals(0, checkpointService.checkpoint(ZonedDateTime.now().minusDays(1)));
+        assertEquals(7 * entries, checkpointService.checkpoint(ZonedDateTime.now().plusDays(1)));
+        assertEquals(0, account.getEntries().size());
+        assertEquals(entries, account.getArchivedCount());
+        assertEquals(account.getBalance(), account.getInitBalance());
+    }
+
+    @Test
+    void checkpointByOwners() {
+        final Account account = holderService.getAccountById(1L);
+        final int entries = account.getEntries().size();
+        try (ShardedTransferEngine engine = new ShardedTransferEngine(2, 16)) {
+            checkpointService = new CheckpointServiceImpl(holderService, new Configuration(new Properties()), EntryArchive.NONE, engine);
+            assertEquals(7 * entries, checkpointService.checkpoint(ZonedDateTime.now().plusDays(1)));
+        }
+        assertEquals(0, account.getEntries().size());
+        assertEquals(account.getBalance(), account.getInitBalance());
+    }
+
+    @Test
+    void enabledWithoutArchive() {
+        final Properties properties = new Properties();
+        properties.setProperty(CheckpointServiceImpl.ENABLED, "true");
+        assertThrows(IllegalStateException.class,
+                () -> new CheckpointServiceImpl(holderService, new Configuration(properties), EntryArchive.NONE));
+    }
+}
@@ -1,15 +1,24 @@
 package revolut.service.impl;
 
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import revolut.model.Account;
 import revolut.model.Holder;
 import revolut.service.HolderService;
 
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class HolderServiceImplTest {
     private static HolderService holderService;
@@ -25,6 +34,15 @@ class HolderServiceImplTest {
         assertFalse(holders.isEmpty());
     }
 
+    @Test
+    void getHoldersPage() {
+        final List<Holder> first = holderService.getHolders(null, 2);
+        assertEquals(List.of(1L, 2L), first.stream().map(Holder::getId).collect(Collectors.toList()));
+        final List<Holder> second = holderService.getHolders(2L, 10);
+        assertEquals(List.of(3L, 4L), second.stream().map(Holder::getId).collect(Collectors.toList()));
+        assertTrue(holderService.getHolders(4L, 10).isEmpty());
+    }
+
     @Test
     void getHolderById() {
         Holder holder = holderService.getHolderById(1L);
@@ -36,4 +54,46 @@ class HolderServiceImplTest {
         Account account = holderService.getAccountById(1L);
         assertNotNull(account);
     }
-}
\ No newline at end of file
+
+    @Test
+    void totalBalance() {
+        final HolderService service = new HolderServiceImpl();
+        assertEquals(Money.of(CurrencyUnit.USD, 3000), service.getTotalBalance(CurrencyUnit.USD));
+        assertEquals(Money.of(CurrencyUnit.GBP, 500), service.getTotalBalance(CurrencyUnit.GBP));
+        assertEquals(Money.zero(CurrencyUnit.EUR), service.getTotalBalance(CurrencyUnit.EUR));
+
+        final Account account = new Account(100L, CurrencyUnit.USD, Money.of(CurrencyUnit.USD, 10.5), null);
+        service.addHolder(new Holder(100L, "John Doe", Map.of(100L, account)));
+        assertEquals(Money.of(CurrencyUnit.USD, 3010.5), service.getTotalBalance(CurrencyUnit.USD));
+        // The same account isn't counted twice.
+        service.addHolder(new Holder(100L, "John Smith", Map.of(100L, account)));
+        assertEquals(Money.of(CurrencyUnit.USD, 3010.5), service.getTotalBalance(CurrencyUnit.USD));
+        service.removeHolder(100L);
+        assertEquals(Money.of(CurrencyUnit.USD, 3000), service.getTotalBalance(CurrencyUnit.USD));
+    }
+
+    @Test
+    void addAndRemoveHolder() {
+        final HolderService service = new HolderServiceImpl();
+        final Account account = new Account(100L, CurrencyUnit.USD, null, null);
+        final Holder holder = new Holder(100L, "John Doe", Map.of(100L, account));
+        service.addHolder(holder);
+        assertSame(holder, service.getHolderById(100L));
+        assertSame(account, service.getAccountById(100L));
+
+        final Account replacement = new Account(101L, CurrencyUnit.USD, null, null);
+        service.addHolder(new Holder(100L, "John Doe", Map.of(101L, replacement)));
+        assertNull(service.getAccountById(100L));
+        assertSame(replacement, service.getAccountById(101L));
+
+        // Account 1 belongs to holder 1.
+        final Holder wrong = new Holder(200L, "Jane Doe", Map.of(1L, new Account(1L, CurrencyUnit.USD, null, null)));
+        assertThrows(IllegalArgumentException.class, () -> service.addHolder(wrong));
+        assertNull(service.getHolderById(200L));
+
+        assertNotNull(service.removeHolder(100L));
+        assertNull(service.getHolderById(100L));
+        assertNull(service.getAccountById(101L));
+        assertNull(service.getAccountById(null));
+    }
+}
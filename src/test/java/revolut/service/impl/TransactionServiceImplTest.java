@@ -4,13 +4,21 @@ import org.joda.money.CurrencyUnit;
 import org.joda.money.Money;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import revolut.engine.ShardedTransferEngine;
+import revolut.exception.IdempotencyKeyReusedException;
 import revolut.model.AccountingTransaction;
+import revolut.model.BatchMode;
+import revolut.model.BatchTransaction;
+import revolut.model.LockRetryPolicy;
+import revolut.request.BatchTransactionRequest;
 import revolut.request.TransactionRequest;
 import revolut.service.TransactionService;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static revolut.model.Account.FixerStatus;
 
@@ -39,6 +47,32 @@ class TransactionServiceImplTest {
         assertEquals(Money.of(CurrencyUnit.USD, 100), status.getTransferSum());
     }
 
+    @Test
+    void performIdempotent() {
+        final TransactionRequest request = new TransactionRequest();
+        request.setSum(new BigDecimal(100));
+        request.setPayeeAccountId(1L);
+        request.setPayerAccountId(2L);
+        final AccountingTransaction.OverallStatus first = transactionService.perform(request, "key-1");
+        final TransactionRequest retry = new TransactionRequest();
+        retry.setSum(new BigDecimal("100.00"));
+        retry.setPayeeAccountId(1L);
+        retry.setPayerAccountId(2L);
+        assertSame(first, transactionService.perform(retry, "key-1"));
+        assertEquals(Money.of(CurrencyUnit.USD, 400), transactionService.perform(request, "key-2").getInitialPayerBalance());
+        assertEquals(Money.of(CurrencyUnit.USD, 300), transactionService.perform(request).getInitialPayerBalance());
+
+        retry.setSum(new BigDecimal(1));
+        assertThrows(IdempotencyKeyReusedException.class, () -> transactionService.perform(retry, "key-1"));
+        // Failed request isn't remembered.
+        final TransactionRequest missing = new TransactionRequest();
+        missing.setSum(new BigDecimal(1));
+        missing.setPayeeAccountId(-1L);
+        missing.setPayerAccountId(2L);
+        assertThrows(NullPointerException.class, () -> transactionService.perform(missing, "key-3"));
+        assertEquals(FixerStatus.GOOD, transactionService.perform(retry, "key-3").getPayerStatus());
+    }
+
     @Test
     void performInValid() {
         {
@@ -64,4 +98,72 @@ class TransactionServiceImplTest {
         }
     }
 
-}
\ No newline at end of file
+    @Test
+    void performWithShardedEngine() {
+        final HolderServiceImpl holderService = new HolderServiceImpl();
+        try (ShardedTransferEngine engine = new ShardedTransferEngine(2, 16)) {
+            final TransactionService service = new TransactionServiceImpl(holderService, LockRetryPolicy.DEFAULT, engine);
+            final TransactionRequest request = new TransactionRequest();
+            request.setSum(new BigDecimal(100));
+            request.setPayeeAccountId(1L);
+            request.setPayerAccountId(2L);
+            AccountingTransaction.OverallStatus status = service.perform(request);
+            assertEquals(AccountingTransaction.TransactionStatus.OK, status.getStatus());
+            assertEquals(Money.of(CurrencyUnit.USD, 400), status.getPayerBalance());
+            assertEquals(Money.of(CurrencyUnit.USD, 600), status.getPayeeBalance());
+            assertEquals(Money.of(CurrencyUnit.USD, 3000), service.getTotalSystemBalance(CurrencyUnit.USD));
+        }
+    }
+
+    @Test
+    void performBatchWithShardedEngine() {
+        final HolderServiceImpl holderService = new HolderServiceImpl();
+        try (ShardedTransferEngine engine = new ShardedTransferEngine(2, 16)) {
+            final TransactionService service = new TransactionServiceImpl(holderService, LockRetryPolicy.DEFAULT, engine);
+            final TransactionRequest first = new TransactionRequest();
+            first.setSum(new BigDecimal(100));
+            first.setPayerAccountId(1L);
+            first.setPayeeAccountId(2L);
+            final TransactionRequest second = new TransactionRequest();
+            second.setSum(new BigDecimal(50));
+            second.setPayerAccountId(3L);
+            second.setPayeeAccountId(5L);
+            final BatchTransactionRequest request = new BatchTransactionRequest();
+            request.setTransactions(List.of(first, second));
+            request.setMode(BatchMode.ALL_OR_NOTHING);
+            BatchTransaction.BatchStatus status = service.performBatch(request);
+            assertEquals(2, status.getSucceeded());
+            assertEquals(Money.of(CurrencyUnit.USD, 400), status.getResults().get(0).getPayerBalance());
+            assertEquals(Money.of(CurrencyUnit.USD, 3000), service.getTotalSystemBalance(CurrencyUnit.USD));
+
+            // Accounts of the second transaction belong to the same shard.
+            request.setMode(BatchMode.BEST_EFFORT);
+            request.setTransactions(List.of(second));
+            status = service.performBatch(request);
+            assertEquals(1, status.getSucceeded());
+            assertEquals(Money.of(CurrencyUnit.USD, 400), status.getResults().get(0).getPayerBalance());
+        }
+    }
+
+    @Test
+    void performBatch() {
+        final TransactionRequest first = new TransactionRequest();
+        first.setSum(new BigDecimal(100));
+        first.setPayerAccountId(1L);
+        first.setPayeeAccountId(2L);
+        final TransactionRequest second = new TransactionRequest();
+        second.setSum(new BigDecimal(50));
+        second.setPayerAccountId(2L);
+        second.setPayeeAccountId(3L);
+        final BatchTransactionRequest request = new BatchTransactionRequest();
+        request.setTransactions(List.of(first, second));
+        BatchTransaction.BatchStatus status = transactionService.performBatch(request);
+        assertEquals(BatchMode.BEST_EFFORT, status.getMode());
+        assertEquals(2, status.getSucceeded());
+        assertEquals(Money.of(CurrencyUnit.USD, 550), status.getResults().get(1).getPayerBalance());
+
+        second.setPayeeAccountId(-3L);
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> transactionService.performBatch(request));
+        assertEquals("Transaction 1: Payee not found.", exception.getMessage());
+    }
+}